@@ -0,0 +1,61 @@
+package com.ra4king.circuitsim.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.ra4king.circuitsim.gui.CircuitSim;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.components.wiring.Clock;
+
+/**
+ * Runs full clock cycles of the bundled example CPUs, loaded headlessly the same way the tests load circuits.
+ *
+ * @author Roi Atalla
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExampleCircuitBenchmark {
+	@Param({ "examples/CPU.sim", "examples/Pipelined-CPU.sim" })
+	public String file;
+	
+	@Param({ "100" })
+	public int cycles;
+	
+	private CircuitSim circuitSim;
+	private Simulator simulator;
+	
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		circuitSim = new CircuitSim(false);
+		circuitSim.loadCircuits(new File(file));
+		simulator = circuitSim.getSimulator();
+		simulator.runSync(simulator::stepAll);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		Clock.reset(simulator);
+	}
+	
+	@Benchmark
+	public void clockCycles() {
+		simulator.runSync(() -> {
+			for(int i = 0; i < cycles * 2; i++) {
+				Clock.tick(simulator);
+				simulator.stepAll();
+			}
+		});
+	}
+}
@@ -0,0 +1,175 @@
+package com.ra4king.circuitsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.ra4king.circuitsim.benchmarks.SyntheticCircuits.Built;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.wiring.Clock;
+
+/**
+ * End-to-end stepAll benchmarks on synthetic circuits of configurable size.
+ *
+ * @author Roi Atalla
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SimulatorBenchmark {
+	@State(Scope.Thread)
+	public static class GateChain {
+		@Param({ "100", "1000" })
+		public int length;
+		
+		Simulator simulator;
+		CircuitState state;
+		Built built;
+		WireValue[] values;
+		int index;
+		
+		@Setup(Level.Trial)
+		public void setup() {
+			simulator = new Simulator();
+			built = SyntheticCircuits.gateChain(simulator, length, 8);
+			state = built.circuit.getTopLevelState();
+			values = new WireValue[] { WireValue.of(0x00, 8), WireValue.of(0xFF, 8) };
+			simulator.stepAll();
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class RippleAdder {
+		@Param({ "8", "32" })
+		public int bitSize;
+		
+		Simulator simulator;
+		CircuitState state;
+		Built built;
+		long counter;
+		
+		@Setup(Level.Trial)
+		public void setup() {
+			simulator = new Simulator();
+			built = SyntheticCircuits.rippleCarryAdder(simulator, bitSize);
+			state = built.circuit.getTopLevelState();
+			built.inputs[2].setValue(state, WireValue.of(0, 1));
+			simulator.stepAll();
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class RegisterFile {
+		@Param({ "5" })
+		public int addressBits;
+		
+		@Param({ "32" })
+		public int bitSize;
+		
+		Simulator simulator;
+		CircuitState state;
+		Built built;
+		int counter;
+		
+		@Setup(Level.Trial)
+		public void setup() {
+			simulator = new Simulator();
+			built = SyntheticCircuits.registerFile(simulator, addressBits, bitSize);
+			state = built.circuit.getTopLevelState();
+			simulator.stepAll();
+		}
+		
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			Clock.reset(simulator);
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class RamBank {
+		@Param({ "16" })
+		public int numRams;
+		
+		@Param({ "16" })
+		public int addressBits;
+		
+		Simulator simulator;
+		CircuitState state;
+		Built built;
+		int counter;
+		
+		@Setup(Level.Trial)
+		public void setup() {
+			simulator = new Simulator();
+			built = SyntheticCircuits.ramBank(simulator, numRams, addressBits, 32);
+			state = built.circuit.getTopLevelState();
+			built.inputs[2].setValue(state, WireValue.of(1, 1));
+			simulator.stepAll();
+		}
+		
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			Clock.reset(simulator);
+		}
+	}
+	
+	@Benchmark
+	public int gateChain(GateChain chain) {
+		chain.built.inputs[0].setValue(chain.state, chain.values[chain.index ^= 1]);
+		chain.simulator.stepAll();
+		return chain.state.getLastReceived(chain.built.outputs[0].getPort(0)).getValue();
+	}
+	
+	@Benchmark
+	public int rippleCarryAdder(RippleAdder adder) {
+		long counter = adder.counter++;
+		adder.built.inputs[0].setValue(adder.state, WireValue.of(counter, adder.bitSize));
+		adder.built.inputs[1].setValue(adder.state, WireValue.of(~counter, adder.bitSize));
+		adder.simulator.stepAll();
+		return adder.state.getLastReceived(adder.built.outputs[0].getPort(0)).getValue();
+	}
+	
+	/**
+	 * One full clock cycle: write a register, then tick the clock high and low.
+	 */
+	@Benchmark
+	public int registerFileCycle(RegisterFile file) {
+		int counter = file.counter++;
+		int address = counter & ((1 << file.addressBits) - 1);
+		file.built.inputs[0].setValue(file.state, WireValue.of(address, file.addressBits));
+		file.built.inputs[1].setValue(file.state, WireValue.of(address ^ 1, file.addressBits));
+		file.built.inputs[2].setValue(file.state, WireValue.of(counter, file.bitSize));
+		file.simulator.stepAll();
+		Clock.tick(file.simulator);
+		file.simulator.stepAll();
+		Clock.tick(file.simulator);
+		file.simulator.stepAll();
+		return file.state.getLastReceived(file.built.outputs[0].getPort(0)).getValue();
+	}
+	
+	/**
+	 * One full clock cycle storing to a new address in every RAM.
+	 */
+	@Benchmark
+	public int ramBankCycle(RamBank bank) {
+		int counter = bank.counter++;
+		bank.built.inputs[0].setValue(bank.state, WireValue.of(counter * 31, bank.addressBits));
+		bank.built.inputs[1].setValue(bank.state, WireValue.of(counter, 32));
+		bank.simulator.stepAll();
+		Clock.tick(bank.simulator);
+		bank.simulator.stepAll();
+		Clock.tick(bank.simulator);
+		bank.simulator.stepAll();
+		return bank.state.getLastReceived(bank.built.outputs[0].getPort(0)).getValue();
+	}
+}
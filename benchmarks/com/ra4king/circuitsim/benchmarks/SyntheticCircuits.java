@@ -0,0 +1,154 @@
+package com.ra4king.circuitsim.benchmarks;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.Port;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.components.gates.AndGate;
+import com.ra4king.circuitsim.simulator.components.gates.NotGate;
+import com.ra4king.circuitsim.simulator.components.gates.OrGate;
+import com.ra4king.circuitsim.simulator.components.gates.XorGate;
+import com.ra4king.circuitsim.simulator.components.memory.RAM;
+import com.ra4king.circuitsim.simulator.components.memory.Register;
+import com.ra4king.circuitsim.simulator.components.plexers.Decoder;
+import com.ra4king.circuitsim.simulator.components.plexers.Multiplexer;
+import com.ra4king.circuitsim.simulator.components.wiring.Clock;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+import com.ra4king.circuitsim.simulator.components.wiring.Splitter;
+
+/**
+ * Builders for the synthetic circuits used by the benchmarks. Every builder creates its circuit in the given
+ * Simulator and returns the input and output Pins the benchmarks drive and observe.
+ *
+ * @author Roi Atalla
+ */
+public class SyntheticCircuits {
+	private SyntheticCircuits() {}
+	
+	public static class Built {
+		public final Circuit circuit;
+		public final Pin[] inputs;
+		public final Pin[] outputs;
+		
+		Built(Circuit circuit, Pin[] inputs, Pin[] outputs) {
+			this.circuit = circuit;
+			this.inputs = inputs;
+			this.outputs = outputs;
+		}
+	}
+	
+	/**
+	 * A chain of NOT gates: one input Pin, one output Pin, {@code length} gates in between.
+	 */
+	public static Built gateChain(Simulator simulator, int length, int bitSize) {
+		Circuit circuit = new Circuit("Gate chain", simulator);
+		Pin in = circuit.addComponent(new Pin("In", bitSize, true));
+		Pin out = circuit.addComponent(new Pin("Out", bitSize, false));
+		
+		Port previous = in.getPort(Pin.PORT);
+		for(int i = 0; i < length; i++) {
+			NotGate not = circuit.addComponent(new NotGate("", bitSize));
+			not.getPort(0).linkPort(previous);
+			previous = not.getPort(1);
+		}
+		previous.linkPort(out.getPort(Pin.PORT));
+		
+		return new Built(circuit, new Pin[] { in }, new Pin[] { out });
+	}
+	
+	/**
+	 * A ripple-carry adder built out of 1-bit full adders made of gates, with splitters on the inputs and output.
+	 */
+	public static Built rippleCarryAdder(Simulator simulator, int bitSize) {
+		Circuit circuit = new Circuit("Ripple carry adder", simulator);
+		Pin a = circuit.addComponent(new Pin("A", bitSize, true));
+		Pin b = circuit.addComponent(new Pin("B", bitSize, true));
+		Pin cin = circuit.addComponent(new Pin("Cin", 1, true));
+		Pin sum = circuit.addComponent(new Pin("Sum", bitSize, false));
+		Pin cout = circuit.addComponent(new Pin("Cout", 1, false));
+		
+		Splitter splitA = circuit.addComponent(new Splitter("", bitSize, bitSize));
+		Splitter splitB = circuit.addComponent(new Splitter("", bitSize, bitSize));
+		Splitter joinSum = circuit.addComponent(new Splitter("", bitSize, bitSize));
+		splitA.getPort(splitA.PORT_JOINED).linkPort(a.getPort(Pin.PORT));
+		splitB.getPort(splitB.PORT_JOINED).linkPort(b.getPort(Pin.PORT));
+		joinSum.getPort(joinSum.PORT_JOINED).linkPort(sum.getPort(Pin.PORT));
+		
+		Port carry = cin.getPort(Pin.PORT);
+		for(int i = 0; i < bitSize; i++) {
+			XorGate xor1 = circuit.addComponent(new XorGate("", 1, 2));
+			XorGate xor2 = circuit.addComponent(new XorGate("", 1, 2));
+			AndGate and1 = circuit.addComponent(new AndGate("", 1, 2));
+			AndGate and2 = circuit.addComponent(new AndGate("", 1, 2));
+			OrGate or = circuit.addComponent(new OrGate("", 1, 2));
+			
+			xor1.getPort(0).linkPort(splitA.getPort(i)).linkPort(and1.getPort(0));
+			xor1.getPort(1).linkPort(splitB.getPort(i)).linkPort(and1.getPort(1));
+			xor2.getPort(0).linkPort(xor1.getPort(2)).linkPort(and2.getPort(0));
+			xor2.getPort(1).linkPort(carry).linkPort(and2.getPort(1));
+			xor2.getPort(2).linkPort(joinSum.getPort(i));
+			or.getPort(0).linkPort(and1.getPort(2));
+			or.getPort(1).linkPort(and2.getPort(2));
+			
+			carry = or.getPort(2);
+		}
+		carry.linkPort(cout.getPort(Pin.PORT));
+		
+		return new Built(circuit, new Pin[] { a, b, cin }, new Pin[] { sum, cout });
+	}
+	
+	/**
+	 * A register file with {@code numRegisters} registers: a decoder on the write address selects the register to
+	 * enable, and a multiplexer on the read address selects the output. Every register is driven by a Clock.
+	 */
+	public static Built registerFile(Simulator simulator, int addressBits, int bitSize) {
+		int numRegisters = 1 << addressBits;
+		
+		Circuit circuit = new Circuit("Register file", simulator);
+		Pin writeAddress = circuit.addComponent(new Pin("Write address", addressBits, true));
+		Pin readAddress = circuit.addComponent(new Pin("Read address", addressBits, true));
+		Pin data = circuit.addComponent(new Pin("Data", bitSize, true));
+		Pin out = circuit.addComponent(new Pin("Out", bitSize, false));
+		Clock clock = circuit.addComponent(new Clock("Clock"));
+		
+		Decoder decoder = circuit.addComponent(new Decoder("", addressBits));
+		Multiplexer mux = circuit.addComponent(new Multiplexer("", bitSize, addressBits));
+		decoder.getPort(decoder.getNumPorts() - 1).linkPort(writeAddress.getPort(Pin.PORT));
+		mux.getSelectorPort().linkPort(readAddress.getPort(Pin.PORT));
+		mux.getOutPort().linkPort(out.getPort(Pin.PORT));
+		
+		for(int i = 0; i < numRegisters; i++) {
+			Register register = circuit.addComponent(new Register("", bitSize));
+			register.getPort(Register.PORT_IN).linkPort(data.getPort(Pin.PORT));
+			register.getPort(Register.PORT_ENABLE).linkPort(decoder.getPort(i));
+			register.getPort(Register.PORT_CLK).linkPort(clock.getPort(Clock.PORT));
+			register.getPort(Register.PORT_OUT).linkPort(mux.getInputPort(i));
+		}
+		
+		return new Built(circuit, new Pin[] { writeAddress, readAddress, data }, new Pin[] { out });
+	}
+	
+	/**
+	 * {@code numRams} RAMs sharing an address and data input, all clocked by the same Clock and always storing.
+	 */
+	public static Built ramBank(Simulator simulator, int numRams, int addressBits, int bitSize) {
+		Circuit circuit = new Circuit("RAM bank", simulator);
+		Pin address = circuit.addComponent(new Pin("Address", addressBits, true));
+		Pin data = circuit.addComponent(new Pin("Data", bitSize, true));
+		Pin store = circuit.addComponent(new Pin("Store", 1, true));
+		Clock clock = circuit.addComponent(new Clock("Clock"));
+		
+		Pin[] outputs = new Pin[numRams];
+		for(int i = 0; i < numRams; i++) {
+			RAM ram = circuit.addComponent(new RAM("", bitSize, addressBits, true));
+			ram.getPort(RAM.PORT_ADDRESS).linkPort(address.getPort(Pin.PORT));
+			ram.getPort(RAM.PORT_DATA_IN).linkPort(data.getPort(Pin.PORT));
+			ram.getPort(RAM.PORT_STORE).linkPort(store.getPort(Pin.PORT));
+			ram.getPort(RAM.PORT_CLK).linkPort(clock.getPort(Clock.PORT));
+			
+			outputs[i] = circuit.addComponent(new Pin("Out " + i, bitSize, false));
+			ram.getPort(RAM.PORT_DATA).linkPort(outputs[i].getPort(Pin.PORT));
+		}
+		
+		return new Built(circuit, new Pin[] { address, data, store }, outputs);
+	}
+}
@@ -0,0 +1,57 @@
+package com.ra4king.circuitsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ra4king.circuitsim.simulator.WireValue;
+
+/**
+ * Microbenchmarks for the WireValue operations that sit on the propagation hot path.
+ *
+ * @author Roi Atalla
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WireValueBenchmark {
+	@Param({ "1", "8", "32" })
+	public int bitSize;
+	
+	private WireValue a, b, floating;
+	private long counter;
+	
+	@Setup
+	public void setup() {
+		a = WireValue.of(0x5A5A5A5A, bitSize);
+		b = WireValue.of(0x5A5A5A5A, bitSize);
+		floating = new WireValue(bitSize);
+	}
+	
+	@Benchmark
+	public WireValue merge() {
+		return new WireValue(floating).merge(a);
+	}
+	
+	@Benchmark
+	public boolean equalValues() {
+		return a.equals(b);
+	}
+	
+	@Benchmark
+	public WireValue of() {
+		return WireValue.of(counter++, bitSize);
+	}
+	
+	@Benchmark
+	public int getValue() {
+		return a.getValue();
+	}
+}
@@ -0,0 +1,74 @@
+package com.ra4king.circuitsim.simulator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ra4king.circuitsim.simulator.Port.Link;
+import com.ra4king.circuitsim.simulator.components.gates.AndGate;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * Benchmarks pushValue and propagateSignal on a single Link with a varying number of participants. This lives in the
+ * simulator package since propagateSignal is package-private.
+ *
+ * @author Roi Atalla
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CircuitStateBenchmark {
+	@Param({ "2", "16", "64" })
+	public int fanout;
+	
+	@Param({ "1", "32" })
+	public int bitSize;
+	
+	private Simulator simulator;
+	private CircuitState state;
+	private Port source;
+	private Link link;
+	private WireValue[] values;
+	private int index;
+	
+	@Setup
+	public void setup() {
+		simulator = new Simulator();
+		Circuit circuit = new Circuit("Fanout", simulator);
+		Pin in = circuit.addComponent(new Pin("In", bitSize, true));
+		source = in.getPort(Pin.PORT);
+		for(int i = 0; i < fanout - 1; i++) {
+			AndGate gate = circuit.addComponent(new AndGate("", bitSize, 2));
+			source.linkPort(gate.getPort(0));
+		}
+		
+		link = source.getLink();
+		state = circuit.getTopLevelState();
+		values = new WireValue[] { WireValue.of(0, bitSize), WireValue.of(-1, bitSize) };
+		simulator.stepAll();
+	}
+	
+	/**
+	 * Push a new value and let it settle: one propagation of the fanout Link plus the gates' outputs.
+	 */
+	@Benchmark
+	public void pushValueAndStepAll() {
+		state.pushValue(source, values[index ^= 1]);
+		simulator.stepAll();
+	}
+	
+	/**
+	 * Propagate the Link without any change, which is the cost every redundant queue entry pays.
+	 */
+	@Benchmark
+	public void propagateSignalUnchanged() {
+		state.propagateSignal(link);
+	}
+}
@@ -24,7 +24,10 @@ import com.ra4king.circuitsim.simulator.Circuit;
 import com.ra4king.circuitsim.simulator.CircuitState;
 import com.ra4king.circuitsim.simulator.SimulationException;
 import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.metrics.MetricsRegistry;
 
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.util.Pair;
@@ -162,6 +165,20 @@ public class CircuitBoard {
 				                                && c.getY() == component.getY());
 	}
 	
+	/**
+	 * @return The locations of all components on this board, including those currently being moved.
+	 */
+	public Set<Pair<Integer, Integer>> getOccupiedLocations() {
+		Set<Pair<Integer, Integer>> occupied = new HashSet<>();
+		components.forEach(component -> occupied.add(new Pair<>(component.getX(), component.getY())));
+		if(moveElements != null) {
+			moveElements.stream()
+			            .filter(element -> element instanceof ComponentPeer<?>)
+			            .forEach(element -> occupied.add(new Pair<>(element.getX(), element.getY())));
+		}
+		return occupied;
+	}
+	
 	public void addComponent(ComponentPeer<?> component) {
 		addComponent(component, true);
 	}
@@ -286,6 +303,45 @@ public class CircuitBoard {
 		}
 	}
 	
+	/**
+	 * Adds newly created components to the circuit and starts moving them along with the given wires. The caller is
+	 * responsible for having picked free locations (see getOccupiedLocations) so they are not validated one by one.
+	 * Components that fail to be added are dropped and the first failure is thrown once the move has started.
+	 */
+	void initPaste(Set<GuiElement> elements) {
+		List<RuntimeException> toThrow = new ArrayList<>();
+		
+		circuit.getSimulator().runSync(() -> {
+			finalizeMove();
+			
+			for(Iterator<GuiElement> iterator = elements.iterator(); iterator.hasNext(); ) {
+				GuiElement element = iterator.next();
+				if(element instanceof ComponentPeer<?>) {
+					ComponentPeer<?> component = (ComponentPeer<?>)element;
+					
+					// Listeners triggered by the circuit expect the component to be on the board
+					components.add(component);
+					try {
+						circuit.addComponent(component.getComponent());
+					} catch(RuntimeException exc) {
+						iterator.remove();
+						if(toThrow.isEmpty()) {
+							toThrow.add(exc);
+						}
+					} finally {
+						components.remove(component);
+					}
+				}
+			}
+			
+			initMove(elements, false);
+		});
+		
+		if(!toThrow.isEmpty()) {
+			throw toThrow.get(0);
+		}
+	}
+	
 	public void moveElements(int dx, int dy, boolean extendWires) {
 		if(moveDeltaX == dx && moveDeltaY == dy) {
 			return;
@@ -569,8 +625,6 @@ public class CircuitBoard {
 					
 					try {
 						editHistory.beginGroup();
-						editHistory.addAction(EditAction.MOVE_ELEMENT, circuitManager, component, moveDeltaX,
-						                      moveDeltaY);
 						addComponent(component, true);
 					} catch(RuntimeException exc) {
 						editHistory.clearGroup();
@@ -1173,18 +1227,44 @@ public class CircuitBoard {
 		return connectionsMap.getOrDefault(pair, Collections.emptySet());
 	}
 	
+	// Components' labels may be drawn outside of their bounds, so culling keeps this much margin around the viewport
+	private static final int CULLING_MARGIN = 10 * GuiUtils.BLOCK_SIZE;
+	
 	public void paint(GraphicsContext graphics, LinkWires highlightLinkWires) {
+		paint(graphics, highlightLinkWires, null);
+	}
+	
+	/**
+	 * Paint the circuit, skipping components and wires that lie entirely outside of the visible bounds.
+	 *
+	 * @param visibleBounds The visible area in unscaled canvas coordinates, or null to paint everything.
+	 */
+	public void paint(GraphicsContext graphics, LinkWires highlightLinkWires, Bounds visibleBounds) {
+		Bounds cullingBounds = visibleBounds == null ? null : new BoundingBox(
+			visibleBounds.getMinX() - CULLING_MARGIN,
+			visibleBounds.getMinY() - CULLING_MARGIN,
+			visibleBounds.getWidth() + 2 * CULLING_MARGIN,
+			visibleBounds.getHeight() + 2 * CULLING_MARGIN);
+		
+		long snapshotStart = System.nanoTime();
 		CircuitState currentState = new CircuitState(this.currentState);
 		
+		MetricsRegistry metrics = circuit.getSimulator().getMetrics();
+		if(metrics != null) {
+			metrics.timer("gui.snapshot").record(System.nanoTime() - snapshotStart);
+		}
+		
 		components.forEach(component -> {
-			if(moveElements == null || !moveElements.contains(component)) {
+			if((moveElements == null || !moveElements.contains(component)) && isVisible(component, cullingBounds)) {
 				paintComponent(graphics, currentState, component);
 			}
 		});
 		
 		for(LinkWires linkWires : links) {
 			for(Wire wire : linkWires.getWires()) {
-				paintWire(graphics, currentState, wire, linkWires == highlightLinkWires);
+				if(isVisible(wire, cullingBounds)) {
+					paintWire(graphics, currentState, wire, linkWires == highlightLinkWires);
+				}
 			}
 		}
 		
@@ -1232,6 +1312,13 @@ public class CircuitBoard {
 		}
 	}
 	
+	private static boolean isVisible(GuiElement element, Bounds bounds) {
+		return bounds == null || bounds.intersects(element.getScreenX(),
+		                                           element.getScreenY(),
+		                                           element.getScreenWidth(),
+		                                           element.getScreenHeight());
+	}
+	
 	private void paintComponent(GraphicsContext graphics, CircuitState state, ComponentPeer<?> component) {
 		graphics.save();
 		component.paint(graphics, state);
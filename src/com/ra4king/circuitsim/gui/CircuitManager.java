@@ -20,6 +20,7 @@ import com.ra4king.circuitsim.simulator.Port.Link;
 import com.ra4king.circuitsim.simulator.SimulationException;
 import com.ra4king.circuitsim.simulator.Simulator;
 
+import javafx.geometry.BoundingBox;
 import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.scene.canvas.Canvas;
@@ -32,7 +33,10 @@ import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
+import javafx.scene.paint.ImagePattern;
 import javafx.scene.text.FontSmoothingType;
 import javafx.scene.text.Text;
 import javafx.util.Pair;
@@ -93,6 +97,10 @@ public class CircuitManager {
 		this.canvasScrollPane = canvasScrollPane;
 		circuitBoard = new CircuitBoard(name, this, simulator, simulatorWindow.getEditHistory());
 		
+		canvasScrollPane.hvalueProperty().addListener((observable, oldValue, newValue) -> setNeedsRepaint());
+		canvasScrollPane.vvalueProperty().addListener((observable, oldValue, newValue) -> setNeedsRepaint());
+		canvasScrollPane.viewportBoundsProperty().addListener((observable, oldValue, newValue) -> setNeedsRepaint());
+		
 		getCanvas().setOnContextMenuRequested(event -> {
 			menu = new ContextMenu();
 			
@@ -344,6 +352,74 @@ public class CircuitManager {
 		setNeedsRepaint();
 	}
 	
+	/**
+	 * Get the part of the canvas currently visible in its scroll pane, in canvas pixels.
+	 */
+	private Bounds getVisibleCanvasBounds() {
+		Canvas canvas = getCanvas();
+		Bounds viewport = canvasScrollPane.getViewportBounds();
+		if(viewport.getWidth() <= 0 || viewport.getHeight() <= 0) {
+			return new BoundingBox(0, 0, canvas.getWidth(), canvas.getHeight());
+		}
+		
+		double hRange = canvasScrollPane.getHmax() - canvasScrollPane.getHmin();
+		double vRange = canvasScrollPane.getVmax() - canvasScrollPane.getVmin();
+		double hFraction = hRange <= 0 ? 0 : (canvasScrollPane.getHvalue() - canvasScrollPane.getHmin()) / hRange;
+		double vFraction = vRange <= 0 ? 0 : (canvasScrollPane.getVvalue() - canvasScrollPane.getVmin()) / vRange;
+		
+		double x = Math.max(0, canvas.getWidth() - viewport.getWidth()) * hFraction;
+		double y = Math.max(0, canvas.getHeight() - viewport.getHeight()) * vFraction;
+		
+		// Round outwards to whole pixels so no stale sliver is left at the edges
+		double minX = Math.floor(x), minY = Math.floor(y);
+		return new BoundingBox(minX, minY,
+		                       Math.min(canvas.getWidth(), Math.ceil(x + viewport.getWidth()) + 1) - minX,
+		                       Math.min(canvas.getHeight(), Math.ceil(y + viewport.getHeight()) + 1) - minY);
+	}
+	
+	private static double gridPatternScale;
+	private static ImagePattern gridPattern;
+	
+	/**
+	 * The grid is filled with a single call using a pattern of pre-rendered dots, one per BLOCK_SIZE, instead of one
+	 * call per dot. The tile is rendered at the current scale so it maps 1:1 to screen pixels, spanning as many blocks
+	 * as needed for its size to be a whole number of pixels. It is rebuilt only when the scale changes.
+	 */
+	private static ImagePattern getGridPattern(double scale) {
+		if(gridPattern != null && gridPatternScale == scale) {
+			return gridPattern;
+		}
+		
+		double blockPixels = GuiUtils.BLOCK_SIZE * scale;
+		int blocks = 1;
+		while(blocks < 10 && Math.abs(blocks * blockPixels - Math.rint(blocks * blockPixels)) > 1e-6) {
+			blocks++;
+		}
+		
+		int tileSize = Math.max(1, (int)Math.rint(blocks * blockPixels));
+		int dotSize = Math.max(1, (int)Math.rint(scale));
+		// A 1x1 dot smaller than a pixel only partially covers it
+		Color dotColor = scale < 1 ? Color.gray(0, scale * scale) : Color.BLACK;
+		
+		WritableImage tile = new WritableImage(tileSize, tileSize);
+		PixelWriter pixelWriter = tile.getPixelWriter();
+		for(int i = 0; i < blocks; i++) {
+			for(int j = 0; j < blocks; j++) {
+				int x = (int)(i * blockPixels);
+				int y = (int)(j * blockPixels);
+				for(int dx = 0; dx < dotSize && x + dx < tileSize; dx++) {
+					for(int dy = 0; dy < dotSize && y + dy < tileSize; dy++) {
+						pixelWriter.setColor(x + dx, y + dy, dotColor);
+					}
+				}
+			}
+		}
+		
+		gridPatternScale = scale;
+		gridPattern = new ImagePattern(tile, 0, 0, blocks * GuiUtils.BLOCK_SIZE, blocks * GuiUtils.BLOCK_SIZE, false);
+		return gridPattern;
+	}
+	
 	public void paint() {
 		needsRepaint = false;
 		
@@ -354,21 +430,27 @@ public class CircuitManager {
 		graphics.setFont(GuiUtils.getFont(13));
 		graphics.setFontSmoothingType(FontSmoothingType.LCD);
 		
+		// Only the part of the canvas visible in the scroll pane is repainted, scrolling triggers a repaint
+		Bounds visible = getVisibleCanvasBounds();
+		
 		graphics.setFill(Color.LIGHTGRAY);
-		graphics.fillRect(0, 0, getCanvas().getWidth(), getCanvas().getHeight());
+		graphics.fillRect(visible.getMinX(), visible.getMinY(), visible.getWidth(), visible.getHeight());
 		
-		graphics.scale(simulatorWindow.getScaleFactor(), simulatorWindow.getScaleFactor());
+		double scale = simulatorWindow.getScaleFactor();
+		graphics.scale(scale, scale);
 		
-		graphics.setFill(Color.BLACK);
 		double scaleInverted = simulatorWindow.getScaleFactorInverted();
-		for(int i = 0; i < getCanvas().getWidth() * scaleInverted; i += GuiUtils.BLOCK_SIZE) {
-			for(int j = 0; j < getCanvas().getHeight() * scaleInverted; j += GuiUtils.BLOCK_SIZE) {
-				graphics.fillRect(i, j, 1, 1);
-			}
-		}
+		Bounds visibleScaled = new BoundingBox(visible.getMinX() * scaleInverted,
+		                                       visible.getMinY() * scaleInverted,
+		                                       visible.getWidth() * scaleInverted,
+		                                       visible.getHeight() * scaleInverted);
+		
+		graphics.setFill(getGridPattern(scale));
+		graphics.fillRect(visibleScaled.getMinX(), visibleScaled.getMinY(),
+		                  visibleScaled.getWidth(), visibleScaled.getHeight());
 		
 		try {
-			circuitBoard.paint(graphics, inspectLinkWires);
+			circuitBoard.paint(graphics, inspectLinkWires, visibleScaled);
 		} catch(Exception exc) {
 			getSimulatorWindow().getDebugUtil().logException(exc);
 		}
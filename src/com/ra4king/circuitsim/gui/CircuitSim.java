@@ -6,8 +6,13 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -47,16 +52,29 @@ import com.ra4king.circuitsim.gui.file.FileFormat.CircuitFile;
 import com.ra4king.circuitsim.gui.file.FileFormat.CircuitInfo;
 import com.ra4king.circuitsim.gui.file.FileFormat.ComponentInfo;
 import com.ra4king.circuitsim.gui.file.FileFormat.WireInfo;
+import com.ra4king.circuitsim.gui.file.Netlist;
+import com.ra4king.circuitsim.gui.file.NetlistCache;
 import com.ra4king.circuitsim.gui.peers.SubcircuitPeer;
+import com.ra4king.circuitsim.gui.peers.wiring.PinPeer;
 import com.ra4king.circuitsim.simulator.Circuit;
 import com.ra4king.circuitsim.simulator.CircuitState;
 import com.ra4king.circuitsim.simulator.Component;
+import com.ra4king.circuitsim.simulator.CycleHistory;
+import com.ra4king.circuitsim.simulator.Port;
 import com.ra4king.circuitsim.simulator.ShortCircuitException;
 import com.ra4king.circuitsim.simulator.SimulationException;
+import com.ra4king.circuitsim.simulator.SimulationProfiler;
 import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.TraceRecorder;
+import com.ra4king.circuitsim.simulator.WireValue.State;
+import com.ra4king.circuitsim.simulator.batch.TruthTable;
 import com.ra4king.circuitsim.simulator.components.Subcircuit;
 import com.ra4king.circuitsim.simulator.components.wiring.Clock;
 import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+import com.ra4king.circuitsim.simulator.metrics.JmxMetricsExporter;
+import com.ra4king.circuitsim.simulator.metrics.LoggingMetricsExporter;
+import com.ra4king.circuitsim.simulator.metrics.MetricsExporter;
+import com.ra4king.circuitsim.simulator.metrics.MetricsRegistry;
 
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
@@ -189,6 +207,21 @@ public class CircuitSim extends Application {
 	
 	private volatile boolean needsRepaint = true;
 	
+	// Only one in every this many component evaluations is timed when profiling from the GUI
+	private static final int PROFILER_SAMPLE_INTERVAL = 16;
+	private ProfilerWindow profilerWindow;
+	
+	// Larger truth tables are not shown, only saved to a file
+	private static final int TRUTH_TABLE_MAX_ROWS = 4096;
+	
+	private static final long TRACE_MEMORY_CAP = 64 * 1024 * 1024;
+	private CheckMenuItem recordWaveforms;
+	private TimingDiagramWindow timingDiagramWindow;
+	
+	private static final long CYCLE_HISTORY_MEMORY_CAP = 64 * 1024 * 1024;
+	private List<MetricsExporter> metricsExporters = new ArrayList<>();
+	private MetricsRegistry.Timer paintTimer;
+	
 	/**
 	 * Throws an exception if instantiated directly
 	 */
@@ -267,6 +300,21 @@ public class CircuitSim extends Application {
 		simulator = new Simulator();
 		circuitManagers = new HashMap<>();
 		Clock.addChangeListener(simulator, value -> runSim());
+		Clock.addChangeListener(simulator, value -> {
+			if(value.getBit(0) == State.ONE && simulator.getTraceRecorder() != null) {
+				simulator.runSync(() -> {
+					TraceRecorder traceRecorder = simulator.getTraceRecorder();
+					if(traceRecorder != null) {
+						traceRecorder.nextCycle();
+					}
+				});
+			}
+		});
+		
+		// Hidden instances, such as the ones resolving netlists, would register exporters nothing ever stops
+		if(openWindow) {
+			initMetrics();
+		}
 		
 		editHistory = new EditHistory(this);
 		editHistory.addListener((action, manager, params) -> {
@@ -277,6 +325,38 @@ public class CircuitSim extends Application {
 		componentManager = new ComponentManager();
 	}
 	
+	/**
+	 * Attach a MetricsRegistry to the Simulator with the clock and JVM metrics. The GUI records its own paint and
+	 * snapshot timings into the same registry. Exporters are enabled through system properties:
+	 * {@code circuitsim.metrics.jmx=true} registers an MBean, and {@code circuitsim.metrics.log=<seconds>} prints all
+	 * metrics to stdout at that period. Only done for a visible window, the exporters are stopped in closeWindow.
+	 */
+	private void initMetrics() {
+		MetricsRegistry metrics = new MetricsRegistry();
+		metrics.addJvmMetrics();
+		metrics.gauge("clock.requestedHz", () -> Clock.getRequestedFrequency(simulator));
+		metrics.gauge("clock.achievedHz", () -> Clock.getLastTickCount(simulator) >> 1);
+		simulator.setMetrics(metrics);
+		paintTimer = metrics.timer("gui.paint");
+		
+		if(Boolean.getBoolean("circuitsim.metrics.jmx")) {
+			metricsExporters.add(new JmxMetricsExporter(metrics, "CircuitSim@" + Integer.toHexString(hashCode())));
+		}
+		
+		Integer logPeriod = Integer.getInteger("circuitsim.metrics.log");
+		if(logPeriod != null && logPeriod > 0) {
+			metricsExporters.add(new LoggingMetricsExporter(metrics, System.out, logPeriod * 1000L));
+		}
+		
+		for(MetricsExporter exporter : metricsExporters) {
+			try {
+				exporter.start();
+			} catch(Exception exc) {
+				exc.printStackTrace();
+			}
+		}
+	}
+	
 	/**
 	 * Get the Simulator instance.
 	 *
@@ -540,16 +620,55 @@ public class CircuitSim extends Application {
 		});
 	}
 	
-	void readdCircuit(CircuitManager manager, Tab tab, int index) {
-		canvasTabPane.getTabs().add(Math.min(index, canvasTabPane.getTabs().size()), tab);
-		circuitManagers.put(tab.getText(), new Pair<>(createSubcircuitLauncherInfo(tab.getText()), manager));
-		manager.getCircuitBoard().setCurrentState(manager.getCircuit().getTopLevelState());
+	/**
+	 * Creates the circuit described by the CircuitInfo, with its tab at the specified index.
+	 */
+	void readdCircuit(CircuitInfo circuit, int index) {
+		createCircuit(circuit.name);
+		
+		CircuitManager manager = getCircuitManager(circuit.name);
+		for(ComponentInfo component : circuit.components) {
+			manager.mayThrow(() -> manager.getCircuitBoard()
+			                              .addComponent(createComponent(component, component.x, component.y)));
+		}
+		for(WireInfo wire : circuit.wires) {
+			manager.mayThrow(() -> manager.getCircuitBoard().addWire(wire.x, wire.y, wire.length, wire.isHorizontal));
+		}
 		
+		Tab tab = getTabForCircuit(circuit.name);
+		canvasTabPane.getTabs().remove(tab);
+		canvasTabPane.getTabs().add(Math.min(index, canvasTabPane.getTabs().size()), tab);
 		canvasTabPane.getSelectionModel().select(tab);
 		
 		refreshCircuitsTab();
 	}
 	
+	/**
+	 * @return The components and wires of the circuit, as they are saved to a file.
+	 */
+	CircuitInfo getCircuitInfo(CircuitManager manager) {
+		List<ComponentInfo> components =
+			manager.getCircuitBoard()
+			       .getComponents().stream()
+			       .map(component -> new ComponentInfo(component.getClass().getName(),
+			                                           component.getX(),
+			                                           component.getY(),
+			                                           component.getProperties()))
+			       .sorted(Comparator.comparingInt(Object::hashCode))
+			       .collect(Collectors.toList());
+		List<WireInfo> wires = manager.getCircuitBoard()
+		                              .getLinks().stream()
+		                              .flatMap(linkWires -> linkWires.getWires().stream())
+		                              .map(wire -> new WireInfo(wire.getX(),
+		                                                        wire.getY(),
+		                                                        wire.getLength(),
+		                                                        wire.isHorizontal()))
+		                              .sorted(Comparator.comparingInt(Object::hashCode))
+		                              .collect(Collectors.toList());
+		
+		return new CircuitInfo(manager.getName(), components, wires);
+	}
+	
 	boolean confirmAndDeleteCircuit(CircuitManager circuitManager, boolean removeTab) {
 		Alert alert = new Alert(AlertType.CONFIRMATION);
 		alert.initOwner(stage);
@@ -606,7 +725,7 @@ public class CircuitSim extends Application {
 			Pair<ComponentLauncherInfo, CircuitManager> removed = circuitManagers.remove(tab.getText());
 			circuitModified(removed.getValue().getCircuit(), null, false);
 			
-			editHistory.addAction(EditAction.DELETE_CIRCUIT, manager, tab, idx);
+			editHistory.addAction(EditAction.DELETE_CIRCUIT, manager, this, getCircuitInfo(manager), idx);
 			
 			if(addNewOnEmpty && isEmpty) {
 				createCircuit("New circuit");
@@ -809,6 +928,304 @@ public class CircuitSim extends Application {
 		});
 	}
 	
+	private TimingDiagramWindow getTimingDiagramWindow() {
+		if(timingDiagramWindow == null) {
+			timingDiagramWindow = new TimingDiagramWindow(stage, simulator);
+		}
+		return timingDiagramWindow;
+	}
+	
+	/**
+	 * Creates the context menu item that adds the signal at a Pin or Probe to the timing diagram, or removes it.
+	 * Watching a signal turns on waveform recording and opens the timing diagram.
+	 */
+	public MenuItem createTimingDiagramMenuItem(CircuitManager manager, ComponentPeer<?> peer, String defaultName) {
+		CircuitState state = manager.getCircuitBoard().getCurrentState();
+		Port port = peer.getComponent().getPort(0);
+		
+		String label = peer.getComponent().getName();
+		String name = state.getCircuit().getName() + "." +
+		              (label.isEmpty() ? defaultName + " (" + peer.getX() + ", " + peer.getY() + ")" : label);
+		
+		CheckMenuItem menuItem = new CheckMenuItem("Show in timing diagram");
+		menuItem.setSelected(timingDiagramWindow != null && timingDiagramWindow.isWatched(state, port));
+		menuItem.setOnAction(event -> {
+			getTimingDiagramWindow().setWatched(state, port, name, menuItem.isSelected());
+			if(menuItem.isSelected()) {
+				recordWaveforms.setSelected(true);
+				getTimingDiagramWindow().show();
+			}
+		});
+		return menuItem;
+	}
+	
+	private void exportWaveforms() {
+		if(simulator.getTraceRecorder() == null) {
+			new Alert(AlertType.INFORMATION, "Enable \"Record waveforms\" to capture signals first.").showAndWait();
+			return;
+		}
+		
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.setTitle("Choose export file");
+		fileChooser.setInitialFileName("waveforms.vcd");
+		fileChooser.getExtensionFilters().add(new ExtensionFilter("Value Change Dump", "*.vcd"));
+		File selectedFile = fileChooser.showSaveDialog(stage);
+		if(selectedFile != null) {
+			try(Writer writer = Files.newBufferedWriter(selectedFile.toPath(), StandardCharsets.UTF_8)) {
+				simulator.runSync(() -> {
+					TraceRecorder traceRecorder = simulator.getTraceRecorder();
+					if(traceRecorder != null) {
+						try {
+							traceRecorder.writeVcd(writer);
+						} catch(IOException exc) {
+							throw new UncheckedIOException(exc);
+						}
+					}
+				});
+			} catch(IOException | UncheckedIOException exc) {
+				exc.printStackTrace();
+				new Alert(AlertType.ERROR, "Could not save file: " + exc.getMessage()).showAndWait();
+			}
+		}
+	}
+	
+	private void exportNetlist() {
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.setTitle("Choose export file");
+		fileChooser.setInitialDirectory(lastSaveFile == null ? new File(System.getProperty("user.dir"))
+		                                                     : lastSaveFile.getParentFile());
+		fileChooser.setInitialFileName(saveFile == null ? "circuit.net"
+		                                                : saveFile.getName().replaceAll("\\.sim$", "") + ".net");
+		fileChooser.getExtensionFilters().add(new ExtensionFilter("Netlist", "*.net"));
+		File selectedFile = fileChooser.showSaveDialog(stage);
+		if(selectedFile != null) {
+			try {
+				exportNetlist(selectedFile);
+			} catch(IOException | IllegalArgumentException exc) {
+				exc.printStackTrace();
+				new Alert(AlertType.ERROR, "Could not export netlist: " + exc.getMessage()).showAndWait();
+			}
+		}
+	}
+	
+	/**
+	 * Export the resolved netlist of all circuits, which can be loaded without the GUI using {@code Netlist.read}.
+	 *
+	 * @param file The file to write the netlist to.
+	 */
+	public void exportNetlist(File file) throws IOException {
+		try(Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			writeNetlist(writer);
+		}
+	}
+	
+	private void showTruthTable() {
+		CircuitManager manager = getCurrentCircuit();
+		if(manager == null) {
+			return;
+		}
+		
+		// Pins in the order they are laid out, top to bottom then left to right
+		List<Pin> inputs = new ArrayList<>();
+		List<Pin> outputs = new ArrayList<>();
+		manager.getCircuitBoard()
+		       .getComponents()
+		       .stream()
+		       .filter(componentPeer -> componentPeer instanceof PinPeer)
+		       .sorted(Comparator.comparingInt(ComponentPeer<?>::getY).thenComparingInt(ComponentPeer::getX))
+		       .forEach(componentPeer -> {
+			       Pin pin = ((PinPeer)componentPeer).getComponent();
+			       (pin.isInput() ? inputs : outputs).add(pin);
+		       });
+		
+		// Up to a million rows, one at a time if there is a Subcircuit, so the table is computed in the background
+		ProgressBar bar = new ProgressBar();
+		
+		Dialog<ButtonType> dialog = new Dialog<>();
+		dialog.initOwner(stage);
+		dialog.initModality(Modality.WINDOW_MODAL);
+		dialog.setTitle("Truth table");
+		dialog.setHeaderText("Computing the truth table of " + manager.getName() + "...");
+		dialog.setContentText("Evaluating the circuit...");
+		dialog.setGraphic(bar);
+		
+		TruthTable[] table = new TruthTable[1];
+		StringBuilder text = new StringBuilder();
+		Exception[] exception = new Exception[1];
+		
+		Thread truthTableThread = new Thread(() -> {
+			try {
+				table[0] = TruthTable.compute(manager.getCircuit(), inputs, outputs,
+				                              TruthTable.DEFAULT_MAX_INPUT_BITS);
+				
+				for(int bit = 0; bit < table[0].getOutputBits(); bit++) {
+					String outputName = table[0].getOutputName(bit);
+					Platform.runLater(() -> dialog.setContentText("Minimizing " + outputName + "..."));
+					
+					String sumOfProducts;
+					try {
+						sumOfProducts = table[0].getSumOfProducts(bit);
+					} catch(IllegalStateException exc) {
+						sumOfProducts = "(too complex to minimize)";
+					}
+					text.append(outputName).append(" = ").append(sumOfProducts).append('\n');
+				}
+				text.append('\n');
+				
+				if(table[0].getRowCount() <= TRUTH_TABLE_MAX_ROWS) {
+					text.append(table[0]);
+				} else {
+					text.append(table[0].getRowCount()).append(" rows, save the table to view it.");
+				}
+			} catch(IllegalArgumentException | SimulationException exc) {
+				exception[0] = exc;
+			} finally {
+				Platform.runLater(() -> {
+					dialog.setResult(ButtonType.OK);
+					dialog.close();
+				});
+			}
+		});
+		truthTableThread.setName("Truth table");
+		truthTableThread.setDaemon(true);
+		truthTableThread.start();
+		
+		dialog.showAndWait();
+		
+		if(exception[0] != null) {
+			new Alert(AlertType.ERROR, "Could not compute truth table: " + exception[0].getMessage()).showAndWait();
+			return;
+		}
+		if(table[0] == null) {
+			return;
+		}
+		
+		TextArea textArea = new TextArea(text.toString());
+		textArea.setEditable(false);
+		textArea.setStyle("-fx-font-family: monospace");
+		
+		ButtonType save = new ButtonType("Save table", ButtonData.OTHER);
+		Alert alert = new Alert(AlertType.INFORMATION);
+		alert.initOwner(stage);
+		alert.initModality(Modality.WINDOW_MODAL);
+		alert.setTitle("Truth table");
+		alert.setHeaderText("Truth table of " + manager.getName());
+		alert.getDialogPane().setContent(textArea);
+		alert.getButtonTypes().setAll(save, ButtonType.CLOSE);
+		if(alert.showAndWait().orElse(null) != save) {
+			return;
+		}
+		
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.setTitle("Choose export file");
+		fileChooser.setInitialFileName(manager.getName() + ".txt");
+		fileChooser.getExtensionFilters().add(new ExtensionFilter("Text", "*.txt"));
+		File selectedFile = fileChooser.showSaveDialog(stage);
+		if(selectedFile != null) {
+			try(Writer writer = Files.newBufferedWriter(selectedFile.toPath(), StandardCharsets.UTF_8)) {
+				writer.write(text.substring(0, text.indexOf("\n\n") + 2));
+				table[0].write(writer);
+			} catch(IOException exc) {
+				exc.printStackTrace();
+				new Alert(AlertType.ERROR, "Could not save file: " + exc.getMessage()).showAndWait();
+			}
+		}
+	}
+	
+	private void writeNetlist(Writer writer) throws IOException {
+		IOException[] exception = new IOException[1];
+		simulator.runSync(() -> {
+			try {
+				Netlist.write(writer, getCircuitBoards().values());
+			} catch(IOException exc) {
+				exception[0] = exc;
+			}
+		});
+		
+		if(exception[0] != null) {
+			throw exception[0];
+		}
+	}
+	
+	/**
+	 * Load the circuits of the specified File into this CircuitSim's Simulator from their resolved netlist, as plain
+	 * Circuits that are not shown in the window. The netlist is taken from the cache while the file and its libraries
+	 * are unchanged. Otherwise the file is loaded in a separate hidden CircuitSim and its netlist added to the cache.
+	 * An entry that can no longer be read is dropped and replaced the same way.
+	 *
+	 * @param file  The File instance to load the circuits from.
+	 * @param cache The cache of resolved netlists.
+	 * @return The loaded circuits by name, in the order they appear in the file.
+	 */
+	public Map<String, Circuit> loadCircuits(File file, NetlistCache cache) throws Exception {
+		byte[] contents = Files.readAllBytes(file.toPath());
+		CircuitFile circuitFile = FileFormat.parse(new String(contents, StandardCharsets.UTF_8));
+		
+		List<byte[]> libraries = new ArrayList<>();
+		List<URL> libraryUrls = new ArrayList<>();
+		if(circuitFile.libraryPaths != null) {
+			for(String libraryPath : circuitFile.libraryPaths) {
+				File libraryFile = new File(libraryPath);
+				if(!libraryFile.isFile()) {
+					throw new IllegalArgumentException("Library does not exist: " + libraryPath);
+				}
+				
+				libraries.add(Files.readAllBytes(libraryFile.toPath()));
+				libraryUrls.add(libraryFile.toURI().toURL());
+			}
+		}
+		
+		String key = NetlistCache.getKey(contents, libraries.toArray(new byte[0][]));
+		ClassLoader classLoader =
+			URLClassLoader.newInstance(libraryUrls.toArray(new URL[0]), CircuitSim.class.getClassLoader());
+		
+		String netlist = cache.get(key);
+		if(netlist != null) {
+			try {
+				return readNetlist(netlist, classLoader);
+			} catch(IOException | IllegalArgumentException exc) {
+				// A corrupt or stale entry, drop it and resolve the file again
+				System.err.println("Discarding cached netlist of " + file + ": " + exc.getMessage());
+				cache.remove(key);
+			}
+		}
+		
+		netlist = resolveNetlist(file);
+		cache.put(key, netlist);
+		return readNetlist(netlist, classLoader);
+	}
+	
+	private static String resolveNetlist(File file) throws Exception {
+		CircuitSim loader = new CircuitSim(false);
+		try {
+			loader.loadCircuits(file);
+			
+			StringWriter writer = new StringWriter();
+			loader.writeNetlist(writer);
+			return writer.toString();
+		} finally {
+			loader.closeWindow();
+		}
+	}
+	
+	private Map<String, Circuit> readNetlist(String netlist, ClassLoader classLoader) throws IOException {
+		List<Map<String, Circuit>> circuits = new ArrayList<>(1);
+		IOException[] exception = new IOException[1];
+		simulator.runSync(() -> {
+			try {
+				circuits.add(Netlist.read(new StringReader(netlist), simulator, classLoader));
+			} catch(IOException exc) {
+				exception[0] = exc;
+			}
+		});
+		
+		if(exception[0] != null) {
+			throw exception[0];
+		}
+		
+		return circuits.get(0);
+	}
+	
 	private void updateTitle() {
 		String name = "";
 		if(saveFile != null) {
@@ -820,6 +1237,40 @@ public class CircuitSim extends Application {
 		stage.setTitle("CircuitSim v" + VERSION + name);
 	}
 	
+	private static Properties createProperties(ComponentInfo component) {
+		Properties properties = new Properties();
+		if(component.properties != null) {
+			component.properties.forEach((key, value) -> properties.setProperty(new Property<>(key, null, value)));
+		}
+		return properties;
+	}
+	
+	private ComponentCreator<?> getComponentCreator(String className, Properties properties)
+		throws ClassNotFoundException {
+		@SuppressWarnings("unchecked")
+		Class<? extends ComponentPeer<?>> clazz = (Class<? extends ComponentPeer<?>>)Class.forName(className);
+		
+		if(clazz == SubcircuitPeer.class) {
+			return getSubcircuitPeerCreator(properties.getValueOrDefault(SubcircuitPeer.SUBCIRCUIT, ""));
+		}
+		
+		return componentManager.get(clazz, properties).creator;
+	}
+	
+	/**
+	 * Create a new component peer from its saved description, as used in save files, the clipboard and the edit
+	 * history.
+	 *
+	 * @param component The description of the component.
+	 * @param x         The x position of the new component, which may differ from the saved one.
+	 * @param y         The y position of the new component, which may differ from the saved one.
+	 * @return The new component peer, not yet added to any circuit.
+	 */
+	ComponentPeer<?> createComponent(ComponentInfo component, int x, int y) throws Exception {
+		Properties properties = createProperties(component);
+		return getComponentCreator(component.name, properties).createComponent(properties, x, y);
+	}
+	
 	private ComponentCreator<?> getSubcircuitPeerCreator(String name) {
 		return (props, x, y) -> {
 			Properties properties = new Properties(props);
@@ -880,7 +1331,7 @@ public class CircuitSim extends Application {
 			tab.setText(newName);
 			newPair.getValue().setName(newName);
 			
-			editHistory.addAction(EditAction.RENAME_CIRCUIT, null, this, tab, oldName, newName);
+			editHistory.addAction(EditAction.RENAME_CIRCUIT, null, this, oldName, newName);
 			
 			refreshCircuitsTab();
 		});
@@ -1151,78 +1602,38 @@ public class CircuitSim extends Application {
 				
 				CircuitManager manager = getCurrentCircuit();
 				if(manager != null) {
-					outer:
-					for(int i = 0; ; i += 3) { // start 0 in the case of Cut and Paste
-						Set<GuiElement> elementsCreated = new HashSet<>();
-						
-						for(CircuitInfo circuit : parsed.circuits) {
-							for(ComponentInfo component : circuit.components) {
-								try {
-									@SuppressWarnings("unchecked")
-									Class<? extends ComponentPeer<?>> clazz =
-										(Class<? extends ComponentPeer<?>>)Class.forName(component.name);
-									
-									Properties properties = new Properties();
-									component.properties.forEach(
-										(key, value) -> properties.setProperty(
-											new Property<>(key, null, value)));
-									
-									ComponentCreator<?> creator;
-									if(clazz == SubcircuitPeer.class) {
-										creator = getSubcircuitPeerCreator(
-											properties.getValueOrDefault(SubcircuitPeer.SUBCIRCUIT, ""));
-									} else {
-										creator = componentManager.get(clazz, properties).creator;
-									}
-									
-									ComponentPeer<?> created = creator.createComponent(properties,
-									                                                   component.x + i,
-									                                                   component.y + i);
-									
-									if(!manager.getCircuitBoard().isValidLocation(created)) {
-										elementsCreated.clear();
-										continue outer;
-									}
-									
-									elementsCreated.add(created);
-								} catch(SimulationException exc) {
-									exc.printStackTrace();
-									setLastException(exc);
-								} catch(Exception exc) {
-									setLastException(exc);
-									getDebugUtil().logException("Error loading component " + component.name, exc);
-								}
+					int offset = findPasteOffset(parsed, manager.getCircuitBoard().getOccupiedLocations());
+					
+					Set<GuiElement> elementsCreated = new HashSet<>();
+					
+					for(CircuitInfo circuit : parsed.circuits) {
+						for(ComponentInfo component : circuit.components) {
+							try {
+								elementsCreated.add(createComponent(component,
+								                                    component.x + offset,
+								                                    component.y + offset));
+							} catch(SimulationException exc) {
+								exc.printStackTrace();
+								setLastException(exc);
+							} catch(Exception exc) {
+								setLastException(exc);
+								getDebugUtil().logException("Error loading component " + component.name, exc);
 							}
 						}
 						
-						int offset = i;
-						simulator.runSync(() -> {
-							manager.getCircuitBoard().finalizeMove();
-							
-							editHistory.disable();
-							elementsCreated.forEach(
-								element -> manager.mayThrow(
-									() -> manager.getCircuitBoard().addComponent((ComponentPeer<?>)element, false)));
-							manager.getCircuitBoard().removeElements(elementsCreated, false);
-							editHistory.enable();
-							
-							for(CircuitInfo circuit : parsed.circuits) {
-								for(WireInfo wire : circuit.wires) {
-									elementsCreated.add(
-										new Wire(null,
-										         wire.x + offset,
-										         wire.y + offset,
-										         wire.length,
-										         wire.isHorizontal));
-								}
-							}
-							
-							manager.setSelectedElements(elementsCreated);
-							manager.mayThrow(() -> manager.getCircuitBoard().initMove(elementsCreated, false));
-						});
-						
-						break;
+						for(WireInfo wire : circuit.wires) {
+							elementsCreated.add(new Wire(null,
+							                             wire.x + offset,
+							                             wire.y + offset,
+							                             wire.length,
+							                             wire.isHorizontal));
+						}
 					}
+					
+					simulator.runSync(() -> {
+						manager.setSelectedElements(elementsCreated);
+						manager.mayThrow(() -> manager.getCircuitBoard().initPaste(elementsCreated));
+					});
 				}
 			} catch(SimulationException exc) {
 				exc.printStackTrace();
@@ -1237,6 +1648,27 @@ public class CircuitSim extends Application {
 		}
 	}
 	
+	/**
+	 * Finds the smallest diagonal offset, in steps of 3 and starting at 0 in the case of Cut and Paste, at which none
+	 * of the pasted components land on an occupied location.
+	 */
+	private static int findPasteOffset(CircuitFile parsed, Set<Pair<Integer, Integer>> occupied) {
+		outer:
+		for(int offset = 0; ; offset += 3) {
+			for(CircuitInfo circuit : parsed.circuits) {
+				for(ComponentInfo component : circuit.components) {
+					int x = component.x + offset;
+					int y = component.y + offset;
+					if(x < 0 || y < 0 || occupied.contains(new Pair<>(x, y))) {
+						continue outer;
+					}
+				}
+			}
+			
+			return offset;
+		}
+	}
+	
 	private static AtomicBoolean checkingForUpdate = new AtomicBoolean(false);
 	
 	private void checkForUpdate(boolean showOk) {
@@ -1578,23 +2010,8 @@ public class CircuitSim extends Application {
 							
 							for(ComponentInfo component : circuit.components) {
 								try {
-									@SuppressWarnings("unchecked")
-									Class<? extends ComponentPeer<?>> clazz =
-										(Class<? extends ComponentPeer<?>>)Class.forName(component.name);
-									
-									Properties properties = new Properties();
-									if(component.properties != null) {
-										component.properties.forEach(
-											(key, value) -> properties.setProperty(new Property<>(key, null, value)));
-									}
-									
-									ComponentCreator<?> creator;
-									if(clazz == SubcircuitPeer.class) {
-										creator = getSubcircuitPeerCreator(
-											properties.getValueOrDefault(SubcircuitPeer.SUBCIRCUIT, ""));
-									} else {
-										creator = componentManager.get(clazz, properties).creator;
-									}
+									Properties properties = createProperties(component);
+									ComponentCreator<?> creator = getComponentCreator(component.name, properties);
 									
 									runnables.add(() -> {
 										manager.mayThrow(
@@ -1662,7 +2079,7 @@ public class CircuitSim extends Application {
 									}
 								}
 								
-								if(circuitFile.globalBitSize >= 1 && circuitFile.globalBitSize <= 32) {
+								if(circuitFile.globalBitSize >= 1 && circuitFile.globalBitSize <= 64) {
 									bitSizeSelect.getSelectionModel().select((Integer)circuitFile.globalBitSize);
 								}
 								
@@ -1845,32 +2262,8 @@ public class CircuitSim extends Application {
 				
 				List<CircuitInfo> circuits = new ArrayList<>();
 				
-				canvasTabPane.getTabs().forEach(tab -> {
-					String name = tab.getText();
-					
-					CircuitManager manager = circuitManagers.get(name).getValue();
-					
-					List<ComponentInfo> components =
-						manager.getCircuitBoard()
-						       .getComponents().stream()
-						       .map(component -> new ComponentInfo(component.getClass().getName(),
-						                                           component.getX(),
-						                                           component.getY(),
-						                                           component.getProperties()))
-						       .sorted(Comparator.comparingInt(Object::hashCode))
-						       .collect(Collectors.toList());
-					List<WireInfo> wires = manager.getCircuitBoard()
-					                              .getLinks().stream()
-					                              .flatMap(linkWires -> linkWires.getWires().stream())
-					                              .map(wire -> new WireInfo(wire.getX(),
-					                                                        wire.getY(),
-					                                                        wire.getLength(),
-					                                                        wire.isHorizontal()))
-					                              .sorted(Comparator.comparingInt(Object::hashCode))
-					                              .collect(Collectors.toList());
-					
-					circuits.add(new CircuitInfo(name, components, wires));
-				});
+				canvasTabPane.getTabs().forEach(
+					tab -> circuits.add(getCircuitInfo(circuitManagers.get(tab.getText()).getValue())));
 				
 				try {
 					FileFormat.save(f, new CircuitFile(bitSizeSelect.getSelectionModel().getSelectedItem(),
@@ -2005,7 +2398,7 @@ public class CircuitSim extends Application {
 					tabs.add(idx - 1, canvasTab);
 					canvasTabPane.getSelectionModel().select(canvasTab);
 					
-					editHistory.addAction(EditAction.MOVE_CIRCUIT, circuitManager, tabs, canvasTab, idx, idx - 1);
+					editHistory.addAction(EditAction.MOVE_CIRCUIT, circuitManager, tabs, idx, idx - 1);
 					
 					refreshCircuitsTab();
 				}
@@ -2020,7 +2413,7 @@ public class CircuitSim extends Application {
 					tabs.add(idx + 1, canvasTab);
 					canvasTabPane.getSelectionModel().select(canvasTab);
 					
-					editHistory.addAction(EditAction.MOVE_CIRCUIT, circuitManager, tabs, canvasTab, idx, idx + 1);
+					editHistory.addAction(EditAction.MOVE_CIRCUIT, circuitManager, tabs, idx, idx + 1);
 					
 					refreshCircuitsTab();
 				}
@@ -2038,7 +2431,8 @@ public class CircuitSim extends Application {
 			
 			refreshCircuitsTab();
 			
-			editHistory.addAction(EditAction.CREATE_CIRCUIT, circuitManager, canvasTab,
+			editHistory.addAction(EditAction.CREATE_CIRCUIT, circuitManager, this,
+			                      new CircuitInfo(n, new ArrayList<>(), new ArrayList<>()),
 			                      canvasTabPane.getTabs().size() - 1);
 			
 			canvas.requestFocus();
@@ -2061,7 +2455,7 @@ public class CircuitSim extends Application {
 		stage.getIcons().add(new Image(getClass().getResourceAsStream("/resources/Icon.png")));
 		
 		bitSizeSelect = new ComboBox<>();
-		for(int i = 1; i <= 32; i++) {
+		for(int i = 1; i <= 64; i++) {
 			bitSizeSelect.getItems().add(i);
 		}
 		bitSizeSelect.setValue(1);
@@ -2201,6 +2595,9 @@ public class CircuitSim extends Application {
 			updateTitle();
 		});
 		
+		MenuItem exportNetlist = new MenuItem("Export netlist");
+		exportNetlist.setOnAction(event -> exportNetlist());
+		
 		MenuItem exit = new MenuItem("Exit");
 		exit.setOnAction(event -> {
 			if(!checkUnsavedChanges()) {
@@ -2211,6 +2608,7 @@ public class CircuitSim extends Application {
 		Menu fileMenu = new Menu("File");
 		fileMenu.getItems().addAll(newInstance, clear, new SeparatorMenuItem(),
 		                           load, save, saveAs, new SeparatorMenuItem(),
+		                           exportNetlist, new SeparatorMenuItem(),
 		                           exit);
 		
 		// EDIT Menu
@@ -2306,8 +2704,11 @@ public class CircuitSim extends Application {
 			}
 		});
 		
+		MenuItem truthTable = new MenuItem("Truth table");
+		truthTable.setOnAction(event -> showTruthTable());
+		
 		Menu circuitsMenu = new Menu("Circuits");
-		circuitsMenu.getItems().addAll(newCircuit, deleteCircuit);
+		circuitsMenu.getItems().addAll(newCircuit, deleteCircuit, new SeparatorMenuItem(), truthTable);
 		
 		// SIMULATION Menu
 		MenuItem stepSimulation = new MenuItem("Step Simulation");
@@ -2334,6 +2735,42 @@ public class CircuitSim extends Application {
 			clockEnabled.setSelected(false);
 		});
 		
+		CheckMenuItem flattenSubcircuits = new CheckMenuItem("Flatten subcircuits");
+		flattenSubcircuits.selectedProperty().addListener(
+			(observable, oldValue, newValue) -> simulator.setFlattenSubcircuits(newValue));
+		
+		CheckMenuItem levelizedSimulation = new CheckMenuItem("Levelized simulation");
+		levelizedSimulation.selectedProperty().addListener(
+			(observable, oldValue, newValue) -> simulator.setLevelized(newValue));
+		
+		CheckMenuItem memoizeSubcircuits = new CheckMenuItem("Memoize combinational subcircuits");
+		memoizeSubcircuits.selectedProperty().addListener(
+			(observable, oldValue, newValue) -> simulator.setMemoizeSubcircuits(newValue));
+		
+		CheckMenuItem enableProfiler = new CheckMenuItem("Enable profiler");
+		enableProfiler.selectedProperty().addListener(
+			(observable, oldValue, newValue) -> simulator.setProfiler(
+				newValue ? new SimulationProfiler(PROFILER_SAMPLE_INTERVAL) : null));
+		
+		MenuItem showProfiler = new MenuItem("Profiler report");
+		showProfiler.setOnAction(event -> {
+			if(profilerWindow == null) {
+				profilerWindow = new ProfilerWindow(stage, simulator);
+			}
+			profilerWindow.show();
+		});
+		
+		recordWaveforms = new CheckMenuItem("Record waveforms");
+		recordWaveforms.selectedProperty().addListener(
+			(observable, oldValue, newValue) -> simulator.setTraceRecorder(
+				newValue ? new TraceRecorder(TRACE_MEMORY_CAP) : null));
+		
+		MenuItem exportWaveforms = new MenuItem("Export waveforms (VCD)");
+		exportWaveforms.setOnAction(event -> exportWaveforms());
+		
+		MenuItem showTimingDiagram = new MenuItem("Timing diagram");
+		showTimingDiagram.setOnAction(event -> getTimingDiagramWindow().show());
+		
 		MenuItem reset = new MenuItem("Reset simulation");
 		reset.setAccelerator(new KeyCodeCombination(KeyCode.R, KeyCombination.SHORTCUT_DOWN));
 		reset.setOnAction(event -> {
@@ -2352,10 +2789,35 @@ public class CircuitSim extends Application {
 		tickClock.setAccelerator(new KeyCodeCombination(KeyCode.J, KeyCombination.SHORTCUT_DOWN));
 		tickClock.setOnAction(event -> Clock.tick(simulator));
 		
+		MenuItem tickClockBackwards = new MenuItem("Tick clock backwards");
+		tickClockBackwards.setAccelerator(new KeyCodeCombination(KeyCode.J,
+		                                                         KeyCombination.SHORTCUT_DOWN,
+		                                                         KeyCombination.SHIFT_DOWN));
+		tickClockBackwards.setDisable(true);
+		tickClockBackwards.setOnAction(event -> {
+			CycleHistory cycleHistory = simulator.getCycleHistory();
+			try {
+				if(cycleHistory != null && cycleHistory.stepBack()) {
+					runSim();
+				}
+			} catch(Exception exc) {
+				setLastException(exc);
+			} finally {
+				needsRepaint = true;
+			}
+		});
+		
+		CheckMenuItem enableReverseStepping = new CheckMenuItem("Enable reverse stepping");
+		enableReverseStepping.selectedProperty().addListener((observable, oldValue, newValue) -> {
+			simulator.setCycleHistory(newValue ? new CycleHistory(simulator, CYCLE_HISTORY_MEMORY_CAP) : null);
+			tickClockBackwards.setDisable(!newValue || clockEnabled.isSelected());
+		});
+		
 		clockEnabled = new CheckMenuItem("Clock Enabled");
 		clockEnabled.setAccelerator(new KeyCodeCombination(KeyCode.K, KeyCombination.SHORTCUT_DOWN));
 		clockEnabled.selectedProperty().addListener((observable, oldValue, newValue) -> {
 			tickClock.setDisable(newValue);
+			tickClockBackwards.setDisable(newValue || !enableReverseStepping.isSelected());
 			
 			if(newValue) {
 				Clock.startClock(simulator, getCurrentClockSpeed());
@@ -2380,8 +2842,15 @@ public class CircuitSim extends Application {
 		}
 		
 		Menu simulationMenu = new Menu("Simulation");
-		simulationMenu.getItems().addAll(simulationEnabled, stepSimulation, reset, new SeparatorMenuItem(),
-		                                 clockEnabled, tickClock, frequenciesMenu);
+		simulationMenu.getItems().addAll(simulationEnabled, stepSimulation, flattenSubcircuits,
+		                                 levelizedSimulation, memoizeSubcircuits, reset,
+		                                 new SeparatorMenuItem(),
+		                                 clockEnabled, tickClock, frequenciesMenu,
+		                                 enableReverseStepping, tickClockBackwards,
+		                                 new SeparatorMenuItem(),
+		                                 enableProfiler, showProfiler,
+		                                 new SeparatorMenuItem(),
+		                                 recordWaveforms, showTimingDiagram, exportWaveforms);
 		
 		// HELP Menu
 		Menu helpMenu = new Menu("Help");
@@ -2590,7 +3059,12 @@ public class CircuitSim extends Application {
 					if(manager != null) {
 						if((needsRepaint || manager.needsRepaint())) {
 							needsRepaint = false;
+							
+							long paintStart = System.nanoTime();
 							manager.paint();
+							if(paintTimer != null) {
+								paintTimer.record(System.nanoTime() - paintStart);
+							}
 						}
 						
 						if(!loadingFile) {
@@ -2619,6 +3093,9 @@ public class CircuitSim extends Application {
 				currentTimer.stop();
 				currentTimer = null;
 			}
+			
+			metricsExporters.forEach(MetricsExporter::stop);
+			metricsExporters.clear();
 		});
 	}
 }
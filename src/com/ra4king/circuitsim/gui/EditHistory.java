@@ -6,9 +6,13 @@ import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import com.ra4king.circuitsim.gui.LinkWires.Wire;
+import com.ra4king.circuitsim.gui.file.FileFormat.CircuitInfo;
+import com.ra4king.circuitsim.gui.file.FileFormat.ComponentInfo;
+import com.ra4king.circuitsim.gui.file.FileFormat.WireInfo;
 
 import javafx.scene.control.Tab;
 
@@ -19,7 +23,7 @@ public class EditHistory {
 	public enum EditAction {
 		CREATE_CIRCUIT {
 			protected void redo(CircuitManager manager, Object[] params) {
-				manager.getSimulatorWindow().readdCircuit(manager, (Tab)params[0], (int)params[1]);
+				((CircuitSim)params[0]).readdCircuit((CircuitInfo)params[1], (int)params[2]);
 			}
 			
 			protected void undo(CircuitManager manager, Object[] params) {
@@ -28,22 +32,22 @@ public class EditHistory {
 		},
 		RENAME_CIRCUIT {
 			protected void redo(CircuitManager manager, Object[] params) {
-				((CircuitSim)params[0]).renameCircuit((Tab)params[1], (String)params[3]);
+				((CircuitSim)params[0]).renameCircuit((String)params[1], (String)params[2]);
 			}
 			
 			protected void undo(CircuitManager manager, Object[] params) {
-				((CircuitSim)params[0]).renameCircuit((Tab)params[1], (String)params[2]);
+				((CircuitSim)params[0]).renameCircuit((String)params[2], (String)params[1]);
 			}
 		},
 		MOVE_CIRCUIT {
 			protected void redo(CircuitManager manager, Object[] params) {
 				@SuppressWarnings("unchecked")
 				List<Tab> tabs = (List<Tab>)params[0];
-				Tab tab = (Tab)params[1];
-				int fromIdx = (int)params[2];
-				int toIdx = (int)params[3];
+				int fromIdx = (int)params[1];
+				int toIdx = (int)params[2];
 				
-				if(tabs.indexOf(tab) != fromIdx) {
+				Tab tab = tabs.get(fromIdx);
+				if(!tab.getText().equals(manager.getName())) {
 					throw new IllegalStateException("Something bad happened!");
 				}
 				
@@ -56,12 +60,11 @@ public class EditHistory {
 			protected void undo(CircuitManager manager, Object[] params) {
 				@SuppressWarnings("unchecked")
 				List<Tab> tabs = (List<Tab>)params[0];
-				Tab tab = (Tab)params[1];
-				int fromIdx = (int)params[2];
-				int toIdx = (int)params[3];
+				int fromIdx = (int)params[1];
+				int toIdx = (int)params[2];
 				
 				// swap to/from idx
-				redo(manager, new Object[] { tabs, tab, toIdx, fromIdx });
+				redo(manager, new Object[] { tabs, toIdx, fromIdx });
 			}
 		},
 		DELETE_CIRCUIT {
@@ -75,51 +78,45 @@ public class EditHistory {
 		},
 		ADD_COMPONENT {
 			protected void redo(CircuitManager manager, Object[] params) {
-				manager.mayThrow(() -> manager.getCircuitBoard().addComponent((ComponentPeer<?>)params[0]));
+				ComponentInfo info = (ComponentInfo)params[0];
+				manager.mayThrow(() -> manager.getCircuitBoard().addComponent(createComponent(manager, info)));
 			}
 			
 			protected void undo(CircuitManager manager, Object[] params) {
-				ComponentPeer<?> toRemove = (ComponentPeer<?>)params[0];
-				
-				for(ComponentPeer<?> component : manager.getCircuitBoard().getComponents()) {
-					if(component == toRemove ||
-						   (component.getClass() == toRemove.getClass()
-							    && component.getX() == toRemove.getX()
-							    && component.getY() == toRemove.getY()
-							    && component.getProperties().equals(toRemove.getProperties()))) {
-						manager.mayThrow(() -> manager.getCircuitBoard()
-						                              .removeElements(Collections.singleton(component)));
-						break;
-					}
+				ComponentPeer<?> toRemove = findComponent(manager, (ComponentInfo)params[0], Collections.emptySet());
+				if(toRemove != null) {
+					manager.mayThrow(() -> manager.getCircuitBoard().removeElements(Collections.singleton(toRemove)));
 				}
 			}
+			
+			protected GuiElement getRemovedElement(CircuitManager manager, Object[] params, boolean undo,
+			                                       Set<GuiElement> pendingRemovals) {
+				return undo ? findComponent(manager, (ComponentInfo)params[0], pendingRemovals) : null;
+			}
+			
+			protected Object[] compact(Object[] params) {
+				return new Object[] { toInfo((ComponentPeer<?>)params[0]) };
+			}
 		},
 		UPDATE_COMPONENT {
 			protected void redo(CircuitManager manager, Object[] params) {
-				manager.mayThrow(() -> manager.getCircuitBoard().updateComponent((ComponentPeer<?>)params[0],
-				                                                                 (ComponentPeer<?>)params[1]));
+				update(manager, (ComponentInfo)params[0], (ComponentInfo)params[1]);
 			}
 			
 			protected void undo(CircuitManager manager, Object[] params) {
-				manager.mayThrow(() -> manager.getCircuitBoard().updateComponent((ComponentPeer<?>)params[1],
-				                                                                 (ComponentPeer<?>)params[0]));
+				update(manager, (ComponentInfo)params[1], (ComponentInfo)params[0]);
 			}
-		},
-		MOVE_ELEMENT {
-			protected void redo(CircuitManager manager, Object[] params) {
-				GuiElement element = (GuiElement)params[0];
-				int dx = (int)params[1];
-				int dy = (int)params[2];
-				element.setX(element.getX() + dx);
-				element.setY(element.getY() + dy);
+			
+			private void update(CircuitManager manager, ComponentInfo from, ComponentInfo to) {
+				ComponentPeer<?> oldComponent = findComponent(manager, from, Collections.emptySet());
+				if(oldComponent != null) {
+					manager.mayThrow(() -> manager.getCircuitBoard()
+					                              .updateComponent(oldComponent, createComponent(manager, to)));
+				}
 			}
 			
-			protected void undo(CircuitManager manager, Object[] params) {
-				GuiElement element = (GuiElement)params[0];
-				int dx = (int)params[1];
-				int dy = (int)params[2];
-				element.setX(element.getX() - dx);
-				element.setY(element.getY() - dy);
+			protected Object[] compact(Object[] params) {
+				return new Object[] { toInfo((ComponentPeer<?>)params[0]), toInfo((ComponentPeer<?>)params[1]) };
 			}
 		},
 		REMOVE_COMPONENT {
@@ -130,18 +127,36 @@ public class EditHistory {
 			protected void undo(CircuitManager manager, Object[] params) {
 				ADD_COMPONENT.redo(manager, params);
 			}
+			
+			protected GuiElement getRemovedElement(CircuitManager manager, Object[] params, boolean undo,
+			                                       Set<GuiElement> pendingRemovals) {
+				return ADD_COMPONENT.getRemovedElement(manager, params, !undo, pendingRemovals);
+			}
+			
+			protected Object[] compact(Object[] params) {
+				return ADD_COMPONENT.compact(params);
+			}
 		},
 		ADD_WIRE {
 			protected void redo(CircuitManager manager, Object[] params) {
-				Wire wire = (Wire)params[0];
+				WireInfo wire = (WireInfo)params[0];
 				manager.mayThrow(() -> manager.getCircuitBoard()
-				                              .addWire(wire.getX(), wire.getY(), wire.getLength(),
-				                                       wire.isHorizontal()));
+				                              .addWire(wire.x, wire.y, wire.length, wire.isHorizontal));
 			}
 			
 			protected void undo(CircuitManager manager, Object[] params) {
 				manager.mayThrow(() -> manager.getCircuitBoard()
-				                              .removeElements(Collections.singleton((Wire)params[0])));
+				                              .removeElements(Collections.singleton(toWire((WireInfo)params[0]))));
+			}
+			
+			protected GuiElement getRemovedElement(CircuitManager manager, Object[] params, boolean undo,
+			                                       Set<GuiElement> pendingRemovals) {
+				return undo ? toWire((WireInfo)params[0]) : null;
+			}
+			
+			protected Object[] compact(Object[] params) {
+				Wire wire = (Wire)params[0];
+				return new Object[] { new WireInfo(wire.getX(), wire.getY(), wire.getLength(), wire.isHorizontal()) };
 			}
 		},
 		REMOVE_WIRE {
@@ -152,24 +167,129 @@ public class EditHistory {
 			protected void undo(CircuitManager manager, Object[] params) {
 				ADD_WIRE.redo(manager, params);
 			}
+			
+			protected GuiElement getRemovedElement(CircuitManager manager, Object[] params, boolean undo,
+			                                       Set<GuiElement> pendingRemovals) {
+				return ADD_WIRE.getRemovedElement(manager, params, !undo, pendingRemovals);
+			}
+			
+			protected Object[] compact(Object[] params) {
+				return ADD_WIRE.compact(params);
+			}
 		};
 		
 		protected abstract void redo(CircuitManager manager, Object[] params);
 		
 		protected abstract void undo(CircuitManager manager, Object[] params);
+		
+		/**
+		 * If replaying this action only removes an element from the circuit, returns that element so consecutive
+		 * removals can be applied together in a single call. Returns null otherwise.
+		 */
+		protected GuiElement getRemovedElement(CircuitManager manager, Object[] params, boolean undo,
+		                                       Set<GuiElement> pendingRemovals) {
+			return null;
+		}
+		
+		/**
+		 * Convert the parameters to the compact form kept in the history. Component peers and wires are stored as the
+		 * same ComponentInfo/WireInfo descriptions used by save files, so the history never keeps them, their
+		 * Properties or their simulator Components alive.
+		 */
+		protected Object[] compact(Object[] params) {
+			return params;
+		}
+		
+		private static ComponentInfo toInfo(ComponentPeer<?> component) {
+			return new ComponentInfo(component.getClass().getName(), component.getX(), component.getY(),
+			                         component.getProperties());
+		}
+		
+		private static Wire toWire(WireInfo wire) {
+			return new Wire(null, wire.x, wire.y, wire.length, wire.isHorizontal);
+		}
+		
+		private static ComponentPeer<?> createComponent(CircuitManager manager, ComponentInfo info) throws Exception {
+			return manager.getSimulatorWindow().createComponent(info, info.x, info.y);
+		}
+		
+		private static ComponentPeer<?> findComponent(CircuitManager manager, ComponentInfo info,
+		                                              Set<GuiElement> exclude) {
+			for(ComponentPeer<?> component : manager.getCircuitBoard().getComponents()) {
+				if(component.getX() == info.x && component.getY() == info.y
+					   && component.getClass().getName().equals(info.name)
+					   && !exclude.contains(component)
+					   && toInfo(component).equals(info)) {
+					return component;
+				}
+			}
+			
+			return null;
+		}
 	}
 	
-	private class Edit {
-		EditAction action;
+	/**
+	 * An edit refers to its circuit by name, resolved through CircuitSim when it is replayed, so the history never
+	 * keeps a CircuitManager alive. A created or deleted circuit is kept as the CircuitInfo it is saved as.
+	 */
+	private static class Edit {
+		final EditAction action;
+		final String circuitName;
+		final Object[] params;
 		
-		CircuitManager circuitManager;
-		Object[] params;
-		
-		Edit(EditAction action, CircuitManager circuitManager, Object[] params) {
+		Edit(EditAction action, String circuitName, Object[] params) {
 			this.action = action;
-			this.circuitManager = circuitManager;
+			this.circuitName = circuitName;
 			this.params = params;
 		}
+		
+		/**
+		 * A rough estimate of the memory retained by this edit, in bytes.
+		 */
+		long estimateSize() {
+			long size = 64;
+			for(Object param : params) {
+				if(param instanceof CircuitInfo) {
+					CircuitInfo info = (CircuitInfo)param;
+					size += 64 + 2 * info.name.length();
+					for(ComponentInfo component : info.components) {
+						size += estimateSize(component);
+					}
+					size += 32L * info.wires.size();
+				} else if(param instanceof ComponentInfo) {
+					size += estimateSize((ComponentInfo)param);
+				} else if(param instanceof WireInfo) {
+					size += 32;
+				} else {
+					size += 16;
+				}
+			}
+			
+			return size;
+		}
+		
+		private static long estimateSize(ComponentInfo info) {
+			long size = 64 + 2 * info.name.length();
+			for(Entry<String, String> property : info.properties.entrySet()) {
+				size += 96 + 2 * (property.getKey().length() + property.getValue().length());
+			}
+			return size;
+		}
+	}
+	
+	private static class EditGroup {
+		final List<Edit> edits;
+		final long size;
+		
+		EditGroup(List<Edit> edits) {
+			this.edits = edits;
+			
+			long size = 32;
+			for(Edit edit : edits) {
+				size += edit.estimateSize();
+			}
+			this.size = size;
+		}
 	}
 	
 	public interface EditListener {
@@ -178,10 +298,13 @@ public class EditHistory {
 	
 	private CircuitSim circuitSim;
 	
-	private Deque<List<Edit>> editStack;
-	private Deque<List<Edit>> redoStack;
+	private Deque<EditGroup> editStack;
+	private Deque<EditGroup> redoStack;
 	
-	private static final int MAX_HISTORY = 300;
+	// The history is bounded by the estimated memory it retains rather than by a number of edits
+	private static final long DEFAULT_MEMORY_BUDGET = 32L * 1024 * 1024;
+	private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+	private long memoryUsed;
 	
 	private List<EditListener> editListeners;
 	
@@ -197,6 +320,46 @@ public class EditHistory {
 	public void clear() {
 		editStack.clear();
 		redoStack.clear();
+		memoryUsed = 0;
+	}
+	
+	/**
+	 * Set the approximate amount of memory, in bytes, the undo and redo history may retain. The oldest edits are
+	 * discarded first. The most recent edit is always kept.
+	 */
+	public void setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		trim();
+	}
+	
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+	
+	/**
+	 * @return The estimated memory, in bytes, currently retained by the undo and redo history.
+	 */
+	public long getMemoryUsed() {
+		return memoryUsed;
+	}
+	
+	private void pushEdit(EditGroup group) {
+		editStack.push(group);
+		memoryUsed += group.size;
+		trim();
+	}
+	
+	private void clearRedo() {
+		for(EditGroup group : redoStack) {
+			memoryUsed -= group.size;
+		}
+		redoStack.clear();
+	}
+	
+	private void trim() {
+		while(memoryUsed > memoryBudget && editStack.size() > 1) {
+			memoryUsed -= editStack.removeLast().size;
+		}
 	}
 	
 	private int disableDepth = 0;
@@ -247,10 +410,7 @@ public class EditHistory {
 			
 			List<Edit> edits = groups.get(0);
 			if(!edits.isEmpty()) {
-				editStack.push(edits);
-				if(editStack.size() > MAX_HISTORY) {
-					editStack.removeLast();
-				}
+				pushEdit(new EditGroup(edits));
 			}
 			
 			groups = null;
@@ -269,13 +429,15 @@ public class EditHistory {
 	
 	public void addAction(EditAction action, CircuitManager manager, Object... params) {
 		if(disableDepth == 0) {
+			Object[] compacted = action.compact(params);
+			
 			beginGroup();
-			groups.get(groupDepth - 1).add(new Edit(action, manager, params));
+			groups.get(groupDepth - 1).add(new Edit(action, manager == null ? null : manager.getName(), compacted));
 			endGroup();
 			
-			redoStack.clear();
+			clearRedo();
 			
-			editListeners.forEach(listener -> listener.edit(action, manager, params));
+			editListeners.forEach(listener -> listener.edit(action, manager, compacted));
 		}
 	}
 	
@@ -292,31 +454,14 @@ public class EditHistory {
 			return null;
 		}
 		
-		List<Edit> popped = editStack.pop();
+		EditGroup popped = editStack.pop();
 		redoStack.push(popped);
 		
-		circuitSim.getSimulator().runSync(() -> {
-			Set<CircuitManager> circuitManagers = new HashSet<>();
-			
-			try {
-				disable();
-				
-				for(int i = popped.size() - 1; i >= 0; i--) {
-					Edit edit = popped.get(i);
-					
-					circuitManagers.add(edit.circuitManager);
-					edit.circuitManager.getCircuitBoard().disableRejoinWires();
-					
-					edit.action.undo(edit.circuitManager, edit.params);
-					editListeners.forEach(listener -> listener.edit(edit.action, edit.circuitManager, edit.params));
-				}
-			} finally {
-				enable();
-				circuitManagers.forEach(circuitManager -> circuitManager.getCircuitBoard().enableRejoinWires());
-			}
-		});
+		List<Edit> edits = new ArrayList<>(popped.edits);
+		Collections.reverse(edits);
+		replay(edits, true);
 		
-		return popped.get(0).circuitManager;
+		return circuitSim.getCircuitManager(popped.edits.get(0).circuitName);
 	}
 	
 	public CircuitManager redo() {
@@ -324,31 +469,75 @@ public class EditHistory {
 			return null;
 		}
 		
-		List<Edit> popped = redoStack.pop();
+		EditGroup popped = redoStack.pop();
 		editStack.push(popped);
-		if(editStack.size() > MAX_HISTORY) {
-			editStack.removeLast();
-		}
+		trim();
+		
+		replay(popped.edits, false);
 		
+		return circuitSim.getCircuitManager(popped.edits.get(0).circuitName);
+	}
+	
+	/**
+	 * Replays the edits in order. Wire rejoining is deferred until the end, and consecutive removals in the same
+	 * circuit are applied with a single removeElements call instead of one call per element.
+	 */
+	private void replay(List<Edit> edits, boolean undo) {
 		circuitSim.getSimulator().runSync(() -> {
 			Set<CircuitManager> circuitManagers = new HashSet<>();
 			
+			CircuitManager pendingManager = null;
+			Set<GuiElement> pendingRemovals = new HashSet<>();
+			
 			try {
 				disable();
 				
-				for(Edit edit : popped) {
-					circuitManagers.add(edit.circuitManager);
-					edit.circuitManager.getCircuitBoard().disableRejoinWires();
+				for(Edit edit : edits) {
+					// Null when the edit re-creates its circuit, or does not belong to one
+					CircuitManager manager = edit.circuitName == null
+					                         ? null
+					                         : circuitSim.getCircuitManager(edit.circuitName);
+					if(manager != null && circuitManagers.add(manager)) {
+						manager.getCircuitBoard().disableRejoinWires();
+					}
+					
+					GuiElement removed =
+						manager == null ? null : edit.action.getRemovedElement(manager, edit.params, undo,
+						                                                       pendingRemovals);
 					
-					edit.action.redo(edit.circuitManager, edit.params);
-					editListeners.forEach(listener -> listener.edit(edit.action, edit.circuitManager, edit.params));
+					if(removed == null || pendingManager != manager) {
+						flushRemovals(pendingManager, pendingRemovals);
+						pendingManager = null;
+					}
+					
+					if(removed != null) {
+						pendingManager = manager;
+						pendingRemovals.add(removed);
+					} else if(undo) {
+						edit.action.undo(manager, edit.params);
+					} else {
+						edit.action.redo(manager, edit.params);
+					}
+					
+					CircuitManager editedManager = edit.circuitName == null
+					                               ? null
+					                               : circuitSim.getCircuitManager(edit.circuitName);
+					editListeners.forEach(listener -> listener.edit(edit.action, editedManager, edit.params));
 				}
+				
+				flushRemovals(pendingManager, pendingRemovals);
 			} finally {
 				enable();
 				circuitManagers.forEach(circuitManager -> circuitManager.getCircuitBoard().enableRejoinWires());
 			}
 		});
-		
-		return popped.get(0).circuitManager;
+	}
+	
+	private static void flushRemovals(CircuitManager manager, Set<GuiElement> removals) {
+		if(manager != null && !removals.isEmpty()) {
+			Set<GuiElement> toRemove = new HashSet<>(removals);
+			manager.mayThrow(() -> manager.getCircuitBoard().removeElements(toRemove));
+		}
+		removals.clear();
 	}
 }
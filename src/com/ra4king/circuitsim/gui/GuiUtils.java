@@ -4,6 +4,7 @@ import static com.ra4king.circuitsim.gui.Properties.Direction.*;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -16,6 +17,7 @@ import com.ra4king.circuitsim.simulator.Port.Link;
 import com.ra4king.circuitsim.simulator.WireValue;
 import com.ra4king.circuitsim.simulator.WireValue.State;
 
+import javafx.geometry.BoundingBox;
 import javafx.geometry.Bounds;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
@@ -87,6 +89,7 @@ public class GuiUtils {
 			
 			Font font = Font.loadFont(GuiUtils.class.getResourceAsStream(fontFile), size);
 			fonts.put(info, font);
+			monospaceMetrics.put(font, new MonospaceMetrics(font));
 			return font;
 		}
 	}
@@ -99,25 +102,103 @@ public class GuiUtils {
 		return getCircuitCoord(a) * BLOCK_SIZE;
 	}
 	
-	private static Map<Font, Map<String, Bounds>> boundsSeen = new HashMap<>();
+	/**
+	 * All fonts returned by getFont are DejaVu Sans Mono, where every ASCII character has the same advance, so the
+	 * bounds of a single line of ASCII text only depend on its length.
+	 */
+	private static class MonospaceMetrics {
+		private final double minX, minY, advance, height;
+		private Bounds[] boundsByLength = new Bounds[16];
+		
+		MonospaceMetrics(Font font) {
+			Bounds bounds = measure(font, "0");
+			minX = bounds.getMinX();
+			minY = bounds.getMinY();
+			advance = bounds.getWidth();
+			height = bounds.getHeight();
+		}
+		
+		static boolean canMeasure(String string) {
+			for(int i = 0; i < string.length(); i++) {
+				char c = string.charAt(i);
+				if(c < ' ' || c > '~') {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		Bounds getBounds(int length) {
+			if(length >= boundsByLength.length) {
+				boundsByLength = Arrays.copyOf(boundsByLength, Math.max(length + 1, boundsByLength.length * 2));
+			}
+			
+			Bounds bounds = boundsByLength[length];
+			if(bounds == null) {
+				bounds = boundsByLength[length] = new BoundingBox(minX, minY, advance * length, height);
+			}
+			return bounds;
+		}
+	}
 	
-	public static Bounds getBounds(Font font, String string) {
-		return getBounds(font, string, true);
+	private static Map<Font, MonospaceMetrics> monospaceMetrics = new HashMap<>();
+	
+	private static class TextKey {
+		private final Font font;
+		private final String string;
+		
+		TextKey(Font font, String string) {
+			this.font = font;
+			this.string = string;
+		}
+		
+		@Override
+		public int hashCode() {
+			return font.hashCode() * 31 + string.hashCode();
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			if(!(other instanceof TextKey)) {
+				return false;
+			}
+			
+			TextKey key = (TextKey)other;
+			return key.font.equals(this.font) && key.string.equals(this.string);
+		}
 	}
 	
-	public static Bounds getBounds(Font font, String string, boolean save) {
-		if(save) {
-			Map<String, Bounds> strings = boundsSeen.computeIfAbsent(font, f -> new HashMap<>());
-			return strings.computeIfAbsent(string, s -> {
-				Text text = new Text(string);
-				text.setFont(font);
-				return text.getLayoutBounds();
-			});
-		} else {
-			Text text = new Text(string);
-			text.setFont(font);
-			return text.getLayoutBounds();
+	static final int MAX_BOUNDS_SEEN = 4096;
+	
+	// Least recently used strings are evicted first
+	private static Map<TextKey, Bounds> boundsSeen = new LinkedHashMap<TextKey, Bounds>(256, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<TextKey, Bounds> eldest) {
+			return size() > MAX_BOUNDS_SEEN;
 		}
+	};
+	
+	/**
+	 * Measures the layout bounds of the string in the font. Strings in the monospace font returned by getFont are
+	 * measured arithmetically, any other string is measured once then kept in a bounded cache.
+	 */
+	public static Bounds getBounds(Font font, String string) {
+		MonospaceMetrics metrics = monospaceMetrics.get(font);
+		if(metrics != null && MonospaceMetrics.canMeasure(string)) {
+			return metrics.getBounds(string.length());
+		}
+		
+		return boundsSeen.computeIfAbsent(new TextKey(font, string), key -> measure(font, string));
+	}
+	
+	static int getBoundsSeenSize() {
+		return boundsSeen.size();
+	}
+	
+	private static Bounds measure(Font font, String string) {
+		Text text = new Text(string);
+		text.setFont(font);
+		return text.getLayoutBounds();
 	}
 	
 	public interface Drawable {
@@ -160,7 +241,7 @@ public class GuiUtils {
 	}
 	
 	public static void drawValue(GraphicsContext graphics, String string, int x, int y, int width) {
-		Bounds bounds = GuiUtils.getBounds(graphics.getFont(), string, false);
+		Bounds bounds = GuiUtils.getBounds(graphics.getFont(), string);
 		
 		if(string.length() == 1) {
 			graphics.fillText(string, x + (width - bounds.getWidth()) * 0.5, y + bounds.getHeight() * 0.75 + 1);
@@ -0,0 +1,191 @@
+package com.ra4king.circuitsim.gui;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import com.ra4king.circuitsim.simulator.SimulationProfiler;
+import com.ra4king.circuitsim.simulator.SimulationProfiler.Entry;
+import com.ra4king.circuitsim.simulator.SimulationProfiler.Report;
+import com.ra4king.circuitsim.simulator.Simulator;
+
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TabPane.TabClosingPolicy;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.FileChooser.ExtensionFilter;
+import javafx.stage.Stage;
+
+/**
+ * Window showing the report of the SimulationProfiler attached to a Simulator.
+ *
+ * @author Roi Atalla
+ */
+class ProfilerWindow {
+	private final Simulator simulator;
+	private final Stage stage;
+	
+	private final TableView<Entry> components, circuits, states;
+	private final Label summary;
+	
+	private Report report;
+	
+	ProfilerWindow(Stage owner, Simulator simulator) {
+		this.simulator = simulator;
+		
+		stage = new Stage();
+		stage.initOwner(owner);
+		stage.setTitle("Profiler");
+		
+		components = createTable("Component");
+		circuits = createTable("Circuit");
+		states = createTable("Circuit state");
+		
+		TabPane tabPane = new TabPane(new Tab("Components", components),
+		                              new Tab("Circuits", circuits),
+		                              new Tab("Subcircuit instances", states));
+		tabPane.setTabClosingPolicy(TabClosingPolicy.UNAVAILABLE);
+		VBox.setVgrow(tabPane, Priority.ALWAYS);
+		
+		summary = new Label();
+		
+		Button refreshButton = new Button("Refresh");
+		refreshButton.setOnAction(event -> refresh());
+		
+		Button resetButton = new Button("Reset");
+		resetButton.setOnAction(event -> {
+			simulator.runSync(() -> {
+				SimulationProfiler profiler = simulator.getProfiler();
+				if(profiler != null) {
+					profiler.reset();
+				}
+			});
+			refresh();
+		});
+		
+		Button exportCsvButton = new Button("Export CSV");
+		exportCsvButton.setOnAction(event -> export("CSV file", "*.csv", "profile.csv", false));
+		
+		Button exportJsonButton = new Button("Export JSON");
+		exportJsonButton.setOnAction(event -> export("JSON file", "*.json", "profile.json", true));
+		
+		HBox buttons = new HBox(10, refreshButton, resetButton, exportCsvButton, exportJsonButton);
+		
+		VBox vBox = new VBox(10, tabPane, summary, buttons);
+		vBox.setPadding(new Insets(10));
+		
+		stage.setScene(new Scene(vBox, 800, 500));
+	}
+	
+	private static TableView<Entry> createTable(String nameTitle) {
+		TableView<Entry> tableView = new TableView<>();
+		tableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+		
+		TableColumn<Entry, String> name = new TableColumn<>(nameTitle);
+		name.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().getName()));
+		
+		TableColumn<Entry, String> type = new TableColumn<>("Type");
+		type.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().getType()));
+		
+		TableColumn<Entry, String> circuit = new TableColumn<>("Circuit");
+		circuit.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().getCircuit()));
+		
+		TableColumn<Entry, Long> evaluations = new TableColumn<>("Evaluations");
+		evaluations.setCellValueFactory(param -> new SimpleObjectProperty<>(param.getValue().getEvaluations()));
+		
+		TableColumn<Entry, Long> pushes = new TableColumn<>("Pushes");
+		pushes.setCellValueFactory(param -> new SimpleObjectProperty<>(param.getValue().getPushes()));
+		
+		TableColumn<Entry, Double> time = new TableColumn<>("Est. time (ms)");
+		time.setCellValueFactory(
+			param -> new SimpleObjectProperty<>(param.getValue().getEstimatedNanos() / 1e6));
+		
+		tableView.getColumns().add(name);
+		tableView.getColumns().add(type);
+		tableView.getColumns().add(circuit);
+		tableView.getColumns().add(evaluations);
+		tableView.getColumns().add(pushes);
+		tableView.getColumns().add(time);
+		
+		return tableView;
+	}
+	
+	void show() {
+		refresh();
+		stage.show();
+		stage.toFront();
+	}
+	
+	private void refresh() {
+		simulator.runSync(() -> {
+			SimulationProfiler profiler = simulator.getProfiler();
+			report = profiler == null ? null : profiler.createReport();
+		});
+		
+		if(report == null) {
+			setItems(components, null);
+			setItems(circuits, null);
+			setItems(states, null);
+			summary.setText("Profiling is disabled.");
+			return;
+		}
+		
+		setItems(components, report.getComponents());
+		setItems(circuits, report.getCircuits());
+		setItems(states, report.getStates());
+		summary.setText(String.format("Steps: %d (avg queue depth %.1f, max %d)    " +
+		                              "Step-alls: %d (avg %.1f steps, max %d)",
+		                              report.getSteps(),
+		                              report.getAverageQueueDepth(),
+		                              report.getMaxQueueDepth(),
+		                              report.getStepAlls(),
+		                              report.getAverageStepsPerStepAll(),
+		                              report.getMaxStepsPerStepAll()));
+	}
+	
+	private static void setItems(TableView<Entry> tableView, List<Entry> entries) {
+		tableView.setItems(entries == null ? FXCollections.emptyObservableList()
+		                                   : FXCollections.observableArrayList(entries));
+	}
+	
+	private void export(String description, String extension, String initialName, boolean json) {
+		if(report == null) {
+			return;
+		}
+		
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.setTitle("Choose export file");
+		fileChooser.setInitialFileName(initialName);
+		fileChooser.getExtensionFilters().add(new ExtensionFilter(description, extension));
+		File selectedFile = fileChooser.showSaveDialog(stage);
+		if(selectedFile != null) {
+			try(Writer writer = Files.newBufferedWriter(selectedFile.toPath(), StandardCharsets.UTF_8)) {
+				if(json) {
+					report.writeJson(writer);
+				} else {
+					report.writeCsv(writer);
+				}
+			} catch(IOException exc) {
+				exc.printStackTrace();
+				new Alert(AlertType.ERROR, "Could not save file: " + exc.getMessage()).showAndWait();
+			}
+		}
+	}
+}
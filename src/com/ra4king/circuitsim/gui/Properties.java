@@ -241,6 +241,26 @@ public class Properties {
 			}
 		}
 	};
+	public static final PropertyValidator<Long> LONG_VALIDATOR = value -> {
+		try {
+			return Long.parseLong(value);
+		} catch(NumberFormatException exc) {
+			String modified;
+			if(value.startsWith("0x")) {
+				modified = value.substring(2);
+			} else if(value.startsWith("x")) {
+				modified = value.substring(1);
+			} else {
+				modified = value;
+			}
+			
+			try {
+				return Long.parseUnsignedLong(modified, 16);
+			} catch(NumberFormatException exc2) {
+				throw new SimulationException(value + " is not a valid integer.");
+			}
+		}
+	};
 	public static final PropertyListValidator<Boolean> LOCATION_VALIDATOR =
 			new PropertyListValidator<>(Arrays.asList(true, false), bool -> bool ? "Left/Top" : "Right/Down");
 	public static final PropertyValidator<Color> COLOR_VALIDATOR = new PropertyValidator<Color>() {
@@ -284,7 +304,7 @@ public class Properties {
 		NUM_INPUTS = new Property<>("Number of Inputs", new PropertyListValidator<>(numInputsValues), 2);
 		
 		List<Integer> bitSizeValues = new ArrayList<>();
-		for(int i = 1; i <= 32; i++) {
+		for(int i = 1; i <= 64; i++) {
 			bitSizeValues.add(i);
 		}
 		BITSIZE = new Property<>("Bitsize", new PropertyListValidator<>(bitSizeValues), 1);
@@ -521,16 +541,16 @@ public class Properties {
 			this.dataBits = dataBits;
 		}
 		
-		public String parseValue(int value) {
-			if(dataBits < 32) {
-				value &= (1 << dataBits) - 1;
+		public String parseValue(long value) {
+			if(dataBits < 64) {
+				value &= (1L << dataBits) - 1;
 			}
 			return String.format("%0" + (1 + (dataBits - 1) / 4) + "x", value);
 		}
 		
-		public int parseValue(String value) {
+		public long parseValue(String value) {
 			try {
-				return Integer.parseUnsignedInt(value, 16);
+				return Long.parseUnsignedLong(value, 16);
 			} catch(NumberFormatException exc) {
 				throw new SimulationException("Cannot parse invalid hex value: " + value);
 			}
@@ -547,12 +567,12 @@ public class Properties {
 			return false;
 		}
 		
-		public List<MemoryLine> parse(int[] values, BiConsumer<Integer, Integer> memoryListener) {
+		public List<MemoryLine> parse(long[] values, BiConsumer<Integer, Long> memoryListener) {
 			List<MemoryLine> lines = new ArrayList<>();
 			
 			int address = 0;
 			MemoryLine currLine = null;
-			for(int value : values) {
+			for(long value : values) {
 				if(currLine == null) {
 					currLine = new MemoryLine(address);
 				}
@@ -602,8 +622,8 @@ public class Properties {
 			return parse(parsePartial(contents), null);
 		}
 		
-		private int[] parsePartial(String contents) {
-			int[] values = new int[1 << addressBits];
+		private long[] parsePartial(String contents) {
+			long[] values = new long[1 << addressBits];
 			
 			Scanner scanner = new Scanner(contents);
 			int length;
@@ -612,7 +632,7 @@ public class Properties {
 				if(piece.matches("^\\d+-[\\da-fA-F]+$")) {
 					String[] split = piece.split("-");
 					int count = Integer.parseInt(split[0]);
-					int val = parseValue(split[1]);
+					long val = parseValue(split[1]);
 					for(int j = 0; j < count && length < values.length; j++, length++) {
 						values[length] = val;
 					}
@@ -658,7 +678,7 @@ public class Properties {
 		public Node createGui(Stage stage, List<MemoryLine> value, Consumer<List<MemoryLine>> onAction) {
 			Button button = new Button("Click to edit");
 			button.setOnAction(event -> {
-				List<MemoryLine> lines = value == null ? parse(new int[0], null) : value;
+				List<MemoryLine> lines = value == null ? parse(new long[0], null) : value;
 				createAndShowMemoryWindow(stage, lines);
 				onAction.accept(lines);
 			});
@@ -839,7 +859,7 @@ public class Properties {
 								ObservableList<TablePosition> selectedCells =
 									tableView.getSelectionModel().getSelectedCells();
 								
-								int[] values = parsePartial(clipboard);
+								long[] values = parsePartial(clipboard);
 								
 								if(selectedCells.size() <= 1) {
 									TablePosition selectedCell =
@@ -848,7 +868,7 @@ public class Properties {
 									int col = selectedCell == null ? 0 : selectedCell.getColumn() - 1;
 									
 									if(col >= 0) {
-										for(int value : values) {
+										for(long value : values) {
 											lines.get(row).get(col).set(parseValue(value));
 											
 											if(++col == lines.get(0).values.size()) {
@@ -0,0 +1,453 @@
+package com.ra4king.circuitsim.gui;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.Port;
+import com.ra4king.circuitsim.simulator.Port.Link;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.TraceIndex;
+import com.ra4king.circuitsim.simulator.TraceIndex.ChangeList;
+import com.ra4king.circuitsim.simulator.TraceRecorder;
+import com.ra4king.circuitsim.simulator.WireValue.State;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.stage.Stage;
+
+/**
+ * Window showing the waveforms recorded by the TraceRecorder attached to a Simulator. The signals shown are the ones
+ * watched through the context menu of Pins and Probes, or every recorded signal if none are watched.
+ * <p>
+ * Waveforms are drawn from a TraceIndex, so each frame only looks up the changes inside the visible time window.
+ * When zoomed out far enough that several changes fall inside a single pixel, those changes are collapsed into one
+ * shaded block instead of being drawn one by one.
+ *
+ * @author Roi Atalla
+ */
+class TimingDiagramWindow {
+	private static final double NAME_WIDTH = 200;
+	private static final double HEADER_HEIGHT = 24;
+	private static final double ROW_HEIGHT = 28;
+	private static final double MIN_TIME_PER_PIXEL = 1.0 / 64;
+	private static final long UPDATE_INTERVAL = 100_000_000L;
+	
+	private static final Color DENSE_COLOR = Color.GRAY;
+	private static final Color X_MULTIBIT_COLOR = Color.BLUE.darker();
+	
+	private final Simulator simulator;
+	private final Stage stage;
+	private final Canvas canvas;
+	private final ScrollBar scrollBar;
+	private final Label status;
+	private final AnimationTimer timer;
+	
+	private final TraceIndex index = new TraceIndex();
+	private final List<WatchedSignal> watchedSignals = new ArrayList<>();
+	
+	private double timePerPixel = 1;
+	private double viewStart;
+	private boolean follow = true;
+	private double cursorX = -1;
+	
+	private boolean dirty = true;
+	private boolean updatingScrollBar;
+	private long lastUpdate;
+	
+	TimingDiagramWindow(Stage owner, Simulator simulator) {
+		this.simulator = simulator;
+		
+		stage = new Stage();
+		stage.initOwner(owner);
+		stage.setTitle("Timing diagram");
+		
+		canvas = new Canvas();
+		Pane canvasPane = new Pane(canvas);
+		canvas.widthProperty().bind(canvasPane.widthProperty());
+		canvas.heightProperty().bind(canvasPane.heightProperty());
+		canvas.widthProperty().addListener(observable -> dirty = true);
+		canvas.heightProperty().addListener(observable -> dirty = true);
+		VBox.setVgrow(canvasPane, Priority.ALWAYS);
+		
+		canvas.setOnMouseMoved(event -> {
+			cursorX = event.getX() - NAME_WIDTH;
+			dirty = true;
+		});
+		canvas.setOnMouseExited(event -> {
+			cursorX = -1;
+			dirty = true;
+		});
+		canvas.setOnScroll(event -> {
+			if(event.isShortcutDown()) {
+				zoom(event.getDeltaY() > 0 ? 0.5 : 2, event.getX() - NAME_WIDTH);
+			} else {
+				double delta = event.getDeltaX() != 0 ? event.getDeltaX() : event.getDeltaY();
+				scrollTo(viewStart - delta * timePerPixel);
+			}
+		});
+		
+		scrollBar = new ScrollBar();
+		scrollBar.setOrientation(Orientation.HORIZONTAL);
+		scrollBar.valueProperty().addListener((observable, oldValue, newValue) -> {
+			if(!updatingScrollBar) {
+				scrollTo(newValue.doubleValue());
+			}
+		});
+		
+		status = new Label();
+		
+		Button zoomInButton = new Button("Zoom in");
+		zoomInButton.setOnAction(event -> zoom(0.5, getWaveformWidth() / 2));
+		
+		Button zoomOutButton = new Button("Zoom out");
+		zoomOutButton.setOnAction(event -> zoom(2, getWaveformWidth() / 2));
+		
+		Button fitButton = new Button("Fit");
+		fitButton.setOnAction(event -> fit());
+		
+		Button clearButton = new Button("Clear");
+		clearButton.setOnAction(event -> {
+			simulator.runSync(() -> {
+				TraceRecorder recorder = simulator.getTraceRecorder();
+				if(recorder != null) {
+					recorder.clear();
+				}
+			});
+			follow = true;
+			dirty = true;
+		});
+		
+		Button unwatchButton = new Button("Unwatch all");
+		unwatchButton.setOnAction(event -> {
+			watchedSignals.clear();
+			dirty = true;
+		});
+		
+		HBox buttons = new HBox(10, zoomInButton, zoomOutButton, fitButton, clearButton, unwatchButton, status);
+		
+		VBox vBox = new VBox(10, canvasPane, scrollBar, buttons);
+		vBox.setPadding(new Insets(10));
+		
+		stage.setScene(new Scene(vBox, 1000, 400));
+		
+		timer = new AnimationTimer() {
+			@Override
+			public void handle(long now) {
+				if(now - lastUpdate >= UPDATE_INTERVAL) {
+					lastUpdate = now;
+					update();
+				}
+				
+				if(dirty) {
+					dirty = false;
+					draw();
+				}
+			}
+		};
+		stage.setOnShown(event -> timer.start());
+		stage.setOnHidden(event -> timer.stop());
+	}
+	
+	void show() {
+		stage.show();
+		stage.toFront();
+	}
+	
+	boolean isWatched(CircuitState state, Port port) {
+		return watchedSignals.stream().anyMatch(signal -> signal.state == state && signal.port == port);
+	}
+	
+	void setWatched(CircuitState state, Port port, String name, boolean watched) {
+		watchedSignals.removeIf(signal -> signal.state == state && signal.port == port);
+		if(watched) {
+			watchedSignals.add(new WatchedSignal(state, port, name));
+		}
+		dirty = true;
+	}
+	
+	/**
+	 * Restricts the recorder to the watched links and copies newly recorded changes into the index.
+	 */
+	private void update() {
+		Set<Link> links = new HashSet<>();
+		watchedSignals.forEach(signal -> links.add(signal.port.getLink()));
+		
+		simulator.runSync(() -> {
+			TraceRecorder recorder = simulator.getTraceRecorder();
+			if(recorder != null) {
+				Set<Link> selectedLinks = links.isEmpty() ? null : links;
+				if(selectedLinks == null ? recorder.getSelectedLinks() != null
+				                         : !selectedLinks.equals(recorder.getSelectedLinks())) {
+					recorder.setSelectedLinks(selectedLinks);
+				}
+			}
+			
+			if(index.update(recorder)) {
+				dirty = true;
+			}
+		});
+		
+		if(dirty && follow) {
+			viewStart = getMaxViewStart();
+		}
+	}
+	
+	private double getWaveformWidth() {
+		return Math.max(1, canvas.getWidth() - NAME_WIDTH);
+	}
+	
+	private double getMaxViewStart() {
+		return Math.max(index.getStartTime(), index.getEndTime() + 1 - getWaveformWidth() * timePerPixel);
+	}
+	
+	private void scrollTo(double time) {
+		viewStart = Math.max(index.getStartTime(), Math.min(getMaxViewStart(), time));
+		follow = viewStart >= getMaxViewStart();
+		dirty = true;
+	}
+	
+	private void zoom(double factor, double anchorX) {
+		double anchorTime = viewStart + anchorX * timePerPixel;
+		timePerPixel = Math.max(MIN_TIME_PER_PIXEL, timePerPixel * factor);
+		scrollTo(anchorTime - anchorX * timePerPixel);
+	}
+	
+	private void fit() {
+		long duration = index.getEndTime() + 1 - index.getStartTime();
+		timePerPixel = Math.max(MIN_TIME_PER_PIXEL, duration / getWaveformWidth());
+		scrollTo(index.getStartTime());
+	}
+	
+	private double getX(long time) {
+		return (time - viewStart) / timePerPixel;
+	}
+	
+	/**
+	 * @return The index of the last change strictly before the left edge of the given pixel.
+	 */
+	private int indexBefore(ChangeList changes, double x) {
+		return changes.indexAt((long)Math.ceil(viewStart + x * timePerPixel) - 1);
+	}
+	
+	private void draw() {
+		updatingScrollBar = true;
+		scrollBar.setMin(index.getStartTime());
+		scrollBar.setMax(getMaxViewStart());
+		scrollBar.setVisibleAmount(getWaveformWidth() * timePerPixel);
+		scrollBar.setValue(viewStart);
+		updatingScrollBar = false;
+		
+		GraphicsContext graphics = canvas.getGraphicsContext2D();
+		graphics.setFill(Color.WHITE);
+		graphics.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+		graphics.setFont(GuiUtils.getFont(12));
+		graphics.setLineWidth(1.5);
+		
+		drawHeader(graphics);
+		
+		long cursorTime = (long)Math.floor(viewStart + cursorX * timePerPixel);
+		
+		double y = HEADER_HEIGHT;
+		for(Row row : getRows()) {
+			if(y > canvas.getHeight()) {
+				break;
+			}
+			
+			String name = row.name;
+			if(cursorX >= 0 && row.changes != null) {
+				int changeIndex = row.changes.indexAt(cursorTime);
+				name += " = " + valueToString(row.changes.getOnes(changeIndex),
+				                              row.changes.getXs(changeIndex),
+				                              row.bitSize);
+			}
+			
+			graphics.setFill(Color.BLACK);
+			graphics.fillText(name, 4, y + ROW_HEIGHT * 0.6, NAME_WIDTH - 8);
+			
+			graphics.setStroke(Color.LIGHTGRAY);
+			graphics.strokeLine(0, y + ROW_HEIGHT, canvas.getWidth(), y + ROW_HEIGHT);
+			
+			drawWaveform(graphics, row, y + 5, y + ROW_HEIGHT - 5);
+			y += ROW_HEIGHT;
+		}
+		
+		if(cursorX >= 0) {
+			graphics.setStroke(Color.RED);
+			graphics.strokeLine(NAME_WIDTH + cursorX, 0, NAME_WIDTH + cursorX, canvas.getHeight());
+			status.setText("Time: " + cursorTime + "    Cycle: " + index.getCycle(cursorTime));
+		} else {
+			status.setText(index.isEmpty() ? "Nothing recorded yet."
+			                               : "Time: " + index.getStartTime() + " - " + index.getEndTime());
+		}
+	}
+	
+	private void drawHeader(GraphicsContext graphics) {
+		// Pick a tick spacing of 1, 2 or 5 times a power of 10, at least 100 pixels apart
+		double minSpacing = 100 * timePerPixel;
+		long spacing = 1;
+		while(spacing < minSpacing) {
+			if(spacing * 2 >= minSpacing) {
+				spacing *= 2;
+			} else if(spacing * 5 >= minSpacing) {
+				spacing *= 5;
+			} else {
+				spacing *= 10;
+			}
+		}
+		
+		graphics.setStroke(Color.LIGHTGRAY);
+		graphics.setFill(Color.BLACK);
+		long first = (long)Math.ceil(viewStart / spacing) * spacing;
+		for(long time = first; getX(time) < getWaveformWidth(); time += spacing) {
+			double x = NAME_WIDTH + getX(time);
+			graphics.strokeLine(x, HEADER_HEIGHT - 6, x, canvas.getHeight());
+			graphics.fillText(String.valueOf(time), x + 2, HEADER_HEIGHT - 8);
+		}
+		
+		graphics.strokeLine(NAME_WIDTH, 0, NAME_WIDTH, canvas.getHeight());
+	}
+	
+	private void drawWaveform(GraphicsContext graphics, Row row, double top, double bottom) {
+		double width = getWaveformWidth();
+		ChangeList changes = row.changes;
+		if(changes == null) {
+			drawValue(graphics, row.bitSize, 0, -1, 0, width, top, bottom, false);
+			return;
+		}
+		
+		int changeIndex = changes.indexAt((long)Math.floor(viewStart));
+		double x = 0;
+		while(x < width) {
+			int next = changeIndex + 1;
+			double nextX = next < changes.size() ? getX(changes.getTime(next)) : width;
+			if(nextX >= x + 1 || next >= changes.size()) {
+				double end = Math.min(nextX, width);
+				drawValue(graphics, row.bitSize, changes.getOnes(changeIndex), changes.getXs(changeIndex),
+				          x, end, top, bottom, x > 0);
+				x = end;
+				changeIndex = next;
+			} else {
+				// Several changes inside this pixel: collapse every following pixel that also has several changes
+				double end = Math.floor(x) + 1;
+				int last = indexBefore(changes, end);
+				while(end < width && last + 1 < changes.size() && getX(changes.getTime(last + 1)) < end + 1) {
+					end++;
+					last = indexBefore(changes, end);
+				}
+				
+				end = Math.min(end, width);
+				graphics.setFill(DENSE_COLOR);
+				graphics.fillRect(NAME_WIDTH + x, top, end - x, bottom - top);
+				x = end;
+				changeIndex = last;
+			}
+		}
+	}
+	
+	private void drawValue(GraphicsContext graphics, int bitSize, long ones, long xs, double startX, double endX,
+	                       double top, double bottom, boolean transition) {
+		double x1 = NAME_WIDTH + startX;
+		double x2 = NAME_WIDTH + endX;
+		double middle = (top + bottom) / 2;
+		
+		if(bitSize == 1) {
+			State state = (xs & 1) != 0 ? State.X : (ones & 1) != 0 ? State.ONE : State.ZERO;
+			GuiUtils.setBitColor(graphics, state);
+			double y = state == State.X ? middle : state == State.ONE ? top : bottom;
+			graphics.strokeLine(x1, y, x2, y);
+			if(transition) {
+				graphics.strokeLine(x1, top, x1, bottom);
+			}
+			return;
+		}
+		
+		Color color = xs != 0 ? X_MULTIBIT_COLOR : Color.BLACK;
+		graphics.setStroke(color);
+		double slant = Math.min(3, (x2 - x1) / 2);
+		if(transition) {
+			graphics.strokeLine(x1, middle, x1 + slant, top);
+			graphics.strokeLine(x1, middle, x1 + slant, bottom);
+		} else {
+			slant = 0;
+		}
+		graphics.strokeLine(x1 + slant, top, x2, top);
+		graphics.strokeLine(x1 + slant, bottom, x2, bottom);
+		
+		String text = valueToString(ones, xs, bitSize);
+		if(x2 - x1 - slant > text.length() * 8 + 4) {
+			graphics.setFill(color);
+			graphics.fillText(text, x1 + slant + 3, bottom - 4);
+		}
+	}
+	
+	/**
+	 * Hexadecimal, with an x for every digit that has an unknown bit.
+	 */
+	private static String valueToString(long ones, long xs, int bitSize) {
+		if(bitSize == 1) {
+			return (xs & 1) != 0 ? "x" : (ones & 1) != 0 ? "1" : "0";
+		}
+		
+		StringBuilder builder = new StringBuilder();
+		for(int digit = (bitSize - 1) / 4; digit >= 0; digit--) {
+			int shift = digit * 4;
+			long mask = bitSize - shift >= 4 ? 0xF : (1L << (bitSize - shift)) - 1;
+			builder.append((xs >>> shift & mask) != 0 ? 'x' : Character.forDigit((int)(ones >>> shift & mask), 16));
+		}
+		return builder.toString();
+	}
+	
+	private List<Row> getRows() {
+		List<Row> rows = new ArrayList<>();
+		if(watchedSignals.isEmpty()) {
+			for(ChangeList changes : index.getChangeLists()) {
+				rows.add(new Row(changes.getSignal().getName(), changes.getSignal().getBitSize(), changes));
+			}
+		} else {
+			for(WatchedSignal signal : watchedSignals) {
+				Link link = signal.port.getLink();
+				rows.add(new Row(signal.name, link.getBitSize(), index.getChanges(signal.state, link)));
+			}
+		}
+		return rows;
+	}
+	
+	private static class Row {
+		private final String name;
+		private final int bitSize;
+		private final ChangeList changes;
+		
+		Row(String name, int bitSize, ChangeList changes) {
+			this.name = name;
+			this.bitSize = bitSize;
+			this.changes = changes;
+		}
+	}
+	
+	private static class WatchedSignal {
+		private final CircuitState state;
+		private final Port port;
+		private final String name;
+		
+		WatchedSignal(CircuitState state, Port port, String name) {
+			this.state = state;
+			this.port = port;
+			this.name = name;
+		}
+	}
+}
@@ -0,0 +1,521 @@
+package com.ra4king.circuitsim.gui.file;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.ra4king.circuitsim.gui.CircuitBoard;
+import com.ra4king.circuitsim.gui.ComponentPeer;
+import com.ra4king.circuitsim.gui.Properties;
+import com.ra4king.circuitsim.gui.Properties.Property;
+import com.ra4king.circuitsim.gui.peers.SubcircuitPeer;
+import com.ra4king.circuitsim.gui.peers.wiring.Tunnel;
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.Component;
+import com.ra4king.circuitsim.simulator.Port;
+import com.ra4king.circuitsim.simulator.Port.Link;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.components.Subcircuit;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * Reads and writes circuits as resolved netlists: the components with their properties and the ports connected by
+ * each Link, without any geometry. Reading a netlist builds the Circuits directly, skipping the wire resolution done
+ * when loading a .sim file.
+ * <p>
+ * The format is line oriented, with space separated tokens that are URL encoded:
+ * <pre>
+ * netlist 1
+ * circuit &lt;name&gt;
+ * component &lt;id&gt; &lt;peer class&gt; [&lt;property&gt;=&lt;value&gt; ...]
+ * subcircuit &lt;id&gt; &lt;circuit name&gt; [&lt;property&gt;=&lt;value&gt; ...]
+ * net &lt;bit size&gt; &lt;id&gt;:&lt;port index&gt; &lt;id&gt;:@&lt;pin id&gt; ...
+ * end
+ * </pre>
+ * Component ids are local to their circuit. The ports of a subcircuit are referred to by the id of the Pin inside the
+ * subcircuit, since their order is not stable. Tunnels are resolved into the nets they connect and are not written.
+ * Lines starting with '#' are ignored.
+ *
+ * @author Roi Atalla
+ */
+public class Netlist {
+	public static final int VERSION = 1;
+	
+	/**
+	 * Writes the circuits of the given boards. Every circuit used as a subcircuit must be included.
+	 */
+	public static void write(Writer writer, Collection<CircuitBoard> boards) throws IOException {
+		Map<Circuit, Map<Component, Integer>> allIds = new IdentityHashMap<>();
+		Map<Circuit, List<ComponentPeer<?>>> allPeers = new IdentityHashMap<>();
+		for(CircuitBoard board : boards) {
+			// Sorted by position so the output does not depend on hashing order
+			List<ComponentPeer<?>> peers =
+				board.getComponents().stream()
+				     .filter(peer -> !(peer instanceof Tunnel))
+				     .sorted(Comparator.<ComponentPeer<?>>comparingInt(ComponentPeer::getY)
+					                 .thenComparingInt(ComponentPeer::getX)
+					                 .thenComparing(peer -> peer.getClass().getName()))
+				     .collect(Collectors.toList());
+			
+			Map<Component, Integer> ids = new IdentityHashMap<>();
+			for(ComponentPeer<?> peer : peers) {
+				ids.put(peer.getComponent(), ids.size());
+			}
+			
+			allIds.put(board.getCircuit(), ids);
+			allPeers.put(board.getCircuit(), peers);
+		}
+		
+		writer.write("netlist " + VERSION + "\n");
+		
+		for(CircuitBoard board : boards) {
+			Map<Component, Integer> ids = allIds.get(board.getCircuit());
+			
+			writer.write("circuit " + encode(board.getName()) + "\n");
+			
+			for(ComponentPeer<?> peer : allPeers.get(board.getCircuit())) {
+				StringBuilder line = new StringBuilder();
+				if(peer instanceof SubcircuitPeer) {
+					Circuit subcircuit = ((Subcircuit)peer.getComponent()).getSubcircuit();
+					if(!allIds.containsKey(subcircuit)) {
+						throw new IllegalArgumentException("Subcircuit " + subcircuit.getName() + " is not included");
+					}
+					line.append("subcircuit ").append(ids.get(peer.getComponent()))
+					    .append(' ').append(encode(subcircuit.getName()));
+				} else {
+					line.append("component ").append(ids.get(peer.getComponent()))
+					    .append(' ').append(encode(peer.getClass().getName()));
+				}
+				
+				peer.getProperties().forEach(property -> {
+					if(!property.name.equals(SubcircuitPeer.SUBCIRCUIT)) {
+						line.append(' ').append(encode(property.name))
+						    .append('=').append(encode(property.getStringValue()));
+					}
+				});
+				
+				writer.write(line.append('\n').toString());
+			}
+			
+			for(Map.Entry<Link, List<Port>> net : resolveNets(board, ids).entrySet()) {
+				List<Port> ports = net.getValue();
+				if(ports.size() < 2) {
+					continue;
+				}
+				
+				StringBuilder line = new StringBuilder("net ").append(net.getKey().getBitSize());
+				for(Port port : ports) {
+					line.append(' ').append(ids.get(port.getComponent())).append(':');
+					
+					if(port.getComponent() instanceof Subcircuit) {
+						Subcircuit subcircuit = (Subcircuit)port.getComponent();
+						Pin pin = subcircuit.getPins().get(port.getPortIndex());
+						line.append('@').append(allIds.get(subcircuit.getSubcircuit()).get(pin));
+					} else {
+						line.append(port.getPortIndex());
+					}
+				}
+				
+				writer.write(line.append('\n').toString());
+			}
+			
+			writer.write("end\n");
+		}
+		
+		writer.flush();
+	}
+	
+	/**
+	 * Groups the ports of the written components by Link, merging the Links joined by tunnels with the same label and
+	 * bit size.
+	 *
+	 * @return The ports of each net, keyed by one of the Links of the net.
+	 */
+	private static Map<Link, List<Port>> resolveNets(CircuitBoard board, Map<Component, Integer> ids) {
+		Map<Link, Link> parents = new HashMap<>();
+		Map<String, Link> tunnelLinks = new HashMap<>();
+		for(ComponentPeer<?> peer : board.getComponents()) {
+			if(peer instanceof Tunnel) {
+				String label = peer.getProperties().getValue(Properties.LABEL);
+				if(label.isEmpty()) {
+					continue;
+				}
+				
+				Link link = peer.getComponent().getPort(0).getLink();
+				Link other = tunnelLinks.putIfAbsent(label + '\0' + link.getBitSize(), link);
+				if(other != null) {
+					parents.put(find(parents, link), find(parents, other));
+				}
+			}
+		}
+		
+		Map<Link, List<Port>> nets = new LinkedHashMap<>();
+		Set<Link> seen = new HashSet<>();
+		ids.entrySet().stream().sorted(Map.Entry.comparingByValue()).forEach(entry -> {
+			Component component = entry.getKey();
+			for(int i = 0; i < component.getNumPorts(); i++) {
+				Link link = component.getPort(i).getLink();
+				if(!seen.add(link)) {
+					continue;
+				}
+				
+				List<Port> ports = nets.computeIfAbsent(find(parents, link), l -> new ArrayList<>());
+				link.getParticipants().stream()
+				    .filter(port -> ids.containsKey(port.getComponent()))
+				    .sorted(Comparator.<Port>comparingInt(port -> ids.get(port.getComponent()))
+					                .thenComparingInt(Port::getPortIndex))
+				    .forEach(ports::add);
+			}
+		});
+		return nets;
+	}
+	
+	private static Link find(Map<Link, Link> parents, Link link) {
+		Link parent = parents.get(link);
+		if(parent == null) {
+			return link;
+		}
+		
+		Link root = find(parents, parent);
+		parents.put(link, root);
+		return root;
+	}
+	
+	/**
+	 * Reads a netlist, creating its Circuits in the given Simulator. Component peers are loaded with the class loader
+	 * of this class.
+	 *
+	 * @return The created Circuits by name, in the order they appear in the netlist.
+	 * @throws IllegalArgumentException If the netlist is malformed.
+	 */
+	public static Map<String, Circuit> read(Reader reader, Simulator simulator) throws IOException {
+		return read(reader, simulator, Netlist.class.getClassLoader());
+	}
+	
+	/**
+	 * Reads a netlist, creating its Circuits in the given Simulator.
+	 *
+	 * @param classLoader The class loader used to load component peers, such as the one of a library.
+	 * @return The created Circuits by name, in the order they appear in the netlist.
+	 * @throws IllegalArgumentException If the netlist is malformed.
+	 */
+	public static Map<String, Circuit> read(Reader reader, Simulator simulator, ClassLoader classLoader)
+		throws IOException {
+		Map<String, CircuitDef> definitions = parse(reader);
+		
+		Set<Circuit> existing = new HashSet<>(simulator.getCircuits());
+		Map<String, Circuit> circuits = new LinkedHashMap<>();
+		Map<String, Component[]> components = new HashMap<>();
+		try {
+			for(String name : definitions.keySet()) {
+				build(name, definitions, simulator, classLoader, circuits, components, new HashSet<>());
+			}
+		} catch(RuntimeException exc) {
+			// Don't leave the circuits built so far in the simulator
+			for(Circuit circuit : new ArrayList<>(simulator.getCircuits())) {
+				if(!existing.contains(circuit)) {
+					circuit.clearComponents();
+					simulator.removeCircuit(circuit);
+				}
+			}
+			throw exc;
+		}
+		
+		// Keep the order of the netlist rather than the order they were built in
+		Map<String, Circuit> ordered = new LinkedHashMap<>();
+		definitions.keySet().forEach(name -> ordered.put(name, circuits.get(name)));
+		return ordered;
+	}
+	
+	private static Map<String, CircuitDef> parse(Reader reader) throws IOException {
+		Map<String, CircuitDef> definitions = new LinkedHashMap<>();
+		
+		try(BufferedReader lines = new BufferedReader(reader)) {
+			CircuitDef current = null;
+			boolean header = false;
+			
+			String line;
+			int lineNumber = 0;
+			while((line = lines.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				
+				String[] tokens = line.split(" +");
+				try {
+					if(!header) {
+						if(tokens.length != 2 || !tokens[0].equals("netlist")) {
+							throw new IllegalArgumentException("Missing netlist header");
+						}
+						if(Integer.parseInt(tokens[1]) != VERSION) {
+							throw new IllegalArgumentException("Unsupported netlist version " + tokens[1]);
+						}
+						header = true;
+						continue;
+					}
+					
+					if(tokens[0].equals("circuit")) {
+						if(current != null) {
+							throw new IllegalArgumentException("Missing end of circuit " + current.name);
+						}
+						
+						String name = decode(tokens[1]);
+						if(definitions.containsKey(name)) {
+							throw new IllegalArgumentException("Duplicate circuit " + name);
+						}
+						
+						current = new CircuitDef(name);
+						definitions.put(name, current);
+						continue;
+					}
+					
+					if(current == null) {
+						throw new IllegalArgumentException("Expected a circuit");
+					}
+					
+					switch(tokens[0]) {
+						case "component":
+						case "subcircuit": {
+							int id = Integer.parseInt(tokens[1]);
+							if(id != current.components.size()) {
+								throw new IllegalArgumentException("Expected component id " + current.components.size());
+							}
+							
+							Map<String, String> properties = new LinkedHashMap<>();
+							for(int i = 3; i < tokens.length; i++) {
+								int equals = tokens[i].indexOf('=');
+								if(equals < 0) {
+									throw new IllegalArgumentException("Malformed property " + tokens[i]);
+								}
+								properties.put(decode(tokens[i].substring(0, equals)),
+								               decode(tokens[i].substring(equals + 1)));
+							}
+							
+							current.components.add(
+								new ComponentDef(tokens[0].equals("subcircuit"), decode(tokens[2]), properties));
+							break;
+						}
+						case "net": {
+							NetDef net = new NetDef(lineNumber, Integer.parseInt(tokens[1]));
+							for(int i = 2; i < tokens.length; i++) {
+								int colon = tokens[i].indexOf(':');
+								if(colon < 0) {
+									throw new IllegalArgumentException("Malformed port " + tokens[i]);
+								}
+								
+								net.components.add(Integer.parseInt(tokens[i].substring(0, colon)));
+								
+								String port = tokens[i].substring(colon + 1);
+								boolean isPin = port.startsWith("@");
+								net.isPin.add(isPin);
+								net.ports.add(Integer.parseInt(isPin ? port.substring(1) : port));
+							}
+							current.nets.add(net);
+							break;
+						}
+						case "end":
+							current = null;
+							break;
+						default:
+							throw new IllegalArgumentException("Unknown entry " + tokens[0]);
+					}
+				} catch(NumberFormatException | ArrayIndexOutOfBoundsException exc) {
+					throw new IllegalArgumentException("Line " + lineNumber + ": malformed entry", exc);
+				} catch(IllegalArgumentException exc) {
+					throw new IllegalArgumentException("Line " + lineNumber + ": " + exc.getMessage(), exc);
+				}
+			}
+			
+			if(!header) {
+				throw new IllegalArgumentException("Missing netlist header");
+			}
+			
+			if(current != null) {
+				throw new IllegalArgumentException("Missing end of circuit " + current.name);
+			}
+		}
+		
+		return definitions;
+	}
+	
+	private static Circuit build(String name,
+	                             Map<String, CircuitDef> definitions,
+	                             Simulator simulator,
+	                             ClassLoader classLoader,
+	                             Map<String, Circuit> circuits,
+	                             Map<String, Component[]> allComponents,
+	                             Set<String> building) {
+		if(circuits.containsKey(name)) {
+			return circuits.get(name);
+		}
+		
+		CircuitDef definition = definitions.get(name);
+		if(definition == null) {
+			throw new IllegalArgumentException("Circuit " + name + " does not exist");
+		}
+		
+		if(!building.add(name)) {
+			throw new IllegalArgumentException("Subcircuit loop detected in " + name);
+		}
+		
+		// Subcircuits must be complete before an instance is created, since their pins define its ports
+		for(ComponentDef component : definition.components) {
+			if(component.isSubcircuit) {
+				build(component.type, definitions, simulator, classLoader, circuits, allComponents, building);
+			}
+		}
+		
+		Circuit circuit = new Circuit(name, simulator);
+		Component[] components = new Component[definition.components.size()];
+		for(int i = 0; i < components.length; i++) {
+			ComponentDef component = definition.components.get(i);
+			
+			Properties properties = new Properties();
+			component.properties.forEach((key, value) -> properties.setProperty(new Property<>(key, null, value)));
+			
+			if(component.isSubcircuit) {
+				components[i] = new Subcircuit(properties.getValueOrDefault(Properties.LABEL, ""),
+				                               circuits.get(component.type));
+			} else {
+				components[i] = createComponent(component.type, properties, classLoader);
+			}
+			
+			circuit.addComponent(components[i]);
+		}
+		
+		for(NetDef net : definition.nets) {
+			Port first = null;
+			for(int i = 0; i < net.components.size(); i++) {
+				Port port = getPort(definition, components, allComponents, net, i);
+				if(port.getLink().getBitSize() != net.bitSize) {
+					throw new IllegalArgumentException(
+						"Line " + net.lineNumber + ": " + port + " does not have bit size " + net.bitSize);
+				}
+				
+				if(first == null) {
+					first = port;
+				} else {
+					first.linkPort(port);
+				}
+			}
+		}
+		
+		building.remove(name);
+		circuits.put(name, circuit);
+		allComponents.put(name, components);
+		return circuit;
+	}
+	
+	private static Component createComponent(String className, Properties properties, ClassLoader classLoader) {
+		try {
+			Class<?> clazz = Class.forName(className, true, classLoader);
+			if(!ComponentPeer.class.isAssignableFrom(clazz)) {
+				throw new IllegalArgumentException(className + " is not a component");
+			}
+			
+			ComponentPeer<?> peer = (ComponentPeer<?>)clazz.getConstructor(Properties.class, Integer.TYPE, Integer.TYPE)
+			                                               .newInstance(properties, 0, 0);
+			return peer.getComponent();
+		} catch(ReflectiveOperationException exc) {
+			throw new IllegalArgumentException("Could not create " + className, exc);
+		}
+	}
+	
+	private static Port getPort(CircuitDef definition,
+	                            Component[] components,
+	                            Map<String, Component[]> allComponents,
+	                            NetDef net,
+	                            int index) {
+		int id = net.components.get(index);
+		int portIndex = net.ports.get(index);
+		if(id < 0 || id >= components.length) {
+			throw new IllegalArgumentException("Line " + net.lineNumber + ": unknown component " + id);
+		}
+		
+		Component component = components[id];
+		if(net.isPin.get(index)) {
+			ComponentDef subcircuitDef = definition.components.get(id);
+			Component[] subcircuitComponents = allComponents.get(subcircuitDef.type);
+			if(!(component instanceof Subcircuit) || portIndex < 0 || portIndex >= subcircuitComponents.length ||
+			   !(subcircuitComponents[portIndex] instanceof Pin)) {
+				throw new IllegalArgumentException("Line " + net.lineNumber + ": unknown pin " + id + ":@" + portIndex);
+			}
+			
+			return ((Subcircuit)component).getPort((Pin)subcircuitComponents[portIndex]);
+		}
+		
+		if(portIndex < 0 || portIndex >= component.getNumPorts()) {
+			throw new IllegalArgumentException("Line " + net.lineNumber + ": unknown port " + id + ":" + portIndex);
+		}
+		
+		return component.getPort(portIndex);
+	}
+	
+	private static String encode(String value) {
+		try {
+			return URLEncoder.encode(value, "UTF-8");
+		} catch(UnsupportedEncodingException exc) {
+			throw new IllegalStateException(exc);
+		}
+	}
+	
+	private static String decode(String value) {
+		try {
+			return URLDecoder.decode(value, "UTF-8");
+		} catch(UnsupportedEncodingException exc) {
+			throw new IllegalStateException(exc);
+		}
+	}
+	
+	private static class CircuitDef {
+		private final String name;
+		private final List<ComponentDef> components = new ArrayList<>();
+		private final List<NetDef> nets = new ArrayList<>();
+		
+		CircuitDef(String name) {
+			this.name = name;
+		}
+	}
+	
+	private static class ComponentDef {
+		private final boolean isSubcircuit;
+		private final String type;
+		private final Map<String, String> properties;
+		
+		ComponentDef(boolean isSubcircuit, String type, Map<String, String> properties) {
+			this.isSubcircuit = isSubcircuit;
+			this.type = type;
+			this.properties = properties;
+		}
+	}
+	
+	private static class NetDef {
+		private final int lineNumber;
+		private final int bitSize;
+		private final List<Integer> components = new ArrayList<>();
+		private final List<Integer> ports = new ArrayList<>();
+		private final List<Boolean> isPin = new ArrayList<>();
+		
+		NetDef(int lineNumber, int bitSize) {
+			this.lineNumber = lineNumber;
+			this.bitSize = bitSize;
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package com.ra4king.circuitsim.gui.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import com.ra4king.circuitsim.gui.CircuitSim;
+
+/**
+ * An on-disk cache of resolved netlists, keyed by a hash of the files they were loaded from. A hit lets the circuits
+ * be built with {@link Netlist#read} instead of loading the .sim file and resolving its wires again.
+ * <p>
+ * Each entry is a single file in the cache directory. Entries are evicted least recently used first, using their last
+ * modified time, once the directory grows over its maximum size. Writes go through a temporary file and an atomic
+ * move, so several processes may share a directory.
+ *
+ * @author Roi Atalla
+ */
+public class NetlistCache {
+	private static final String EXTENSION = ".net";
+	
+	private final File directory;
+	private final long maxSize;
+	
+	/**
+	 * @param directory The directory holding the cache entries, created when needed.
+	 * @param maxSize   The maximum total size of the entries in bytes.
+	 */
+	public NetlistCache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+	}
+	
+	/**
+	 * A 64MB cache in the user's home directory.
+	 */
+	public static NetlistCache getDefault() {
+		return new NetlistCache(new File(System.getProperty("user.home"), ".circuitsim-netlists"), 64L << 20);
+	}
+	
+	public File getDirectory() {
+		return directory;
+	}
+	
+	public long getMaxSize() {
+		return maxSize;
+	}
+	
+	/**
+	 * Computes the key of a .sim file from its contents and the contents of the libraries it uses. The netlist format
+	 * and simulator versions are included, so entries written by other versions are never used.
+	 */
+	public static String getKey(byte[] contents, byte[]... libraries) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException exc) {
+			throw new IllegalStateException(exc);
+		}
+		
+		String versions = "netlist " + Netlist.VERSION + " " + CircuitSim.VERSION + "\n";
+		digest.update(versions.getBytes(StandardCharsets.UTF_8));
+		update(digest, contents);
+		for(byte[] library : libraries) {
+			update(digest, library);
+		}
+		
+		StringBuilder key = new StringBuilder();
+		for(byte b : digest.digest()) {
+			key.append(String.format("%02x", b));
+		}
+		return key.toString();
+	}
+	
+	private static void update(MessageDigest digest, byte[] bytes) {
+		// Length prefixed, so the boundaries between the parts are part of the hash
+		int length = bytes.length;
+		digest.update(new byte[] { (byte)(length >>> 24), (byte)(length >>> 16), (byte)(length >>> 8), (byte)length });
+		digest.update(bytes);
+	}
+	
+	/**
+	 * @return The cached netlist, or null if there is none.
+	 */
+	public String get(String key) throws IOException {
+		File file = getFile(key);
+		if(!file.isFile()) {
+			return null;
+		}
+		
+		String netlist;
+		try {
+			netlist = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		} catch(IOException exc) {
+			// Evicted by another process in the meantime
+			if(!file.exists()) {
+				return null;
+			}
+			throw exc;
+		}
+		
+		file.setLastModified(System.currentTimeMillis());
+		return netlist;
+	}
+	
+	/**
+	 * Stores a netlist, evicting the least recently used entries to stay within the maximum size.
+	 */
+	public void put(String key, String netlist) throws IOException {
+		Files.createDirectories(directory.toPath());
+		
+		File temp = File.createTempFile(key, ".tmp", directory);
+		try {
+			Files.write(temp.toPath(), netlist.getBytes(StandardCharsets.UTF_8));
+			Files.move(temp.toPath(), getFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING,
+			           StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp.toPath());
+		}
+		
+		evict(key);
+	}
+	
+	/**
+	 * Removes an entry, such as one that could not be read back.
+	 */
+	public void remove(String key) throws IOException {
+		Files.deleteIfExists(getFile(key).toPath());
+	}
+	
+	/**
+	 * Removes every entry.
+	 */
+	public void clear() throws IOException {
+		for(File file : getEntries()) {
+			Files.deleteIfExists(file.toPath());
+		}
+	}
+	
+	private void evict(String keep) throws IOException {
+		File[] entries = getEntries();
+		Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+		
+		long size = 0;
+		for(File file : entries) {
+			size += file.length();
+		}
+		
+		File kept = getFile(keep);
+		for(int i = 0; i < entries.length && size > maxSize; i++) {
+			if(!entries[i].equals(kept)) {
+				size -= entries[i].length();
+				Files.deleteIfExists(entries[i].toPath());
+			}
+		}
+	}
+	
+	private File[] getEntries() {
+		File[] entries = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+		return entries == null ? new File[0] : entries;
+	}
+	
+	private File getFile(String key) {
+		if(!key.matches("[0-9a-f]+")) {
+			throw new IllegalArgumentException("Invalid key: " + key);
+		}
+		return new File(directory, key + EXTENSION);
+	}
+}
@@ -90,7 +90,7 @@ public class RAMPeer extends ComponentPeer<RAM> {
 				new PropertyMemoryValidator(getComponent().getAddressBits(), getComponent().getDataBits());
 			
 			List<MemoryLine> memory = new ArrayList<>();
-			BiConsumer<Integer, Integer> listener = (address, data) -> {
+			BiConsumer<Integer, Long> listener = (address, data) -> {
 				int index = address / 16;
 				MemoryLine line = memory.get(index);
 				line.values.get(address - index * 16).setValue(memoryValidator.parseValue(data));
@@ -128,7 +128,7 @@ public class RAMPeer extends ComponentPeer<RAM> {
 		WireValue addressVal = circuitState.getLastReceived(getComponent().getPort(RAM.PORT_ADDRESS));
 		WireValue valueVal;
 		if(addressVal.isValidValue()) {
-			int val = getComponent().load(circuitState, addressVal.getValue());
+			long val = getComponent().load(circuitState, addressVal.getValue());
 			valueVal = WireValue.of(val, getComponent().getDataBits());
 		} else {
 			valueVal = new WireValue(getComponent().getDataBits());
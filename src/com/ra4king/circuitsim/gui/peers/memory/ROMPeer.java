@@ -60,7 +60,7 @@ public class ROMPeer extends ComponentPeer<ROM> {
 		}
 		properties.setValue(contentsProperty, contentsProperty.validator.parse(oldMemory));
 		
-		int[] memory = memoryToArray(properties.getValue(contentsProperty));
+		long[] memory = memoryToArray(properties.getValue(contentsProperty));
 		ROM ram = new ROM(properties.getValue(Properties.LABEL), dataBits, addressBits, memory);
 		
 		List<PortConnection> connections = new ArrayList<>();
@@ -71,14 +71,14 @@ public class ROMPeer extends ComponentPeer<ROM> {
 		init(ram, properties, connections);
 	}
 	
-	private static int[] memoryToArray(List<MemoryLine> lines) {
+	private static long[] memoryToArray(List<MemoryLine> lines) {
 		if(lines == null) {
-			return new int[0];
+			return new long[0];
 		}
 		
 		return lines.stream()
 		            .flatMap(line -> line.values.stream())
-		            .mapToInt(prop -> Integer.parseUnsignedInt(prop.get(), 16))
+		            .mapToLong(prop -> Long.parseUnsignedLong(prop.get(), 16))
 		            .toArray();
 	}
 	
@@ -92,7 +92,7 @@ public class ROMPeer extends ComponentPeer<ROM> {
 			List<MemoryLine> lines = new ArrayList<>();
 			
 			circuit.getSimulatorWindow().getSimulator().runSync(() -> {
-				int[] memory = getComponent().getMemory();
+				long[] memory = getComponent().getMemory();
 				lines.addAll(
 					memoryValidator.parse(memory, (address, value) -> {
 						memory[address] = value;
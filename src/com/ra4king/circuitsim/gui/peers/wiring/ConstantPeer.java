@@ -22,7 +22,7 @@ import javafx.util.Pair;
  * @author Roi Atalla
  */
 public class ConstantPeer extends ComponentPeer<Constant> {
-	private static final Property<Integer> VALUE = new Property<>("Value", Properties.INTEGER_VALIDATOR, 0);
+	private static final Property<Long> VALUE = new Property<>("Value", Properties.LONG_VALIDATOR, 0L);
 	
 	public static void installComponent(ComponentManagerInterface manager) {
 		manager.addComponent(new Pair<>("Wiring", "Constant"),
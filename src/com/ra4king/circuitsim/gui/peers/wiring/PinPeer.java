@@ -1,6 +1,7 @@
 package com.ra4king.circuitsim.gui.peers.wiring;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +23,7 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.MenuItem;
 import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.paint.Color;
@@ -165,6 +167,11 @@ public class PinPeer extends ComponentPeer<Pin> {
 		return false;
 	}
 	
+	@Override
+	public List<MenuItem> getContextMenuItems(CircuitManager circuit) {
+		return Collections.singletonList(circuit.getSimulatorWindow().createTimingDiagramMenuItem(circuit, this, "Pin"));
+	}
+	
 	@Override
 	public void paint(GraphicsContext graphics, CircuitState circuitState) {
 		GuiUtils.drawName(graphics, this, getProperties().getValue(Properties.LABEL_LOCATION));
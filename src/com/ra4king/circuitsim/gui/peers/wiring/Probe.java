@@ -1,8 +1,10 @@
 package com.ra4king.circuitsim.gui.peers.wiring;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import com.ra4king.circuitsim.gui.CircuitManager;
 import com.ra4king.circuitsim.gui.ComponentManager.ComponentManagerInterface;
 import com.ra4king.circuitsim.gui.ComponentPeer;
 import com.ra4king.circuitsim.gui.Connection.PortConnection;
@@ -16,6 +18,7 @@ import com.ra4king.circuitsim.simulator.Port;
 import com.ra4king.circuitsim.simulator.WireValue;
 
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.MenuItem;
 import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import javafx.util.Pair;
@@ -70,6 +73,11 @@ public class Probe extends ComponentPeer<Component> {
 		init(probe, properties, connections);
 	}
 	
+	@Override
+	public List<MenuItem> getContextMenuItems(CircuitManager circuit) {
+		return Collections.singletonList(circuit.getSimulatorWindow().createTimingDiagramMenuItem(circuit, this, "Probe"));
+	}
+	
 	@Override
 	public void paint(GraphicsContext graphics, CircuitState circuitState) {
 		GuiUtils.drawName(graphics, this, getProperties().getValue(Properties.LABEL_LOCATION));
@@ -29,7 +29,7 @@ public class SplitterPeer extends ComponentPeer<Splitter> {
 	
 	static {
 		List<Integer> fanOuts = new ArrayList<>();
-		for(int i = 1; i <= 32; i++) {
+		for(int i = 1; i <= 64; i++) {
 			fanOuts.add(i);
 		}
 		
@@ -1,11 +1,10 @@
 package com.ra4king.circuitsim.gui.peers.wiring;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import com.ra4king.circuitsim.gui.ComponentManager.ComponentManagerInterface;
 import com.ra4king.circuitsim.gui.ComponentPeer;
@@ -19,6 +18,7 @@ import com.ra4king.circuitsim.simulator.CircuitState;
 import com.ra4king.circuitsim.simulator.Component;
 import com.ra4king.circuitsim.simulator.Port;
 import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.WireValue.State;
 
 import javafx.geometry.Bounds;
 import javafx.scene.canvas.GraphicsContext;
@@ -30,7 +30,7 @@ import javafx.util.Pair;
  * @author Roi Atalla
  */
 public class Tunnel extends ComponentPeer<Component> {
-	private static Map<Circuit, Map<String, Set<Tunnel>>> tunnels = new HashMap<>();
+	private static Map<Circuit, Map<String, TunnelNet>> tunnels = new HashMap<>();
 	
 	public static void installComponent(ComponentManagerInterface manager) {
 		manager.addComponent(new Pair<>("Wiring", "Tunnel"),
@@ -42,6 +42,8 @@ public class Tunnel extends ComponentPeer<Component> {
 	private final String label;
 	private final int bitSize;
 	
+	private TunnelNet net;
+	
 	public Tunnel(Properties props, int x, int y) {
 		super(x, y, 0, 2);
 		
@@ -69,121 +71,51 @@ public class Tunnel extends ComponentPeer<Component> {
 				}
 				
 				if(circuit != null) {
-					Map<String, Set<Tunnel>> tunnelSet = tunnels.computeIfAbsent(circuit, l -> new HashMap<>());
-					Set<Tunnel> toNotify = tunnelSet.computeIfAbsent(label, c -> new HashSet<>());
-					toNotify.add(Tunnel.this);
+					Map<String, TunnelNet> nets = tunnels.computeIfAbsent(circuit, l -> new HashMap<>());
+					net = nets.computeIfAbsent(label, c -> new TunnelNet());
+					net.add(Tunnel.this);
 				} else {
-					Map<String, Set<Tunnel>> tunnelSet = tunnels.get(oldCircuit);
-					if(tunnelSet != null) {
-						Set<Tunnel> toNotify = tunnelSet.get(label);
-						if(toNotify != null) {
-							toNotify.remove(Tunnel.this);
+					Map<String, TunnelNet> nets = tunnels.get(oldCircuit);
+					if(nets != null) {
+						TunnelNet oldNet = nets.get(label);
+						if(oldNet != null) {
+							oldNet.remove(Tunnel.this);
 							
-							if(toNotify.isEmpty()) {
-								tunnelSet.remove(label);
+							if(oldNet.isEmpty()) {
+								nets.remove(label);
 								
-								if(tunnelSet.isEmpty()) {
+								if(nets.isEmpty()) {
 									tunnels.remove(oldCircuit);
 								}
 							}
 						}
 					}
+					
+					net = null;
 				}
 			}
 			
 			@Override
 			public void init(CircuitState state, Object lastProperty) {
-				if(label.isEmpty()) {
-					return;
-				}
-				
-				Map<String, Set<Tunnel>> tunnelSet = tunnels.get(getCircuit());
-				if(tunnelSet != null) {
-					Set<Tunnel> toNotify = tunnelSet.get(label);
-					WireValue value = new WireValue(bitSize);
-					
-					for(Tunnel tunnel : toNotify) {
-						if(tunnel != Tunnel.this) {
-							Port port = tunnel.getComponent().getPort(0);
-							WireValue portValue = state.getLastReceived(port);
-							if(portValue.getBitSize() == value.getBitSize()) {
-								try {
-									value.merge(portValue);
-								} catch(Exception exc) {
-									return; // nothing to push, it's a short circuit
-								}
-							}
-						}
-					}
-					
-					state.pushValue(getPort(0), value);
+				if(net != null) {
+					List<Tunnel> sameSize = net.getTunnels(bitSize);
+					TunnelNet.resolve(state, bitSize, sameSize, null, Collections.singletonList(Tunnel.this), null);
 				}
 			}
 			
 			@Override
 			public void uninit(CircuitState state) {
-				Map<String, Set<Tunnel>> tunnelSet = tunnels.get(getCircuit());
-				if(tunnelSet != null) {
-					Set<Tunnel> toNotify = tunnelSet.get(label);
-					if(toNotify != null) {
-						tunnels:
-						for(Tunnel tunnel : toNotify) {
-							if(tunnel.bitSize == bitSize) {
-								WireValue combined = new WireValue(bitSize);
-								
-								for(Tunnel otherTunnel : toNotify) {
-									if(tunnel != otherTunnel && otherTunnel != Tunnel.this) {
-										Port port = otherTunnel.getComponent().getPort(0);
-										WireValue portValue = state.getLastReceived(port);
-										if(portValue.getBitSize() == combined.getBitSize()) {
-											try {
-												combined.merge(portValue);
-											} catch(Exception exc) {
-												continue tunnels;
-											}
-										}
-									}
-								}
-								
-								state.pushValue(tunnel.getComponent().getPort(0), combined);
-							}
-						}
-					}
+				if(net != null) {
+					List<Tunnel> sameSize = net.getTunnels(bitSize);
+					TunnelNet.resolve(state, bitSize, sameSize, Tunnel.this, sameSize, null);
 				}
 			}
 			
 			@Override
 			public void valueChanged(CircuitState state, WireValue value, int portIndex) {
-				Map<String, Set<Tunnel>> tunnelSet = tunnels.get(getCircuit());
-				if(tunnelSet != null && tunnelSet.containsKey(label)) {
-					Set<Tunnel> toNotify = tunnelSet.get(label);
-					
-					tunnels:
-					for(Tunnel tunnel : toNotify) {
-						if(tunnel != Tunnel.this && tunnel.bitSize == bitSize) {
-							WireValue combined = value;
-							
-							if(toNotify.size() > 2) {
-								combined = new WireValue(bitSize);
-								
-								for(Tunnel otherTunnel : toNotify) {
-									if(tunnel != otherTunnel) {
-										Port port = otherTunnel.getComponent().getPort(0);
-										WireValue portValue = state.getLastReceived(port);
-										if(portValue.getBitSize() == combined.getBitSize()) {
-											try {
-												combined.merge(portValue);
-											} catch(Exception exc) {
-												continue tunnels;
-											}
-										}
-									}
-								}
-							}
-							
-							state.pushValue(tunnel.getComponent().getPort(0), combined);
-						}
-					}
+				if(net != null) {
+					List<Tunnel> sameSize = net.getTunnels(bitSize);
+					TunnelNet.resolve(state, bitSize, sameSize, null, sameSize, Tunnel.this);
 				}
 			}
 		};
@@ -214,16 +146,98 @@ public class Tunnel extends ComponentPeer<Component> {
 	}
 	
 	private boolean isIncompatible() {
-		Map<String, Set<Tunnel>> tunnelSet = tunnels.get(tunnel.getCircuit());
-		if(tunnelSet != null && tunnelSet.containsKey(label)) {
-			for(Tunnel tunnel : tunnelSet.get(label)) {
-				if(tunnel.bitSize != bitSize) {
-					return true;
+		return net != null && net.hasMixedBitSizes();
+	}
+	
+	/**
+	 * All the tunnels in a circuit sharing the same label, grouped by bit size. Only tunnels of the same bit size are
+	 * connected to each other.
+	 * <p>
+	 * Each tunnel drives the merge of the values received by every other tunnel. Instead of re-merging the others'
+	 * values for each tunnel, resolve counts per bit how many tunnels receive a 1 and how many receive a 0, then
+	 * derives each tunnel's value by subtracting its own contribution. A change therefore reaches N tunnels in O(N).
+	 */
+	private static class TunnelNet {
+		private final Map<Integer, List<Tunnel>> tunnelsBySize = new HashMap<>();
+		
+		void add(Tunnel tunnel) {
+			tunnelsBySize.computeIfAbsent(tunnel.bitSize, size -> new ArrayList<>()).add(tunnel);
+		}
+		
+		void remove(Tunnel tunnel) {
+			List<Tunnel> sameSize = tunnelsBySize.get(tunnel.bitSize);
+			if(sameSize != null) {
+				sameSize.remove(tunnel);
+				if(sameSize.isEmpty()) {
+					tunnelsBySize.remove(tunnel.bitSize);
 				}
 			}
 		}
 		
-		return false;
+		boolean isEmpty() {
+			return tunnelsBySize.isEmpty();
+		}
+		
+		boolean hasMixedBitSizes() {
+			return tunnelsBySize.size() > 1;
+		}
+		
+		List<Tunnel> getTunnels(int bitSize) {
+			return tunnelsBySize.getOrDefault(bitSize, Collections.emptyList());
+		}
+		
+		/**
+		 * Pushes to each target the merge of the values received by all contributors other than the target itself.
+		 * Targets whose merged value would be a short circuit are left untouched.
+		 *
+		 * @param excluded A tunnel to leave out of the contributors, may be null.
+		 * @param skipped  A tunnel to leave out of the targets, may be null.
+		 */
+		static void resolve(CircuitState state, int bitSize, List<Tunnel> contributors, Tunnel excluded,
+		                    List<Tunnel> targets, Tunnel skipped) {
+			int[] ones = new int[bitSize];
+			int[] zeros = new int[bitSize];
+			
+			for(Tunnel contributor : contributors) {
+				if(contributor != excluded) {
+					Port port = contributor.getComponent().getPort(0);
+					for(int i = 0; i < bitSize; i++) {
+						State bit = state.getLastReceivedBit(port, i);
+						if(bit == State.ONE) {
+							ones[i]++;
+						} else if(bit == State.ZERO) {
+							zeros[i]++;
+						}
+					}
+				}
+			}
+			
+			WireValue combined = new WireValue(bitSize);
+			
+			targets:
+			for(Tunnel target : targets) {
+				if(target == skipped) {
+					continue;
+				}
+				
+				Port port = target.getComponent().getPort(0);
+				boolean contributes =
+					target != excluded && (targets == contributors || contributors.contains(target));
+				for(int i = 0; i < bitSize; i++) {
+					State ownBit = contributes ? state.getLastReceivedBit(port, i) : State.X;
+					int one = ones[i] - (ownBit == State.ONE ? 1 : 0);
+					int zero = zeros[i] - (ownBit == State.ZERO ? 1 : 0);
+					
+					if(one > 0 && zero > 0) {
+						continue targets; // nothing to push, it's a short circuit
+					}
+					
+					combined.setBit(i, one > 0 ? State.ONE : zero > 0 ? State.ZERO : State.X);
+				}
+				
+				state.pushValue(port, combined);
+			}
+		}
 	}
 	
 	@Override
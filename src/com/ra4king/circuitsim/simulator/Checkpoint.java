@@ -0,0 +1,282 @@
+package com.ra4king.circuitsim.simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ra4king.circuitsim.simulator.CircuitState.LinkState;
+import com.ra4king.circuitsim.simulator.CircuitState.LinkState.PortStateInfo;
+import com.ra4king.circuitsim.simulator.Port.Link;
+
+import javafx.util.Pair;
+
+/**
+ * A snapshot of the complete state of a Simulator: the values on every Link in every CircuitState, every component
+ * property (such as register and RAM contents), the queue of links waiting to be propagated, and the state saved by
+ * the registered {@link Participant}s, such as the clock phase.
+ * <p>
+ * Values are packed into a single long array by a StateBuffer, 2 bits per bit of a WireValue and memory arrays as is,
+ * next to arrays of the Links, Ports and Components they belong to. Restoring writes the values back in
+ * place, so it allocates very little and does not call {@code init} or {@code uninit} on any component.
+ * <p>
+ * A checkpoint can only be restored into the same circuits, unmodified: if a component or wire was added or removed
+ * since, {@code restore} throws an IllegalStateException and leaves the simulation untouched. Checkpoints should be
+ * taken and restored while the clock is stopped.
+ *
+ * @author Roi Atalla
+ */
+public class Checkpoint {
+	/**
+	 * State held outside of the CircuitStates that should be part of a checkpoint, registered with
+	 * {@code Simulator.addCheckpointParticipant}. Both methods are called with the Simulator's lock held.
+	 */
+	public interface Participant {
+		/**
+		 * @return An immutable object describing the current state.
+		 */
+		Object save();
+		
+		void restore(Object saved);
+	}
+	
+	private final Simulator simulator;
+	private final Map<Circuit, CircuitState[]> circuitStates = new LinkedHashMap<>();
+	private final Map<Circuit, Component[]> circuitComponents = new HashMap<>();
+	private final List<StateLayout> layouts = new ArrayList<>();
+	private final List<Pair<CircuitState, Link>> linksToUpdate = new ArrayList<>();
+	private final Map<Participant, Object> participants = new HashMap<>();
+	private final StateBuffer data;
+	
+	private Checkpoint(Simulator simulator) {
+		this.simulator = simulator;
+		
+		StateBuffer buffer = new StateBuffer();
+		for(Circuit circuit : simulator.getCircuits()) {
+			List<CircuitState> states = new ArrayList<>();
+			circuit.forEachState(states::add);
+			circuitStates.put(circuit, states.toArray(new CircuitState[0]));
+			circuitComponents.put(circuit, circuit.getComponents().toArray(new Component[0]));
+			
+			for(CircuitState state : states) {
+				layouts.add(capture(state, buffer));
+			}
+		}
+		data = new StateBuffer(buffer);
+		
+		for(Pair<CircuitState, Link> pair : simulator.getLinksToUpdate()) {
+			linksToUpdate.add(pair);
+		}
+		
+		for(Participant participant : simulator.getCheckpointParticipants()) {
+			participants.put(participant, participant.save());
+		}
+	}
+	
+	/**
+	 * Takes a checkpoint of every Circuit attached to the Simulator.
+	 */
+	public static Checkpoint capture(Simulator simulator) {
+		Checkpoint[] checkpoint = new Checkpoint[1];
+		simulator.runSync(() -> checkpoint[0] = new Checkpoint(simulator));
+		return checkpoint[0];
+	}
+	
+	public Simulator getSimulator() {
+		return simulator;
+	}
+	
+	/**
+	 * @return The approximate number of bytes used by this checkpoint.
+	 */
+	public long getSize() {
+		long size = data.getMemoryUsed();
+		for(StateLayout layout : layouts) {
+			size += 4L * (layout.links.length + layout.ports.length + layout.components.length);
+		}
+		for(Component[] components : circuitComponents.values()) {
+			size += 4L * components.length;
+		}
+		return size;
+	}
+	
+	/**
+	 * Restores the Simulator to the state it was in when this checkpoint was taken.
+	 *
+	 * @throws IllegalStateException If the circuits were modified since the checkpoint was taken.
+	 */
+	public void restore() {
+		simulator.runSync(() -> {
+			verify();
+			
+			// Subcircuit instances may have been recreated, for example by a reset, so restore the set of states too
+			circuitStates.forEach((circuit, states) -> {
+				Set<CircuitState> captured = new HashSet<>(Arrays.asList(states));
+				List<CircuitState> current = new ArrayList<>();
+				circuit.forEachState(current::add);
+				for(CircuitState state : current) {
+					if(!captured.contains(state)) {
+						circuit.removeState(state);
+					}
+				}
+				for(CircuitState state : states) {
+					if(!circuit.containsState(state)) {
+						circuit.addState(state);
+					}
+				}
+			});
+			
+			data.setPosition(0);
+			for(StateLayout layout : layouts) {
+				restore(layout);
+			}
+			
+			simulator.restoreLinksToUpdate(linksToUpdate);
+			participants.forEach(Participant::restore);
+			
+			// The topology is unchanged, so everything derived from it stays valid, apart from the cycle history. Adding
+			// or removing states above already notified the Simulator.
+			CycleHistory cycleHistory = simulator.getCycleHistory();
+			if(cycleHistory != null) {
+				cycleHistory.clear();
+			}
+		});
+	}
+	
+	private void verify() {
+		if(!simulator.getCircuits().containsAll(circuitStates.keySet())) {
+			throw new IllegalStateException("A circuit was removed since the checkpoint was taken");
+		}
+		
+		circuitComponents.forEach((circuit, components) -> {
+			Set<Component> current = circuit.getComponents();
+			if(current.size() != components.length || !current.containsAll(Arrays.asList(components))) {
+				throw modified(circuit);
+			}
+		});
+		
+		for(StateLayout layout : layouts) {
+			Circuit circuit = layout.state.getCircuit();
+			
+			int portIndex = 0;
+			for(int i = 0; i < layout.links.length; i++) {
+				Link link = layout.links[i];
+				Set<Port> participants = link.getParticipants();
+				if(link.getCircuit() != circuit || participants.size() != layout.participantCounts[i]) {
+					throw modified(circuit);
+				}
+				
+				for(int j = 0; j < layout.participantCounts[i]; j++) {
+					if(!participants.contains(layout.ports[portIndex++])) {
+						throw modified(circuit);
+					}
+				}
+			}
+			
+			for(Component component : layout.components) {
+				if(component.getCircuit() != circuit) {
+					throw modified(circuit);
+				}
+			}
+		}
+	}
+	
+	private static IllegalStateException modified(Circuit circuit) {
+		return new IllegalStateException("Circuit " + circuit.getName() + " was modified since the checkpoint was taken");
+	}
+	
+	private StateLayout capture(CircuitState state, StateBuffer buffer) {
+		Map<Link, LinkState> linkStates = state.getLinkStates();
+		
+		Link[] links = new Link[linkStates.size()];
+		int[] participantCounts = new int[links.length];
+		List<Port> ports = new ArrayList<>();
+		
+		int linkIndex = 0;
+		for(LinkState linkState : linkStates.values()) {
+			links[linkIndex] = linkState.link;
+			participantCounts[linkIndex] = linkState.participants.size();
+			linkIndex++;
+			
+			linkState.participants.forEach((port, info) -> {
+				ports.add(port);
+				buffer.writeWireValue(info.lastPushed);
+				buffer.writeWireValue(info.lastMerged);
+				buffer.writeWireValue(info.lastReceived);
+			});
+		}
+		
+		List<Component> components = new ArrayList<>();
+		state.getComponentProperties().forEach((component, property) -> {
+			// Skip properties left behind by components that were removed from the circuit
+			if(component.getCircuit() == state.getCircuit()) {
+				components.add(component);
+				buffer.writeProperty(property);
+			}
+		});
+		
+		return new StateLayout(state,
+		                       links,
+		                       participantCounts,
+		                       ports.toArray(new Port[0]),
+		                       components.toArray(new Component[0]));
+	}
+	
+	private void restore(StateLayout layout) {
+		CircuitState state = layout.state;
+		Map<Link, LinkState> linkStates = state.getLinkStates();
+		
+		// Links first touched after the checkpoint had no state yet, and will get a fresh one when next used
+		linkStates.keySet().retainAll(Arrays.asList(layout.links));
+		
+		int portIndex = 0;
+		for(int i = 0; i < layout.links.length; i++) {
+			Link link = layout.links[i];
+			LinkState linkState = state.getLinkState(link);
+			linkState.cachedMergedValue = null;
+			linkState.isShortCircuited = null;
+			
+			for(int j = 0; j < layout.participantCounts[i]; j++) {
+				Port port = layout.ports[portIndex++];
+				PortStateInfo info = linkState.participants.get(port);
+				if(info == null) {
+					info = linkState.new PortStateInfo();
+					linkState.participants.put(port, info);
+				}
+				
+				data.readWireValue(info.lastPushed);
+				data.readWireValue(info.lastMerged);
+				data.readWireValue(info.lastReceived);
+			}
+			
+			linkState.participants.keySet().retainAll(link.getParticipants());
+		}
+		
+		Map<Component, Object> properties = state.getComponentProperties();
+		Map<Component, Object> oldProperties = new HashMap<>(properties);
+		properties.clear();
+		for(Component component : layout.components) {
+			properties.put(component, data.readProperty(oldProperties.get(component)));
+		}
+	}
+	
+	private static class StateLayout {
+		private final CircuitState state;
+		private final Link[] links;
+		private final int[] participantCounts;
+		private final Port[] ports;
+		private final Component[] components;
+		
+		StateLayout(CircuitState state, Link[] links, int[] participantCounts, Port[] ports, Component[] components) {
+			this.state = state;
+			this.links = links;
+			this.participantCounts = participantCounts;
+			this.ports = ports;
+			this.components = components;
+		}
+	}
+}
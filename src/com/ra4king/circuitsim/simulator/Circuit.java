@@ -65,6 +65,7 @@ public class Circuit {
 			}
 			
 			component.setCircuit(this);
+			simulator.circuitModified();
 			components.add(component);
 			states.forEach(state -> {
 				try {
@@ -121,6 +122,7 @@ public class Circuit {
 			}
 			
 			newComponent.setCircuit(this);
+			simulator.circuitModified();
 			components.add(newComponent);
 			states.forEach(state -> {
 				try {
@@ -167,6 +169,7 @@ public class Circuit {
 				}
 			});
 			component.setCircuit(null);
+			simulator.circuitModified();
 			
 			listeners.forEach(listener -> listener.circuitChanged(this, component, false));
 		});
@@ -203,7 +206,9 @@ public class Circuit {
 	}
 	
 	public void addState(CircuitState state) {
-		states.add(state);
+		if(states.add(state)) {
+			simulator.statesModified();
+		}
 	}
 	
 	public boolean containsState(CircuitState state) {
@@ -211,7 +216,9 @@ public class Circuit {
 	}
 	
 	public void removeState(CircuitState state) {
-		states.remove(state);
+		if(states.remove(state)) {
+			simulator.statesModified();
+		}
 	}
 	
 	public void forEachState(Consumer<CircuitState> consumer) {
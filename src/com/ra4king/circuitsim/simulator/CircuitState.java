@@ -10,6 +10,8 @@ import com.ra4king.circuitsim.simulator.WireValue.State;
 
 public class CircuitState {
 	private Circuit circuit;
+	private CircuitState parentState;
+	private Component parentComponent;
 	private Map<Component, Object> componentProperties;
 	private Map<Link, LinkState> linkStates;
 	
@@ -21,6 +23,19 @@ public class CircuitState {
 	 * @param circuit The Circuit which this CircuitState represents.
 	 */
 	public CircuitState(Circuit circuit) {
+		this(circuit, null, null);
+	}
+	
+	/**
+	 * Create a new CircuitState nested inside the given parent state. The parent Component, usually a Subcircuit, is
+	 * the component in the parent state's circuit that owns this state. Values leaving this state through its output
+	 * Pins are pushed directly onto the parent Component's ports.
+	 *
+	 * @param circuit         The Circuit which this CircuitState represents.
+	 * @param parentState     The CircuitState in which the parent Component lives. May be null.
+	 * @param parentComponent The Component owning this CircuitState. May be null.
+	 */
+	public CircuitState(Circuit circuit, CircuitState parentState, Component parentComponent) {
 		if(circuit == null) {
 			throw new NullPointerException("Circuit cannot be null.");
 		}
@@ -29,6 +44,8 @@ public class CircuitState {
 		
 		circuit.getSimulator().runSync(() -> {
 			this.circuit = circuit;
+			this.parentState = parentState;
+			this.parentComponent = parentComponent;
 			this.componentProperties = new HashMap<>();
 			this.linkStates = new HashMap<>();
 			circuit.addState(this);
@@ -45,6 +62,8 @@ public class CircuitState {
 		
 		state.circuit.getSimulator().runSync(() -> {
 			this.circuit = state.circuit;
+			this.parentState = state.parentState;
+			this.parentComponent = state.parentComponent;
 			this.componentProperties = new HashMap<>(state.componentProperties);
 			this.linkStates = new HashMap<>();
 			state.linkStates.forEach((link, linkState) -> this.linkStates.put(link, new LinkState(linkState)));
@@ -55,6 +74,24 @@ public class CircuitState {
 		return circuit;
 	}
 	
+	/**
+	 * Get the state this CircuitState is nested in.
+	 *
+	 * @return The parent CircuitState, or null if this is not a nested state.
+	 */
+	public CircuitState getParentState() {
+		return parentState;
+	}
+	
+	/**
+	 * Get the Component, in the parent state's circuit, that owns this CircuitState.
+	 *
+	 * @return The parent Component, or null if this is not a nested state.
+	 */
+	public Component getParentComponent() {
+		return parentComponent;
+	}
+	
 	public Map<Component, Object> getComponentProperties() {
 		return componentProperties;
 	}
@@ -64,13 +101,37 @@ public class CircuitState {
 	}
 	
 	public void putComponentProperty(Component component, Object property) {
+		CycleHistory cycleHistory = circuit.getSimulator().getCycleHistory();
+		if(cycleHistory != null) {
+			cycleHistory.propertyChanging(this, component);
+		}
+		
 		componentProperties.put(component, property);
 	}
 	
 	public Object removeComponentProperty(Component component) {
+		CycleHistory cycleHistory = circuit.getSimulator().getCycleHistory();
+		if(cycleHistory != null) {
+			cycleHistory.propertyChanging(this, component);
+		}
+		
 		return componentProperties.remove(component);
 	}
 	
+	/**
+	 * Must be called before modifying an element of a long array property in place, such as a RAM word, so that the
+	 * change can be undone when stepping the clock backwards.
+	 *
+	 * @param component The Component owning the property.
+	 * @param index     The index of the element about to be modified.
+	 */
+	public void arrayPropertyChanging(Component component, int index) {
+		CycleHistory cycleHistory = circuit.getSimulator().getCycleHistory();
+		if(cycleHistory != null) {
+			cycleHistory.arrayElementChanging(this, component, index);
+		}
+	}
+	
 	/**
 	 * Get the current true value on the Link, which is the merging of all pushed values.
 	 *
@@ -91,6 +152,17 @@ public class CircuitState {
 		return new WireValue(get(port.getLink()).getLastReceived(port));
 	}
 	
+	/**
+	 * Get a single bit of the last value received by this Port, without copying the whole value.
+	 *
+	 * @param port  The Port for which the bit of the last received value is returned.
+	 * @param index The index of the bit.
+	 * @return The bit of the last received value of the Port.
+	 */
+	public State getLastReceivedBit(Port port, int index) {
+		return get(port.getLink()).getLastReceived(port).getBit(index);
+	}
+	
 	/**
 	 * Get the last value pushed by this Port.
 	 *
@@ -122,6 +194,14 @@ public class CircuitState {
 		});
 	}
 	
+	Map<Link, LinkState> getLinkStates() {
+		return linkStates;
+	}
+	
+	LinkState getLinkState(Link link) {
+		return get(link);
+	}
+	
 	private LinkState get(Link link) {
 		if(!linkStates.containsKey(link)) {
 			if(link.getCircuit() == null) {
@@ -141,16 +221,27 @@ public class CircuitState {
 	}
 	
 	void link(Link link1, Link link2) {
-		circuit.getSimulator().runSync(() -> get(link1).link(get(link2)));
+		circuit.getSimulator().runSync(() -> {
+			get(link1).link(get(link2));
+			circuit.getSimulator().circuitModified();
+		});
 	}
 	
 	void unlink(Link link, Port port) {
-		circuit.getSimulator().runSync(() -> get(link).unlink(port));
+		circuit.getSimulator().runSync(() -> {
+			get(link).unlink(port);
+			circuit.getSimulator().circuitModified();
+		});
 	}
 	
 	void propagateSignal(Link link) {
 		LinkState linkState = get(link);
 		
+		CycleHistory cycleHistory = circuit.getSimulator().getCycleHistory();
+		if(cycleHistory != null) {
+			cycleHistory.linkChanging(this, link);
+		}
+		
 		linkState.participants.forEach((port, info) -> {
 			WireValue lastMerged = info.lastMerged;
 			WireValue lastPushed = info.lastPushed;
@@ -162,6 +253,17 @@ public class CircuitState {
 			}
 		});
 		
+		TraceRecorder traceRecorder = circuit.getSimulator().getTraceRecorder();
+		if(traceRecorder != null && linkState.cachedMergedValue == null) {
+			WireValue value;
+			try {
+				value = linkState.getMergedValue();
+			} catch(ShortCircuitException exc) {
+				value = new WireValue(link.getBitSize());
+			}
+			traceRecorder.linkChanged(this, link, value);
+		}
+		
 		linkState.propagate();
 	}
 	
@@ -182,8 +284,66 @@ public class CircuitState {
 			
 			WireValue lastPushed = linkState.getLastPushed(port);
 			if(!value.equals(lastPushed)) {
+				CycleHistory cycleHistory = circuit.getSimulator().getCycleHistory();
+				if(cycleHistory != null) {
+					cycleHistory.linkChanging(this, port.getLink());
+				}
+				
 				lastPushed.set(value);
 				circuit.getSimulator().valueChanged(this, port);
+				
+				SimulationProfiler profiler = circuit.getSimulator().getProfiler();
+				if(profiler != null) {
+					profiler.valuePushed(this, port.getComponent());
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Push a new value from a Port sitting on a subcircuit boundary, such as a Pin or a Subcircuit's port.
+	 * <p>
+	 * If the Simulator is in flattened mode, the Link is propagated immediately, as if the links on both sides of the
+	 * boundary were one and the same. Otherwise, this behaves exactly like {@code pushValue}. If propagating
+	 * immediately detects a short circuit, the Link is queued instead so it is retried and reported as usual.
+	 *
+	 * @param port  The Port pushing the value.
+	 * @param value The value being pushed.
+	 */
+	public void pushBoundaryValue(Port port, WireValue value) {
+		Simulator simulator = circuit.getSimulator();
+		if(!simulator.isFlattenSubcircuits() || !circuit.containsState(this)) {
+			pushValue(port, value);
+			return;
+		}
+		
+		if(readOnly) {
+			throw new IllegalStateException("This CircuitState is read-only");
+		}
+		
+		simulator.runSync(() -> {
+			LinkState linkState = get(port.getLink());
+			
+			WireValue lastPushed = linkState.getLastPushed(port);
+			if(!value.equals(lastPushed)) {
+				CycleHistory cycleHistory = circuit.getSimulator().getCycleHistory();
+				if(cycleHistory != null) {
+					cycleHistory.linkChanging(this, port.getLink());
+				}
+				
+				lastPushed.set(value);
+				simulator.portPushed(port);
+				
+				SimulationProfiler profiler = simulator.getProfiler();
+				if(profiler != null) {
+					profiler.valuePushed(this, port.getComponent());
+				}
+				
+				try {
+					propagateSignal(port.getLink());
+				} catch(ShortCircuitException exc) {
+					simulator.valueChanged(this, port);
+				}
 			}
 		});
 	}
@@ -315,14 +475,16 @@ public class CircuitState {
 			
 			RuntimeException exception = null;
 			
+			SimulationProfiler profiler = circuit.getSimulator().getProfiler();
+			
 			for(Entry<Port, WireValue> entry : toNotify.entrySet()) {
 				Port participantPort = entry.getKey();
 				WireValue incomingValue = entry.getValue();
+				Component component = participantPort.getComponent();
 				
+				long startTime = profiler == null ? 0 : profiler.evaluationStarted();
 				try {
-					participantPort.getComponent().valueChanged(CircuitState.this,
-					                                            incomingValue,
-					                                            participantPort.getPortIndex());
+					component.valueChanged(CircuitState.this, incomingValue, participantPort.getPortIndex());
 				} catch(ShortCircuitException exc) {
 					shortCircuit = exc;
 				} catch(RuntimeException exc) {
@@ -331,6 +493,10 @@ public class CircuitState {
 					if(exception == null) { // grab the first one
 						exception = exc;
 					}
+				} finally {
+					if(profiler != null) {
+						profiler.evaluationFinished(CircuitState.this, component, startTime);
+					}
 				}
 			}
 			
@@ -350,6 +516,8 @@ public class CircuitState {
 			if(this == other) return;
 			
 			participants.putAll(other.participants);
+			// The moved PortStateInfos still reference the other LinkState, so it must not keep its ports alive
+			other.participants.clear();
 			
 			cachedMergedValue = null;
 			isShortCircuited = null;
@@ -368,9 +536,11 @@ public class CircuitState {
 			isShortCircuited = null;
 			
 			PortStateInfo info = participants.remove(port);
-			get(port.getLink()).participants.put(port, new PortStateInfo(info.lastPushed,
-			                                                             new WireValue(info.lastPushed),
-			                                                             new WireValue(link.getBitSize())));
+			// Created in the new LinkState, so it does not keep this one and its ports alive
+			LinkState newLinkState = get(port.getLink());
+			newLinkState.participants.put(port, newLinkState.new PortStateInfo(info.lastPushed,
+			                                                                   new WireValue(info.lastPushed),
+			                                                                   new WireValue(link.getBitSize())));
 			
 			RuntimeException exception = null;
 			
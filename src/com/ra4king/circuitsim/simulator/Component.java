@@ -1,9 +1,14 @@
 package com.ra4king.circuitsim.simulator;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author Roi Atalla
  */
 public abstract class Component {
+	private static final AtomicInteger nextCreationOrder = new AtomicInteger();
+	
+	private final int creationOrder = nextCreationOrder.getAndIncrement();
 	private Circuit circuit;
 	private Port[] ports;
 	private String name;
@@ -41,6 +46,24 @@ public abstract class Component {
 		return ports.length;
 	}
 	
+	/**
+	 * A stable key for ordering Components, since the Components of a Circuit are held in an identity-hashed set.
+	 */
+	int getCreationOrder() {
+		return creationOrder;
+	}
+	
+	/**
+	 * Get the Port of this Component that a Component inside a nested CircuitState owned by this Component is bound
+	 * to, such as the Port of a Subcircuit for one of its Pins.
+	 *
+	 * @param component The Component inside the nested CircuitState.
+	 * @return The bound Port, or null if the Component is not bound to one.
+	 */
+	public Port getBoundPort(Component component) {
+		return null;
+	}
+	
 	public void init(CircuitState circuitState, Object lastProperty) {}
 	
 	public void uninit(CircuitState circuitState) {}
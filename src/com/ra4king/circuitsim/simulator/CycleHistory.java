@@ -0,0 +1,373 @@
+package com.ra4king.circuitsim.simulator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ra4king.circuitsim.simulator.CircuitState.LinkState;
+import com.ra4king.circuitsim.simulator.CircuitState.LinkState.PortStateInfo;
+import com.ra4king.circuitsim.simulator.Port.Link;
+
+import javafx.util.Pair;
+
+/**
+ * Optional instrumentation attached to a Simulator with {@code Simulator.setCycleHistory}, allowing the clock to be
+ * stepped backwards. Every clock tick starts a new cycle, and during a cycle the first change to each Link, component
+ * property and memory word saves its previous value into that cycle's delta. Stepping back applies the saved values
+ * of the most recent delta, in reverse order, which restores the simulation to how it was right before the tick.
+ * <p>
+ * Deltas are packed into StateBuffers and the oldest ones are evicted once their total size reaches the memory cap.
+ * The history is cleared whenever a circuit is modified or the simulation is reset.
+ *
+ * @author Roi Atalla
+ */
+public class CycleHistory {
+	private static final int ENTRY_LINK = 0;
+	private static final int ENTRY_PROPERTY = 1;
+	private static final int ENTRY_ARRAY_ELEMENT = 2;
+	
+	private final Simulator simulator;
+	private final long memoryCap;
+	
+	private final ArrayDeque<Delta> deltas = new ArrayDeque<>();
+	private long memoryUsed;
+	private int tickCount;
+	
+	// The delta of the cycle in progress
+	private final StateBuffer buffer = new StateBuffer();
+	private int[] entryOffsets = new int[64];
+	private int entryCount;
+	private final Map<CircuitState, Set<Object>> saved = new HashMap<>();
+	private final Map<CircuitState, Map<Component, BitSet>> savedElements = new HashMap<>();
+	private List<Pair<CircuitState, Link>> currentLinksToUpdate;
+	private Map<Checkpoint.Participant, Object> currentParticipants;
+	private boolean currentFromTick;
+	
+	/**
+	 * @param simulator The Simulator this history will be attached to.
+	 * @param memoryCap The maximum number of bytes used to store deltas.
+	 */
+	public CycleHistory(Simulator simulator, long memoryCap) {
+		this.simulator = simulator;
+		this.memoryCap = memoryCap;
+		simulator.runSync(() -> begin(false));
+	}
+	
+	public Simulator getSimulator() {
+		return simulator;
+	}
+	
+	public long getMemoryCap() {
+		return memoryCap;
+	}
+	
+	/**
+	 * @return The number of bytes used by the stored deltas, not counting the cycle in progress.
+	 */
+	public long getMemoryUsed() {
+		return memoryUsed;
+	}
+	
+	/**
+	 * @return The number of times {@code stepBack} can currently succeed.
+	 */
+	public int getCycleCount() {
+		int[] count = new int[1];
+		simulator.runSync(() -> count[0] = tickCount + (currentFromTick ? 1 : 0));
+		return count[0];
+	}
+	
+	/**
+	 * Discards all recorded cycles.
+	 */
+	public void clear() {
+		simulator.runSync(() -> {
+			deltas.clear();
+			memoryUsed = 0;
+			tickCount = 0;
+			begin(false);
+		});
+	}
+	
+	/**
+	 * Starts a new cycle. Called by the clock right before every tick.
+	 */
+	public void beginCycle() {
+		simulator.runSync(() -> {
+			push(finish());
+			begin(true);
+		});
+	}
+	
+	/**
+	 * Restores the simulation to how it was right before the most recent recorded clock tick. Any change made since
+	 * that tick, such as toggling an input pin, is undone too.
+	 *
+	 * @return False if there is no recorded tick to go back to.
+	 * @throws IllegalStateException If a circuit was modified since the tick.
+	 */
+	public boolean stepBack() {
+		boolean[] steppedBack = new boolean[1];
+		simulator.runSync(() -> {
+			if(!currentFromTick && tickCount == 0) {
+				return;
+			}
+			
+			try {
+				// Changes made after a previous step back are kept in their own deltas in front of the tick's delta
+				Delta delta = finish();
+				undo(delta);
+				while(!delta.fromTick) {
+					delta = pollLast();
+					undo(delta);
+				}
+				
+				simulator.restoreLinksToUpdate(delta.linksToUpdate);
+				delta.participants.forEach(Checkpoint.Participant::restore);
+			} catch(RuntimeException exc) {
+				deltas.clear();
+				memoryUsed = 0;
+				tickCount = 0;
+				throw exc;
+			} finally {
+				begin(false);
+			}
+			
+			steppedBack[0] = true;
+		});
+		return steppedBack[0];
+	}
+	
+	private void begin(boolean fromTick) {
+		buffer.clear();
+		entryCount = 0;
+		saved.clear();
+		savedElements.clear();
+		
+		currentFromTick = fromTick;
+		currentLinksToUpdate = simulator.getLinksToUpdate().isEmpty()
+		                       ? Collections.emptyList()
+		                       : new ArrayList<>(simulator.getLinksToUpdate());
+		currentParticipants = new HashMap<>();
+		for(Checkpoint.Participant participant : simulator.getCheckpointParticipants()) {
+			currentParticipants.put(participant, participant.save());
+		}
+	}
+	
+	private Delta finish() {
+		return new Delta(new StateBuffer(buffer),
+		                 Arrays.copyOf(entryOffsets, entryCount),
+		                 currentLinksToUpdate,
+		                 currentParticipants,
+		                 currentFromTick);
+	}
+	
+	private void push(Delta delta) {
+		if(!delta.fromTick && (tickCount == 0 || delta.entryOffsets.length == 0)) {
+			return;
+		}
+		
+		deltas.addLast(delta);
+		memoryUsed += delta.getMemoryUsed();
+		if(delta.fromTick) {
+			tickCount++;
+		}
+		
+		while(memoryUsed > memoryCap && tickCount > 0) {
+			// Evict the oldest tick along with the changes made after stepping back into it
+			do {
+				Delta evicted = deltas.pollFirst();
+				memoryUsed -= evicted.getMemoryUsed();
+				if(evicted.fromTick) {
+					tickCount--;
+				}
+			} while(!deltas.isEmpty() && !deltas.peekFirst().fromTick);
+		}
+	}
+	
+	private Delta pollLast() {
+		Delta delta = deltas.pollLast();
+		memoryUsed -= delta.getMemoryUsed();
+		if(delta.fromTick) {
+			tickCount--;
+		}
+		return delta;
+	}
+	
+	private boolean markSaved(CircuitState state, Object key) {
+		return saved.computeIfAbsent(state, s -> new HashSet<>()).add(key);
+	}
+	
+	private void startEntry(int type, CircuitState state, Object key) {
+		if(entryCount == entryOffsets.length) {
+			entryOffsets = Arrays.copyOf(entryOffsets, entryCount * 2);
+		}
+		entryOffsets[entryCount++] = buffer.size();
+		
+		buffer.add(type);
+		buffer.add(buffer.addReference(state));
+		buffer.add(buffer.addReference(key));
+	}
+	
+	/**
+	 * Called before any value on the Link changes in the given state.
+	 */
+	void linkChanging(CircuitState state, Link link) {
+		if(!markSaved(state, link)) {
+			return;
+		}
+		
+		startEntry(ENTRY_LINK, state, link);
+		
+		LinkState linkState = state.getLinkStates().get(link);
+		if(linkState == null) {
+			buffer.add(-1);
+			return;
+		}
+		
+		buffer.add(linkState.participants.size());
+		linkState.participants.forEach((port, info) -> {
+			buffer.add(buffer.addReference(port));
+			buffer.writeWireValue(info.lastPushed);
+			buffer.writeWireValue(info.lastMerged);
+			buffer.writeWireValue(info.lastReceived);
+		});
+	}
+	
+	/**
+	 * Called before the property of the Component is replaced or removed in the given state.
+	 */
+	void propertyChanging(CircuitState state, Component component) {
+		if(!markSaved(state, component)) {
+			return;
+		}
+		
+		startEntry(ENTRY_PROPERTY, state, component);
+		
+		Map<Component, Object> properties = state.getComponentProperties();
+		buffer.add(properties.containsKey(component) ? 1 : 0);
+		buffer.writeProperty(properties.get(component));
+	}
+	
+	/**
+	 * Called before an element of the long array property of the Component is modified in place in the given state.
+	 */
+	void arrayElementChanging(CircuitState state, Component component, int index) {
+		Object property = state.getComponentProperty(component);
+		if(!(property instanceof long[])) {
+			return;
+		}
+		
+		// A property saved whole in this cycle already covers its elements
+		Set<Object> savedKeys = saved.get(state);
+		if(savedKeys != null && savedKeys.contains(component)) {
+			return;
+		}
+		
+		BitSet elements = savedElements.computeIfAbsent(state, s -> new HashMap<>())
+		                               .computeIfAbsent(component, c -> new BitSet());
+		if(elements.get(index)) {
+			return;
+		}
+		elements.set(index);
+		
+		startEntry(ENTRY_ARRAY_ELEMENT, state, component);
+		buffer.add(index);
+		buffer.add(((long[])property)[index]);
+	}
+	
+	private void undo(Delta delta) {
+		StateBuffer data = delta.data;
+		for(int i = delta.entryOffsets.length - 1; i >= 0; i--) {
+			data.setPosition(delta.entryOffsets[i]);
+			int type = (int)data.next();
+			CircuitState state = (CircuitState)data.getReference((int)data.next());
+			Object key = data.getReference((int)data.next());
+			
+			switch(type) {
+				case ENTRY_LINK:
+					undoLink(data, state, (Link)key);
+					break;
+				case ENTRY_PROPERTY: {
+					boolean present = data.next() != 0;
+					Map<Component, Object> properties = state.getComponentProperties();
+					Object property = data.readProperty(properties.get(key));
+					if(present) {
+						properties.put((Component)key, property);
+					} else {
+						properties.remove(key);
+					}
+					break;
+				}
+				case ENTRY_ARRAY_ELEMENT: {
+					int index = (int)data.next();
+					long value = data.next();
+					Object property = state.getComponentProperty((Component)key);
+					if(property instanceof long[]) {
+						((long[])property)[index] = value;
+					}
+					break;
+				}
+			}
+		}
+	}
+	
+	private void undoLink(StateBuffer data, CircuitState state, Link link) {
+		if(link.getCircuit() != state.getCircuit()) {
+			throw new IllegalStateException("Circuit " + state.getCircuit().getName() + " was modified");
+		}
+		
+		int count = (int)data.next();
+		if(count < 0) {
+			state.getLinkStates().remove(link);
+			return;
+		}
+		
+		LinkState linkState = state.getLinkState(link);
+		linkState.cachedMergedValue = null;
+		linkState.isShortCircuited = null;
+		for(int i = 0; i < count; i++) {
+			Port port = (Port)data.getReference((int)data.next());
+			PortStateInfo info = linkState.participants.get(port);
+			if(info == null) {
+				info = linkState.new PortStateInfo();
+				linkState.participants.put(port, info);
+			}
+			
+			data.readWireValue(info.lastPushed);
+			data.readWireValue(info.lastMerged);
+			data.readWireValue(info.lastReceived);
+		}
+	}
+	
+	private static class Delta {
+		private final StateBuffer data;
+		private final int[] entryOffsets;
+		private final List<Pair<CircuitState, Link>> linksToUpdate;
+		private final Map<Checkpoint.Participant, Object> participants;
+		private final boolean fromTick;
+		
+		Delta(StateBuffer data,
+		      int[] entryOffsets,
+		      List<Pair<CircuitState, Link>> linksToUpdate,
+		      Map<Checkpoint.Participant, Object> participants,
+		      boolean fromTick) {
+			this.data = data;
+			this.entryOffsets = entryOffsets;
+			this.linksToUpdate = linksToUpdate;
+			this.participants = participants;
+			this.fromTick = fromTick;
+		}
+		
+		long getMemoryUsed() {
+			return data.getMemoryUsed() + 4L * entryOffsets.length + 64;
+		}
+	}
+}
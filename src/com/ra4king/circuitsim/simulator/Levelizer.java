@@ -0,0 +1,208 @@
+package com.ra4king.circuitsim.simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ra4king.circuitsim.simulator.CircuitState.LinkState;
+import com.ra4king.circuitsim.simulator.Port.Link;
+import com.ra4king.circuitsim.simulator.WireValue.State;
+
+/**
+ * Ranks the Links of every Circuit for the Simulator's levelized mode. The components of a Circuit are ordered
+ * topologically, each one ranked above every component driving any of its ports, and a Link gets the highest rank of
+ * the components driving it. Propagating queued Links lowest rank first then lets a Link settle before anything that
+ * depends on it is propagated.
+ * <p>
+ * Ports have no direction, so a Port is considered to drive its Link once it has pushed a value. Feedback loops are
+ * cut at the edges that close a cycle during a depth-first search started from the components nothing drives, such as
+ * input Pins, Constants and Clocks, and a loop is iterated in rank order until it settles.
+ * <p>
+ * Ranks are recomputed lazily after a circuit is modified or a new driver is found. Ranks of different Circuits are
+ * computed independently. This class is not thread safe and is only used with the Simulator's lock held.
+ *
+ * @author Roi Atalla
+ */
+class Levelizer {
+	private final Simulator simulator;
+	private final Set<Port> drivers = new HashSet<>();
+	private final Map<Link, Integer> linkRanks = new HashMap<>();
+	private boolean valid;
+	
+	Levelizer(Simulator simulator) {
+		this.simulator = simulator;
+	}
+	
+	void invalidate() {
+		valid = false;
+	}
+	
+	/**
+	 * Marks every Port that has already pushed a value in any state as a driver.
+	 */
+	void findDrivers() {
+		for(Circuit circuit : simulator.getCircuits()) {
+			circuit.forEachState(state -> {
+				for(LinkState linkState : state.getLinkStates().values()) {
+					linkState.participants.forEach((port, info) -> {
+						if(isPushed(info.lastPushed)) {
+							drivers.add(port);
+						}
+					});
+				}
+			});
+		}
+		valid = false;
+	}
+	
+	private static boolean isPushed(WireValue value) {
+		for(int i = 0; i < value.getBitSize(); i++) {
+			if(value.getBit(i) != State.X) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	void portPushed(Port port) {
+		if(drivers.add(port)) {
+			valid = false;
+		}
+	}
+	
+	int getRank(Link link) {
+		if(!valid) {
+			compute();
+		}
+		
+		Integer rank = linkRanks.get(link);
+		return rank == null ? 0 : rank;
+	}
+	
+	private void compute() {
+		valid = true;
+		linkRanks.clear();
+		drivers.removeIf(port -> port.getComponent().getCircuit() == null);
+		
+		for(Circuit circuit : simulator.getCircuits()) {
+			compute(circuit);
+		}
+	}
+	
+	private void compute(Circuit circuit) {
+		// Sorted so the ranks, and the order loops are cut in, are the same on every run
+		Component[] components = circuit.getComponents().toArray(new Component[0]);
+		Arrays.sort(components, Comparator.comparingInt(Component::getCreationOrder));
+		int count = components.length;
+		
+		Map<Component, Integer> indices = new HashMap<>();
+		for(int i = 0; i < count; i++) {
+			indices.put(components[i], i);
+		}
+		
+		// A component drives every other component sharing a Link with one of its driver Ports
+		int[][] successors = new int[count][];
+		int[] predecessorCounts = new int[count];
+		int[] lastSeen = new int[count];
+		Arrays.fill(lastSeen, -1);
+		for(int i = 0; i < count; i++) {
+			List<Integer> targets = new ArrayList<>();
+			Component component = components[i];
+			for(int p = 0; p < component.getNumPorts(); p++) {
+				Port port = component.getPort(p);
+				if(!drivers.contains(port)) {
+					continue;
+				}
+				
+				for(Port participant : port.getLink().getParticipants()) {
+					Integer target = indices.get(participant.getComponent());
+					if(target != null && target != i && lastSeen[target] != i) {
+						lastSeen[target] = i;
+						targets.add(target);
+						predecessorCounts[target]++;
+					}
+				}
+			}
+			
+			successors[i] = targets.stream().mapToInt(Integer::intValue).toArray();
+		}
+		
+		int[] postOrder = depthFirstPostOrder(successors, predecessorCounts);
+		
+		// An edge closes a cycle when its target finishes after its source, so it is skipped. Every other edge goes
+		// forward in reverse post-order, giving the longest path from the sources in a single pass.
+		int[] finished = new int[count];
+		for(int i = 0; i < count; i++) {
+			finished[postOrder[i]] = i;
+		}
+		
+		int[] ranks = new int[count];
+		for(int i = count - 1; i >= 0; i--) {
+			int node = postOrder[i];
+			for(int target : successors[node]) {
+				if(finished[target] < finished[node]) {
+					ranks[target] = Math.max(ranks[target], ranks[node] + 1);
+				}
+			}
+		}
+		
+		for(int i = 0; i < count; i++) {
+			Component component = components[i];
+			for(int p = 0; p < component.getNumPorts(); p++) {
+				Port port = component.getPort(p);
+				if(drivers.contains(port)) {
+					linkRanks.merge(port.getLink(), ranks[i], Math::max);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * An iterative depth-first search, so long chains of components do not overflow the stack. Components without
+	 * predecessors are used as roots first.
+	 */
+	private static int[] depthFirstPostOrder(int[][] successors, int[] predecessorCounts) {
+		int count = successors.length;
+		int[] postOrder = new int[count];
+		int finishedCount = 0;
+		
+		boolean[] visited = new boolean[count];
+		int[] stack = new int[count];
+		int[] nextSuccessor = new int[count];
+		
+		for(int pass = 0; pass < 2; pass++) {
+			for(int root = 0; root < count; root++) {
+				if(visited[root] || (pass == 0 && predecessorCounts[root] > 0)) {
+					continue;
+				}
+				
+				int depth = 0;
+				stack[depth++] = root;
+				visited[root] = true;
+				nextSuccessor[root] = 0;
+				
+				while(depth > 0) {
+					int node = stack[depth - 1];
+					if(nextSuccessor[node] < successors[node].length) {
+						int target = successors[node][nextSuccessor[node]++];
+						if(!visited[target]) {
+							visited[target] = true;
+							nextSuccessor[target] = 0;
+							stack[depth++] = target;
+						}
+					} else {
+						depth--;
+						postOrder[finishedCount++] = node;
+					}
+				}
+			}
+		}
+		
+		return postOrder;
+	}
+}
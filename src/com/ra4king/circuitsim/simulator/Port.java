@@ -2,13 +2,17 @@ package com.ra4king.circuitsim.simulator;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Roi Atalla
  */
 public class Port {
+	private static final AtomicInteger nextHashCode = new AtomicInteger();
+	
 	private final Component component;
 	private final int portIndex;
+	private final int hashCode = nextHashCode.getAndIncrement();
 	private Link link;
 	
 	public Port(Component component, int portIndex, int bitSize) {
@@ -41,6 +45,15 @@ public class Port {
 		return this;
 	}
 	
+	/**
+	 * Ports are hashed in creation order rather than by identity, so the maps and sets of Ports a Link propagates
+	 * through iterate in the same order on every run, and so do the evaluations that follow.
+	 */
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+	
 	@Override
 	public String toString() {
 		return "Port(" + component + "[" + portIndex + "])";
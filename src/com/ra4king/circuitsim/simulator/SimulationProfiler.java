@@ -0,0 +1,380 @@
+package com.ra4king.circuitsim.simulator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+
+/**
+ * Optional instrumentation attached to a Simulator with {@code Simulator.setProfiler}. It counts Component
+ * evaluations (calls to {@code valueChanged}) and pushed values per Component, per Circuit and per CircuitState
+ * (i.e. per Subcircuit instance), as well as queue depth per step and steps per stepAll.
+ * <p>
+ * Counting is always exact, but only one out of every {@code sampleInterval} evaluations is timed, which keeps the
+ * overhead low enough to leave enabled. Reported times are estimated from the sampled evaluations. Times are
+ * inclusive: in flattened mode a Pin or Subcircuit evaluation includes the propagation it triggers on the other side.
+ * <p>
+ * All recording methods are called with the Simulator's lock held.
+ *
+ * @author Roi Atalla
+ */
+public class SimulationProfiler {
+	// Weak keys, so removed Components and discarded CircuitStates are not kept alive by the profiler
+	private final Map<Component, Counters> componentCounters = new WeakHashMap<>();
+	private final Map<CircuitState, Counters> stateCounters = new WeakHashMap<>();
+	
+	private volatile int sampleInterval;
+	private int untilNextSample;
+	
+	private long steps, totalQueueDepth, maxQueueDepth;
+	private long stepAlls, totalStepsPerStepAll, maxStepsPerStepAll;
+	private long currentStepAllSteps = -1;
+	
+	/**
+	 * Creates a profiler timing every evaluation.
+	 */
+	public SimulationProfiler() {
+		this(1);
+	}
+	
+	/**
+	 * @param sampleInterval Only one out of every sampleInterval evaluations is timed.
+	 */
+	public SimulationProfiler(int sampleInterval) {
+		setSampleInterval(sampleInterval);
+	}
+	
+	public int getSampleInterval() {
+		return sampleInterval;
+	}
+	
+	public void setSampleInterval(int sampleInterval) {
+		if(sampleInterval < 1) {
+			throw new IllegalArgumentException("Sample interval must be at least 1.");
+		}
+		
+		this.sampleInterval = sampleInterval;
+	}
+	
+	/**
+	 * Called right before a Component is evaluated.
+	 *
+	 * @return The start timestamp if this evaluation is sampled, -1 otherwise.
+	 */
+	long evaluationStarted() {
+		if(--untilNextSample <= 0) {
+			untilNextSample = sampleInterval;
+			return System.nanoTime();
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Called right after a Component is evaluated.
+	 *
+	 * @param state     The CircuitState in which the Component was evaluated.
+	 * @param component The evaluated Component.
+	 * @param startTime The value returned by the matching {@code evaluationStarted}.
+	 */
+	void evaluationFinished(CircuitState state, Component component, long startTime) {
+		long elapsed = startTime < 0 ? -1 : System.nanoTime() - startTime;
+		getCounters(componentCounters, component).evaluated(elapsed);
+		getCounters(stateCounters, state).evaluated(elapsed);
+	}
+	
+	void valuePushed(CircuitState state, Component component) {
+		getCounters(componentCounters, component).pushes++;
+		getCounters(stateCounters, state).pushes++;
+	}
+	
+	void stepped(int queueDepth) {
+		steps++;
+		totalQueueDepth += queueDepth;
+		maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+		
+		if(currentStepAllSteps >= 0) {
+			currentStepAllSteps++;
+		}
+	}
+	
+	void stepAllStarted() {
+		currentStepAllSteps = 0;
+	}
+	
+	void stepAllFinished() {
+		stepAlls++;
+		totalStepsPerStepAll += currentStepAllSteps;
+		maxStepsPerStepAll = Math.max(maxStepsPerStepAll, currentStepAllSteps);
+		currentStepAllSteps = -1;
+	}
+	
+	private static <K> Counters getCounters(Map<K, Counters> map, K key) {
+		Counters counters = map.get(key);
+		if(counters == null) {
+			counters = new Counters();
+			map.put(key, counters);
+		}
+		return counters;
+	}
+	
+	/**
+	 * Clears all collected data. Must be called with the Simulator's lock held.
+	 */
+	public void reset() {
+		componentCounters.clear();
+		stateCounters.clear();
+		steps = totalQueueDepth = maxQueueDepth = 0;
+		stepAlls = totalStepsPerStepAll = maxStepsPerStepAll = 0;
+		currentStepAllSteps = -1;
+	}
+	
+	/**
+	 * Takes a snapshot of the collected data. Must be called with the Simulator's lock held.
+	 *
+	 * @return The report, with every list sorted by descending estimated time.
+	 */
+	public Report createReport() {
+		Map<Circuit, Counters> circuitCounters = new HashMap<>();
+		
+		List<Entry> components = new ArrayList<>();
+		componentCounters.forEach((component, counters) -> {
+			Circuit circuit = component.getCircuit();
+			String circuitName = circuit == null ? "" : circuit.getName();
+			components.add(new Entry(component.toString(),
+			                         component.getClass().getSimpleName(),
+			                         circuitName,
+			                         counters));
+			
+			if(circuit != null) {
+				getCounters(circuitCounters, circuit).add(counters);
+			}
+		});
+		
+		List<Entry> circuits = new ArrayList<>();
+		circuitCounters.forEach(
+			(circuit, counters) -> circuits.add(new Entry(circuit.getName(), "Circuit", circuit.getName(), counters)));
+		
+		List<Entry> states = new ArrayList<>();
+		stateCounters.forEach((state, counters) -> states.add(
+			new Entry(getStatePath(state), "CircuitState", state.getCircuit().getName(), counters)));
+		
+		Comparator<Entry> byTime = Comparator.comparingLong(Entry::getEstimatedNanos)
+		                                     .thenComparingLong(Entry::getEvaluations)
+		                                     .reversed();
+		components.sort(byTime);
+		circuits.sort(byTime);
+		states.sort(byTime);
+		
+		return new Report(components, circuits, states,
+		                  steps, totalQueueDepth, maxQueueDepth,
+		                  stepAlls, totalStepsPerStepAll, maxStepsPerStepAll);
+	}
+	
+	private static String getStatePath(CircuitState state) {
+		StringBuilder path = new StringBuilder(state.getCircuit().getName());
+		while(state.getParentState() != null) {
+			path.insert(0, state.getParentState().getCircuit().getName() + "/" + state.getParentComponent() + " > ");
+			state = state.getParentState();
+		}
+		return path.toString();
+	}
+	
+	private static class Counters {
+		long evaluations, sampledEvaluations, sampledNanos, pushes;
+		
+		void evaluated(long elapsed) {
+			evaluations++;
+			if(elapsed >= 0) {
+				sampledEvaluations++;
+				sampledNanos += elapsed;
+			}
+		}
+		
+		void add(Counters other) {
+			evaluations += other.evaluations;
+			sampledEvaluations += other.sampledEvaluations;
+			sampledNanos += other.sampledNanos;
+			pushes += other.pushes;
+		}
+	}
+	
+	/**
+	 * One row of a Report: a Component, a Circuit or a CircuitState.
+	 */
+	public static class Entry {
+		private final String name;
+		private final String type;
+		private final String circuit;
+		private final long evaluations;
+		private final long sampledEvaluations;
+		private final long estimatedNanos;
+		private final long pushes;
+		
+		private Entry(String name, String type, String circuit, Counters counters) {
+			this.name = name;
+			this.type = type;
+			this.circuit = circuit;
+			this.evaluations = counters.evaluations;
+			this.sampledEvaluations = counters.sampledEvaluations;
+			this.estimatedNanos = counters.sampledEvaluations == 0
+			                      ? 0
+			                      : (long)((double)counters.sampledNanos / counters.sampledEvaluations *
+			                               counters.evaluations);
+			this.pushes = counters.pushes;
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public String getType() {
+			return type;
+		}
+		
+		public String getCircuit() {
+			return circuit;
+		}
+		
+		public long getEvaluations() {
+			return evaluations;
+		}
+		
+		public long getSampledEvaluations() {
+			return sampledEvaluations;
+		}
+		
+		public long getEstimatedNanos() {
+			return estimatedNanos;
+		}
+		
+		public long getPushes() {
+			return pushes;
+		}
+	}
+	
+	/**
+	 * An immutable snapshot of the profiler's data, exportable as CSV or JSON.
+	 */
+	public static class Report {
+		private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+		
+		private final List<Entry> components, circuits, states;
+		private final long steps, totalQueueDepth, maxQueueDepth;
+		private final long stepAlls, totalStepsPerStepAll, maxStepsPerStepAll;
+		
+		private Report(List<Entry> components, List<Entry> circuits, List<Entry> states,
+		               long steps, long totalQueueDepth, long maxQueueDepth,
+		               long stepAlls, long totalStepsPerStepAll, long maxStepsPerStepAll) {
+			this.components = Collections.unmodifiableList(components);
+			this.circuits = Collections.unmodifiableList(circuits);
+			this.states = Collections.unmodifiableList(states);
+			this.steps = steps;
+			this.totalQueueDepth = totalQueueDepth;
+			this.maxQueueDepth = maxQueueDepth;
+			this.stepAlls = stepAlls;
+			this.totalStepsPerStepAll = totalStepsPerStepAll;
+			this.maxStepsPerStepAll = maxStepsPerStepAll;
+		}
+		
+		public List<Entry> getComponents() {
+			return components;
+		}
+		
+		public List<Entry> getCircuits() {
+			return circuits;
+		}
+		
+		public List<Entry> getStates() {
+			return states;
+		}
+		
+		public long getSteps() {
+			return steps;
+		}
+		
+		public double getAverageQueueDepth() {
+			return steps == 0 ? 0 : (double)totalQueueDepth / steps;
+		}
+		
+		public long getMaxQueueDepth() {
+			return maxQueueDepth;
+		}
+		
+		public long getStepAlls() {
+			return stepAlls;
+		}
+		
+		public double getAverageStepsPerStepAll() {
+			return stepAlls == 0 ? 0 : (double)totalStepsPerStepAll / stepAlls;
+		}
+		
+		public long getMaxStepsPerStepAll() {
+			return maxStepsPerStepAll;
+		}
+		
+		/**
+		 * Writes every entry as a CSV row, preceded by a header row. The first column is the scope of the entry:
+		 * component, circuit or state.
+		 */
+		public void writeCsv(Appendable out) throws IOException {
+			out.append("scope,name,type,circuit,evaluations,sampled_evaluations,estimated_nanos,pushes\n");
+			writeCsv(out, "component", components);
+			writeCsv(out, "circuit", circuits);
+			writeCsv(out, "state", states);
+		}
+		
+		private static void writeCsv(Appendable out, String scope, List<Entry> entries) throws IOException {
+			for(Entry entry : entries) {
+				out.append(scope).append(',')
+				   .append(csvEscape(entry.name)).append(',')
+				   .append(csvEscape(entry.type)).append(',')
+				   .append(csvEscape(entry.circuit)).append(',')
+				   .append(String.valueOf(entry.evaluations)).append(',')
+				   .append(String.valueOf(entry.sampledEvaluations)).append(',')
+				   .append(String.valueOf(entry.estimatedNanos)).append(',')
+				   .append(String.valueOf(entry.pushes)).append('\n');
+			}
+		}
+		
+		private static String csvEscape(String s) {
+			if(s.indexOf(',') == -1 && s.indexOf('"') == -1 && s.indexOf('\n') == -1) {
+				return s;
+			}
+			
+			return '"' + s.replace("\"", "\"\"") + '"';
+		}
+		
+		/**
+		 * Writes the whole report, including the step statistics, as a JSON object.
+		 */
+		public void writeJson(Appendable out) throws IOException {
+			JsonObject json = new JsonObject();
+			json.addProperty("steps", steps);
+			json.addProperty("averageQueueDepth", getAverageQueueDepth());
+			json.addProperty("maxQueueDepth", maxQueueDepth);
+			json.addProperty("stepAlls", stepAlls);
+			json.addProperty("averageStepsPerStepAll", getAverageStepsPerStepAll());
+			json.addProperty("maxStepsPerStepAll", maxStepsPerStepAll);
+			json.add("components", GSON.toJsonTree(components));
+			json.add("circuits", GSON.toJsonTree(circuits));
+			json.add("states", GSON.toJsonTree(states));
+			
+			try {
+				GSON.toJson(json, out);
+			} catch(JsonIOException exc) {
+				throw new IOException(exc.getCause());
+			}
+			out.append('\n');
+		}
+	}
+}
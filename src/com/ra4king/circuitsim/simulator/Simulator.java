@@ -3,13 +3,22 @@ package com.ra4king.circuitsim.simulator;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.ra4king.circuitsim.simulator.Port.Link;
+import com.ra4king.circuitsim.simulator.metrics.MetricsRegistry;
+import com.ra4king.circuitsim.simulator.metrics.MetricsRegistry.Counter;
+import com.ra4king.circuitsim.simulator.metrics.MetricsRegistry.Timer;
 
 import javafx.util.Pair;
 
@@ -22,6 +31,22 @@ public class Simulator {
 	private ShortCircuitException lastShortCircuit;
 	private final Set<Collection<Pair<CircuitState, Link>>> history;
 	
+	private volatile boolean flattenSubcircuits;
+	private volatile boolean levelized;
+	private volatile boolean memoizeSubcircuits;
+	private final Levelizer levelizer = new Levelizer(this);
+	private volatile SimulationProfiler profiler;
+	private volatile TraceRecorder traceRecorder;
+	private volatile CycleHistory cycleHistory;
+	private final List<Checkpoint.Participant> checkpointParticipants = new CopyOnWriteArrayList<>();
+	private final List<Runnable> settledListeners = new CopyOnWriteArrayList<>();
+	private final Map<Class<?>, Object> sharedStates = new ConcurrentHashMap<>();
+	private volatile int topologyVersion;
+	
+	private volatile MetricsRegistry metrics;
+	private Counter stepsCounter, propagationsCounter;
+	private Timer stepAllTimer;
+	
 	// Create a Lock with a fair policy
 	private final ReentrantLock lock = new ReentrantLock(true);
 	
@@ -59,10 +84,212 @@ public class Simulator {
 		}
 	}
 	
+	/**
+	 * In flattened mode, values crossing a Subcircuit boundary through a Pin are propagated through the link on the
+	 * other side in the same step instead of being queued for the next one. The links on both sides of a Pin then
+	 * behave as a single merged link, so nesting depth no longer adds propagation steps. CircuitStates are still kept
+	 * per subcircuit instance, so the hierarchical view is unaffected.
+	 *
+	 * @param flattenSubcircuits Whether to enable flattened mode.
+	 */
+	public void setFlattenSubcircuits(boolean flattenSubcircuits) {
+		this.flattenSubcircuits = flattenSubcircuits;
+	}
+	
+	public boolean isFlattenSubcircuits() {
+		return flattenSubcircuits;
+	}
+	
+	/**
+	 * In levelized mode, each step only propagates the queued links of the lowest rank, where a link is ranked above
+	 * every link its drivers depend on, leaving the others queued for the following steps. A link then settles before
+	 * the components reading it are evaluated, so partial results no longer ripple through deep combinational paths,
+	 * such as ripple-carry adders built from gates, and every link propagates at most once per stepAll outside of
+	 * feedback loops. Ranks are recomputed whenever a circuit is modified.
+	 *
+	 * @param levelized Whether to enable levelized mode.
+	 */
+	public void setLevelized(boolean levelized) {
+		runSync(() -> {
+			this.levelized = levelized;
+			if(levelized) {
+				levelizer.findDrivers();
+			}
+		});
+	}
+	
+	public boolean isLevelized() {
+		return levelized;
+	}
+	
+	/**
+	 * In memoizing mode, Subcircuits whose circuit is purely combinational remember the outputs computed for each
+	 * combination of their inputs, and push the remembered outputs directly when the same inputs come back instead of
+	 * propagating them through the subcircuit. The CircuitState of such a Subcircuit is then left as it was for the
+	 * last inputs actually propagated through it, until the next inputs that are not remembered.
+	 *
+	 * @param memoizeSubcircuits Whether to enable memoizing mode.
+	 */
+	public void setMemoizeSubcircuits(boolean memoizeSubcircuits) {
+		this.memoizeSubcircuits = memoizeSubcircuits;
+	}
+	
+	public boolean isMemoizeSubcircuits() {
+		return memoizeSubcircuits;
+	}
+	
+	/**
+	 * Attach a profiler which records evaluation counts and costs, or null to disable profiling.
+	 *
+	 * @param profiler The profiler to attach, or null.
+	 */
+	public void setProfiler(SimulationProfiler profiler) {
+		runSync(() -> this.profiler = profiler);
+	}
+	
+	public SimulationProfiler getProfiler() {
+		return profiler;
+	}
+	
+	/**
+	 * Attach a recorder which stores the history of link values, or null to disable recording.
+	 *
+	 * @param traceRecorder The recorder to attach, or null.
+	 */
+	public void setTraceRecorder(TraceRecorder traceRecorder) {
+		runSync(() -> this.traceRecorder = traceRecorder);
+	}
+	
+	public TraceRecorder getTraceRecorder() {
+		return traceRecorder;
+	}
+	
+	/**
+	 * Attach a history of clock cycles which allows stepping the clock backwards, or null to disable it.
+	 *
+	 * @param cycleHistory The history to attach, or null.
+	 */
+	public void setCycleHistory(CycleHistory cycleHistory) {
+		if(cycleHistory != null && cycleHistory.getSimulator() != this) {
+			throw new IllegalArgumentException("CycleHistory belongs to a different Simulator");
+		}
+		
+		runSync(() -> {
+			this.cycleHistory = cycleHistory;
+			if(cycleHistory != null) {
+				cycleHistory.clear();
+			}
+		});
+	}
+	
+	public CycleHistory getCycleHistory() {
+		return cycleHistory;
+	}
+	
+	/**
+	 * Called when components or links of an attached Circuit change, which invalidates the cycle history.
+	 */
+	void circuitModified() {
+		topologyVersion++;
+		levelizer.invalidate();
+		
+		CycleHistory cycleHistory = this.cycleHistory;
+		if(cycleHistory != null) {
+			cycleHistory.clear();
+		}
+	}
+	
+	/**
+	 * Called when a CircuitState is added to or removed from an attached Circuit.
+	 */
+	void statesModified() {
+		topologyVersion++;
+	}
+	
+	/**
+	 * @return A number that changes whenever a component, link or CircuitState is added to or removed from any
+	 * attached Circuit, so derived data such as the targets of a clock can be rebuilt only when needed.
+	 */
+	public int getTopologyVersion() {
+		return topologyVersion;
+	}
+	
+	/**
+	 * Get state shared by all components of some type in this Simulator, such as the clock domains, creating it on
+	 * first use. The state is owned by this Simulator and released along with it.
+	 *
+	 * @param type    The type of the state, used as its key.
+	 * @param factory Creates the state if it does not exist yet.
+	 * @return The state.
+	 */
+	public <T> T getSharedState(Class<T> type, Function<Simulator, T> factory) {
+		return type.cast(sharedStates.computeIfAbsent(type, t -> factory.apply(this)));
+	}
+	
+	/**
+	 * Attach a registry to which the Simulator reports steps, link propagations and stepAll durations, or null to
+	 * stop reporting.
+	 *
+	 * @param metrics The registry to report to, or null.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		runSync(() -> {
+			this.metrics = metrics;
+			stepsCounter = metrics == null ? null : metrics.counter("simulator.steps");
+			propagationsCounter = metrics == null ? null : metrics.counter("simulator.propagations");
+			stepAllTimer = metrics == null ? null : metrics.timer("simulator.stepAll");
+		});
+	}
+	
+	public MetricsRegistry getMetrics() {
+		return metrics;
+	}
+	
 	public Collection<Pair<CircuitState, Link>> getLinksToUpdate() {
 		return linksToUpdate;
 	}
 	
+	/**
+	 * Register state held outside of the CircuitStates, such as the clock phase, to be saved in Checkpoints.
+	 */
+	public void addCheckpointParticipant(Checkpoint.Participant participant) {
+		checkpointParticipants.add(participant);
+	}
+	
+	public void removeCheckpointParticipant(Checkpoint.Participant participant) {
+		checkpointParticipants.remove(participant);
+	}
+	
+	List<Checkpoint.Participant> getCheckpointParticipants() {
+		return checkpointParticipants;
+	}
+	
+	/**
+	 * Add a listener called with the Simulator's lock held whenever a step leaves no more links to propagate, when
+	 * every CircuitState has settled. Listeners may read values but must not push any.
+	 */
+	public void addSettledListener(Runnable listener) {
+		settledListeners.add(listener);
+	}
+	
+	public void removeSettledListener(Runnable listener) {
+		settledListeners.remove(listener);
+	}
+	
+	/**
+	 * Replaces the queue of un-propagated links when restoring a Checkpoint.
+	 */
+	void restoreLinksToUpdate(Collection<Pair<CircuitState, Link>> links) {
+		runSync(() -> {
+			linksToUpdate.clear();
+			linksToUpdate.addAll(links);
+			temp.clear();
+			shortCircuited.clear();
+			lastShortCircuit = null;
+			history.clear();
+		});
+	}
+	
 	private boolean tmp;
 	
 	public boolean hasLinksToUpdate() {
@@ -87,7 +314,10 @@ public class Simulator {
 	 * Resets all CircuitStates of all attached Circuits.
 	 */
 	public void reset() {
-		runSync(() -> circuits.forEach(circuit -> circuit.forEachState(CircuitState::reset)));
+		runSync(() -> {
+			circuits.forEach(circuit -> circuit.forEachState(CircuitState::reset));
+			circuitModified();
+		});
 	}
 	
 	public Set<Circuit> getCircuits() {
@@ -100,7 +330,11 @@ public class Simulator {
 	 * @param circuit The Circuit to be added.
 	 */
 	public void addCircuit(Circuit circuit) {
-		runSync(() -> circuits.add(circuit));
+		runSync(() -> {
+			circuits.add(circuit);
+			topologyVersion++;
+			levelizer.invalidate();
+		});
 	}
 	
 	/**
@@ -109,7 +343,11 @@ public class Simulator {
 	 * @param circuit The Circuit to be removed.
 	 */
 	public void removeCircuit(Circuit circuit) {
-		runSync(() -> circuits.remove(circuit));
+		runSync(() -> {
+			circuits.remove(circuit);
+			topologyVersion++;
+			levelizer.invalidate();
+		});
 	}
 	
 	/**
@@ -119,7 +357,19 @@ public class Simulator {
 	 * @param port  The Port that pushed the new value.
 	 */
 	public void valueChanged(CircuitState state, Port port) {
-		valueChanged(state, port.getLink());
+		runSync(() -> {
+			portPushed(port);
+			linksToUpdate.add(new Pair<>(state, port.getLink()));
+		});
+	}
+	
+	/**
+	 * Called whenever a Port pushes a new value, which in levelized mode marks the Port as driving its Link.
+	 */
+	void portPushed(Port port) {
+		if(levelized) {
+			levelizer.portPushed(port);
+		}
 	}
 	
 	/**
@@ -161,6 +411,25 @@ public class Simulator {
 				temp.addAll(shortCircuited);
 				
 				linksToUpdate.clear();
+				if(levelized) {
+					deferHigherRanks();
+				}
+				
+				SimulationProfiler profiler = this.profiler;
+				if(profiler != null) {
+					profiler.stepped(temp.size());
+				}
+				
+				TraceRecorder traceRecorder = this.traceRecorder;
+				if(traceRecorder != null) {
+					traceRecorder.stepped();
+				}
+				
+				if(stepsCounter != null) {
+					stepsCounter.increment();
+					propagationsCounter.add(temp.size());
+				}
+				
 				shortCircuited.clear();
 				lastShortCircuit = null;
 				
@@ -186,12 +455,35 @@ public class Simulator {
 				}
 				
 				linksToUpdate.addAll(shortCircuited);
+				
+				if(linksToUpdate.isEmpty()) {
+					settledListeners.forEach(Runnable::run);
+				}
 			} finally {
 				stepping = false;
 			}
 		});
 	}
 	
+	/**
+	 * Moves the queued links above the lowest rank back into linksToUpdate.
+	 */
+	private void deferHigherRanks() {
+		int lowestRank = Integer.MAX_VALUE;
+		for(Pair<CircuitState, Link> pair : temp) {
+			lowestRank = Math.min(lowestRank, levelizer.getRank(pair.getValue()));
+		}
+		
+		Iterator<Pair<CircuitState, Link>> iterator = temp.iterator();
+		while(iterator.hasNext()) {
+			Pair<CircuitState, Link> pair = iterator.next();
+			if(levelizer.getRank(pair.getValue()) > lowestRank) {
+				linksToUpdate.add(pair);
+				iterator.remove();
+			}
+		}
+	}
+	
 	/**
 	 * Continuously steps the simulation until no more propagation is needed. This is thread-safe.
 	 */
@@ -203,18 +495,36 @@ public class Simulator {
 			
 			history.clear();
 			
-			int repeatCount = 0;
+			SimulationProfiler profiler = this.profiler;
+			if(profiler != null) {
+				profiler.stepAllStarted();
+			}
+			
+			Timer stepAllTimer = this.stepAllTimer;
+			long startTime = stepAllTimer == null ? 0 : System.nanoTime();
 			
-			while(!linksToUpdate.isEmpty()) {
-				if(history.contains(linksToUpdate)) {
-					if(++repeatCount == 10) { // since short circuits are retried, it looks like they're oscillating
-						throw new OscillationException();
+			try {
+				int repeatCount = 0;
+				
+				while(!linksToUpdate.isEmpty()) {
+					if(history.contains(linksToUpdate)) {
+						if(++repeatCount == 10) { // since short circuits are retried, it looks like they're oscillating
+							throw new OscillationException();
+						}
 					}
+					
+					history.add(new LinkedHashSet<>(linksToUpdate));
+					
+					step();
+				}
+			} finally {
+				if(profiler != null) {
+					profiler.stepAllFinished();
 				}
 				
-				history.add(new LinkedHashSet<>(linksToUpdate));
-				
-				step();
+				if(stepAllTimer != null) {
+					stepAllTimer.record(System.nanoTime() - startTime);
+				}
 			}
 		});
 	}
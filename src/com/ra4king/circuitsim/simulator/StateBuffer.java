@@ -0,0 +1,175 @@
+package com.ra4king.circuitsim.simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ra4king.circuitsim.simulator.WireValue.State;
+
+/**
+ * A growable array of longs that simulation values are packed into, used by Checkpoint and CycleHistory. WireValues
+ * take 2 bits per bit, long arrays (such as memory contents) are copied as is, and component properties of any other
+ * type are kept by reference in a side list.
+ *
+ * @author Roi Atalla
+ */
+class StateBuffer {
+	private static final int TAG_NULL = 0;
+	private static final int TAG_WIRE_VALUE = 1;
+	private static final int TAG_STATE = 2;
+	private static final int TAG_LONG_ARRAY = 3;
+	private static final int TAG_REFERENCE = 4;
+	
+	private static final State[] STATES = State.values();
+	
+	private long[] data;
+	private int size;
+	private int position;
+	private final List<Object> references;
+	
+	StateBuffer() {
+		data = new long[256];
+		references = new ArrayList<>();
+	}
+	
+	/**
+	 * Creates a buffer reading from the given trimmed contents of another buffer.
+	 */
+	StateBuffer(StateBuffer buffer) {
+		data = Arrays.copyOf(buffer.data, buffer.size);
+		size = buffer.size;
+		references = new ArrayList<>(buffer.references);
+	}
+	
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * @return The approximate number of bytes used.
+	 */
+	long getMemoryUsed() {
+		return 8L * (data.length + references.size());
+	}
+	
+	int getPosition() {
+		return position;
+	}
+	
+	void setPosition(int position) {
+		this.position = position;
+	}
+	
+	void clear() {
+		size = position = 0;
+		references.clear();
+	}
+	
+	void add(long value) {
+		if(size == data.length) {
+			data = Arrays.copyOf(data, size * 2);
+		}
+		data[size++] = value;
+	}
+	
+	long next() {
+		return data[position++];
+	}
+	
+	int addReference(Object reference) {
+		references.add(reference);
+		return references.size() - 1;
+	}
+	
+	Object getReference(int index) {
+		return references.get(index);
+	}
+	
+	void writeWireValue(WireValue value) {
+		int bitSize = value.getBitSize();
+		add(bitSize);
+		
+		long word = 0;
+		for(int i = 0; i < bitSize; i++) {
+			word |= (long)value.getBit(i).ordinal() << ((i & 31) << 1);
+			if((i & 31) == 31 || i == bitSize - 1) {
+				add(word);
+				word = 0;
+			}
+		}
+	}
+	
+	/**
+	 * Reads a WireValue in place, resizing it if needed.
+	 */
+	void readWireValue(WireValue value) {
+		int bitSize = (int)next();
+		if(value.getBitSize() != bitSize) {
+			value.setBitSize(bitSize);
+		}
+		
+		long word = 0;
+		for(int i = 0; i < bitSize; i++) {
+			if((i & 31) == 0) {
+				word = next();
+			}
+			value.setBit(i, STATES[(int)(word >>> ((i & 31) << 1)) & 3]);
+		}
+	}
+	
+	void writeProperty(Object property) {
+		if(property == null) {
+			add(TAG_NULL);
+		} else if(property instanceof WireValue) {
+			add(TAG_WIRE_VALUE);
+			writeWireValue((WireValue)property);
+		} else if(property instanceof State) {
+			add(TAG_STATE);
+			add(((State)property).ordinal());
+		} else if(property instanceof long[]) {
+			long[] array = (long[])property;
+			add(TAG_LONG_ARRAY);
+			add(array.length);
+			for(long value : array) {
+				add(value);
+			}
+		} else {
+			// Anything else, such as the CircuitState of a subcircuit instance, is kept by reference
+			add(TAG_REFERENCE);
+			add(addReference(property));
+		}
+	}
+	
+	/**
+	 * @param oldProperty The current value of the property, whose array is reused when it has the right length
+	 *                    instead of reallocating large memories.
+	 */
+	Object readProperty(Object oldProperty) {
+		int tag = (int)next();
+		switch(tag) {
+			case TAG_NULL:
+				return null;
+			case TAG_WIRE_VALUE: {
+				WireValue value = new WireValue(0);
+				readWireValue(value);
+				return value;
+			}
+			case TAG_STATE:
+				return STATES[(int)next()];
+			case TAG_LONG_ARRAY: {
+				int length = (int)next();
+				long[] array = oldProperty instanceof long[] && ((long[])oldProperty).length == length
+				               ? (long[])oldProperty
+				               : new long[length];
+				for(int i = 0; i < length; i++) {
+					array[i] = next();
+				}
+				return array;
+			}
+			case TAG_REFERENCE:
+				return getReference((int)next());
+			default:
+				throw new IllegalStateException("Corrupt state buffer");
+		}
+	}
+}
@@ -0,0 +1,345 @@
+package com.ra4king.circuitsim.simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ra4king.circuitsim.simulator.Port.Link;
+import com.ra4king.circuitsim.simulator.TraceRecorder.Signal;
+
+/**
+ * A time-indexed copy of the changes stored in a TraceRecorder, meant for viewers that need to look up a time window
+ * quickly. Changes are kept in one list per signal, sorted by time, with a skip index holding the time of every
+ * {@code BLOCK_SIZE}th change, so finding the value at a time or the number of changes in a time window costs a short
+ * binary search instead of a scan.
+ * <p>
+ * The index is updated incrementally: {@code update} only copies the changes recorded since the previous update. It
+ * is not thread safe, and {@code update} must be called with the Simulator's lock held.
+ * <p>
+ * Changes the recorder has overwritten are evicted from the index too, so it stays within the recorder's memory cap.
+ * Changes made at the same time as the oldest one the recorder retains are all kept.
+ *
+ * @author Roi Atalla
+ */
+public class TraceIndex {
+	private static final int BLOCK_SHIFT = 6;
+	private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	
+	private final Map<CircuitState, Map<Link, ChangeList>> changesByState = new HashMap<>();
+	private final List<ChangeList> changeLists = new ArrayList<>();
+	
+	private TraceRecorder recorder;
+	private int generation;
+	private long nextChange;
+	private long indexedChanges;
+	
+	private long startTime = Long.MAX_VALUE;
+	private long endTime = Long.MIN_VALUE;
+	private final CycleList cycles = new CycleList();
+	
+	/**
+	 * Copies the changes recorded since the last update. If the recorder is a different one or was cleared, the index
+	 * is rebuilt. Must be called with the Simulator's lock held.
+	 *
+	 * @return True if anything changed.
+	 */
+	public boolean update(TraceRecorder recorder) {
+		boolean rebuilt = false;
+		if(recorder != this.recorder || (recorder != null && recorder.getGeneration() != generation)) {
+			clear();
+			this.recorder = recorder;
+			rebuilt = true;
+		}
+		
+		if(recorder == null) {
+			return rebuilt;
+		}
+		
+		generation = recorder.getGeneration();
+		
+		long total = recorder.getTotalChanges();
+		if(total == nextChange) {
+			return rebuilt;
+		}
+		
+		recorder.forEachChange(nextChange, (cycle, time, signal, ones, xs) -> {
+			ChangeList changes = changesByState.computeIfAbsent(signal.getState(), state -> new HashMap<>())
+			                                   .get(signal.getLink());
+			if(changes == null) {
+				changes = new ChangeList(signal);
+				changesByState.get(signal.getState()).put(signal.getLink(), changes);
+				changeLists.add(changes);
+			}
+			
+			changes.add(time, ones, xs);
+			indexedChanges++;
+			cycles.add(time, cycle);
+			startTime = Math.min(startTime, time);
+			endTime = Math.max(endTime, time);
+		});
+		nextChange = total;
+		
+		// Only evict once twice as many changes are indexed as retained, so each change is moved a bounded number of
+		// times
+		if(recorder.getDroppedChanges() > 0 && indexedChanges > 2L * recorder.size()) {
+			evictBefore(recorder.getOldestTime());
+		}
+		return true;
+	}
+	
+	private void evictBefore(long time) {
+		indexedChanges = 0;
+		for(ChangeList changes : changeLists) {
+			changes.evictBefore(time);
+			indexedChanges += changes.size;
+		}
+		cycles.evictBefore(time);
+		startTime = Math.max(startTime, time);
+	}
+	
+	public void clear() {
+		changesByState.clear();
+		changeLists.clear();
+		recorder = null;
+		generation = 0;
+		nextChange = 0;
+		indexedChanges = 0;
+		startTime = Long.MAX_VALUE;
+		endTime = Long.MIN_VALUE;
+		cycles.clear();
+	}
+	
+	public boolean isEmpty() {
+		return changeLists.isEmpty();
+	}
+	
+	/**
+	 * @return The time of the earliest indexed change, or 0 if empty.
+	 */
+	public long getStartTime() {
+		return isEmpty() ? 0 : startTime;
+	}
+	
+	/**
+	 * @return The time of the latest indexed change, or 0 if empty.
+	 */
+	public long getEndTime() {
+		return isEmpty() ? 0 : endTime;
+	}
+	
+	/**
+	 * @return The clock cycle the given time belongs to.
+	 */
+	public int getCycle(long time) {
+		return cycles.getCycle(time);
+	}
+	
+	/**
+	 * @return The changes of the given link in the given state, or null if none were recorded.
+	 */
+	public ChangeList getChanges(CircuitState state, Link link) {
+		Map<Link, ChangeList> changes = changesByState.get(state);
+		return changes == null ? null : changes.get(link);
+	}
+	
+	public List<ChangeList> getChangeLists() {
+		return Collections.unmodifiableList(changeLists);
+	}
+	
+	/**
+	 * The changes of a single signal, sorted by time.
+	 */
+	public static class ChangeList {
+		private final Signal signal;
+		private long initialOnes, initialXs;
+		
+		private long[] times = new long[BLOCK_SIZE];
+		private long[] ones = new long[BLOCK_SIZE];
+		private long[] xs = new long[BLOCK_SIZE];
+		private int size;
+		
+		// The time of every BLOCK_SIZE-th change
+		private long[] blockTimes = new long[16];
+		
+		private ChangeList(Signal signal) {
+			this.signal = signal;
+			this.initialOnes = signal.getInitialOnes();
+			this.initialXs = signal.getInitialXs();
+		}
+		
+		private void add(long time, long valueOnes, long valueXs) {
+			if(size == times.length) {
+				times = Arrays.copyOf(times, size * 2);
+				ones = Arrays.copyOf(ones, size * 2);
+				xs = Arrays.copyOf(xs, size * 2);
+			}
+			
+			if((size & (BLOCK_SIZE - 1)) == 0) {
+				int block = size >> BLOCK_SHIFT;
+				if(block == blockTimes.length) {
+					blockTimes = Arrays.copyOf(blockTimes, block * 2);
+				}
+				blockTimes[block] = time;
+			}
+			
+			times[size] = time;
+			ones[size] = valueOnes;
+			xs[size] = valueXs;
+			size++;
+		}
+		
+		/**
+		 * Removes the changes before the given time, keeping the last one removed as the initial value.
+		 */
+		private void evictBefore(long time) {
+			int count = indexAt(time - 1) + 1;
+			if(count == 0) {
+				return;
+			}
+			
+			initialOnes = ones[count - 1];
+			initialXs = xs[count - 1];
+			
+			size -= count;
+			int length = Math.max(BLOCK_SIZE, Integer.highestOneBit(Math.max(size, 1)) << 1);
+			if(length < times.length) {
+				long[] newTimes = new long[length], newOnes = new long[length], newXs = new long[length];
+				System.arraycopy(times, count, newTimes, 0, size);
+				System.arraycopy(ones, count, newOnes, 0, size);
+				System.arraycopy(xs, count, newXs, 0, size);
+				times = newTimes;
+				ones = newOnes;
+				xs = newXs;
+			} else {
+				System.arraycopy(times, count, times, 0, size);
+				System.arraycopy(ones, count, ones, 0, size);
+				System.arraycopy(xs, count, xs, 0, size);
+			}
+			
+			blockTimes = new long[Math.max(16, length >> BLOCK_SHIFT)];
+			for(int block = 0; block << BLOCK_SHIFT < size; block++) {
+				blockTimes[block] = times[block << BLOCK_SHIFT];
+			}
+		}
+		
+		public Signal getSignal() {
+			return signal;
+		}
+		
+		public int size() {
+			return size;
+		}
+		
+		public long getTime(int index) {
+			return times[index];
+		}
+		
+		/**
+		 * @param index The index of a change, or -1 for the value before the first change.
+		 */
+		public long getOnes(int index) {
+			return index < 0 ? initialOnes : ones[index];
+		}
+		
+		/**
+		 * @param index The index of a change, or -1 for the value before the first change.
+		 */
+		public long getXs(int index) {
+			return index < 0 ? initialXs : xs[index];
+		}
+		
+		/**
+		 * @return The index of the last change at or before the given time, or -1 if there is none.
+		 */
+		public int indexAt(long time) {
+			if(size == 0 || time < times[0]) {
+				return -1;
+			}
+			
+			// Find the last block starting at or before time using the skip index, then search inside that block
+			int blocks = ((size - 1) >> BLOCK_SHIFT) + 1;
+			int lo = 0, hi = blocks - 1;
+			while(lo < hi) {
+				int mid = (lo + hi + 1) >>> 1;
+				if(blockTimes[mid] <= time) {
+					lo = mid;
+				} else {
+					hi = mid - 1;
+				}
+			}
+			
+			lo <<= BLOCK_SHIFT;
+			hi = Math.min(size, lo + BLOCK_SIZE) - 1;
+			while(lo < hi) {
+				int mid = (lo + hi + 1) >>> 1;
+				if(times[mid] <= time) {
+					lo = mid;
+				} else {
+					hi = mid - 1;
+				}
+			}
+			return lo;
+		}
+		
+		/**
+		 * @return The number of changes with a time in the range (fromTime, toTime].
+		 */
+		public int countChanges(long fromTime, long toTime) {
+			return indexAt(toTime) - indexAt(fromTime);
+		}
+	}
+	
+	/**
+	 * Maps times to clock cycles. Cycles only increase with time, so only the time each cycle starts is stored.
+	 */
+	private static class CycleList {
+		private long[] times = new long[16];
+		private int[] cycles = new int[16];
+		private int size;
+		
+		void add(long time, int cycle) {
+			if(size > 0 && cycles[size - 1] == cycle) {
+				return;
+			}
+			
+			if(size == times.length) {
+				times = Arrays.copyOf(times, size * 2);
+				cycles = Arrays.copyOf(cycles, size * 2);
+			}
+			times[size] = time;
+			cycles[size] = cycle;
+			size++;
+		}
+		
+		int getCycle(long time) {
+			int index = Arrays.binarySearch(times, 0, size, time);
+			if(index < 0) {
+				index = -index - 2;
+			}
+			return index < 0 ? (size == 0 ? 0 : cycles[0]) : cycles[index];
+		}
+		
+		/**
+		 * Removes the cycles that ended before the given time.
+		 */
+		void evictBefore(long time) {
+			int index = Arrays.binarySearch(times, 0, size, time);
+			if(index < 0) {
+				index = -index - 2;
+			}
+			
+			if(index > 0) {
+				size -= index;
+				System.arraycopy(times, index, times, 0, size);
+				System.arraycopy(cycles, index, cycles, 0, size);
+			}
+		}
+		
+		void clear() {
+			size = 0;
+		}
+	}
+}
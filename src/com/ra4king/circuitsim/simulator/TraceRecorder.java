@@ -0,0 +1,414 @@
+package com.ra4king.circuitsim.simulator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ra4king.circuitsim.simulator.Port.Link;
+import com.ra4king.circuitsim.simulator.WireValue.State;
+
+/**
+ * Optional instrumentation attached to a Simulator with {@code Simulator.setTraceRecorder}. Every time the merged
+ * value of a recorded Link changes in a CircuitState, the change is stored as (cycle, time, signal, value), where time
+ * counts propagation steps and cycle counts calls to {@code nextCycle}, usually one per rising clock edge.
+ * <p>
+ * Changes are kept in a ring buffer of primitive arrays sized from a memory cap: once full, the oldest changes are
+ * overwritten, and the value each signal had at the start of the retained window is remembered so the trace can still
+ * be exported in full. Links wider than 64 bits are not recorded.
+ * <p>
+ * All recording methods are called with the Simulator's lock held.
+ *
+ * @author Roi Atalla
+ */
+public class TraceRecorder {
+	/**
+	 * Approximate number of bytes used per recorded change.
+	 */
+	public static final int BYTES_PER_CHANGE = 32;
+	
+	private final int capacity;
+	private final long[] times;
+	private final int[] cycles;
+	private final int[] signalIds;
+	private final long[] ones;
+	private final long[] xs;
+	private int head, size;
+	private long droppedChanges;
+	private int generation;
+	
+	private long time;
+	private int cycle;
+	
+	private final Map<CircuitState, Map<Link, Signal>> signalsByState = new HashMap<>();
+	private final List<Signal> signals = new ArrayList<>();
+	
+	private volatile Set<Link> selectedLinks;
+	
+	/**
+	 * @param memoryCap The maximum number of bytes used to store changes.
+	 */
+	public TraceRecorder(long memoryCap) {
+		capacity = (int)Math.max(1, Math.min(Integer.MAX_VALUE - 8, memoryCap / BYTES_PER_CHANGE));
+		times = new long[capacity];
+		cycles = new int[capacity];
+		signalIds = new int[capacity];
+		ones = new long[capacity];
+		xs = new long[capacity];
+	}
+	
+	/**
+	 * Only record the given Links, in every CircuitState, or all Links if null.
+	 */
+	public void setSelectedLinks(Collection<Link> links) {
+		selectedLinks = links == null ? null : Collections.unmodifiableSet(new HashSet<>(links));
+	}
+	
+	public Set<Link> getSelectedLinks() {
+		return selectedLinks;
+	}
+	
+	/**
+	 * Advances the cycle counter. Must be called with the Simulator's lock held.
+	 */
+	public void nextCycle() {
+		cycle++;
+	}
+	
+	public int getCycle() {
+		return cycle;
+	}
+	
+	public long getTime() {
+		return time;
+	}
+	
+	void stepped() {
+		time++;
+	}
+	
+	void linkChanged(CircuitState state, Link link, WireValue value) {
+		if(link.getBitSize() > 64) {
+			return;
+		}
+		
+		Set<Link> selectedLinks = this.selectedLinks;
+		if(selectedLinks != null && !selectedLinks.contains(link)) {
+			return;
+		}
+		
+		Map<Link, Signal> stateSignals = signalsByState.get(state);
+		if(stateSignals == null) {
+			stateSignals = new HashMap<>();
+			signalsByState.put(state, stateSignals);
+		}
+		
+		Signal signal = stateSignals.get(link);
+		if(signal == null) {
+			signal = new Signal(signals.size(), state, link);
+			stateSignals.put(link, signal);
+			signals.add(signal);
+		}
+		
+		long valueOnes = 0, valueXs = 0;
+		for(int i = 0; i < value.getBitSize(); i++) {
+			State bit = value.getBit(i);
+			if(bit == State.ONE) {
+				valueOnes |= 1L << i;
+			} else if(bit == State.X) {
+				valueXs |= 1L << i;
+			}
+		}
+		
+		if(signal.recorded && signal.lastOnes == valueOnes && signal.lastXs == valueXs) {
+			return;
+		}
+		signal.recorded = true;
+		signal.lastOnes = valueOnes;
+		signal.lastXs = valueXs;
+		
+		int index = head;
+		if(size == capacity) {
+			// Remember the value being overwritten as that signal's value at the start of the retained window
+			Signal dropped = signals.get(signalIds[index]);
+			dropped.initialOnes = ones[index];
+			dropped.initialXs = xs[index];
+			droppedChanges++;
+		} else {
+			size++;
+		}
+		
+		times[index] = time;
+		cycles[index] = cycle;
+		signalIds[index] = signal.id;
+		ones[index] = valueOnes;
+		xs[index] = valueXs;
+		
+		head = (head + 1) % capacity;
+	}
+	
+	/**
+	 * Clears all recorded changes and signals. Must be called with the Simulator's lock held.
+	 */
+	public void clear() {
+		head = size = 0;
+		droppedChanges = 0;
+		generation++;
+		signalsByState.clear();
+		signals.clear();
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * @return The number of changes currently retained.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return The number of changes overwritten because the buffer was full.
+	 */
+	public long getDroppedChanges() {
+		return droppedChanges;
+	}
+	
+	/**
+	 * @return The time of the oldest retained change, or the current time if none are retained.
+	 */
+	public long getOldestTime() {
+		return size == 0 ? time : times[(head - size + capacity) % capacity];
+	}
+	
+	/**
+	 * @return The number of changes recorded since the last clear, including overwritten ones. Each change's sequence
+	 * number is its index in this count.
+	 */
+	public long getTotalChanges() {
+		return droppedChanges + size;
+	}
+	
+	/**
+	 * @return A counter incremented by every call to {@code clear}, so readers can tell the sequence numbers restarted.
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+	
+	/**
+	 * @return All signals seen so far, indexed by their id. Must be called with the Simulator's lock held.
+	 */
+	public List<Signal> getSignals() {
+		return Collections.unmodifiableList(signals);
+	}
+	
+	/**
+	 * Visits the retained changes from oldest to newest. Must be called with the Simulator's lock held.
+	 */
+	public void forEachChange(ChangeVisitor visitor) {
+		forEachChange(0, visitor);
+	}
+	
+	/**
+	 * Visits the retained changes with a sequence number of at least {@code fromChange}, from oldest to newest. Must
+	 * be called with the Simulator's lock held.
+	 */
+	public void forEachChange(long fromChange, ChangeVisitor visitor) {
+		long total = getTotalChanges();
+		for(long change = Math.max(fromChange, droppedChanges); change < total; change++) {
+			int index = (int)((head - (total - change) + capacity) % capacity);
+			visitor.visit(cycles[index], times[index], signals.get(signalIds[index]), ones[index], xs[index]);
+		}
+	}
+	
+	public interface ChangeVisitor {
+		/**
+		 * @param ones Bit i is set if bit i of the value is 1.
+		 * @param xs   Bit i is set if bit i of the value is X.
+		 */
+		void visit(int cycle, long time, Signal signal, long ones, long xs);
+	}
+	
+	/**
+	 * Writes the retained changes in the Value Change Dump format. One VCD time unit is one propagation step. The
+	 * cycle counter is exported as an extra integer variable named "cycle". Must be called with the Simulator's lock
+	 * held.
+	 */
+	public void writeVcd(Appendable out) throws IOException {
+		out.append("$version CircuitSim $end\n");
+		out.append("$comment One time unit is one propagation step $end\n");
+		out.append("$timescale 1ns $end\n");
+		out.append("$scope module circuitsim $end\n");
+		
+		String cycleId = vcdId(signals.size());
+		out.append("$var integer 32 ").append(cycleId).append(" cycle $end\n");
+		
+		Set<String> usedNames = new HashSet<>();
+		for(Signal signal : signals) {
+			String name = signal.getName().replaceAll("\\s+", "_");
+			String unique = name;
+			for(int i = 2; !usedNames.add(unique); i++) {
+				unique = name + "_" + i;
+			}
+			
+			out.append("$var wire ")
+			   .append(String.valueOf(signal.getBitSize()))
+			   .append(' ')
+			   .append(vcdId(signal.id))
+			   .append(' ')
+			   .append(unique)
+			   .append(" $end\n");
+		}
+		
+		out.append("$upscope $end\n");
+		out.append("$enddefinitions $end\n");
+		
+		int startIndex = (head - size + capacity) % capacity;
+		long startTime = size == 0 ? time : times[startIndex];
+		int startCycle = size == 0 ? cycle : cycles[startIndex];
+		
+		out.append('#').append(String.valueOf(startTime)).append('\n');
+		out.append("$dumpvars\n");
+		appendVcdValue(out, cycleId, 32, startCycle, 0);
+		for(Signal signal : signals) {
+			appendVcdValue(out, vcdId(signal.id), signal.getBitSize(), signal.initialOnes, signal.initialXs);
+		}
+		out.append("$end\n");
+		
+		long[] lastTime = { startTime };
+		int[] lastCycle = { startCycle };
+		IOException[] exception = new IOException[1];
+		forEachChange((cycle, time, signal, ones, xs) -> {
+			if(exception[0] != null) {
+				return;
+			}
+			
+			try {
+				if(time != lastTime[0]) {
+					out.append('#').append(String.valueOf(time)).append('\n');
+					lastTime[0] = time;
+				}
+				
+				if(cycle != lastCycle[0]) {
+					appendVcdValue(out, cycleId, 32, cycle, 0);
+					lastCycle[0] = cycle;
+				}
+				
+				appendVcdValue(out, vcdId(signal.id), signal.getBitSize(), ones, xs);
+			} catch(IOException exc) {
+				exception[0] = exc;
+			}
+		});
+		
+		if(exception[0] != null) {
+			throw exception[0];
+		}
+	}
+	
+	private static void appendVcdValue(Appendable out, String id, int bitSize, long ones, long xs)
+		throws IOException {
+		if(bitSize == 1) {
+			out.append((xs & 1) != 0 ? 'x' : (ones & 1) != 0 ? '1' : '0').append(id).append('\n');
+			return;
+		}
+		
+		out.append('b');
+		for(int i = bitSize - 1; i >= 0; i--) {
+			out.append((xs >>> i & 1) != 0 ? 'x' : (ones >>> i & 1) != 0 ? '1' : '0');
+		}
+		out.append(' ').append(id).append('\n');
+	}
+	
+	/**
+	 * VCD identifiers are short strings of printable ASCII characters.
+	 */
+	private static String vcdId(int index) {
+		StringBuilder id = new StringBuilder();
+		do {
+			id.append((char)('!' + index % 94));
+			index /= 94;
+		} while(index > 0);
+		return id.toString();
+	}
+	
+	/**
+	 * A Link in a specific CircuitState.
+	 */
+	public static class Signal {
+		private final int id;
+		private final CircuitState state;
+		private final Link link;
+		private final String name;
+		
+		// Value at the start of the retained window, X until changes start being overwritten
+		private long initialOnes;
+		private long initialXs;
+		
+		// Last recorded value, used to skip recomputations that did not change the value
+		private boolean recorded;
+		private long lastOnes;
+		private long lastXs;
+		
+		private Signal(int id, CircuitState state, Link link) {
+			this.id = id;
+			this.state = state;
+			this.link = link;
+			this.name = createName(state, link, id);
+			this.initialXs = link.getBitSize() == 64 ? -1L : (1L << link.getBitSize()) - 1;
+		}
+		
+		private static String createName(CircuitState state, Link link, int id) {
+			String componentName = null;
+			for(Port port : link.getParticipants()) {
+				String name = port.getComponent().getName();
+				if(name != null && !name.isEmpty() && (componentName == null || name.compareTo(componentName) < 0)) {
+					componentName = name;
+				}
+			}
+			
+			StringBuilder path = new StringBuilder(state.getCircuit().getName());
+			while(state.getParentState() != null) {
+				path.insert(0, state.getParentState().getCircuit().getName() + "/" + state.getParentComponent() + ".");
+				state = state.getParentState();
+			}
+			
+			return path + "." + (componentName == null ? "wire" + id : componentName);
+		}
+		
+		public int getId() {
+			return id;
+		}
+		
+		public CircuitState getState() {
+			return state;
+		}
+		
+		public Link getLink() {
+			return link;
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public int getBitSize() {
+			return link.getBitSize();
+		}
+		
+		public long getInitialOnes() {
+			return initialOnes;
+		}
+		
+		public long getInitialXs() {
+			return initialXs;
+		}
+	}
+}
@@ -63,10 +63,13 @@ public class WireValue {
 		return this;
 	}
 	
+	/**
+	 * Creates a WireValue holding the lowest bitSize bits of the value. Bits above the 64th are zero.
+	 */
 	public static WireValue of(long value, int bitSize) {
 		WireValue wireValue = new WireValue(bitSize);
 		for(int i = bitSize - 1; i >= 0; i--) {
-			if((value & (1 << i)) == 0) {
+			if(i >= 64 || (value & (1L << i)) == 0) {
 				wireValue.setBit(i, State.ZERO);
 			} else {
 				wireValue.setBit(i, State.ONE);
@@ -138,12 +141,24 @@ public class WireValue {
 		return true;
 	}
 	
+	/**
+	 * @return The lowest 32 bits of the value, use getLongValue for wider values.
+	 */
 	public int getValue() {
-		int value = 0;
+		return (int)getLongValue();
+	}
+	
+	/**
+	 * @return The lowest 64 bits of the value.
+	 */
+	public long getLongValue() {
+		long value = 0;
 		for(int i = 0; i < bits.length; i++) {
 			if(bits[i] == State.X) throw new IllegalStateException("Invalid value");
 			
-			value |= (1 << i) * (bits[i] == State.ONE ? 1 : 0);
+			if(bits[i] == State.ONE && i < 64) {
+				value |= 1L << i;
+			}
 		}
 		return value;
 	}
@@ -158,7 +173,7 @@ public class WireValue {
 		String value;
 		int hexDigits = 1 + (getBitSize() - 1) / 4;
 		if(isValidValue()) {
-			value = String.format("%0" + hexDigits + "x", getValue());
+			value = String.format("%0" + hexDigits + "x", getLongValue());
 		} else {
 			value = "";
 			for(int i = 0; i < hexDigits; i++) {
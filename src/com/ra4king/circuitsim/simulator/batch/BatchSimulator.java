@@ -0,0 +1,719 @@
+package com.ra4king.circuitsim.simulator.batch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.Component;
+import com.ra4king.circuitsim.simulator.Port;
+import com.ra4king.circuitsim.simulator.Port.Link;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.WireValue.State;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Adder;
+import com.ra4king.circuitsim.simulator.components.gates.AndGate;
+import com.ra4king.circuitsim.simulator.components.gates.Gate;
+import com.ra4king.circuitsim.simulator.components.gates.NandGate;
+import com.ra4king.circuitsim.simulator.components.gates.NorGate;
+import com.ra4king.circuitsim.simulator.components.gates.NotGate;
+import com.ra4king.circuitsim.simulator.components.gates.OrGate;
+import com.ra4king.circuitsim.simulator.components.gates.XnorGate;
+import com.ra4king.circuitsim.simulator.components.gates.XorGate;
+import com.ra4king.circuitsim.simulator.components.plexers.Decoder;
+import com.ra4king.circuitsim.simulator.components.plexers.Demultiplexer;
+import com.ra4king.circuitsim.simulator.components.plexers.Multiplexer;
+import com.ra4king.circuitsim.simulator.components.wiring.Constant;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+import com.ra4king.circuitsim.simulator.components.wiring.Splitter;
+
+/**
+ * Evaluates a Circuit over many input vectors at once. Each bit of each wire holds up to 64 independent vectors as
+ * lanes of a pair of longs (one mask for bits that are 1, one for bits that are X), so a single pass over the circuit
+ * evaluates 64 vectors.
+ * <p>
+ * Bit-parallel evaluation is only possible for acyclic circuits made of gates, plexers, Adders, Splitters, Constants
+ * and Pins where every wire has at most one driver. For any other circuit, for example one containing a RAM, a
+ * Register or a Subcircuit, the vectors are run one at a time through the regular Simulator instead.
+ * <p>
+ * The circuit is analyzed when the BatchSimulator is created; it must not be modified afterwards.
+ *
+ * @author Roi Atalla
+ */
+public class BatchSimulator {
+	public static final int LANES = 64;
+	
+	private final Circuit circuit;
+	private final List<Pin> inputPins = new ArrayList<>();
+	private final List<Pin> outputPins = new ArrayList<>();
+	
+	private final Map<Link, Integer> nets = new HashMap<>();
+	private final List<Node> nodes = new ArrayList<>();
+	private int[] netBitSizes;
+	
+	private String fallbackReason;
+	
+	public BatchSimulator(Circuit circuit) {
+		this.circuit = circuit;
+		
+		circuit.getSimulator().runSync(this::compile);
+	}
+	
+	public Circuit getCircuit() {
+		return circuit;
+	}
+	
+	/**
+	 * @return True if the circuit is evaluated 64 vectors at a time, false if it falls back to the regular Simulator.
+	 */
+	public boolean isBitParallel() {
+		return fallbackReason == null;
+	}
+	
+	/**
+	 * @return Why the circuit cannot be evaluated bit-parallel, or null if it can.
+	 */
+	public String getFallbackReason() {
+		return fallbackReason;
+	}
+	
+	public List<Pin> getInputPins() {
+		return Collections.unmodifiableList(inputPins);
+	}
+	
+	public List<Pin> getOutputPins() {
+		return Collections.unmodifiableList(outputPins);
+	}
+	
+	/**
+	 * Evaluates the circuit for each input vector. Input Pins missing from a vector are set to 0.
+	 *
+	 * @param vectors The values of the input Pins, one map per vector.
+	 * @return The values of the output Pins, one map per vector in the same order.
+	 */
+	public List<Map<Pin, WireValue>> run(List<Map<Pin, WireValue>> vectors) {
+		if(!isBitParallel()) {
+			return runScalar(vectors);
+		}
+		
+		List<Map<Pin, WireValue>> results = new ArrayList<>(vectors.size());
+		
+		Lanes lanes = new Lanes();
+		for(int start = 0; start < vectors.size(); start += LANES) {
+			List<Map<Pin, WireValue>> chunk = vectors.subList(start, Math.min(start + LANES, vectors.size()));
+			
+			lanes.clear();
+			for(Pin pin : inputPins) {
+				for(int lane = 0; lane < chunk.size(); lane++) {
+					WireValue value = getInputValue(pin, chunk.get(lane));
+					for(int bit = 0; bit < value.getBitSize(); bit++) {
+						lanes.setBit(pin, bit, lane, value.getBit(bit));
+					}
+				}
+			}
+			
+			lanes.evaluate();
+			
+			for(int lane = 0; lane < chunk.size(); lane++) {
+				Map<Pin, WireValue> outputs = new LinkedHashMap<>();
+				for(Pin pin : outputPins) {
+					WireValue value = new WireValue(pin.getBitSize());
+					for(int bit = 0; bit < value.getBitSize(); bit++) {
+						value.setBit(bit, lanes.getBit(pin, bit, lane));
+					}
+					outputs.put(pin, value);
+				}
+				results.add(outputs);
+			}
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * The values of every wire for a single chunk of up to 64 vectors, one vector per lane. Only usable when the
+	 * circuit is bit-parallel.
+	 */
+	class Lanes {
+		private final long[][] ones = new long[netBitSizes.length][];
+		private final long[][] xs = new long[netBitSizes.length][];
+		
+		Lanes() {
+			if(!isBitParallel()) {
+				throw new IllegalStateException("Circuit is not bit-parallel: " + fallbackReason);
+			}
+			
+			for(int net = 0; net < netBitSizes.length; net++) {
+				ones[net] = new long[netBitSizes[net]];
+				xs[net] = new long[netBitSizes[net]];
+			}
+		}
+		
+		/**
+		 * Sets every bit of every lane to X.
+		 */
+		void clear() {
+			for(int net = 0; net < netBitSizes.length; net++) {
+				Arrays.fill(ones[net], 0);
+				Arrays.fill(xs[net], -1L);
+			}
+		}
+		
+		void setBit(Pin pin, int bit, int lane, State state) {
+			int net = net(pin.getPort(Pin.PORT));
+			if(state != State.X) {
+				xs[net][bit] &= ~(1L << lane);
+				if(state == State.ONE) {
+					ones[net][bit] |= 1L << lane;
+				}
+			}
+		}
+		
+		/**
+		 * Sets a bit of an input Pin in all lanes at once, to 1 in the given lanes and 0 in the others.
+		 */
+		void setLanes(Pin pin, int bit, long lanes) {
+			int net = net(pin.getPort(Pin.PORT));
+			ones[net][bit] = lanes;
+			xs[net][bit] = 0;
+		}
+		
+		void evaluate() {
+			for(Node node : nodes) {
+				node.evaluate(ones, xs);
+			}
+		}
+		
+		State getBit(Pin pin, int bit, int lane) {
+			int net = net(pin.getPort(Pin.PORT));
+			return (xs[net][bit] >>> lane & 1) != 0
+			       ? State.X
+			       : (ones[net][bit] >>> lane & 1) != 0 ? State.ONE : State.ZERO;
+		}
+		
+		/**
+		 * @return The lanes in which a bit of an output Pin is 1.
+		 */
+		long getOnes(Pin pin, int bit) {
+			return ones[net(pin.getPort(Pin.PORT))][bit];
+		}
+		
+		/**
+		 * @return The lanes in which a bit of an output Pin is X.
+		 */
+		long getXs(Pin pin, int bit) {
+			return xs[net(pin.getPort(Pin.PORT))][bit];
+		}
+	}
+	
+	/**
+	 * Runs the vectors one at a time, in order, through the circuit's Simulator using a fresh CircuitState. State held
+	 * by sequential components carries over from one vector to the next.
+	 *
+	 * @param vectors The values of the input Pins, one map per vector.
+	 * @return The values of the output Pins, one map per vector in the same order.
+	 */
+	public List<Map<Pin, WireValue>> runScalar(List<Map<Pin, WireValue>> vectors) {
+		List<Map<Pin, WireValue>> results = new ArrayList<>(vectors.size());
+		
+		Simulator simulator = circuit.getSimulator();
+		simulator.runSync(() -> {
+			CircuitState state = new CircuitState(circuit);
+			try {
+				circuit.getComponents().forEach(component -> component.init(state, null));
+				
+				for(Map<Pin, WireValue> vector : vectors) {
+					for(Pin pin : inputPins) {
+						pin.setValue(state, getInputValue(pin, vector));
+					}
+					
+					simulator.stepAll();
+					
+					Map<Pin, WireValue> outputs = new LinkedHashMap<>();
+					for(Pin pin : outputPins) {
+						outputs.put(pin, state.getLastReceived(pin.getPort(Pin.PORT)));
+					}
+					results.add(outputs);
+				}
+			} finally {
+				circuit.getComponents().forEach(component -> component.uninit(state));
+				circuit.removeState(state);
+			}
+		});
+		
+		return results;
+	}
+	
+	private static WireValue getInputValue(Pin pin, Map<Pin, WireValue> vector) {
+		WireValue value = vector.get(pin);
+		if(value == null) {
+			return WireValue.of(0, pin.getBitSize());
+		}
+		
+		if(value.getBitSize() != pin.getBitSize()) {
+			throw new IllegalArgumentException("Value for " + pin + " has " + value.getBitSize() + " bits, expected "
+				                                   + pin.getBitSize());
+		}
+		
+		return value;
+	}
+	
+	private void compile() {
+		List<Splitter> splitters = new ArrayList<>();
+		
+		for(Component component : circuit.getComponents()) {
+			for(int i = 0; i < component.getNumPorts(); i++) {
+				nets.putIfAbsent(component.getPort(i).getLink(), nets.size());
+			}
+			
+			if(component instanceof Pin) {
+				Pin pin = (Pin)component;
+				(pin.isInput() ? inputPins : outputPins).add(pin);
+			} else if(component instanceof Splitter && component.getClass() == Splitter.class) {
+				splitters.add((Splitter)component);
+			} else {
+				Node node = createNode(component);
+				if(node == null) {
+					// Keep going so the pins are all collected for scalar evaluation
+					if(fallbackReason == null) {
+						fallbackReason = "Unsupported component: " + component;
+					}
+				} else {
+					nodes.add(node);
+				}
+			}
+		}
+		
+		if(fallbackReason != null) {
+			return;
+		}
+		
+		netBitSizes = new int[nets.size()];
+		nets.forEach((link, net) -> netBitSizes[net] = link.getBitSize());
+		
+		Node[] drivers = new Node[nets.size()];
+		boolean[] pinDriven = new boolean[nets.size()];
+		for(Pin pin : inputPins) {
+			int net = net(pin.getPort(Pin.PORT));
+			if(pinDriven[net]) {
+				fallbackReason = "Multiple input pins drive the same wire: " + pin;
+				return;
+			}
+			pinDriven[net] = true;
+		}
+		
+		for(Node node : nodes) {
+			if(!addDriver(node, drivers, pinDriven)) {
+				return;
+			}
+		}
+		
+		// A Splitter works in both directions: it splits when its joined side is driven and joins when a fanned side is
+		// driven. Decide each one's direction from the wires already driven until nothing changes.
+		boolean changed = true;
+		while(changed) {
+			changed = false;
+			
+			for(int i = 0; i < splitters.size(); i++) {
+				Splitter splitter = splitters.get(i);
+				
+				boolean joinedDriven = isDriven(net(splitter.getPort(splitter.PORT_JOINED)), drivers, pinDriven);
+				boolean fanDriven = false;
+				for(int fan = 0; fan < splitter.PORT_JOINED && !fanDriven; fan++) {
+					fanDriven = isDriven(net(splitter.getPort(fan)), drivers, pinDriven);
+				}
+				
+				if(joinedDriven || fanDriven) {
+					Node node = new SplitterNode(splitter, joinedDriven);
+					nodes.add(node);
+					if(!addDriver(node, drivers, pinDriven)) {
+						return;
+					}
+					
+					splitters.remove(i--);
+					changed = true;
+				}
+			}
+		}
+		
+		// Any Splitter left has nothing driving either side, so everything around it stays X.
+		
+		sortNodes(drivers);
+	}
+	
+	private int net(Port port) {
+		return nets.get(port.getLink());
+	}
+	
+	private static boolean isDriven(int net, Node[] drivers, boolean[] pinDriven) {
+		return drivers[net] != null || pinDriven[net];
+	}
+	
+	private boolean addDriver(Node node, Node[] drivers, boolean[] pinDriven) {
+		for(int output : node.outputs) {
+			if(isDriven(output, drivers, pinDriven)) {
+				fallbackReason = "Wire driven by multiple components: " + node.component;
+				return false;
+			}
+			drivers[output] = node;
+		}
+		return true;
+	}
+	
+	private void sortNodes(Node[] drivers) {
+		Map<Node, List<Node>> dependents = new HashMap<>();
+		Map<Node, Integer> dependencies = new HashMap<>();
+		
+		for(Node node : nodes) {
+			int count = 0;
+			for(int input : node.inputs) {
+				Node driver = drivers[input];
+				if(driver != null) {
+					dependents.computeIfAbsent(driver, n -> new ArrayList<>()).add(node);
+					count++;
+				}
+			}
+			dependencies.put(node, count);
+		}
+		
+		Queue<Node> ready = new ArrayDeque<>();
+		dependencies.forEach((node, count) -> {
+			if(count == 0) {
+				ready.add(node);
+			}
+		});
+		
+		List<Node> sorted = new ArrayList<>(nodes.size());
+		while(!ready.isEmpty()) {
+			Node node = ready.poll();
+			sorted.add(node);
+			
+			for(Node dependent : dependents.getOrDefault(node, Collections.emptyList())) {
+				if(dependencies.merge(dependent, -1, Integer::sum) == 0) {
+					ready.add(dependent);
+				}
+			}
+		}
+		
+		if(sorted.size() != nodes.size()) {
+			fallbackReason = "Circuit contains a feedback loop";
+			return;
+		}
+		
+		nodes.clear();
+		nodes.addAll(sorted);
+	}
+	
+	private Node createNode(Component component) {
+		Class<?> type = component.getClass();
+		
+		if(type == AndGate.class || type == NandGate.class) {
+			return new GateNode((Gate)component, GateNode.AND);
+		}
+		if(type == OrGate.class || type == NorGate.class) {
+			return new GateNode((Gate)component, GateNode.OR);
+		}
+		if(type == XorGate.class || type == XnorGate.class) {
+			return new GateNode((Gate)component, GateNode.XOR);
+		}
+		if(type == NotGate.class) {
+			return new GateNode((Gate)component, GateNode.AND);
+		}
+		if(type == Multiplexer.class) {
+			return new MultiplexerNode((Multiplexer)component);
+		}
+		if(type == Demultiplexer.class) {
+			return new DemultiplexerNode((Demultiplexer)component);
+		}
+		if(type == Decoder.class) {
+			return new DecoderNode((Decoder)component);
+		}
+		if(type == Adder.class) {
+			return new AdderNode((Adder)component);
+		}
+		if(type == Constant.class) {
+			return new ConstantNode((Constant)component);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Computes, for each lane, whether the selector holds a valid value equal to the given index.
+	 */
+	private static long selects(long[] selectorOnes, long valid, int index) {
+		long matches = valid;
+		for(int bit = 0; bit < selectorOnes.length; bit++) {
+			matches &= (index >>> bit & 1) != 0 ? selectorOnes[bit] : ~selectorOnes[bit];
+		}
+		return matches;
+	}
+	
+	/**
+	 * @return The lanes in which none of the bits are X.
+	 */
+	private static long valid(long[] xs) {
+		if(xs.length == 0) {
+			return 0;
+		}
+		
+		long invalid = 0;
+		for(long x : xs) {
+			invalid |= x;
+		}
+		return ~invalid;
+	}
+	
+	/**
+	 * A component evaluated over all lanes at once. Each lane mirrors the values the component's valueChanged would
+	 * settle on for the same inputs.
+	 */
+	private abstract class Node {
+		final Component component;
+		final int[] inputs;
+		final int[] outputs;
+		
+		Node(Component component, int[] inputs, int[] outputs) {
+			this.component = component;
+			this.inputs = inputs;
+			this.outputs = outputs;
+		}
+		
+		abstract void evaluate(long[][] ones, long[][] xs);
+	}
+	
+	private int[] nets(Component component, int from, int to) {
+		int[] indices = new int[to - from];
+		for(int i = from; i < to; i++) {
+			indices[i - from] = net(component.getPort(i));
+		}
+		return indices;
+	}
+	
+	private class GateNode extends Node {
+		static final int AND = 0;
+		static final int OR = 1;
+		static final int XOR = 2;
+		
+		private final int operation;
+		private final boolean[] negateInputs;
+		private final boolean negateOutput;
+		
+		GateNode(Gate gate, int operation) {
+			super(gate, nets(gate, 0, gate.getNumInputs()), new int[] { net(gate.getOutPort()) });
+			this.operation = operation;
+			this.negateInputs = gate.getNegateInputs();
+			this.negateOutput = gate.getNegateOutput();
+		}
+		
+		@Override
+		void evaluate(long[][] ones, long[][] xs) {
+			int out = outputs[0];
+			for(int bit = 0; bit < netBitSizes[out]; bit++) {
+				long accX = xs[inputs[0]][bit];
+				long accOne = ones[inputs[0]][bit];
+				if(negateInputs[0]) {
+					accOne = ~accOne & ~accX;
+				}
+				long allX = accX;
+				
+				for(int port = 1; port < inputs.length; port++) {
+					long x = xs[inputs[port]][bit];
+					long one = ones[inputs[port]][bit];
+					if(negateInputs[port]) {
+						one = ~one & ~x;
+					}
+					
+					allX &= x;
+					switch(operation) {
+						case AND:
+							accOne &= one;
+							break;
+						case OR:
+							accOne |= one;
+							break;
+						case XOR:
+							accOne = ~accX & ~x & (accOne ^ one);
+							break;
+					}
+					accX = 0;
+				}
+				
+				xs[out][bit] = allX;
+				ones[out][bit] = ~allX & (negateOutput ? ~accOne : accOne);
+			}
+		}
+	}
+	
+	private class MultiplexerNode extends Node {
+		private final int numInputs;
+		
+		MultiplexerNode(Multiplexer mux) {
+			super(mux, nets(mux, 0, mux.getNumInputs() + 1), new int[] { net(mux.getOutPort()) });
+			this.numInputs = mux.getNumInputs();
+		}
+		
+		@Override
+		void evaluate(long[][] ones, long[][] xs) {
+			int selector = inputs[numInputs];
+			long selectorValid = valid(xs[selector]);
+			
+			// Lanes with an X selector output all X, otherwise each bit of the selected input is passed through
+			int out = outputs[0];
+			Arrays.fill(ones[out], 0);
+			Arrays.fill(xs[out], ~selectorValid);
+			
+			for(int i = 0; i < numInputs; i++) {
+				long lanes = selects(ones[selector], selectorValid, i);
+				if(lanes != 0) {
+					for(int bit = 0; bit < netBitSizes[out]; bit++) {
+						ones[out][bit] |= lanes & ones[inputs[i]][bit];
+						xs[out][bit] |= lanes & xs[inputs[i]][bit];
+					}
+				}
+			}
+		}
+	}
+	
+	private class DemultiplexerNode extends Node {
+		private final int numOutputs;
+		
+		DemultiplexerNode(Demultiplexer demux) {
+			super(demux,
+			      new int[] { net(demux.getSelectorPort()), net(demux.getInputPort()) },
+			      nets(demux, 0, demux.getNumOutputs()));
+			this.numOutputs = demux.getNumOutputs();
+		}
+		
+		@Override
+		void evaluate(long[][] ones, long[][] xs) {
+			int selector = inputs[0];
+			int in = inputs[1];
+			long selectorValid = valid(xs[selector]);
+			
+			for(int i = 0; i < numOutputs; i++) {
+				long lanes = selects(ones[selector], selectorValid, i);
+				int out = outputs[i];
+				for(int bit = 0; bit < netBitSizes[out]; bit++) {
+					ones[out][bit] = lanes & ones[in][bit];
+					xs[out][bit] = ~selectorValid | lanes & xs[in][bit];
+				}
+			}
+		}
+	}
+	
+	private class DecoderNode extends Node {
+		DecoderNode(Decoder decoder) {
+			super(decoder, new int[] { net(decoder.getSelectorPort()) }, nets(decoder, 0, decoder.getNumOutputs()));
+		}
+		
+		@Override
+		void evaluate(long[][] ones, long[][] xs) {
+			int selector = inputs[0];
+			long selectorValid = valid(xs[selector]);
+			
+			for(int i = 0; i < outputs.length; i++) {
+				ones[outputs[i]][0] = selects(ones[selector], selectorValid, i);
+				xs[outputs[i]][0] = ~selectorValid;
+			}
+		}
+	}
+	
+	private class AdderNode extends Node {
+		AdderNode(Adder adder) {
+			super(adder,
+			      nets(adder, Adder.PORT_A, Adder.PORT_CARRY_IN + 1),
+			      new int[] { net(adder.getPort(Adder.PORT_OUT)), net(adder.getPort(Adder.PORT_CARRY_OUT)) });
+		}
+		
+		@Override
+		void evaluate(long[][] ones, long[][] xs) {
+			int a = inputs[0];
+			int b = inputs[1];
+			int sum = outputs[0];
+			int carryOut = outputs[1];
+			
+			long valid = valid(xs[a]) & valid(xs[b]);
+			
+			long carry = ones[inputs[2]][0];
+			for(int bit = 0; bit < netBitSizes[sum]; bit++) {
+				long bitA = ones[a][bit];
+				long bitB = ones[b][bit];
+				ones[sum][bit] = valid & (bitA ^ bitB ^ carry);
+				xs[sum][bit] = ~valid;
+				carry = (bitA & bitB) | (bitA & carry) | (bitB & carry);
+			}
+			
+			ones[carryOut][0] = valid & carry;
+			xs[carryOut][0] = ~valid;
+		}
+	}
+	
+	private class ConstantNode extends Node {
+		private final long value;
+		
+		ConstantNode(Constant constant) {
+			super(constant, new int[0], new int[] { net(constant.getPort(Constant.PORT)) });
+			this.value = constant.getValue();
+		}
+		
+		@Override
+		void evaluate(long[][] ones, long[][] xs) {
+			int out = outputs[0];
+			for(int bit = 0; bit < netBitSizes[out]; bit++) {
+				// Same bit test as WireValue.of
+				ones[out][bit] = bit >= 64 || (value & (1L << bit)) == 0 ? 0 : -1L;
+				xs[out][bit] = 0;
+			}
+		}
+	}
+	
+	private class SplitterNode extends Node {
+		private final int[] bitFanIndices;
+		private final boolean split;
+		
+		SplitterNode(Splitter splitter, boolean split) {
+			super(splitter,
+			      split ? new int[] { net(splitter.getPort(splitter.PORT_JOINED)) }
+			            : nets(splitter, 0, splitter.PORT_JOINED),
+			      split ? nets(splitter, 0, splitter.PORT_JOINED)
+			            : new int[] { net(splitter.getPort(splitter.PORT_JOINED)) });
+			this.bitFanIndices = splitter.getBitFanIndices();
+			this.split = split;
+		}
+		
+		@Override
+		void evaluate(long[][] ones, long[][] xs) {
+			int joined = split ? inputs[0] : outputs[0];
+			int[] fans = split ? outputs : inputs;
+			int[] fanBits = new int[fans.length];
+			
+			for(int bit = 0; bit < bitFanIndices.length; bit++) {
+				int fan = bitFanIndices[bit];
+				if(fan < 0) {
+					if(!split) {
+						ones[joined][bit] = 0;
+						xs[joined][bit] = -1L;
+					}
+					continue;
+				}
+				
+				int fanBit = fanBits[fan]++;
+				if(split) {
+					ones[fans[fan]][fanBit] = ones[joined][bit];
+					xs[fans[fan]][fanBit] = xs[joined][bit];
+				} else {
+					ones[joined][bit] = ones[fans[fan]][fanBit];
+					xs[joined][bit] = xs[fans[fan]][fanBit];
+				}
+			}
+		}
+	}
+}
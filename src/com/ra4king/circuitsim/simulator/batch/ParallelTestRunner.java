@@ -0,0 +1,238 @@
+package com.ra4king.circuitsim.simulator.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.ra4king.circuitsim.simulator.Checkpoint;
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.Component;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.wiring.Clock;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * Runs test cases against a circuit on several threads at once. The circuit is built once per context, each context
+ * with its own Simulator, so every context has its own propagation queue, lock and clock. Each test case borrows a
+ * context, which is restored to a Checkpoint of its freshly reset state beforehand, so the order in which test cases
+ * run does not matter.
+ *
+ * @author Roi Atalla
+ */
+public class ParallelTestRunner implements AutoCloseable {
+	/**
+	 * Builds the circuit under test inside the given Simulator. Called once per context, sequentially, on the thread
+	 * creating the ParallelTestRunner.
+	 */
+	public interface CircuitFactory {
+		Circuit create(Simulator simulator) throws Exception;
+	}
+	
+	public interface TestCase<R> {
+		R run(Context context) throws Exception;
+	}
+	
+	private final List<Context> contexts;
+	private final BlockingQueue<Context> idleContexts;
+	private final ExecutorService executor;
+	
+	/**
+	 * @param factory     Builds the circuit under test.
+	 * @param numContexts The number of independent contexts, which is also the number of threads used.
+	 */
+	public ParallelTestRunner(CircuitFactory factory, int numContexts) throws Exception {
+		if(numContexts <= 0) {
+			throw new IllegalArgumentException("numContexts must be positive");
+		}
+		
+		contexts = new ArrayList<>(numContexts);
+		idleContexts = new ArrayBlockingQueue<>(numContexts);
+		for(int i = 0; i < numContexts; i++) {
+			Simulator simulator = new Simulator();
+			Context context = new Context(simulator, factory.create(simulator));
+			contexts.add(context);
+			idleContexts.add(context);
+		}
+		
+		executor = Executors.newFixedThreadPool(numContexts, runnable -> {
+			Thread thread = new Thread(runnable, "Test runner thread");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	public int getNumContexts() {
+		return contexts.size();
+	}
+	
+	/**
+	 * Runs all the test cases and waits for them to complete.
+	 *
+	 * @return The result of each test case, in the same order as the test cases.
+	 * @throws ExecutionException If a test case throws, wrapping the first failure in test case order.
+	 */
+	public <R> List<R> runAll(List<? extends TestCase<R>> testCases) throws InterruptedException, ExecutionException {
+		List<Future<R>> futures = new ArrayList<>(testCases.size());
+		for(TestCase<R> testCase : testCases) {
+			futures.add(executor.submit(() -> {
+				Context context = idleContexts.take();
+				try {
+					context.reset();
+					return testCase.run(context);
+				} finally {
+					idleContexts.add(context);
+				}
+			}));
+		}
+		
+		List<R> results = new ArrayList<>(futures.size());
+		try {
+			for(Future<R> future : futures) {
+				results.add(future.get());
+			}
+		} finally {
+			futures.forEach(future -> future.cancel(true));
+		}
+		return results;
+	}
+	
+	/**
+	 * Convenience for combinational tests: for each vector, sets the named input Pins, lets the circuit settle and
+	 * reads every output Pin.
+	 *
+	 * @return The output Pin values by name, one map per vector in the same order.
+	 */
+	public List<Map<String, WireValue>> runVectors(List<Map<String, WireValue>> vectors)
+		throws InterruptedException, ExecutionException {
+		List<TestCase<Map<String, WireValue>>> testCases = new ArrayList<>(vectors.size());
+		for(Map<String, WireValue> vector : vectors) {
+			testCases.add(context -> {
+				vector.forEach(context::setInput);
+				context.stepAll();
+				return context.getOutputs();
+			});
+		}
+		return runAll(testCases);
+	}
+	
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		contexts.forEach(context -> Clock.stopClock(context.simulator));
+	}
+	
+	/**
+	 * An independent copy of the circuit under test. A Context is only used by one test case at a time.
+	 */
+	public static class Context {
+		private final Simulator simulator;
+		private final Circuit circuit;
+		private final Map<String, Pin> pins = new LinkedHashMap<>();
+		private final Set<String> ambiguousNames = new HashSet<>();
+		private Checkpoint initialState;
+		
+		Context(Simulator simulator, Circuit circuit) {
+			if(circuit.getSimulator() != simulator) {
+				throw new IllegalArgumentException("The circuit must be created in the given simulator");
+			}
+			
+			this.simulator = simulator;
+			this.circuit = circuit;
+			
+			for(Component component : circuit.getComponents()) {
+				if(component instanceof Pin && pins.put(component.getName(), (Pin)component) != null) {
+					ambiguousNames.add(component.getName());
+				}
+			}
+		}
+		
+		public Simulator getSimulator() {
+			return simulator;
+		}
+		
+		public Circuit getCircuit() {
+			return circuit;
+		}
+		
+		public CircuitState getState() {
+			return circuit.getTopLevelState();
+		}
+		
+		public Pin getPin(String name) {
+			if(ambiguousNames.contains(name)) {
+				throw new IllegalArgumentException("More than one pin is named " + name);
+			}
+			
+			Pin pin = pins.get(name);
+			if(pin == null) {
+				throw new IllegalArgumentException("No pin named " + name);
+			}
+			return pin;
+		}
+		
+		public void setInput(String name, WireValue value) {
+			Pin pin = getPin(name);
+			if(!pin.isInput()) {
+				throw new IllegalArgumentException(name + " is not an input pin");
+			}
+			
+			pin.setValue(getState(), value);
+		}
+		
+		public WireValue getOutput(String name) {
+			return getState().getLastReceived(getPin(name).getPort(Pin.PORT));
+		}
+		
+		/**
+		 * @return The values of all uniquely named output Pins.
+		 */
+		public Map<String, WireValue> getOutputs() {
+			Map<String, WireValue> outputs = new LinkedHashMap<>();
+			pins.forEach((name, pin) -> {
+				if(!pin.isInput() && !ambiguousNames.contains(name)) {
+					outputs.put(name, getState().getLastReceived(pin.getPort(Pin.PORT)));
+				}
+			});
+			return Collections.unmodifiableMap(outputs);
+		}
+		
+		public void stepAll() {
+			simulator.stepAll();
+		}
+		
+		/**
+		 * Toggles this context's clock and lets the circuit settle.
+		 */
+		public void tick() {
+			simulator.runSync(() -> {
+				Clock.tick(simulator);
+				simulator.stepAll();
+			});
+		}
+		
+		void reset() {
+			if(initialState == null) {
+				simulator.runSync(() -> {
+					Clock.reset(simulator);
+					simulator.reset();
+					simulator.stepAll();
+				});
+				initialState = Checkpoint.capture(simulator);
+			} else {
+				initialState.restore();
+			}
+		}
+	}
+}
@@ -0,0 +1,667 @@
+package com.ra4king.circuitsim.simulator.batch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.Component;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.WireValue.State;
+import com.ra4king.circuitsim.simulator.batch.BatchSimulator.Lanes;
+import com.ra4king.circuitsim.simulator.components.Subcircuit;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * The truth table of a combinational Circuit, holding the value of every output bit for every combination of the
+ * input bits.
+ * <p>
+ * The input bits are numbered as the variables of the table: the bits of the first input Pin come first, most
+ * significant bit first. A row's number has the first variable as its most significant bit, so the value of each input
+ * Pin is a field of the row number. Output bits are numbered the same way.
+ * <p>
+ * Bit-parallel circuits are evaluated 64 rows at a time with a {@link BatchSimulator}, where the lanes of each input
+ * bit follow a fixed pattern, so a table of 20 inputs takes a fraction of a second. Other circuits, for example ones
+ * containing a Subcircuit, are run one row at a time through the Simulator, which is much slower.
+ *
+ * @author Roi Atalla
+ */
+public class TruthTable {
+	public static final int DEFAULT_MAX_INPUT_BITS = 20;
+	
+	/**
+	 * Rows are numbered with an int, and a table any larger would not fit in memory anyway.
+	 */
+	public static final int MAX_INPUT_BITS = 30;
+	
+	// The lanes in which each of the 6 lowest bits of the row number is 1
+	private static final long[] LANE_PATTERNS = {
+		0xAAAAAAAAAAAAAAAAL,
+		0xCCCCCCCCCCCCCCCCL,
+		0xF0F0F0F0F0F0F0F0L,
+		0xFF00FF00FF00FF00L,
+		0xFFFF0000FFFF0000L,
+		0xFFFFFFFF00000000L,
+	};
+	
+	// Minimizing gives up past this many prime implicants, or products of the prime implicants of two halves
+	private static final int MAX_PRIMES = 1 << 14;
+	private static final int MAX_PRODUCTS = 1 << 22;
+	
+	private final List<Pin> inputs;
+	private final List<Pin> outputs;
+	private final int inputBits;
+	private final int outputBits;
+	private final int chunks;
+	
+	// Indexed by output bit then by chunk of 64 rows
+	private final long[][] ones;
+	private final long[][] xs;
+	
+	private TruthTable(List<Pin> inputs, List<Pin> outputs) {
+		this.inputs = Collections.unmodifiableList(new ArrayList<>(inputs));
+		this.outputs = Collections.unmodifiableList(new ArrayList<>(outputs));
+		inputBits = inputs.stream().mapToInt(Pin::getBitSize).sum();
+		outputBits = outputs.stream().mapToInt(Pin::getBitSize).sum();
+		
+		chunks = Math.max(1, getRowCount() / BatchSimulator.LANES);
+		ones = new long[outputBits][chunks];
+		xs = new long[outputBits][chunks];
+	}
+	
+	/**
+	 * Computes the truth table of all the input and output Pins of the circuit, each sorted by name.
+	 *
+	 * @throws IllegalArgumentException If the input Pins have more than maxInputBits bits in total, or the circuit
+	 *                                  holds state.
+	 */
+	public static TruthTable compute(Circuit circuit, int maxInputBits) {
+		List<Pin> inputs = new ArrayList<>();
+		List<Pin> outputs = new ArrayList<>();
+		for(Component component : circuit.getComponents()) {
+			if(component instanceof Pin) {
+				Pin pin = (Pin)component;
+				(pin.isInput() ? inputs : outputs).add(pin);
+			}
+		}
+		
+		inputs.sort(Comparator.comparing(Pin::getName));
+		outputs.sort(Comparator.comparing(Pin::getName));
+		return compute(circuit, inputs, outputs, maxInputBits);
+	}
+	
+	/**
+	 * Computes the truth table of the given Pins of the circuit. Input Pins of the circuit missing from the list are
+	 * set to 0.
+	 *
+	 * @param inputs       The input Pins, in the order of the variables.
+	 * @param outputs      The output Pins, in the order of the output bits.
+	 * @param maxInputBits The maximum total bit size of the input Pins, at most {@link #MAX_INPUT_BITS}.
+	 * @throws IllegalArgumentException If the input Pins have more than maxInputBits bits in total, a Pin is not part
+	 *                                  of the circuit, or the circuit holds state.
+	 */
+	public static TruthTable compute(Circuit circuit, List<Pin> inputs, List<Pin> outputs, int maxInputBits) {
+		if(maxInputBits < 0 || maxInputBits > MAX_INPUT_BITS) {
+			throw new IllegalArgumentException("maxInputBits must be between 0 and " + MAX_INPUT_BITS);
+		}
+		
+		// Rows are run one after the other, so state would carry over from row to row
+		if(!Subcircuit.isCombinational(circuit)) {
+			throw new IllegalArgumentException(
+				"Not a combinational circuit, it contains components that hold state: " + circuit.getName());
+		}
+		
+		for(Pin pin : inputs) {
+			if(pin.getCircuit() != circuit || !pin.isInput()) {
+				throw new IllegalArgumentException("Not an input pin of " + circuit + ": " + pin);
+			}
+		}
+		for(Pin pin : outputs) {
+			if(pin.getCircuit() != circuit || pin.isInput()) {
+				throw new IllegalArgumentException("Not an output pin of " + circuit + ": " + pin);
+			}
+		}
+		
+		int bits = inputs.stream().mapToInt(Pin::getBitSize).sum();
+		if(bits > maxInputBits) {
+			throw new IllegalArgumentException("Inputs have " + bits + " bits, the maximum is " + maxInputBits);
+		}
+		
+		TruthTable table = new TruthTable(inputs, outputs);
+		BatchSimulator batch = new BatchSimulator(circuit);
+		if(batch.isBitParallel()) {
+			table.computeBitParallel(batch);
+		} else {
+			table.computeScalar(batch);
+		}
+		return table;
+	}
+	
+	private void computeBitParallel(BatchSimulator batch) {
+		if(outputBits == 0) {
+			return;
+		}
+		
+		Lanes lanes = batch.new Lanes();
+		for(int chunk = 0; chunk < chunks; chunk++) {
+			lanes.clear();
+			for(Pin pin : batch.getInputPins()) {
+				if(!inputs.contains(pin)) {
+					for(int bit = 0; bit < pin.getBitSize(); bit++) {
+						lanes.setLanes(pin, bit, 0);
+					}
+				}
+			}
+			
+			int offset = 0;
+			for(Pin pin : inputs) {
+				for(int bit = 0; bit < pin.getBitSize(); bit++) {
+					int position = inputBits - offset - pin.getBitSize() + bit;
+					lanes.setLanes(pin, bit, position < LANE_PATTERNS.length
+					                         ? LANE_PATTERNS[position]
+					                         : (chunk >>> (position - LANE_PATTERNS.length) & 1) != 0 ? -1L : 0L);
+				}
+				offset += pin.getBitSize();
+			}
+			
+			lanes.evaluate();
+			
+			int output = 0;
+			for(Pin pin : outputs) {
+				for(int bit = pin.getBitSize() - 1; bit >= 0; bit--, output++) {
+					long x = lanes.getXs(pin, bit);
+					ones[output][chunk] = lanes.getOnes(pin, bit) & ~x;
+					xs[output][chunk] = x;
+				}
+			}
+		}
+	}
+	
+	private void computeScalar(BatchSimulator batch) {
+		int rowCount = getRowCount();
+		
+		// Large enough batches that runScalar's setup is negligible
+		int batchSize = 1024;
+		for(int start = 0; start < rowCount; start += batchSize) {
+			int end = Math.min(start + batchSize, rowCount);
+			
+			List<Map<Pin, WireValue>> vectors = new ArrayList<>(end - start);
+			for(int row = start; row < end; row++) {
+				Map<Pin, WireValue> vector = new HashMap<>();
+				int offset = 0;
+				for(Pin pin : inputs) {
+					offset += pin.getBitSize();
+					vector.put(pin, WireValue.of(row >>> (inputBits - offset), pin.getBitSize()));
+				}
+				vectors.add(vector);
+			}
+			
+			List<Map<Pin, WireValue>> results = batch.runScalar(vectors);
+			for(int row = start; row < end; row++) {
+				Map<Pin, WireValue> result = results.get(row - start);
+				int output = 0;
+				for(Pin pin : outputs) {
+					WireValue value = result.get(pin);
+					for(int bit = pin.getBitSize() - 1; bit >= 0; bit--, output++) {
+						State state = value.getBit(bit);
+						if(state == State.ONE) {
+							ones[output][row >>> 6] |= 1L << row;
+						} else if(state == State.X) {
+							xs[output][row >>> 6] |= 1L << row;
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	public List<Pin> getInputs() {
+		return inputs;
+	}
+	
+	public List<Pin> getOutputs() {
+		return outputs;
+	}
+	
+	public int getInputBits() {
+		return inputBits;
+	}
+	
+	public int getOutputBits() {
+		return outputBits;
+	}
+	
+	public int getRowCount() {
+		return 1 << inputBits;
+	}
+	
+	/**
+	 * @return The name of an input bit: the name of its Pin, followed by the bit index if the Pin has multiple bits.
+	 */
+	public String getInputName(int inputBit) {
+		return getName(inputs, inputBit, "In");
+	}
+	
+	/**
+	 * @return The name of an output bit: the name of its Pin, followed by the bit index if the Pin has multiple bits.
+	 */
+	public String getOutputName(int outputBit) {
+		return getName(outputs, outputBit, "Out");
+	}
+	
+	private static String getName(List<Pin> pins, int index, String defaultName) {
+		for(int i = 0; i < pins.size(); i++) {
+			Pin pin = pins.get(i);
+			if(index < pin.getBitSize()) {
+				String name = getName(pin, i, defaultName);
+				return pin.getBitSize() == 1 ? name : name + "[" + (pin.getBitSize() - 1 - index) + "]";
+			}
+			index -= pin.getBitSize();
+		}
+		throw new IndexOutOfBoundsException("Bit " + index);
+	}
+	
+	private static String getName(Pin pin, int index, String defaultName) {
+		return pin.getName().isEmpty() ? defaultName + index : pin.getName();
+	}
+	
+	public State getOutputBit(int row, int outputBit) {
+		if(row < 0 || row >= getRowCount()) {
+			throw new IndexOutOfBoundsException("Row " + row);
+		}
+		
+		if((xs[outputBit][row >>> 6] >>> row & 1) != 0) {
+			return State.X;
+		}
+		return (ones[outputBit][row >>> 6] >>> row & 1) != 0 ? State.ONE : State.ZERO;
+	}
+	
+	public WireValue getOutputValue(int row, Pin output) {
+		int offset = 0;
+		for(Pin pin : outputs) {
+			if(pin == output) {
+				WireValue value = new WireValue(pin.getBitSize());
+				for(int bit = 0; bit < pin.getBitSize(); bit++) {
+					value.setBit(bit, getOutputBit(row, offset + pin.getBitSize() - 1 - bit));
+				}
+				return value;
+			}
+			offset += pin.getBitSize();
+		}
+		throw new IllegalArgumentException("Not an output of this table: " + output);
+	}
+	
+	/**
+	 * Minimizes an output bit into a sum of products, for example "A B' + Cin". Rows where the output is X are treated
+	 * as don't-cares. All the prime implicants are found, while the cover is picked with the essential prime implicants
+	 * first and then the largest ones, so it may not be the smallest possible.
+	 *
+	 * @return The sum of products, "0" or "1" for a constant.
+	 * @throws IllegalStateException If the function has too many implicants to minimize.
+	 */
+	public String getSumOfProducts(int outputBit) {
+		int rowCount = getRowCount();
+		
+		int[] minterms = rows(ones[outputBit], rowCount);
+		if(minterms.length == 0) {
+			return "0";
+		}
+		
+		long dontCares = 0;
+		for(long chunk : xs[outputBit]) {
+			dontCares += Long.bitCount(chunk);
+		}
+		if(minterms.length + dontCares == rowCount) {
+			return "1";
+		}
+		
+		// Rows past the end of a table of less than 64 rows are left out of the function
+		long[] function = new long[chunks];
+		for(int chunk = 0; chunk < chunks; chunk++) {
+			function[chunk] = ones[outputBit][chunk] | xs[outputBit][chunk];
+		}
+		if(rowCount < Long.SIZE) {
+			function[0] &= (1L << rowCount) - 1;
+		}
+		
+		List<Long> primes = findPrimeImplicants(function, inputBits);
+		List<Long> cover = findCover(primes, minterms);
+		
+		cover.sort((a, b) -> {
+			for(int position = inputBits - 1; position >= 0; position--) {
+				int compare = Integer.compare(literalOrder(a, position), literalOrder(b, position));
+				if(compare != 0) {
+					return compare;
+				}
+			}
+			return 0;
+		});
+		
+		return cover.stream().map(this::toProduct).collect(Collectors.joining(" + "));
+	}
+	
+	private static int[] rows(long[] lanes, int rowCount) {
+		int count = 0;
+		for(long chunk : lanes) {
+			count += Long.bitCount(chunk);
+		}
+		
+		int[] rows = new int[count];
+		int index = 0;
+		for(int chunk = 0; chunk < lanes.length; chunk++) {
+			long bits = lanes[chunk];
+			while(bits != 0) {
+				int row = (chunk << 6) + Long.numberOfTrailingZeros(bits);
+				if(row < rowCount) {
+					rows[index++] = row;
+				}
+				bits &= bits - 1;
+			}
+		}
+		return index == count ? rows : Arrays.copyOf(rows, index);
+	}
+	
+	// An implicant is packed into a long, with the mask of eliminated variables in the high half and the values of the
+	// remaining ones in the low half.
+	
+	private static long implicant(int mask, int value) {
+		return (long)mask << 32 | value;
+	}
+	
+	private static int mask(long implicant) {
+		return (int)(implicant >>> 32);
+	}
+	
+	private static int value(long implicant) {
+		return (int)implicant;
+	}
+	
+	/**
+	 * Finds the prime implicants of a function given as a bitmap of rows over the lowest variables, by splitting it
+	 * on its highest variable x into f = x' f0 + x f1. The primes of f are those of f0 with x', those of f1 with x,
+	 * and the products of a prime of f0 with a prime of f1, minus the ones contained in another. Unlike the tabular
+	 * Quine-McCluskey method, which builds every implicant of the function, this only builds primes of the halves.
+	 */
+	private static List<Long> findPrimeImplicants(long[] function, int variables) {
+		int size = 1 << variables;
+		long full = size >= Long.SIZE ? -1L : (1L << size) - 1;
+		boolean zero = true, one = true;
+		for(long bits : function) {
+			zero &= bits == 0;
+			one &= bits == full;
+		}
+		
+		if(zero) {
+			return new ArrayList<>();
+		}
+		if(one) {
+			List<Long> primes = new ArrayList<>();
+			primes.add(implicant(size - 1, 0));
+			return primes;
+		}
+		
+		long[] low, high;
+		if(function.length > 1) {
+			low = Arrays.copyOfRange(function, 0, function.length / 2);
+			high = Arrays.copyOfRange(function, function.length / 2, function.length);
+		} else {
+			int half = size / 2;
+			long halfFull = (1L << half) - 1;
+			low = new long[] { function[0] & halfFull };
+			high = new long[] { function[0] >>> half & halfFull };
+		}
+		
+		int variable = 1 << (variables - 1);
+		
+		// The function does not depend on x
+		if(Arrays.equals(low, high)) {
+			List<Long> primes = findPrimeImplicants(low, variables - 1);
+			primes.replaceAll(prime -> implicant(mask(prime) | variable, value(prime)));
+			return primes;
+		}
+		
+		List<Long> lowPrimes = findPrimeImplicants(low, variables - 1);
+		List<Long> highPrimes = findPrimeImplicants(high, variables - 1);
+		if((long)lowPrimes.size() * highPrimes.size() > MAX_PRODUCTS) {
+			throw new IllegalStateException("Too many implicants to minimize");
+		}
+		
+		List<Long> implicants = new ArrayList<>(lowPrimes);
+		for(long prime : highPrimes) {
+			implicants.add(implicant(mask(prime), value(prime) | variable));
+		}
+		for(long lowPrime : lowPrimes) {
+			for(long highPrime : highPrimes) {
+				int lowMask = mask(lowPrime), highMask = mask(highPrime);
+				if(((value(lowPrime) ^ value(highPrime)) & ~lowMask & ~highMask) == 0) {
+					int mask = lowMask & highMask;
+					implicants.add(implicant(mask | variable, (value(lowPrime) | value(highPrime)) & ~mask));
+				}
+			}
+		}
+		
+		return removeContained(implicants);
+	}
+	
+	private static List<Long> removeContained(List<Long> implicants) {
+		// Larger implicants first, so each one can only be contained in one already kept
+		implicants.sort(Comparator.comparingInt((Long implicant) -> -Integer.bitCount(mask(implicant)))
+		                          .thenComparing(Comparator.naturalOrder()));
+		
+		List<Long> kept = new ArrayList<>();
+		for(int i = 0; i < implicants.size(); i++) {
+			long implicant = implicants.get(i);
+			if(i > 0 && implicant == implicants.get(i - 1)) {
+				continue;
+			}
+			
+			int mask = mask(implicant);
+			boolean contained = false;
+			for(int j = 0; j < kept.size() && !contained; j++) {
+				int keptMask = mask(kept.get(j));
+				contained = (mask & ~keptMask) == 0 && ((value(implicant) ^ value(kept.get(j))) & ~keptMask) == 0;
+			}
+			
+			if(!contained) {
+				if(kept.size() == MAX_PRIMES) {
+					throw new IllegalStateException("Too many implicants to minimize");
+				}
+				kept.add(implicant);
+			}
+		}
+		return kept;
+	}
+	
+	/**
+	 * Picks the primes covering the minterms. Coverage is counted per minterm, indexed like the sorted minterms array,
+	 * so the memory used follows the number of minterms rather than the number of rows.
+	 */
+	private static List<Long> findCover(List<Long> primes, int[] minterms) {
+		// The number of primes covering each minterm, and the last one seen
+		int[] coverCount = new int[minterms.length];
+		int[] coveredBy = new int[minterms.length];
+		for(int i = 0; i < primes.size(); i++) {
+			int index = i;
+			forEachMinterm(primes.get(i), minterms, minterm -> {
+				coverCount[minterm]++;
+				coveredBy[minterm] = index;
+			});
+		}
+		
+		boolean[] selected = new boolean[primes.size()];
+		List<Integer> order = new ArrayList<>();
+		for(int minterm = 0; minterm < minterms.length; minterm++) {
+			if(coverCount[minterm] == 1 && !selected[coveredBy[minterm]]) {
+				selected[coveredBy[minterm]] = true;
+				order.add(coveredBy[minterm]);
+			}
+		}
+		int essentials = order.size();
+		
+		// From here on, coverCount holds the number of selected primes covering each minterm
+		Arrays.fill(coverCount, 0);
+		for(int index : order) {
+			forEachMinterm(primes.get(index), minterms, minterm -> coverCount[minterm]++);
+		}
+		
+		List<Integer> bySize = new ArrayList<>();
+		for(int i = 0; i < primes.size(); i++) {
+			if(!selected[i]) {
+				bySize.add(i);
+			}
+		}
+		bySize.sort(Comparator.comparingInt((Integer i) -> Integer.bitCount(mask(primes.get(i)))).reversed());
+		
+		for(int index : bySize) {
+			boolean[] needed = new boolean[1];
+			forEachMinterm(primes.get(index), minterms, minterm -> needed[0] |= coverCount[minterm] == 0);
+			if(needed[0]) {
+				selected[index] = true;
+				order.add(index);
+				forEachMinterm(primes.get(index), minterms, minterm -> coverCount[minterm]++);
+			}
+		}
+		
+		// A prime picked early may have been made redundant by larger ones picked after it
+		for(int i = order.size() - 1; i >= essentials; i--) {
+			int index = order.get(i);
+			boolean[] needed = new boolean[1];
+			forEachMinterm(primes.get(index), minterms, minterm -> needed[0] |= coverCount[minterm] == 1);
+			if(!needed[0]) {
+				selected[index] = false;
+				forEachMinterm(primes.get(index), minterms, minterm -> coverCount[minterm]--);
+			}
+		}
+		
+		List<Long> cover = new ArrayList<>();
+		for(int index : order) {
+			if(selected[index]) {
+				cover.add(primes.get(index));
+			}
+		}
+		return cover;
+	}
+	
+	private interface MintermConsumer {
+		void accept(int minterm);
+	}
+	
+	/**
+	 * Calls the consumer with the index in the sorted minterms array of every minterm the implicant covers. Small
+	 * implicants look up each of their rows, large ones scan the minterms.
+	 */
+	private static void forEachMinterm(long implicant, int[] minterms, MintermConsumer consumer) {
+		int mask = mask(implicant);
+		int value = value(implicant);
+		if(1L << Integer.bitCount(mask) < minterms.length) {
+			int subset = 0;
+			do {
+				int index = Arrays.binarySearch(minterms, value | subset);
+				if(index >= 0) {
+					consumer.accept(index);
+				}
+				subset = (subset - mask) & mask;
+			} while(subset != 0);
+		} else {
+			for(int i = 0; i < minterms.length; i++) {
+				if(((minterms[i] ^ value) & ~mask) == 0) {
+					consumer.accept(i);
+				}
+			}
+		}
+	}
+	
+	// Positive literals sort first, then negated ones, then eliminated variables
+	private static int literalOrder(long implicant, int position) {
+		if((mask(implicant) >>> position & 1) != 0) {
+			return 2;
+		}
+		return (value(implicant) >>> position & 1) != 0 ? 0 : 1;
+	}
+	
+	private String toProduct(long implicant) {
+		List<String> literals = new ArrayList<>();
+		for(int position = inputBits - 1; position >= 0; position--) {
+			int order = literalOrder(implicant, position);
+			if(order != 2) {
+				String name = getInputName(inputBits - 1 - position);
+				literals.add(order == 0 ? name : name + "'");
+			}
+		}
+		return literals.isEmpty() ? "1" : String.join(" ", literals);
+	}
+	
+	/**
+	 * Writes the table with a column per Pin and a row per combination of inputs, with values in binary.
+	 */
+	public void write(Appendable out) throws IOException {
+		List<Pin> columns = new ArrayList<>(inputs);
+		columns.addAll(outputs);
+		
+		String[] names = new String[columns.size()];
+		int[] widths = new int[columns.size()];
+		for(int i = 0; i < columns.size(); i++) {
+			Pin pin = columns.get(i);
+			names[i] = i < inputs.size() ? getName(pin, i, "In") : getName(pin, i - inputs.size(), "Out");
+			widths[i] = Math.max(names[i].length(), pin.getBitSize());
+		}
+		
+		StringBuilder line = new StringBuilder();
+		for(int i = 0; i < columns.size(); i++) {
+			appendCell(line, i, names[i], widths[i]);
+		}
+		out.append(line).append('\n');
+		
+		for(int row = 0; row < getRowCount(); row++) {
+			line.setLength(0);
+			
+			int offset = 0;
+			for(int i = 0; i < columns.size(); i++) {
+				Pin pin = columns.get(i);
+				StringBuilder cell = new StringBuilder();
+				for(int bit = 0; bit < pin.getBitSize(); bit++, offset++) {
+					if(i < inputs.size()) {
+						cell.append((row >>> (inputBits - 1 - offset) & 1) != 0 ? '1' : '0');
+					} else {
+						cell.append(getOutputBit(row, offset - inputBits).repr);
+					}
+				}
+				appendCell(line, i, cell.toString(), widths[i]);
+			}
+			
+			out.append(line).append('\n');
+		}
+	}
+	
+	private void appendCell(StringBuilder line, int column, String cell, int width) {
+		if(column > 0) {
+			line.append(column == inputs.size() ? " | " : " ");
+		}
+		line.append(cell);
+		
+		// Trailing spaces are not needed on the last column
+		if(column < inputs.size() + outputs.size() - 1) {
+			for(int i = cell.length(); i < width; i++) {
+				line.append(' ');
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		try {
+			write(builder);
+		} catch(IOException exc) {
+			throw new UncheckedIOException(exc);
+		}
+		return builder.toString();
+	}
+}
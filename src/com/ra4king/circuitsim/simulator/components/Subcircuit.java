@@ -1,6 +1,7 @@
 package com.ra4king.circuitsim.simulator.components;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -12,7 +13,6 @@ import com.ra4king.circuitsim.simulator.Port;
 import com.ra4king.circuitsim.simulator.SimulationException;
 import com.ra4king.circuitsim.simulator.WireValue;
 import com.ra4king.circuitsim.simulator.components.wiring.Pin;
-import com.ra4king.circuitsim.simulator.components.wiring.Pin.PinChangeListener;
 
 /**
  * @author Roi Atalla
@@ -20,7 +20,7 @@ import com.ra4king.circuitsim.simulator.components.wiring.Pin.PinChangeListener;
 public class Subcircuit extends Component {
 	private Circuit subcircuit;
 	private List<Pin> pins;
-	private Map<CircuitState, Map<Pin, PinChangeListener>> pinListeners;
+	private Map<Pin, Port> pinPorts;
 	
 	public Subcircuit(String name, Circuit subcircuit) {
 		this(name, subcircuit, getCircuitPins(subcircuit));
@@ -31,7 +31,12 @@ public class Subcircuit extends Component {
 		
 		this.subcircuit = subcircuit;
 		this.pins = pins;
-		pinListeners = new HashMap<>();
+		
+		Map<Pin, Port> pinPorts = new IdentityHashMap<>();
+		for(int i = 0; i < pins.size(); i++) {
+			pinPorts.put(pins.get(i), getPort(i));
+		}
+		this.pinPorts = Collections.unmodifiableMap(pinPorts);
 	}
 	
 	private static List<Pin> getCircuitPins(Circuit circuit) {
@@ -48,6 +53,14 @@ public class Subcircuit extends Component {
 		return portBits;
 	}
 	
+	/**
+	 * @return Whether none of the circuit's components, including those of nested subcircuits, hold state. Components
+	 * outside of this package are assumed to hold state.
+	 */
+	public static boolean isCombinational(Circuit circuit) {
+		return SubcircuitMemo.isCombinational(circuit);
+	}
+	
 	public List<Pin> getPins() {
 		return pins;
 	}
@@ -76,27 +89,15 @@ public class Subcircuit extends Component {
 		checkCircuitLoop(subcircuit);
 	}
 	
+	/**
+	 * Each instance only owns its own CircuitState: the subcircuit's components and links are shared between all
+	 * instances. Output Pins push straight onto this Subcircuit's ports through the parent binding of the nested state.
+	 */
 	@Override
 	public void init(CircuitState circuitState, Object lastProperty) {
-		CircuitState subcircuitState = new CircuitState(subcircuit);
+		CircuitState subcircuitState = new CircuitState(subcircuit, circuitState, this);
 		circuitState.putComponentProperty(this, subcircuitState);
 		
-		Map<Pin, PinChangeListener> listeners = new HashMap<>();
-		
-		for(int i = 0; i < pins.size(); i++) {
-			Pin pin = pins.get(i);
-			if(!pin.isInput()) {
-				Port port = getPort(i);
-				
-				PinChangeListener listener = (p, state, value) -> circuitState.pushValue(port, value);
-				pin.addChangeListener(subcircuitState, listener);
-				
-				listeners.put(pin, listener);
-			}
-		}
-		
-		pinListeners.put(subcircuitState, listeners);
-		
 		CircuitState oldState = (CircuitState)lastProperty;
 		
 		for(Component component : subcircuit.getComponents()) {
@@ -118,31 +119,36 @@ public class Subcircuit extends Component {
 		CircuitState subcircuitState = (CircuitState)circuitState.getComponentProperty(this);
 		subcircuit.getComponents().forEach(component -> component.uninit(subcircuitState));
 		subcircuit.removeState(subcircuitState);
-		if(pinListeners.containsKey(subcircuitState)) {
-			Map<Pin, PinChangeListener> listeners = pinListeners.get(subcircuitState);
-			pins.forEach(pin -> {
-				if(listeners.containsKey(pin)) {
-					pin.removeChangeListener(subcircuitState, listeners.get(pin));
-				}
-			});
-		}
 	}
 	
 	public Port getPort(Pin pin) {
-		int index = pins.indexOf(pin);
-		if(index == -1) {
-			return null;
-		}
-		return getPort(index);
+		return pinPorts.get(pin);
 	}
 	
+	@Override
+	public Port getBoundPort(Component component) {
+		return pinPorts.get(component);
+	}
+	
+	/**
+	 * In the Simulator's memoizing mode, the inputs of a purely combinational subcircuit go through its SubcircuitMemo,
+	 * which skips propagating inputs that were seen before.
+	 */
 	@Override
 	public void valueChanged(CircuitState state, WireValue value, int portIndex) {
 		CircuitState subcircuitState = (CircuitState)state.getComponentProperty(this);
 		Pin pin = pins.get(portIndex);
 		// Sometimes we get updates for pins that were just removed
 		if(pin.isInput() && pin.getCircuit() != null) {
-			subcircuitState.pushValue(pin.getPort(0), value);
+			Circuit circuit = getCircuit();
+			SubcircuitMemo memo = circuit != null && circuit.getSimulator().isMemoizeSubcircuits()
+			                      ? SubcircuitMemo.get(this)
+			                      : null;
+			if(memo != null) {
+				memo.inputChanged(this, state, subcircuitState);
+			} else {
+				subcircuitState.pushBoundaryValue(pin.getPort(0), value);
+			}
 		}
 	}
 }
@@ -0,0 +1,339 @@
+package com.ra4king.circuitsim.simulator.components;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.Component;
+import com.ra4king.circuitsim.simulator.Port;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.WireValue.State;
+import com.ra4king.circuitsim.simulator.components.arithmetic.RandomGenerator;
+import com.ra4king.circuitsim.simulator.components.memory.DFlipFlop;
+import com.ra4king.circuitsim.simulator.components.memory.RAM;
+import com.ra4king.circuitsim.simulator.components.memory.Register;
+import com.ra4king.circuitsim.simulator.components.memory.SRFlipFlop;
+import com.ra4king.circuitsim.simulator.components.wiring.Clock;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * Remembers the outputs of a purely combinational Circuit for each combination of its inputs, shared by every
+ * Subcircuit instance of that Circuit in the Simulator's memoizing mode.
+ * <p>
+ * A Circuit is combinational when none of its components, including those of nested subcircuits, hold state, and its
+ * total input width fits in a long. Components outside of this package are assumed to hold state. A feedback loop
+ * built out of gates also holds state, so the Ports that pushed a value are tracked as drivers, the same way the
+ * levelized mode does, and memoizing stops for good once the drivers form a loop.
+ * <p>
+ * Outputs are only remembered once a CircuitState propagating new inputs has settled and all its inputs and outputs are
+ * valid. Up to {@link #TABLE_WIDTH} input bits, every combination gets a slot in a full truth table. Wider inputs use
+ * a cache of the {@link #CACHE_SIZE} most recently used combinations. Everything is forgotten whenever the topology of
+ * the Simulator changes.
+ *
+ * @author Roi Atalla
+ */
+class SubcircuitMemo {
+	static final int TABLE_WIDTH = 12;
+	static final int CACHE_SIZE = 4096;
+	
+	private static final String PACKAGE = SubcircuitMemo.class.getPackage().getName() + ".";
+	
+	private final Memos memos;
+	private final Circuit circuit;
+	private final List<Pin> pins;
+	private final List<Pin> inputs = new ArrayList<>();
+	private final List<Pin> outputs = new ArrayList<>();
+	private final boolean combinational;
+	
+	private final Set<Port> drivers = new HashSet<>();
+	private boolean driversChanged;
+	private boolean hasFeedback;
+	
+	private WireValue[][] table;
+	private Map<Long, WireValue[]> cache;
+	
+	private SubcircuitMemo(Memos memos, Subcircuit subcircuit) {
+		this.memos = memos;
+		circuit = subcircuit.getSubcircuit();
+		pins = new ArrayList<>(subcircuit.getPins());
+		
+		int width = 0;
+		for(Pin pin : pins) {
+			if(pin.isInput()) {
+				inputs.add(pin);
+				width += pin.getBitSize();
+			} else {
+				outputs.add(pin);
+			}
+		}
+		combinational = width <= Long.SIZE
+			                && pins.stream().allMatch(pin -> pin.getCircuit() == circuit)
+			                && isCombinational(circuit);
+		
+		if(width <= TABLE_WIDTH) {
+			table = new WireValue[1 << width][];
+		} else {
+			cache = new LinkedHashMap<Long, WireValue[]>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Entry<Long, WireValue[]> eldest) {
+					return size() > CACHE_SIZE;
+				}
+			};
+		}
+	}
+	
+	static boolean isCombinational(Circuit circuit) {
+		for(Component component : circuit.getComponents()) {
+			if(component instanceof Subcircuit) {
+				if(!isCombinational(((Subcircuit)component).getSubcircuit())) {
+					return false;
+				}
+			} else if(component instanceof Clock || component instanceof Register || component instanceof RAM
+				          || component instanceof RandomGenerator || component instanceof DFlipFlop
+				          || component instanceof SRFlipFlop || !component.getClass().getName().startsWith(PACKAGE)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * @return The memo of the Subcircuit's circuit, or null if it is not combinational.
+	 */
+	static SubcircuitMemo get(Subcircuit subcircuit) {
+		Simulator simulator = subcircuit.getCircuit().getSimulator();
+		Memos memos = simulator.getSharedState(Memos.class, Memos::new);
+		
+		if(memos.topologyVersion != simulator.getTopologyVersion()) {
+			memos.topologyVersion = simulator.getTopologyVersion();
+			memos.memos.clear();
+		}
+		
+		SubcircuitMemo memo = memos.memos.get(subcircuit.getSubcircuit());
+		if(memo == null || !memo.pins.equals(subcircuit.getPins())) {
+			memo = new SubcircuitMemo(memos, subcircuit);
+			memos.memos.put(memo.circuit, memo);
+		}
+		
+		return memo.combinational && !memo.hasFeedback ? memo : null;
+	}
+	
+	/**
+	 * Called when an input of the Subcircuit changes. Remembered outputs are pushed directly, unless the Subcircuit's
+	 * state is still propagating earlier inputs, whose outputs would then overwrite them. Otherwise, every input is
+	 * pushed into the Subcircuit's state, and the outputs it had, which may be older than the ones last pushed, are
+	 * pushed again so they are in sync.
+	 */
+	void inputChanged(Subcircuit subcircuit, CircuitState state, CircuitState subcircuitState) {
+		long key = 0;
+		boolean valid = true;
+		int offset = 0;
+		for(Pin pin : inputs) {
+			Port port = subcircuit.getPort(pin);
+			for(int i = 0; i < pin.getBitSize() && valid; i++) {
+				State bit = state.getLastReceivedBit(port, i);
+				if(bit == State.X) {
+					valid = false;
+				} else if(bit == State.ONE) {
+					key |= 1L << (offset + i);
+				}
+			}
+			offset += pin.getBitSize();
+		}
+		
+		WireValue[] values = valid && !memos.pending.containsKey(subcircuitState) ? lookup(key) : null;
+		if(values != null) {
+			for(int i = 0; i < outputs.size(); i++) {
+				state.pushBoundaryValue(subcircuit.getPort(outputs.get(i)), values[i]);
+			}
+			return;
+		}
+		
+		for(Pin pin : inputs) {
+			subcircuitState.pushBoundaryValue(pin.getPort(Pin.PORT), state.getLastReceived(subcircuit.getPort(pin)));
+		}
+		for(Pin pin : outputs) {
+			state.pushBoundaryValue(subcircuit.getPort(pin), subcircuitState.getLastReceived(pin.getPort(Pin.PORT)));
+		}
+		
+		memos.pending.put(subcircuitState, this);
+	}
+	
+	private WireValue[] lookup(long key) {
+		return table != null ? table[(int)key] : cache.get(key);
+	}
+	
+	/**
+	 * Remembers the outputs of a settled state of the circuit.
+	 */
+	private void record(CircuitState subcircuitState) {
+		if(hasFeedback || !circuit.containsState(subcircuitState)) {
+			return;
+		}
+		
+		long key = 0;
+		int offset = 0;
+		for(Pin pin : inputs) {
+			WireValue value = subcircuitState.getLastPushed(pin.getPort(Pin.PORT));
+			if(!value.isValidValue()) {
+				return;
+			}
+			key |= value.getLongValue() << offset;
+			offset += pin.getBitSize();
+		}
+		
+		WireValue[] values = new WireValue[outputs.size()];
+		for(int i = 0; i < values.length; i++) {
+			values[i] = subcircuitState.getLastReceived(outputs.get(i).getPort(Pin.PORT));
+			if(!values[i].isValidValue()) {
+				return;
+			}
+		}
+		
+		findDrivers(subcircuitState);
+		if(driversChanged) {
+			driversChanged = false;
+			hasFeedback = hasFeedback(subcircuitState);
+			if(hasFeedback) {
+				table = null;
+				cache = null;
+				return;
+			}
+		}
+		
+		if(table != null) {
+			table[(int)key] = values;
+		} else {
+			cache.put(key, values);
+		}
+	}
+	
+	private void findDrivers(CircuitState state) {
+		for(Component component : state.getCircuit().getComponents()) {
+			for(int i = 0; i < component.getNumPorts(); i++) {
+				Port port = component.getPort(i);
+				if(!drivers.contains(port) && isPushed(state.getLastPushed(port))) {
+					drivers.add(port);
+					driversChanged = true;
+				}
+			}
+			
+			if(component instanceof Subcircuit) {
+				findDrivers(((Subcircuit)component).getSubcircuitState(state));
+			}
+		}
+	}
+	
+	private static boolean isPushed(WireValue value) {
+		for(int i = 0; i < value.getBitSize(); i++) {
+			if(value.getBit(i) != State.X) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Looks for a loop between the components of the state's circuit, where a component leads to every other one
+	 * sharing a Link with one of its drivers. Nested subcircuits are checked on their own.
+	 */
+	private boolean hasFeedback(CircuitState state) {
+		Component[] components = state.getCircuit().getComponents().toArray(new Component[0]);
+		int count = components.length;
+		
+		Map<Component, Integer> indices = new IdentityHashMap<>();
+		for(int i = 0; i < count; i++) {
+			indices.put(components[i], i);
+		}
+		
+		int[][] successors = new int[count][];
+		for(int i = 0; i < count; i++) {
+			Component component = components[i];
+			if(component instanceof Subcircuit && hasFeedback(((Subcircuit)component).getSubcircuitState(state))) {
+				return true;
+			}
+			
+			Set<Integer> targets = new HashSet<>();
+			for(int p = 0; p < component.getNumPorts(); p++) {
+				Port port = component.getPort(p);
+				if(drivers.contains(port)) {
+					for(Port participant : port.getLink().getParticipants()) {
+						Integer target = indices.get(participant.getComponent());
+						if(target != null && target != i) {
+							targets.add(target);
+						}
+					}
+				}
+			}
+			successors[i] = targets.stream().mapToInt(Integer::intValue).toArray();
+		}
+		
+		// Iterative depth-first search, where reaching a component that is still on the stack closes a loop
+		boolean[] visited = new boolean[count];
+		boolean[] onStack = new boolean[count];
+		int[] stack = new int[count];
+		int[] nextSuccessor = new int[count];
+		for(int root = 0; root < count; root++) {
+			if(visited[root]) {
+				continue;
+			}
+			
+			int depth = 0;
+			stack[depth++] = root;
+			visited[root] = onStack[root] = true;
+			
+			while(depth > 0) {
+				int node = stack[depth - 1];
+				if(nextSuccessor[node] < successors[node].length) {
+					int target = successors[node][nextSuccessor[node]++];
+					if(onStack[target]) {
+						return true;
+					}
+					
+					if(!visited[target]) {
+						visited[target] = onStack[target] = true;
+						stack[depth++] = target;
+					}
+				} else {
+					onStack[node] = false;
+					depth--;
+				}
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * The memos of a Simulator, and the states whose outputs are to be remembered once they have settled.
+	 */
+	private static class Memos {
+		private final Map<Circuit, SubcircuitMemo> memos = new HashMap<>();
+		private final Map<CircuitState, SubcircuitMemo> pending = new IdentityHashMap<>();
+		private int topologyVersion;
+		
+		Memos(Simulator simulator) {
+			topologyVersion = simulator.getTopologyVersion();
+			simulator.addSettledListener(this::settled);
+		}
+		
+		private void settled() {
+			if(pending.isEmpty()) {
+				return;
+			}
+			
+			pending.forEach((state, memo) -> memo.record(state));
+			pending.clear();
+		}
+	}
+}
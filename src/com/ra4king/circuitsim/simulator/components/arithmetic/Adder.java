@@ -36,9 +36,24 @@ public class Adder extends Component {
 			WireValue b = state.getLastReceived(getPort(PORT_B));
 			WireValue c = state.getLastReceived(getPort(PORT_CARRY_IN));
 			
-			WireValue sum = new WireValue(bitSize);
-			
 			State carry = c.getBit(0) == State.ONE ? State.ONE : State.ZERO;
+			
+			if(bitSize <= 64) {
+				long valueA = a.getLongValue();
+				long valueB = b.getLongValue();
+				long sum = valueA + valueB + (carry == State.ONE ? 1 : 0);
+				
+				// The carry out of bit (bitSize - 1) is the bit that would be above it
+				boolean carryOut = bitSize == 64
+				                   ? ((valueA & valueB) | ((valueA | valueB) & ~sum)) < 0
+				                   : (sum >>> bitSize & 1) != 0;
+				
+				state.pushValue(getPort(PORT_OUT), WireValue.of(sum, bitSize));
+				state.pushValue(getPort(PORT_CARRY_OUT), new WireValue(1, carryOut ? State.ONE : State.ZERO));
+				return;
+			}
+			
+			WireValue sum = new WireValue(bitSize);
 			for(int i = 0; i < sum.getBitSize(); i++) {
 				State bitA = a.getBit(i);
 				State bitB = b.getBit(i);
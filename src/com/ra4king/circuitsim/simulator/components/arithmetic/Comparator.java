@@ -31,20 +31,21 @@ public class Comparator extends Component {
 		WireValue inputB = state.getLastReceived(getPort(PORT_B));
 		
 		if(inputA.isValidValue() && inputB.isValidValue()) {
-			long valueA = (long)inputA.getValue();
-			long valueB = (long)inputB.getValue();
+			long valueA = inputA.getLongValue();
+			long valueB = inputB.getLongValue();
 			
+			int comparison;
 			if(useSignedCompare) {
-				valueA |= (valueA & (0x1 << (bitSize - 1))) != 0 ? (-1 << bitSize) : 0;
-				valueB |= (valueB & (0x1 << (bitSize - 1))) != 0 ? (-1 << bitSize) : 0; 
+				// Sign extend to 64 bits
+				int shift = 64 - Math.min(bitSize, 64);
+				comparison = Long.compare(valueA << shift >> shift, valueB << shift >> shift);
 			} else {
-				valueA &= 0xFFFFFFFFL;
-				valueB &= 0xFFFFFFFFL;
+				comparison = Long.compareUnsigned(valueA, valueB);
 			}
 			
-			state.pushValue(getPort(PORT_LT), new WireValue(1, valueA < valueB ? State.ONE : State.ZERO));
-			state.pushValue(getPort(PORT_EQ), new WireValue(1, valueA == valueB ? State.ONE : State.ZERO));
-			state.pushValue(getPort(PORT_GT), new WireValue(1, valueA > valueB ? State.ONE : State.ZERO));
+			state.pushValue(getPort(PORT_LT), new WireValue(1, comparison < 0 ? State.ONE : State.ZERO));
+			state.pushValue(getPort(PORT_EQ), new WireValue(1, comparison == 0 ? State.ONE : State.ZERO));
+			state.pushValue(getPort(PORT_GT), new WireValue(1, comparison > 0 ? State.ONE : State.ZERO));
 		} else {
 			WireValue xValue = new WireValue(1, State.X);
 			state.pushValue(getPort(PORT_LT), xValue);
@@ -31,11 +31,11 @@ public class Divider extends Component {
 		
 		if(state.getLastReceived(getPort(PORT_DIVIDEND)).isValidValue() &&
 				   state.getLastReceived(getPort(PORT_DIVISOR)).isValidValue()) {
-			int a = state.getLastReceived(getPort(PORT_DIVIDEND)).getValue();
-			int b = state.getLastReceived(getPort(PORT_DIVISOR)).getValue();
+			long a = state.getLastReceived(getPort(PORT_DIVIDEND)).getLongValue();
+			long b = state.getLastReceived(getPort(PORT_DIVISOR)).getLongValue();
 			
-			int quotient = b == 0 ? a : a / b;
-			int remainder = b == 0 ? 0 : a % b;
+			long quotient = b == 0 ? a : Long.divideUnsigned(a, b);
+			long remainder = b == 0 ? 0 : Long.remainderUnsigned(a, b);
 			
 			state.pushValue(getPort(PORT_QUOTIENT), WireValue.of(quotient, bitSize));
 			state.pushValue(getPort(PORT_REMAINDER), WireValue.of(remainder, bitSize));
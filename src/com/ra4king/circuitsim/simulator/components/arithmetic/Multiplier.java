@@ -32,19 +32,42 @@ public class Multiplier extends Component {
 		
 		if(state.getLastReceived(getPort(PORT_A)).isValidValue() &&
 				   state.getLastReceived(getPort(PORT_B)).isValidValue()) {
-			long a = state.getLastReceived(getPort(PORT_A)).getValue() & 0xFFFFFFFFL;
-			long b = state.getLastReceived(getPort(PORT_B)).getValue() & 0xFFFFFFFFL;
+			long a = state.getLastReceived(getPort(PORT_A)).getLongValue();
+			long b = state.getLastReceived(getPort(PORT_B)).getLongValue();
 			WireValue carry = state.getLastReceived(getPort(PORT_CARRY_IN));
-			long c = carry.isValidValue() ? carry.getValue() & 0xFFFFFFFFL : 0;
+			long c = carry.isValidValue() ? carry.getLongValue() : 0;
 			
-			long product = a * b + c;
-			int upper = (int)(product >>> bitSize);
+			// The full product is up to 128 bits wide
+			long lower = a * b;
+			long higher = multiplyHighUnsigned(a, b);
+			lower += c;
+			if(Long.compareUnsigned(lower, c) < 0) {
+				higher++;
+			}
 			
-			state.pushValue(getPort(PORT_OUT_LOWER), WireValue.of((int)product, bitSize));
+			long upper = bitSize == 64 ? higher : (higher << (64 - bitSize)) | (lower >>> bitSize);
+			
+			state.pushValue(getPort(PORT_OUT_LOWER), WireValue.of(lower, bitSize));
 			state.pushValue(getPort(PORT_OUT_UPPER), WireValue.of(upper, bitSize));
 		} else {
 			state.pushValue(getPort(PORT_OUT_LOWER), new WireValue(bitSize));
 			state.pushValue(getPort(PORT_OUT_UPPER), new WireValue(bitSize));
 		}
 	}
+	
+	/**
+	 * @return The upper 64 bits of the unsigned 128-bit product of a and b.
+	 */
+	static long multiplyHighUnsigned(long a, long b) {
+		long aLow = a & 0xFFFFFFFFL, aHigh = a >>> 32;
+		long bLow = b & 0xFFFFFFFFL, bHigh = b >>> 32;
+		
+		long lowLow = aLow * bLow;
+		long highLow = aHigh * bLow;
+		long lowHigh = aLow * bHigh;
+		long highHigh = aHigh * bHigh;
+		
+		long cross = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + lowHigh;
+		return highHigh + (highLow >>> 32) + (cross >>> 32);
+	}
 }
@@ -27,7 +27,7 @@ public class Negator extends Component {
 		
 		WireValue result;
 		if(value.isValidValue()) {
-			result = WireValue.of(-value.getValue(), value.getBitSize());
+			result = WireValue.of(-value.getLongValue(), value.getBitSize());
 		} else {
 			result = xValue;
 		}
@@ -1,5 +1,7 @@
 package com.ra4king.circuitsim.simulator.components.arithmetic;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 import com.ra4king.circuitsim.simulator.CircuitState;
 import com.ra4king.circuitsim.simulator.Component;
 import com.ra4king.circuitsim.simulator.WireValue;
@@ -33,6 +35,6 @@ public class RandomGenerator extends Component {
 	}
 	
 	private WireValue getRandomValue() {
-		return WireValue.of((long)(Math.random() * (1L << bitSize)), bitSize);
+		return WireValue.of(ThreadLocalRandom.current().nextLong(), bitSize);
 	}
 }
@@ -44,6 +44,11 @@ public class Shifter extends Component {
 		WireValue valueIn = state.getLastReceived(getPort(PORT_IN));
 		WireValue shift = state.getLastReceived(getPort(PORT_SHIFT));
 		
+		if(shift.isValidValue() && valueIn.isValidValue() && bitSize <= 64 && shift.getValue() < bitSize) {
+			state.pushValue(getPort(PORT_OUT), WireValue.of(shift(valueIn.getLongValue(), shift.getValue()), bitSize));
+			return;
+		}
+		
 		WireValue result = new WireValue(bitSize);
 		
 		if(shift.isValidValue()) {
@@ -83,4 +88,24 @@ public class Shifter extends Component {
 		
 		state.pushValue(getPort(PORT_OUT), result);
 	}
+	
+	/**
+	 * Shifts a value of up to 64 bits, the result may have garbage above bitSize.
+	 */
+	private long shift(long value, int shiftValue) {
+		switch(shiftType) {
+			case LOGICAL_LEFT:
+				return value << shiftValue;
+			case LOGICAL_RIGHT:
+				return value >>> shiftValue;
+			case ARITHMETIC_RIGHT:
+				return value << (64 - bitSize) >> (64 - bitSize) >> shiftValue;
+			case ROTATE_LEFT:
+				return (value << shiftValue) | (value >>> (bitSize - shiftValue));
+			case ROTATE_RIGHT:
+				return (value >>> shiftValue) | (value << (bitSize - shiftValue));
+			default:
+				throw new IllegalStateException("Unknown shift type " + shiftType);
+		}
+	}
 }
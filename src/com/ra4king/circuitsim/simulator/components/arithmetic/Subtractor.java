@@ -32,14 +32,17 @@ public class Subtractor extends Component {
 		
 		if(state.getLastReceived(getPort(PORT_A)).isValidValue() &&
 				   state.getLastReceived(getPort(PORT_B)).isValidValue()) {
-			int a = state.getLastReceived(getPort(PORT_A)).getValue();
-			int b = state.getLastReceived(getPort(PORT_B)).getValue();
+			long a = state.getLastReceived(getPort(PORT_A)).getLongValue();
+			long b = state.getLastReceived(getPort(PORT_B)).getLongValue();
 			WireValue carry = state.getLastReceived(getPort(PORT_CARRY_IN));
 			
 			int c = carry.getBit(0) == State.ONE ? 1 : 0;
 			
+			// Both values are unsigned, so borrowing is an unsigned a < b + c
+			boolean borrow = Long.compareUnsigned(a, b) < 0 || (c == 1 && a == b);
+			
 			state.pushValue(getPort(PORT_OUT), WireValue.of(a - b - c, bitSize));
-			state.pushValue(getPort(PORT_CARRY_OUT), WireValue.of(a - b - c < 0 ? 1 : 0, 1));
+			state.pushValue(getPort(PORT_CARRY_OUT), WireValue.of(borrow ? 1 : 0, 1));
 		} else {
 			state.pushValue(getPort(PORT_OUT), new WireValue(bitSize));
 			state.pushValue(getPort(PORT_CARRY_OUT), new WireValue(1));
@@ -35,20 +35,21 @@ public class DFlipFlop extends Component {
 	
 	@Override
 	public void valueChanged(CircuitState state, WireValue value, int portIndex) {
-		if(portIndex == PORT_Q || portIndex == PORT_QN) {
+		// Only clear, preset and rising clock edges can change the stored bit
+		boolean risingEdge = portIndex == PORT_CLOCK && value.getBit(0) == State.ONE;
+		if(portIndex != PORT_CLEAR && portIndex != PORT_PRESET && !risingEdge) {
 			return;
 		}
 		
-		State clear = state.getLastReceived(getPort(PORT_CLEAR)).getBit(0);
-		State preset = state.getLastReceived(getPort(PORT_PRESET)).getBit(0);
-		State enable = state.getLastReceived(getPort(PORT_ENABLE)).getBit(0);
+		State clear = state.getLastReceivedBit(getPort(PORT_CLEAR), 0);
+		State preset = state.getLastReceivedBit(getPort(PORT_PRESET), 0);
 		
 		if(clear == State.ONE) {
 			pushValue(state, State.ZERO);
 		} else if(preset == State.ONE) {
 			pushValue(state, State.ONE);
-		} else if(enable != State.ZERO && portIndex == PORT_CLOCK && value.getBit(0) == State.ONE) {
-			State d = state.getLastReceived(getPort(PORT_D)).getBit(0);
+		} else if(risingEdge && state.getLastReceivedBit(getPort(PORT_ENABLE), 0) != State.ZERO) {
+			State d = state.getLastReceivedBit(getPort(PORT_D), 0);
 			if(d != State.X) {
 				pushValue(state, d);
 			}
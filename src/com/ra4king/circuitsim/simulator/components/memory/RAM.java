@@ -60,22 +60,24 @@ public class RAM extends Component {
 		return isSeparateLoadStore;
 	}
 	
-	private List<BiConsumer<Integer, Integer>> listeners = new ArrayList<>();
+	private List<BiConsumer<Integer, Long>> listeners = new ArrayList<>();
 	
-	public void addMemoryListener(BiConsumer<Integer, Integer> listener) {
+	public void addMemoryListener(BiConsumer<Integer, Long> listener) {
 		listeners.add(listener);
 	}
 	
-	public void removeMemoryListener(BiConsumer<Integer, Integer> listener) {
+	public void removeMemoryListener(BiConsumer<Integer, Long> listener) {
 		listeners.remove(listener);
 	}
 	
-	private void notifyListeners(int address, int data) {
+	private void notifyListeners(int address, long data) {
 		listeners.forEach(listener -> listener.accept(address, data));
 	}
 	
-	public void store(CircuitState state, int address, int data) {
-		getMemoryContents(state)[address] = data;
+	public void store(CircuitState state, int address, long data) {
+		long[] memory = getMemoryContents(state);
+		state.arrayPropertyChanging(this, address);
+		memory[address] = data;
 		
 		boolean enabled = state.getLastReceived(getPort(PORT_ENABLE)).getBit(0) != State.ZERO;
 		boolean load = state.getLastReceived(getPort(PORT_LOAD)).getBit(0) != State.ZERO;
@@ -87,28 +89,41 @@ public class RAM extends Component {
 		notifyListeners(address, data);
 	}
 	
-	public int load(CircuitState circuitState, int address) {
-		return getMemoryContents(circuitState)[address];
+	public long load(CircuitState circuitState, int address) {
+		long[] memory = (long[])circuitState.getComponentProperty(this);
+		return memory == null ? 0 : memory[address];
 	}
 	
-	public int[] getMemoryContents(CircuitState circuitState) {
-		return (int[])circuitState.getComponentProperty(this);
+	/**
+	 * The memory array is only allocated on first access, so RAMs that are never written to (for example, in unused
+	 * instances of a subcircuit) don't hold on to a full array each.
+	 */
+	public long[] getMemoryContents(CircuitState circuitState) {
+		long[] memory = (long[])circuitState.getComponentProperty(this);
+		if(memory == null) {
+			memory = new long[1 << addressBits];
+			circuitState.putComponentProperty(this, memory);
+		}
+		return memory;
 	}
 	
 	@Override
 	public void init(CircuitState circuitState, Object lastProperty) {
-		circuitState.putComponentProperty(this, new int[1 << addressBits]);
+		circuitState.removeComponentProperty(this);
 	}
 	
 	@Override
 	public void valueChanged(CircuitState state, WireValue value, int portIndex) {
-		int[] memory = getMemoryContents(state);
+		// Data and store are only read on a rising clock edge
+		if(portIndex == PORT_DATA || portIndex == PORT_DATA_IN || portIndex == PORT_STORE ||
+		   (portIndex == PORT_CLK && value.getBit(0) != State.ONE)) {
+			return;
+		}
 		
-		boolean enabled = state.getLastReceived(getPort(PORT_ENABLE)).getBit(0) != State.ZERO;
-		boolean clear = state.getLastReceived(getPort(PORT_CLEAR)).getBit(0) == State.ONE;
-		boolean load = state.getLastReceived(getPort(PORT_LOAD)).getBit(0) == State.ONE;
-		boolean store =
-			isSeparateLoadStore ? state.getLastReceived(getPort(PORT_STORE)).getBit(0) == State.ONE : !load;
+		boolean enabled = state.getLastReceivedBit(getPort(PORT_ENABLE), 0) != State.ZERO;
+		boolean clear = state.getLastReceivedBit(getPort(PORT_CLEAR), 0) == State.ONE;
+		boolean load = state.getLastReceivedBit(getPort(PORT_LOAD), 0) == State.ONE;
+		boolean store = isSeparateLoadStore ? state.getLastReceivedBit(getPort(PORT_STORE), 0) == State.ONE : !load;
 		
 		WireValue address = state.getLastReceived(getPort(PORT_ADDRESS));
 		
@@ -124,20 +139,23 @@ public class RAM extends Component {
 				}
 				break;
 			case PORT_CLK:
-				if(store && value.getBit(0) == State.ONE && address.isValidValue()) {
+				if(store && address.isValidValue()) {
 					WireValue lastReceived =
 						state.getLastReceived(getPort(isSeparateLoadStore ? PORT_DATA_IN : PORT_DATA));
 					if(lastReceived.isValidValue()) {
-						store(state, address.getValue(), lastReceived.getValue());
+						store(state, address.getValue(), lastReceived.getLongValue());
 					} else {
-						store(state, address.getValue(), WireValue.of(-1, getDataBits()).getValue());
+						store(state, address.getValue(), WireValue.of(-1, getDataBits()).getLongValue());
 					}
 				}
 				break;
 			case PORT_CLEAR:
 				if(clear) {
-					for(int i = 0; i < memory.length; i++) {
-						store(state, i, 0);
+					long[] memory = (long[])state.getComponentProperty(this);
+					if(memory != null) {
+						for(int i = 0; i < memory.length; i++) {
+							store(state, i, 0);
+						}
 					}
 				}
 				break;
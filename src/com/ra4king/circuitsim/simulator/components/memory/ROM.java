@@ -17,9 +17,9 @@ public class ROM extends Component {
 	
 	private final int addressBits;
 	private final int dataBits;
-	private final int[] memory;
+	private final long[] memory;
 	
-	public ROM(String name, int bitSize, int addressBits, int[] memory) {
+	public ROM(String name, int bitSize, int addressBits, long[] memory) {
 		super(name, new int[] { addressBits, 1, bitSize });
 		
 		if(addressBits > 16 || addressBits <= 0) {
@@ -39,7 +39,7 @@ public class ROM extends Component {
 		return dataBits;
 	}
 	
-	public int[] getMemory() {
+	public long[] getMemory() {
 		return memory;
 	}
 	
@@ -37,18 +37,23 @@ public class Register extends Component {
 	
 	@Override
 	public void valueChanged(CircuitState state, WireValue value, int portIndex) {
-		if(portIndex == PORT_OUT) return;
+		// Only the asynchronous zero and rising clock edges can change the stored value. Changes on the input and
+		// enable are only read on the next rising edge, and while zero is held the value is already 0.
+		boolean risingEdge = portIndex == PORT_CLK && value.getBit(0) == State.ONE;
+		if(portIndex != PORT_ZERO && !risingEdge) {
+			return;
+		}
 		
-		if(state.getLastReceived(getPort(PORT_ZERO)).getBit(0) == State.ONE) {
+		if(state.getLastReceivedBit(getPort(PORT_ZERO), 0) == State.ONE) {
 			WireValue pushValue = WireValue.of(0, bitSize);
 			state.pushValue(getPort(PORT_OUT), pushValue);
 			state.putComponentProperty(this, pushValue);
-		} else if(state.getLastReceived(getPort(PORT_ENABLE)).getBit(0) != State.ZERO) {
-			if(portIndex == PORT_CLK && value.getBit(0) == State.ONE) {
-				WireValue pushValue = state.getLastReceived(getPort(PORT_IN));
-				state.pushValue(getPort(PORT_OUT), pushValue);
-				state.putComponentProperty(this, pushValue);
-			}
+		} else if(risingEdge && state.getLastReceivedBit(getPort(PORT_ENABLE), 0) != State.ZERO) {
+			// All components on the clock's link are notified before any of their pushes propagate, so this reads the
+			// input as it was right before the edge
+			WireValue pushValue = state.getLastReceived(getPort(PORT_IN));
+			state.pushValue(getPort(PORT_OUT), pushValue);
+			state.putComponentProperty(this, pushValue);
 		}
 	}
 }
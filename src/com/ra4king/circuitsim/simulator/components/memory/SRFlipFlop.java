@@ -36,21 +36,22 @@ public class SRFlipFlop extends Component {
 	
 	@Override
 	public void valueChanged(CircuitState state, WireValue value, int portIndex) {
-		if(portIndex == PORT_Q || portIndex == PORT_QN) {
+		// Only clear, preset and rising clock edges can change the stored bit
+		boolean risingEdge = portIndex == PORT_CLOCK && value.getBit(0) == State.ONE;
+		if(portIndex != PORT_CLEAR && portIndex != PORT_PRESET && !risingEdge) {
 			return;
 		}
 		
-		State clear = state.getLastReceived(getPort(PORT_CLEAR)).getBit(0);
-		State preset = state.getLastReceived(getPort(PORT_PRESET)).getBit(0);
-		State enable = state.getLastReceived(getPort(PORT_ENABLE)).getBit(0);
+		State clear = state.getLastReceivedBit(getPort(PORT_CLEAR), 0);
+		State preset = state.getLastReceivedBit(getPort(PORT_PRESET), 0);
 		
 		if(clear == State.ONE) {
 			pushValue(state, State.ZERO);
 		} else if(preset == State.ONE) {
 			pushValue(state, State.ONE);
-		} else if(enable != State.ZERO && portIndex == PORT_CLOCK && value.getBit(0) == State.ONE) {
-			State s = state.getLastReceived(getPort(PORT_S)).getBit(0);
-			State r = state.getLastReceived(getPort(PORT_R)).getBit(0);
+		} else if(risingEdge && state.getLastReceivedBit(getPort(PORT_ENABLE), 0) != State.ZERO) {
+			State s = state.getLastReceivedBit(getPort(PORT_S), 0);
+			State r = state.getLastReceivedBit(getPort(PORT_R), 0);
 			
 			if(s == State.ONE && r == State.ZERO) {
 				pushValue(state, State.ONE);
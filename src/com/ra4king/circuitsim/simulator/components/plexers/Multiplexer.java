@@ -61,7 +61,7 @@ public class Multiplexer extends Component {
 		WireValue currentSelect = state.getLastReceived(selectorPort);
 		
 		if(getPort(portIndex) == selectorPort) {
-			if(!value.isValidValue() || !state.getLastReceived(getPort(value.getValue())).isValidValue()) {
+			if(!value.isValidValue()) {
 				state.pushValue(getOutPort(), new WireValue(getBitSize()));
 			} else {
 				state.pushValue(getOutPort(), state.getLastReceived(getPort(value.getValue())));
@@ -1,23 +1,51 @@
 package com.ra4king.circuitsim.simulator.components.wiring;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.ra4king.circuitsim.simulator.Checkpoint;
 import com.ra4king.circuitsim.simulator.Circuit;
 import com.ra4king.circuitsim.simulator.CircuitState;
 import com.ra4king.circuitsim.simulator.Component;
+import com.ra4king.circuitsim.simulator.CycleHistory;
+import com.ra4king.circuitsim.simulator.Port;
 import com.ra4king.circuitsim.simulator.Simulator;
 import com.ra4king.circuitsim.simulator.Utils;
 import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.WireValue.State;
+
+import javafx.util.Pair;
 
 /**
+ * A clock source. Every Clock belongs to a named {@link ClockDomain} of its Simulator, the default domain being named
+ * "". Each domain toggles its Clocks with its own phase and at its own frequency. The static methods control the
+ * default domain.
+ *
  * @author Roi Atalla
  */
 public class Clock extends Component {
-	private static class ClockInfo {
-		private Map<Clock, Object> clocks = new ConcurrentHashMap<>();
+	/**
+	 * A set of Clocks ticking together. Domains are owned by their Simulator, so they are released along with it.
+	 */
+	public static class ClockDomain {
+		private final Simulator simulator;
+		private final String name;
+		
+		// Weakly referenced, so a Clock dropped without being removed from its circuit does not leak
+		private final Set<Clock> clocks = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
 		private Map<ClockChangeListener, Object> clockChangeListeners = new ConcurrentHashMap<>();
 		
+		// The state and port of every Clock in every state of its circuit, rebuilt when the topology changes
+		private List<Pair<CircuitState, Port>> targets = Collections.emptyList();
+		private int targetsVersion;
+		private boolean targetsDirty = true;
+		
 		private Thread currentClock;
 		private boolean clock;
 		
@@ -25,32 +53,120 @@ public class Clock extends Component {
 		private long lastPrintTime;
 		private int tickCount;
 		private volatile int lastTickCount;
+		private volatile int hertz;
 		
-		void reset() {
+		private ClockDomain(Simulator simulator, String name) {
+			this.simulator = simulator;
+			this.name = name;
+			
+			simulator.addCheckpointParticipant(new Checkpoint.Participant() {
+				@Override
+				public Object save() {
+					return clock;
+				}
+				
+				@Override
+				public void restore(Object saved) {
+					clock = (Boolean)saved;
+				}
+			});
+		}
+		
+		public Simulator getSimulator() {
+			return simulator;
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		private void addClock(Clock clock) {
+			simulator.runSync(() -> {
+				clocks.add(clock);
+				targetsDirty = true;
+			});
+		}
+		
+		private void removeClock(Clock clock) {
+			simulator.runSync(() -> {
+				clocks.remove(clock);
+				targetsDirty = true;
+			});
+		}
+		
+		private List<Pair<CircuitState, Port>> getTargets() {
+			int version = simulator.getTopologyVersion();
+			if(targetsDirty || version != targetsVersion) {
+				List<Pair<CircuitState, Port>> targets = new ArrayList<>();
+				synchronized(clocks) {
+					for(Clock clock : clocks) {
+						if(clock.getCircuit() != null) {
+							Port port = clock.getPort(PORT);
+							clock.getCircuit().forEachState(state -> targets.add(new Pair<>(state, port)));
+						}
+					}
+				}
+				
+				this.targets = targets;
+				targetsVersion = version;
+				targetsDirty = false;
+			}
+			
+			return targets;
+		}
+		
+		public void reset() {
 			stopClock();
 			if(clock) {
 				tick();
 			}
 		}
 		
-		void tick() {
-			clock = !clock;
-			WireValue clockValue = WireValue.of(clock ? 1 : 0, 1);
-			clocks.forEach((clock, o) -> {
-				if(clock.getCircuit() != null) {
-					clock.getCircuit().forEachState(state -> state.pushValue(clock.getPort(PORT), clockValue));
+		public void tick() {
+			WireValue clockValue = new WireValue(1);
+			simulator.runSync(() -> {
+				CycleHistory cycleHistory = simulator.getCycleHistory();
+				if(cycleHistory != null) {
+					cycleHistory.beginCycle();
+				}
+				
+				clock = !clock;
+				clockValue.setBit(0, clock ? State.ONE : State.ZERO);
+				for(Pair<CircuitState, Port> target : getTargets()) {
+					target.getKey().pushValue(target.getValue(), clockValue);
 				}
 			});
 			clockChangeListeners.forEach((listener, o) -> listener.valueChanged(clockValue));
 		}
 		
-		void startClock(int hertz) {
+		public boolean getTickState() {
+			return clock;
+		}
+		
+		public int getLastTickCount() {
+			return lastTickCount;
+		}
+		
+		/**
+		 * @return The frequency the running clock was started with, or 0 if it is not running.
+		 */
+		public int getRequestedFrequency() {
+			return hertz;
+		}
+		
+		public boolean isRunning() {
+			return currentClock != null;
+		}
+		
+		public void startClock(int hertz) {
 			lastTickTime = lastPrintTime = System.nanoTime();
 			lastTickCount = tickCount = 0;
 			
 			final long nanosPerTick = (long)(1e9 / (2 * hertz));
 			
 			stopClock();
+			this.hertz = hertz;
+			
 			Thread clockThread = new Thread(() -> {
 				Thread thread = currentClock;
 				
@@ -79,110 +195,150 @@ public class Clock extends Component {
 				}
 			});
 			
-			clockThread.setName("Clock thread");
+			clockThread.setName(name.isEmpty() ? "Clock thread" : "Clock thread " + name);
 			clockThread.setDaemon(true);
 			
 			currentClock = clockThread;
 			clockThread.start();
 		}
 		
-		void stopClock() {
+		public void stopClock() {
 			if(currentClock != null) {
 				Thread clockThread = currentClock;
 				
 				currentClock.interrupt();
 				currentClock = null;
 				lastTickCount = 0;
+				hertz = 0;
 				
 				while(clockThread.isAlive()) {
 					Thread.yield();
 				}
 			}
 		}
+		
+		public void addChangeListener(ClockChangeListener listener) {
+			clockChangeListeners.put(listener, listener);
+		}
+		
+		public void removeChangeListener(ClockChangeListener listener) {
+			clockChangeListeners.remove(listener);
+		}
 	}
 	
-	private static final Map<Simulator, ClockInfo> simulatorClocks = new ConcurrentHashMap<>();
+	private static class ClockDomains {
+		private final Map<String, ClockDomain> domains = new ConcurrentHashMap<>();
+	}
 	
 	public static final int PORT = 0;
 	
+	private final String domain;
+	
 	public Clock(String name) {
+		this(name, "");
+	}
+	
+	/**
+	 * @param domain The name of the ClockDomain this Clock belongs to.
+	 */
+	public Clock(String name, String domain) {
 		super(name, Utils.getFilledArray(1, 1));
+		this.domain = domain;
+	}
+	
+	public String getDomainName() {
+		return domain;
+	}
+	
+	/**
+	 * @return The ClockDomain this Clock belongs to, or null if it is not in a circuit.
+	 */
+	public ClockDomain getDomain() {
+		return getCircuit() == null ? null : getDomain(getCircuit().getSimulator(), domain);
 	}
 	
 	@Override
 	public void setCircuit(Circuit circuit) {
-		Circuit old = getCircuit();
+		ClockDomain old = getDomain();
 		super.setCircuit(circuit);
 		
 		if(old != null) {
-			ClockInfo clock = simulatorClocks.get(old.getSimulator());
-			if(clock != null) {
-				clock.clocks.remove(this);
-			}
+			old.removeClock(this);
 		}
 		
 		if(circuit != null) {
-			ClockInfo clock = get(circuit.getSimulator());
-			clock.clocks.put(this, this);
+			getDomain().addClock(this);
 		}
 	}
 	
 	@Override
 	public void init(CircuitState circuitState, Object lastProperty) {
-		ClockInfo clock = get(getCircuit().getSimulator());
-		circuitState.pushValue(getPort(PORT), WireValue.of(clock.clock ? 1 : 0, 1));
+		circuitState.pushValue(getPort(PORT), WireValue.of(getDomain().clock ? 1 : 0, 1));
 	}
 	
 	@Override
 	public void valueChanged(CircuitState state, WireValue value, int portIndex) {}
 	
-	private static ClockInfo get(Simulator simulator) {
-		return simulatorClocks.computeIfAbsent(simulator, s -> new ClockInfo());
+	/**
+	 * Get the named ClockDomain of the Simulator, creating it if needed.
+	 */
+	public static ClockDomain getDomain(Simulator simulator, String name) {
+		return simulator.getSharedState(ClockDomains.class, s -> new ClockDomains())
+		                .domains.computeIfAbsent(name, n -> new ClockDomain(simulator, n));
+	}
+	
+	/**
+	 * @return All ClockDomains of the Simulator created so far.
+	 */
+	public static Collection<ClockDomain> getDomains(Simulator simulator) {
+		return simulator.getSharedState(ClockDomains.class, s -> new ClockDomains()).domains.values();
+	}
+	
+	private static ClockDomain get(Simulator simulator) {
+		return getDomain(simulator, "");
 	}
 	
 	public static void tick(Simulator simulator) {
-		ClockInfo clock = get(simulator);
-		clock.tick();
+		get(simulator).tick();
 	}
 	
 	public static boolean getTickState(Simulator simulator) {
-		ClockInfo clock = get(simulator);
-		return clock.clock;
+		return get(simulator).getTickState();
 	}
 	
 	public static int getLastTickCount(Simulator simulator) {
-		ClockInfo clock = get(simulator);
-		return clock.lastTickCount;
+		return get(simulator).getLastTickCount();
+	}
+	
+	/**
+	 * @return The frequency the running clock was started with, or 0 if it is not running.
+	 */
+	public static int getRequestedFrequency(Simulator simulator) {
+		return get(simulator).getRequestedFrequency();
 	}
 	
 	public static void reset(Simulator simulator) {
-		ClockInfo clock = get(simulator);
-		clock.reset();
+		get(simulator).reset();
 	}
 	
 	public static void startClock(Simulator simulator, int hertz) {
-		ClockInfo clock = get(simulator);
-		clock.startClock(hertz);
+		get(simulator).startClock(hertz);
 	}
 	
 	public static boolean isRunning(Simulator simulator) {
-		ClockInfo clock = get(simulator);
-		return clock.currentClock != null;
+		return get(simulator).isRunning();
 	}
 	
 	public static void stopClock(Simulator simulator) {
-		ClockInfo clock = get(simulator);
-		clock.stopClock();
+		get(simulator).stopClock();
 	}
 	
 	public static void addChangeListener(Simulator simulator, ClockChangeListener listener) {
-		ClockInfo clock = get(simulator);
-		clock.clockChangeListeners.put(listener, listener);
+		get(simulator).addChangeListener(listener);
 	}
 	
 	public static void removeChangeListener(Simulator simulator, ClockChangeListener listener) {
-		ClockInfo clock = get(simulator);
-		clock.clockChangeListeners.remove(listener);
+		get(simulator).removeChangeListener(listener);
 	}
 	
 	public interface ClockChangeListener {
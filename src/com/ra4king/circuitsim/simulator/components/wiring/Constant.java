@@ -9,11 +9,11 @@ import com.ra4king.circuitsim.simulator.WireValue;
  */
 public class Constant extends Component {
 	private final int bitSize;
-	private final int value;
+	private final long value;
 	
 	public static final int PORT = 0;
 	
-	public Constant(String name, int bitSize, int value) {
+	public Constant(String name, int bitSize, long value) {
 		super(name, new int[] { bitSize });
 		this.bitSize = bitSize;
 		this.value = value;
@@ -23,7 +23,7 @@ public class Constant extends Component {
 		return bitSize;
 	}
 	
-	public int getValue() {
+	public long getValue() {
 		return value;
 	}
 	
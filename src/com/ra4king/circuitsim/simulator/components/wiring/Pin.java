@@ -7,6 +7,7 @@ import java.util.Set;
 
 import com.ra4king.circuitsim.simulator.CircuitState;
 import com.ra4king.circuitsim.simulator.Component;
+import com.ra4king.circuitsim.simulator.Port;
 import com.ra4king.circuitsim.simulator.Utils;
 import com.ra4king.circuitsim.simulator.WireValue;
 
@@ -22,7 +23,6 @@ public class Pin extends Component {
 	
 	public Pin(String name, int bitSize, boolean isInput) {
 		super(name, Utils.getFilledArray(1, bitSize));
-		pinChangeListeners = new HashMap<>();
 		this.bitSize = bitSize;
 		this.isInput = isInput;
 	}
@@ -36,10 +36,18 @@ public class Pin extends Component {
 	}
 	
 	public void addChangeListener(CircuitState state, PinChangeListener listener) {
+		if(pinChangeListeners == null) {
+			pinChangeListeners = new HashMap<>();
+		}
+		
 		pinChangeListeners.computeIfAbsent(state, s -> new HashSet<>()).add(listener);
 	}
 	
 	public void removeChangeListener(CircuitState state, PinChangeListener listener) {
+		if(pinChangeListeners == null) {
+			return;
+		}
+		
 		Set<PinChangeListener> listeners = pinChangeListeners.get(state);
 		if(listeners != null) {
 			listeners.remove(listener);
@@ -59,6 +67,17 @@ public class Pin extends Component {
 	
 	@Override
 	public void valueChanged(CircuitState state, WireValue value, int portIndex) {
+		if(!isInput && state.getParentComponent() != null) {
+			Port port = state.getParentComponent().getBoundPort(this);
+			if(port != null) {
+				state.getParentState().pushBoundaryValue(port, value);
+			}
+		}
+		
+		if(pinChangeListeners == null) {
+			return;
+		}
+		
 		Set<PinChangeListener> listeners = pinChangeListeners.get(state);
 		if(listeners != null) {
 			for(PinChangeListener listener : listeners) {
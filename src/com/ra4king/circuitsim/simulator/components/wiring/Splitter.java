@@ -10,6 +10,12 @@ import com.ra4king.circuitsim.simulator.WireValue;
 public class Splitter extends Component {
 	private final int[] bitFanIndices;
 	
+	// fanBits[i][j] is the index in the joined value of bit j of fan i
+	private final int[][] fanBits;
+	
+	// Reused for every split, pushValue copies the value it is given
+	private final WireValue[] fanValues;
+	
 	public final int PORT_JOINED;
 	
 	public Splitter(String name, int bitSize, int fanouts) {
@@ -22,6 +28,21 @@ public class Splitter extends Component {
 		this.bitFanIndices = bitFanIndices;
 		
 		PORT_JOINED = getNumPorts() - 1;
+		
+		fanBits = new int[PORT_JOINED][];
+		fanValues = new WireValue[PORT_JOINED];
+		for(int i = 0; i < PORT_JOINED; i++) {
+			fanBits[i] = new int[getPort(i).getLink().getBitSize()];
+			fanValues[i] = new WireValue(fanBits[i].length);
+		}
+		
+		int[] fanSizes = new int[PORT_JOINED];
+		for(int i = 0; i < bitFanIndices.length; i++) {
+			int fan = bitFanIndices[i];
+			if(fan >= 0) {
+				fanBits[fan][fanSizes[fan]++] = i;
+			}
+		}
 	}
 	
 	public int[] getBitFanIndices() {
@@ -67,28 +88,25 @@ public class Splitter extends Component {
 						                                bitFanIndices.length + ", value.getBitSize() = " + value.getBitSize());
 			}
 			
-			for(int i = 0; i < getNumPorts() - 1; i++) {
-				WireValue result = new WireValue(getPort(i).getLink().getBitSize());
-				int currBit = 0;
-				for(int j = 0; j < bitFanIndices.length; j++) {
-					if(bitFanIndices[j] == i) {
-						result.setBit(currBit++, value.getBit(j));
-					}
+			for(int i = 0; i < PORT_JOINED; i++) {
+				int[] bits = fanBits[i];
+				WireValue result = fanValues[i];
+				for(int j = 0; j < bits.length; j++) {
+					result.setBit(j, value.getBit(bits[j]));
 				}
 				state.pushValue(getPort(i), result);
 			}
 		} else {
-			WireValue result = new WireValue(state.getLastPushed(getPort(PORT_JOINED)));
-			int currBit = 0;
-			for(int i = 0; i < bitFanIndices.length; i++) {
-				if(bitFanIndices[i] == portIndex) {
-					result.setBit(i, value.getBit(currBit++));
-				}
+			int[] bits = fanBits[portIndex];
+			if(bits.length != value.getBitSize()) {
+				throw new IllegalStateException(this + ": something went wrong somewhere. bits = " + bits.length +
+						                                ", value.getBitSize() = " + value.getBitSize());
 			}
 			
-			if(currBit != value.getBitSize()) {
-				throw new IllegalStateException(this + ": something went wrong somewhere. currBit = " + currBit +
-						                                ", value.getBitSize() = " + value.getBitSize());
+			// getLastPushed returns a copy, so it can be modified in place
+			WireValue result = state.getLastPushed(getPort(PORT_JOINED));
+			for(int j = 0; j < bits.length; j++) {
+				result.setBit(bits[j], value.getBit(j));
 			}
 			
 			state.pushValue(getPort(PORT_JOINED), result);
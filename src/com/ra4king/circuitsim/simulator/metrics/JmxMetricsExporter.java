@@ -0,0 +1,111 @@
+package com.ra4king.circuitsim.simulator.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exposes every metric as a read-only attribute of a single MBean, viewable with jconsole or any JMX client.
+ *
+ * @author Roi Atalla
+ */
+public class JmxMetricsExporter implements MetricsExporter {
+	private final MetricsRegistry registry;
+	private final ObjectName objectName;
+	
+	public JmxMetricsExporter(MetricsRegistry registry, String name) {
+		this.registry = registry;
+		
+		try {
+			this.objectName = new ObjectName("com.ra4king.circuitsim:type=Metrics,name=" + ObjectName.quote(name));
+		} catch(JMException exc) {
+			throw new IllegalArgumentException("Invalid name: " + name, exc);
+		}
+	}
+	
+	@Override
+	public void start() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if(!server.isRegistered(objectName)) {
+				server.registerMBean(new MetricsMBean(), objectName);
+			}
+		} catch(JMException exc) {
+			throw new IllegalStateException("Could not register metrics MBean", exc);
+		}
+	}
+	
+	@Override
+	public void stop() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if(server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch(JMException exc) {
+			throw new IllegalStateException("Could not unregister metrics MBean", exc);
+		}
+	}
+	
+	private class MetricsMBean implements DynamicMBean {
+		@Override
+		public Object getAttribute(String attribute) throws AttributeNotFoundException {
+			Double value = registry.snapshot().get(attribute);
+			if(value == null) {
+				throw new AttributeNotFoundException(attribute);
+			}
+			return value;
+		}
+		
+		@Override
+		public AttributeList getAttributes(String[] attributes) {
+			Map<String, Double> values = registry.snapshot();
+			AttributeList list = new AttributeList();
+			for(String attribute : attributes) {
+				Double value = values.get(attribute);
+				if(value != null) {
+					list.add(new Attribute(attribute, value));
+				}
+			}
+			return list;
+		}
+		
+		@Override
+		public void setAttribute(Attribute attribute) {
+			throw new UnsupportedOperationException("Metrics are read-only");
+		}
+		
+		@Override
+		public AttributeList setAttributes(AttributeList attributes) {
+			return new AttributeList();
+		}
+		
+		@Override
+		public Object invoke(String actionName, Object[] params, String[] signature) {
+			throw new UnsupportedOperationException("No operations");
+		}
+		
+		@Override
+		public MBeanInfo getMBeanInfo() {
+			Map<String, Double> values = registry.snapshot();
+			MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[values.size()];
+			int i = 0;
+			for(String name : values.keySet()) {
+				attributes[i++] = new MBeanAttributeInfo(name, Double.class.getName(), name, true, false, false);
+			}
+			
+			return new MBeanInfo(MetricsRegistry.class.getName(), "CircuitSim runtime metrics", attributes,
+			                     null, new MBeanOperationInfo[0], null);
+		}
+	}
+}
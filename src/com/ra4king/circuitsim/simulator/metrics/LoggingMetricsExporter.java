@@ -0,0 +1,56 @@
+package com.ra4king.circuitsim.simulator.metrics;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically prints every metric on a single line, e.g. {@code [metrics] simulator.steps.perSecond=1200.0 ...}.
+ *
+ * @author Roi Atalla
+ */
+public class LoggingMetricsExporter implements MetricsExporter {
+	private final MetricsRegistry registry;
+	private final PrintStream out;
+	private final long periodMillis;
+	
+	private ScheduledExecutorService executor;
+	
+	public LoggingMetricsExporter(MetricsRegistry registry, PrintStream out, long periodMillis) {
+		this.registry = registry;
+		this.out = out;
+		this.periodMillis = periodMillis;
+	}
+	
+	@Override
+	public synchronized void start() {
+		if(executor != null) {
+			return;
+		}
+		
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Metrics logger");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleAtFixedRate(this::log, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	@Override
+	public synchronized void stop() {
+		if(executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+	
+	private void log() {
+		StringBuilder line = new StringBuilder("[metrics]");
+		for(Map.Entry<String, Double> entry : registry.snapshot().entrySet()) {
+			line.append(' ').append(entry.getKey()).append('=').append(String.format("%.3f", entry.getValue()));
+		}
+		out.println(line);
+	}
+}
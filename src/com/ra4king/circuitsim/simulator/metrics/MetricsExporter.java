@@ -0,0 +1,12 @@
+package com.ra4king.circuitsim.simulator.metrics;
+
+/**
+ * Publishes the values of a MetricsRegistry somewhere outside the simulator.
+ *
+ * @author Roi Atalla
+ */
+public interface MetricsExporter {
+	void start();
+	
+	void stop();
+}
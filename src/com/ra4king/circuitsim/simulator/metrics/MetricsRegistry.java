@@ -0,0 +1,208 @@
+package com.ra4king.circuitsim.simulator.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * A registry of named runtime metrics: counters, timers and gauges. It is read through {@code snapshot()}, usually by a
+ * MetricsExporter, which flattens every metric into one or more named values:
+ * <ul>
+ * <li>a counter {@code name} reports {@code name.total} and {@code name.perSecond}</li>
+ * <li>a timer {@code name} reports {@code name.count}, {@code name.avgMillis} and {@code name.p99Millis} over its
+ * last {@value Timer#RESERVOIR_SIZE} recordings</li>
+ * <li>a gauge {@code name} reports its current value as {@code name}</li>
+ * </ul>
+ * Recording is thread-safe and cheap enough to stay enabled.
+ *
+ * @author Roi Atalla
+ */
+public class MetricsRegistry {
+	// Rates are recomputed at most this often so that several exporters reading at once see consistent values
+	private static final long MIN_RATE_INTERVAL = 1000000000L;
+	
+	private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+	private final Map<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+	
+	private long lastRateTime = System.nanoTime();
+	
+	/**
+	 * Get or create the counter with the given name.
+	 */
+	public Counter counter(String name) {
+		return counters.computeIfAbsent(name, n -> new Counter(null));
+	}
+	
+	/**
+	 * Register a counter whose total is read from the supplier instead of being incremented, such as a cumulative
+	 * count maintained elsewhere. Its rate is derived like any other counter's.
+	 */
+	public void counter(String name, LongSupplier total) {
+		counters.put(name, new Counter(total));
+	}
+	
+	/**
+	 * Get or create the timer with the given name.
+	 */
+	public Timer timer(String name) {
+		return timers.computeIfAbsent(name, n -> new Timer());
+	}
+	
+	/**
+	 * Register a gauge, replacing any gauge with the same name.
+	 */
+	public void gauge(String name, DoubleSupplier value) {
+		gauges.put(name, value);
+	}
+	
+	/**
+	 * Register the JVM's allocation rate as the counter {@code jvm.allocatedBytes}, if the JVM supports it.
+	 */
+	public void addJvmMetrics() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if(threadMXBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean)threadMXBean;
+			if(bean.isThreadAllocatedMemorySupported()) {
+				bean.setThreadAllocatedMemoryEnabled(true);
+				counter("jvm.allocatedBytes", new AllocatedBytes(bean));
+			}
+		}
+		
+		Runtime runtime = Runtime.getRuntime();
+		gauge("jvm.usedHeapBytes", () -> runtime.totalMemory() - runtime.freeMemory());
+	}
+	
+	/**
+	 * Read every metric.
+	 *
+	 * @return The flattened metric values, sorted by name.
+	 */
+	public synchronized Map<String, Double> snapshot() {
+		long now = System.nanoTime();
+		double elapsedSeconds = (now - lastRateTime) / 1e9;
+		boolean updateRates = now - lastRateTime >= MIN_RATE_INTERVAL;
+		if(updateRates) {
+			lastRateTime = now;
+		}
+		
+		Map<String, Double> values = new TreeMap<>();
+		counters.forEach((name, counter) -> {
+			long total = counter.get();
+			if(updateRates) {
+				counter.rate = (total - counter.lastTotal) / elapsedSeconds;
+				counter.lastTotal = total;
+			}
+			values.put(name + ".total", (double)total);
+			values.put(name + ".perSecond", counter.rate);
+		});
+		timers.forEach((name, timer) -> timer.snapshot(name, values));
+		gauges.forEach((name, gauge) -> values.put(name, gauge.getAsDouble()));
+		return values;
+	}
+	
+	/**
+	 * The bytes allocated by all threads so far. The live threads' allocated bytes can't simply be summed, since the
+	 * sum drops whenever a thread dies. Instead each live thread's growth since the last read is added to the total,
+	 * keyed by thread ID, so the bytes of dead threads stay counted. Threads that start and die between two reads are
+	 * never seen.
+	 */
+	private static class AllocatedBytes implements LongSupplier {
+		private final com.sun.management.ThreadMXBean bean;
+		private Map<Long, Long> lastAllocated = new HashMap<>();
+		private long total;
+		
+		AllocatedBytes(com.sun.management.ThreadMXBean bean) {
+			this.bean = bean;
+		}
+		
+		@Override
+		public synchronized long getAsLong() {
+			long[] threadIds = bean.getAllThreadIds();
+			long[] allocated = bean.getThreadAllocatedBytes(threadIds);
+			
+			Map<Long, Long> current = new HashMap<>();
+			for(int i = 0; i < threadIds.length; i++) {
+				if(allocated[i] < 0) {
+					continue; // the thread died since getAllThreadIds
+				}
+				
+				long last = lastAllocated.getOrDefault(threadIds[i], 0L);
+				// A smaller value means the ID was reused by a new thread
+				total += allocated[i] >= last ? allocated[i] - last : allocated[i];
+				current.put(threadIds[i], allocated[i]);
+			}
+			lastAllocated = current;
+			
+			return total;
+		}
+	}
+	
+	public static class Counter {
+		private final LongAdder adder = new LongAdder();
+		private final LongSupplier supplier;
+		
+		// Guarded by the registry's snapshot lock
+		private long lastTotal;
+		private double rate;
+		
+		private Counter(LongSupplier supplier) {
+			this.supplier = supplier;
+		}
+		
+		public void increment() {
+			adder.increment();
+		}
+		
+		public void add(long amount) {
+			adder.add(amount);
+		}
+		
+		public long get() {
+			return supplier == null ? adder.sum() : supplier.getAsLong();
+		}
+	}
+	
+	public static class Timer {
+		static final int RESERVOIR_SIZE = 1024;
+		
+		private final long[] reservoir = new long[RESERVOIR_SIZE];
+		private long count;
+		
+		public synchronized void record(long nanos) {
+			reservoir[(int)(count++ % RESERVOIR_SIZE)] = nanos;
+		}
+		
+		private void snapshot(String name, Map<String, Double> values) {
+			long[] samples;
+			long count;
+			synchronized(this) {
+				count = this.count;
+				samples = Arrays.copyOf(reservoir, (int)Math.min(count, RESERVOIR_SIZE));
+			}
+			
+			double avg = 0, p99 = 0;
+			if(samples.length > 0) {
+				long total = 0;
+				for(long sample : samples) {
+					total += sample;
+				}
+				avg = (double)total / samples.length;
+				
+				Arrays.sort(samples);
+				p99 = samples[Math.min(samples.length - 1, (int)Math.ceil(samples.length * 0.99) - 1)];
+			}
+			
+			values.put(name + ".count", (double)count);
+			values.put(name + ".avgMillis", avg / 1e6);
+			values.put(name + ".p99Millis", p99 / 1e6);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.ra4king.circuitsim;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.Subcircuit;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Adder;
+import com.ra4king.circuitsim.simulator.components.memory.RAM;
+import com.ra4king.circuitsim.simulator.components.memory.Register;
+import com.ra4king.circuitsim.simulator.components.wiring.Clock;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * A sequential circuit shared by several tests. An accumulator: on every rising clock edge, Out += Step.
+ *
+ * @author Roi Atalla
+ */
+public class Accumulator {
+	final Circuit circuit;
+	final Pin step;
+	final Pin out;
+	
+	Accumulator(Simulator simulator) {
+		circuit = new Circuit("Accumulator", simulator);
+		Register register = circuit.addComponent(new Register("Register", 8));
+		Adder adder = circuit.addComponent(new Adder("Adder", 8));
+		Clock clock = circuit.addComponent(new Clock("Clock"));
+		step = circuit.addComponent(new Pin("Step", 8, true));
+		out = circuit.addComponent(new Pin("Out", 8, false));
+		
+		adder.getPort(Adder.PORT_A).linkPort(register.getPort(Register.PORT_OUT));
+		adder.getPort(Adder.PORT_B).linkPort(step.getPort(Pin.PORT));
+		register.getPort(Register.PORT_IN).linkPort(adder.getPort(Adder.PORT_OUT));
+		register.getPort(Register.PORT_CLK).linkPort(clock.getPort(Clock.PORT));
+		out.getPort(Pin.PORT).linkPort(register.getPort(Register.PORT_OUT));
+	}
+	
+	/**
+	 * Toggles the clock the given number of times, settling the circuits after each toggle.
+	 */
+	static void tick(Simulator simulator, int times) {
+		for(int i = 0; i < times; i++) {
+			Clock.tick(simulator);
+			simulator.stepAll();
+		}
+	}
+	
+	/**
+	 * The accumulator used as a subcircuit, next to a RAM.
+	 */
+	static class Top {
+		final Circuit circuit;
+		final Pin step;
+		final Pin out;
+		final RAM ram;
+		
+		Top(Simulator simulator) {
+			Accumulator accumulator = new Accumulator(simulator);
+			
+			circuit = new Circuit("Top", simulator);
+			Subcircuit subcircuit = circuit.addComponent(new Subcircuit("Accumulator", accumulator.circuit));
+			step = circuit.addComponent(new Pin("Step", 8, true));
+			out = circuit.addComponent(new Pin("Out", 8, false));
+			ram = circuit.addComponent(new RAM("RAM", 8, 4, false));
+			subcircuit.getPort(accumulator.step).linkPort(step.getPort(Pin.PORT));
+			subcircuit.getPort(accumulator.out).linkPort(out.getPort(Pin.PORT));
+		}
+		
+		void check(int expected) {
+			WireValue value = circuit.getTopLevelState().getLastReceived(out.getPort(Pin.PORT));
+			if(!value.isValidValue() || value.getValue() != expected) {
+				throw new IllegalStateException("Expected " + expected + ", got " + value);
+			}
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package com.ra4king.circuitsim;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.batch.BatchSimulator;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Adder;
+import com.ra4king.circuitsim.simulator.components.gates.AndGate;
+import com.ra4king.circuitsim.simulator.components.gates.NorGate;
+import com.ra4king.circuitsim.simulator.components.gates.XorGate;
+import com.ra4king.circuitsim.simulator.components.memory.Register;
+import com.ra4king.circuitsim.simulator.components.plexers.Decoder;
+import com.ra4king.circuitsim.simulator.components.plexers.Demultiplexer;
+import com.ra4king.circuitsim.simulator.components.plexers.Multiplexer;
+import com.ra4king.circuitsim.simulator.components.wiring.Constant;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+import com.ra4king.circuitsim.simulator.components.wiring.Splitter;
+
+/**
+ * @author Roi Atalla
+ */
+public class BatchSimulatorTest {
+	public static void main(String[] args) {
+		Simulator simulator = new Simulator();
+		Circuit circuit = new Circuit("Batch", simulator);
+		
+		Pin a = circuit.addComponent(new Pin("A", 4, true));
+		Pin b = circuit.addComponent(new Pin("B", 4, true));
+		Pin carryIn = circuit.addComponent(new Pin("Cin", 1, true));
+		Pin select = circuit.addComponent(new Pin("Sel", 2, true));
+		
+		Adder adder = circuit.addComponent(new Adder("Adder", 4));
+		adder.getPort(Adder.PORT_A).linkPort(a.getPort(Pin.PORT));
+		adder.getPort(Adder.PORT_B).linkPort(b.getPort(Pin.PORT));
+		adder.getPort(Adder.PORT_CARRY_IN).linkPort(carryIn.getPort(Pin.PORT));
+		
+		AndGate and = circuit.addComponent(new AndGate("And", 4, 2));
+		and.getPort(0).linkPort(a.getPort(Pin.PORT));
+		and.getPort(1).linkPort(b.getPort(Pin.PORT));
+		
+		XorGate xor = circuit.addComponent(new XorGate("Xor", 4, 2, new boolean[] { false, true }));
+		xor.getPort(0).linkPort(a.getPort(Pin.PORT));
+		xor.getPort(1).linkPort(b.getPort(Pin.PORT));
+		
+		Constant constant = circuit.addComponent(new Constant("Five", 4, 5));
+		
+		Multiplexer mux = circuit.addComponent(new Multiplexer("Mux", 4, 2));
+		mux.getInputPort(0).linkPort(adder.getPort(Adder.PORT_OUT));
+		mux.getInputPort(1).linkPort(and.getOutPort());
+		mux.getInputPort(2).linkPort(xor.getOutPort());
+		mux.getInputPort(3).linkPort(constant.getPort(Constant.PORT));
+		mux.getSelectorPort().linkPort(select.getPort(Pin.PORT));
+		
+		Pin out = circuit.addComponent(new Pin("Out", 4, false));
+		out.getPort(Pin.PORT).linkPort(mux.getOutPort());
+		Pin carryOut = circuit.addComponent(new Pin("Cout", 1, false));
+		carryOut.getPort(Pin.PORT).linkPort(adder.getPort(Adder.PORT_CARRY_OUT));
+		
+		// Split A into two 2-bit halves, decode the low half and route the high half through a demux
+		Splitter splitter = circuit.addComponent(new Splitter("Split", 4, 2));
+		splitter.getPort(splitter.PORT_JOINED).linkPort(a.getPort(Pin.PORT));
+		
+		Decoder decoder = circuit.addComponent(new Decoder("Decoder", 2));
+		decoder.getSelectorPort().linkPort(splitter.getPort(0));
+		
+		Splitter joiner = circuit.addComponent(new Splitter("Join", 4, 4));
+		for(int i = 0; i < 4; i++) {
+			joiner.getPort(i).linkPort(decoder.getOutputPort(i));
+		}
+		Pin decoded = circuit.addComponent(new Pin("Decoded", 4, false));
+		decoded.getPort(Pin.PORT).linkPort(joiner.getPort(joiner.PORT_JOINED));
+		
+		Demultiplexer demux = circuit.addComponent(new Demultiplexer("Demux", 2, 1));
+		demux.getInputPort().linkPort(splitter.getPort(1));
+		demux.getSelectorPort().linkPort(carryIn.getPort(Pin.PORT));
+		
+		NorGate nor = circuit.addComponent(new NorGate("Nor", 2, 2));
+		nor.getPort(0).linkPort(demux.getOutputPort(0));
+		nor.getPort(1).linkPort(demux.getOutputPort(1));
+		Pin norOut = circuit.addComponent(new Pin("Nor", 2, false));
+		norOut.getPort(Pin.PORT).linkPort(nor.getOutPort());
+		
+		BatchSimulator batch = new BatchSimulator(circuit);
+		if(!batch.isBitParallel()) {
+			throw new IllegalStateException("Expected a bit-parallel circuit: " + batch.getFallbackReason());
+		}
+		
+		List<Map<Pin, WireValue>> vectors = new ArrayList<>();
+		for(int i = 0; i < 1 << 11; i++) {
+			Map<Pin, WireValue> vector = new HashMap<>();
+			vector.put(a, WireValue.of(i & 0xF, 4));
+			vector.put(b, WireValue.of((i >> 4) & 0xF, 4));
+			vector.put(carryIn, WireValue.of((i >> 8) & 1, 1));
+			vector.put(select, WireValue.of((i >> 9) & 3, 2));
+			vectors.add(vector);
+		}
+		
+		List<Map<Pin, WireValue>> parallel = batch.run(vectors);
+		List<Map<Pin, WireValue>> scalar = batch.runScalar(vectors);
+		
+		for(int i = 0; i < vectors.size(); i++) {
+			if(!parallel.get(i).equals(scalar.get(i))) {
+				throw new IllegalStateException("Vector " + i + ": expected " + scalar.get(i) + ", got " +
+					                                parallel.get(i));
+			}
+		}
+		
+		// A multiplexer passes the X bits of the selected input through bit by bit, and outputs all X on an X selector
+		Circuit partial = new Circuit("Partial", simulator);
+		Pin data0 = partial.addComponent(new Pin("D0", 2, true));
+		Pin data1 = partial.addComponent(new Pin("D1", 2, true));
+		Pin muxSelect = partial.addComponent(new Pin("Sel", 1, true));
+		Multiplexer partialMux = partial.addComponent(new Multiplexer("Mux", 2, 1));
+		partialMux.getInputPort(0).linkPort(data0.getPort(Pin.PORT));
+		partialMux.getInputPort(1).linkPort(data1.getPort(Pin.PORT));
+		partialMux.getSelectorPort().linkPort(muxSelect.getPort(Pin.PORT));
+		Pin muxOut = partial.addComponent(new Pin("Out", 2, false));
+		muxOut.getPort(Pin.PORT).linkPort(partialMux.getOutPort());
+		
+		BatchSimulator partialBatch = new BatchSimulator(partial);
+		List<Map<Pin, WireValue>> partialVectors = new ArrayList<>();
+		for(int i = 0; i < 3 * 9 * 9; i++) {
+			Map<Pin, WireValue> vector = new HashMap<>();
+			vector.put(data0, ternary(i % 9, 2));
+			vector.put(data1, ternary(i / 9 % 9, 2));
+			vector.put(muxSelect, ternary(i / 81, 1));
+			partialVectors.add(vector);
+		}
+		
+		List<Map<Pin, WireValue>> partialParallel = partialBatch.run(partialVectors);
+		List<Map<Pin, WireValue>> partialScalar = partialBatch.runScalar(partialVectors);
+		for(int i = 0; i < partialVectors.size(); i++) {
+			if(!partialParallel.get(i).equals(partialScalar.get(i))) {
+				throw new IllegalStateException("Vector " + partialVectors.get(i) + ": expected " +
+				                                partialScalar.get(i) + ", got " + partialParallel.get(i));
+			}
+		}
+		
+		WireValue selectedX1 = partialParallel.get(2 + 1 * 3).get(muxOut);
+		if(!selectedX1.toString().equals("1x")) {
+			throw new IllegalStateException("Expected 1x to be passed through, got " + selectedX1);
+		}
+		
+		// Sequential components fall back to the regular simulator
+		Circuit sequential = new Circuit("Sequential", simulator);
+		Register register = sequential.addComponent(new Register("Register", 4));
+		Pin in = sequential.addComponent(new Pin("In", 4, true));
+		register.getPort(Register.PORT_IN).linkPort(in.getPort(Pin.PORT));
+		
+		if(new BatchSimulator(sequential).isBitParallel()) {
+			throw new IllegalStateException("Register should not be evaluated bit-parallel");
+		}
+		
+		System.out.println("Evaluated " + vectors.size() + " vectors, all match.");
+	}
+	
+	/**
+	 * The value whose bits are the base 3 digits of the given number, 0 for 0, 1 for 1 and 2 for X.
+	 */
+	private static WireValue ternary(int digits, int bitSize) {
+		WireValue value = new WireValue(bitSize);
+		for(int bit = 0; bit < bitSize; bit++, digits /= 3) {
+			int digit = digits % 3;
+			value.setBit(bit, digit == 0 ? WireValue.State.ZERO : digit == 1 ? WireValue.State.ONE : WireValue.State.X);
+		}
+		return value;
+	}
+}
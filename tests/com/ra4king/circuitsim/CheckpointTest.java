@@ -0,0 +1,96 @@
+package com.ra4king.circuitsim;
+
+import com.ra4king.circuitsim.simulator.Checkpoint;
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.memory.RAM;
+import com.ra4king.circuitsim.simulator.components.wiring.Clock;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class CheckpointTest {
+	public static void main(String[] args) {
+		Simulator simulator = new Simulator();
+		
+		Accumulator.Top top = new Accumulator.Top(simulator);
+		Circuit circuit = top.circuit;
+		RAM ram = top.ram;
+		
+		top.step.setValue(circuit.getTopLevelState(), WireValue.of(3, 8));
+		simulator.stepAll();
+		Accumulator.tick(simulator, 4);
+		ram.store(circuit.getTopLevelState(), 5, 42);
+		top.check(6);
+		
+		Checkpoint atLow = Checkpoint.capture(simulator);
+		
+		Accumulator.tick(simulator, 1);
+		top.check(9);
+		Checkpoint atHigh = Checkpoint.capture(simulator);
+		
+		Accumulator.tick(simulator, 2);
+		top.check(12);
+		
+		atHigh.restore();
+		simulator.stepAll();
+		top.check(9);
+		if(!Clock.getTickState(simulator)) {
+			throw new IllegalStateException("Expected the clock to be high");
+		}
+		Accumulator.tick(simulator, 2);
+		top.check(12);
+		
+		// A reset recreates the subcircuit's state and clears the RAM, a restore brings them back
+		ram.store(circuit.getTopLevelState(), 5, 7);
+		Clock.reset(simulator);
+		simulator.reset();
+		simulator.stepAll();
+		top.check(0);
+		
+		atLow.restore();
+		simulator.stepAll();
+		top.check(6);
+		if(Clock.getTickState(simulator)) {
+			throw new IllegalStateException("Expected the clock to be low");
+		}
+		if(ram.load(circuit.getTopLevelState(), 5) != 42) {
+			throw new IllegalStateException("Expected 42 in the RAM, got " + ram.load(circuit.getTopLevelState(), 5));
+		}
+		
+		Accumulator.tick(simulator, 2);
+		top.check(9);
+		
+		// Restoring is repeatable
+		for(int i = 0; i < 100; i++) {
+			atLow.restore();
+			simulator.stepAll();
+			top.check(6);
+		}
+		
+		// Restoring leaves the topology alone, so caches derived from it are kept
+		int topologyVersion = simulator.getTopologyVersion();
+		atLow.restore();
+		if(simulator.getTopologyVersion() != topologyVersion) {
+			throw new IllegalStateException("Restoring changed the topology version");
+		}
+		
+		// Even a component that is not linked to anything makes the checkpoint stale
+		Pin extra = circuit.addComponent(new Pin("Extra", 1, true));
+		try {
+			atLow.restore();
+			throw new IllegalStateException("Expected restoring after adding a component to fail");
+		} catch(IllegalStateException exc) {
+			if(!exc.getMessage().contains("was modified")) {
+				throw exc;
+			}
+		}
+		circuit.removeComponent(extra);
+		atLow.restore();
+		
+		System.out.println("Checkpoint size: " + atLow.getSize() + " bytes");
+		System.out.println("All tests passed.");
+	}
+}
@@ -0,0 +1,100 @@
+package com.ra4king.circuitsim;
+
+import java.lang.ref.WeakReference;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.Subcircuit;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Adder;
+import com.ra4king.circuitsim.simulator.components.memory.Register;
+import com.ra4king.circuitsim.simulator.components.wiring.Clock;
+import com.ra4king.circuitsim.simulator.components.wiring.Clock.ClockDomain;
+import com.ra4king.circuitsim.simulator.components.wiring.Constant;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class ClockDomainTest {
+	public static void main(String[] args) {
+		Simulator simulator = new Simulator();
+		
+		// A counter clocked by the domain given to its Clock
+		Circuit fast = counter(simulator, "Fast", "");
+		Circuit slow = counter(simulator, "Slow", "slow");
+		
+		Circuit top = new Circuit("Top", simulator);
+		top.addComponent(new Subcircuit("Fast", fast));
+		simulator.stepAll();
+		
+		ClockDomain slowDomain = Clock.getDomain(simulator, "slow");
+		for(int i = 0; i < 8; i++) {
+			Clock.tick(simulator);
+			simulator.stepAll();
+			if(i % 2 == 0) {
+				slowDomain.tick();
+				simulator.stepAll();
+			}
+		}
+		
+		check(fast.getTopLevelState(), fast, 4);
+		check(slow.getTopLevelState(), slow, 2);
+		if(Clock.getDomains(simulator).size() != 2) {
+			throw new IllegalStateException("Expected 2 clock domains, got " + Clock.getDomains(simulator).size());
+		}
+		
+		// A subcircuit instance added later must be clocked as well
+		Subcircuit second = top.addComponent(new Subcircuit("Second", fast));
+		simulator.stepAll();
+		for(int i = 0; i < 4; i++) {
+			Clock.tick(simulator);
+			simulator.stepAll();
+		}
+		check(fast.getTopLevelState(), fast, 6);
+		check(second.getSubcircuitState(top.getTopLevelState()), fast, 2);
+		
+		// Clocks no longer keep their Simulator alive
+		WeakReference<Simulator> reference = new WeakReference<>(simulator);
+		simulator = null;
+		slowDomain = null;
+		fast = slow = top = null;
+		second = null;
+		for(int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+		}
+		if(reference.get() != null) {
+			throw new IllegalStateException("Simulator was not released");
+		}
+		
+		System.out.println("All tests passed.");
+	}
+	
+	private static Circuit counter(Simulator simulator, String name, String domain) {
+		Circuit circuit = new Circuit(name, simulator);
+		Register register = circuit.addComponent(new Register("Register", 8));
+		Adder adder = circuit.addComponent(new Adder("Adder", 8));
+		Clock clock = circuit.addComponent(new Clock("Clock", domain));
+		Constant step = circuit.addComponent(new Constant("Step", 8, 1));
+		Pin out = circuit.addComponent(new Pin("Out", 8, false));
+		adder.getPort(Adder.PORT_A).linkPort(register.getPort(Register.PORT_OUT));
+		adder.getPort(Adder.PORT_B).linkPort(step.getPort(Constant.PORT));
+		register.getPort(Register.PORT_IN).linkPort(adder.getPort(Adder.PORT_OUT));
+		register.getPort(Register.PORT_CLK).linkPort(clock.getPort(Clock.PORT));
+		out.getPort(Pin.PORT).linkPort(register.getPort(Register.PORT_OUT));
+		return circuit;
+	}
+	
+	private static void check(CircuitState state, Circuit circuit, int expected) {
+		Pin out = (Pin)circuit.getComponents()
+		                      .stream()
+		                      .filter(component -> component.getName().equals("Out"))
+		                      .findFirst()
+		                      .orElseThrow(IllegalStateException::new);
+		WireValue value = state.getMergedValue(out.getPort(Pin.PORT).getLink());
+		if(value.getValue() != expected) {
+			throw new IllegalStateException(circuit.getName() + ": expected " + expected + ", got " + value);
+		}
+	}
+}
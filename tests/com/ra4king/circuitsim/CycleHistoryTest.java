@@ -0,0 +1,117 @@
+package com.ra4king.circuitsim;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CycleHistory;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.memory.RAM;
+import com.ra4king.circuitsim.simulator.components.wiring.Clock;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class CycleHistoryTest {
+	public static void main(String[] args) {
+		Simulator simulator = new Simulator();
+		
+		Accumulator.Top top = new Accumulator.Top(simulator);
+		Circuit circuit = top.circuit;
+		RAM ram = top.ram;
+		
+		top.step.setValue(circuit.getTopLevelState(), WireValue.of(3, 8));
+		simulator.stepAll();
+		
+		CycleHistory history = new CycleHistory(simulator, 1 << 20);
+		simulator.setCycleHistory(history);
+		if(history.stepBack()) {
+			throw new IllegalStateException("Expected nothing to step back to");
+		}
+		
+		// Every rising edge adds 3 and stores the new value in the RAM
+		for(int i = 0; i < 10; i++) {
+			Accumulator.tick(simulator, 1);
+			if(Clock.getTickState(simulator)) {
+				ram.store(circuit.getTopLevelState(), 1, 3 * (i / 2 + 1));
+			}
+		}
+		top.check(15);
+		if(history.getCycleCount() != 10) {
+			throw new IllegalStateException("Expected 10 cycles, got " + history.getCycleCount());
+		}
+		
+		for(int i = 10; i > 0; i--) {
+			int expected = 3 * ((i + 1) / 2);
+			top.check(expected);
+			if(ram.load(circuit.getTopLevelState(), 1) != expected) {
+				throw new IllegalStateException("Expected " + expected + " in the RAM, got " +
+				                                ram.load(circuit.getTopLevelState(), 1));
+			}
+			
+			if(!history.stepBack()) {
+				throw new IllegalStateException("Expected to step back at cycle " + i);
+			}
+			simulator.stepAll();
+		}
+		top.check(0);
+		if(Clock.getTickState(simulator)) {
+			throw new IllegalStateException("Expected the clock to be low");
+		}
+		if(history.stepBack()) {
+			throw new IllegalStateException("Expected nothing left to step back to");
+		}
+		
+		// Changes made after stepping back are undone along with the cycle they were made in
+		Accumulator.tick(simulator, 2);
+		top.check(3);
+		history.stepBack();
+		top.step.setValue(circuit.getTopLevelState(), WireValue.of(5, 8));
+		simulator.stepAll();
+		Accumulator.tick(simulator, 2);
+		top.check(8);
+		for(int expected : new int[] { 3, 3, 0 }) {
+			history.stepBack();
+			simulator.stepAll();
+			top.check(expected);
+		}
+		WireValue stepValue = circuit.getTopLevelState().getLastPushed(top.step.getPort(Pin.PORT));
+		if(stepValue.getValue() != 3) {
+			throw new IllegalStateException("Expected the Step pin to be back to 3, got " + stepValue);
+		}
+		
+		// Modifying a circuit clears the history
+		Accumulator.tick(simulator, 2);
+		circuit.addComponent(new Pin("Unused", 1, true));
+		if(history.getCycleCount() != 0) {
+			throw new IllegalStateException("Expected an empty history after modifying a circuit");
+		}
+		
+		// Old cycles are evicted once over the memory cap
+		CycleHistory small = new CycleHistory(simulator, 4096);
+		simulator.setCycleHistory(small);
+		Accumulator.tick(simulator, 200);
+		long memoryUsed = small.getMemoryUsed();
+		if(memoryUsed > small.getMemoryCap()) {
+			throw new IllegalStateException("Memory cap exceeded: " + memoryUsed);
+		}
+		int kept = small.getCycleCount();
+		if(kept == 0 || kept >= 200) {
+			throw new IllegalStateException("Expected some cycles to be evicted, kept " + kept);
+		}
+		
+		WireValue before = new WireValue(circuit.getTopLevelState().getLastReceived(top.out.getPort(Pin.PORT)));
+		for(int i = 0; i < kept; i++) {
+			small.stepBack();
+			simulator.stepAll();
+		}
+		WireValue after = circuit.getTopLevelState().getLastReceived(top.out.getPort(Pin.PORT));
+		int expected = (before.getValue() - 3 * (kept / 2)) & 0xFF;
+		if(after.getValue() != expected) {
+			throw new IllegalStateException("Expected " + expected + " after stepping back, got " + after);
+		}
+		
+		simulator.setCycleHistory(null);
+		System.out.println("Kept " + kept + " of 200 cycles in " + memoryUsed + " bytes");
+		System.out.println("All tests passed.");
+	}
+}
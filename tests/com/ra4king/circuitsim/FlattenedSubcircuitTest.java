@@ -0,0 +1,63 @@
+package com.ra4king.circuitsim;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.Subcircuit;
+import com.ra4king.circuitsim.simulator.components.gates.NotGate;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class FlattenedSubcircuitTest {
+	public static void main(String[] args) {
+		System.out.println("Hierarchical: " + run(false) + " steps");
+		System.out.println("Flattened: " + run(true) + " steps");
+	}
+	
+	private static int run(boolean flatten) {
+		Simulator sim = new Simulator();
+		sim.setFlattenSubcircuits(flatten);
+		
+		Circuit inner = new Circuit("Inverter", sim);
+		NotGate not = inner.addComponent(new NotGate("", 8));
+		Pin in = inner.addComponent(new Pin("In", 8, true));
+		Pin out = inner.addComponent(new Pin("Out", 8, false));
+		not.getPort(0).linkPort(in.getPort(Pin.PORT));
+		not.getPort(1).linkPort(out.getPort(Pin.PORT));
+		
+		// Wrap the inverter 5 levels deep
+		for(int level = 0; level < 5; level++) {
+			Circuit wrapper = new Circuit("Level " + level, sim);
+			Subcircuit subcircuit = wrapper.addComponent(new Subcircuit("", inner));
+			Pin wrapperIn = wrapper.addComponent(new Pin("In", 8, true));
+			Pin wrapperOut = wrapper.addComponent(new Pin("Out", 8, false));
+			subcircuit.getPort(in).linkPort(wrapperIn.getPort(Pin.PORT));
+			subcircuit.getPort(out).linkPort(wrapperOut.getPort(Pin.PORT));
+			
+			inner = wrapper;
+			in = wrapperIn;
+			out = wrapperOut;
+		}
+		
+		sim.stepAll();
+		
+		CircuitState state = inner.getTopLevelState();
+		in.setValue(state, WireValue.of(0x5A, 8));
+		
+		int steps = 0;
+		while(sim.hasLinksToUpdate()) {
+			sim.step();
+			steps++;
+		}
+		
+		WireValue result = state.getMergedValue(out.getPort(Pin.PORT).getLink());
+		if(result.getValue() != 0xA5) {
+			throw new IllegalStateException("Expected a5, got " + result.toHexString());
+		}
+		
+		return steps;
+	}
+}
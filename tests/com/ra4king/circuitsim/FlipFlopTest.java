@@ -0,0 +1,177 @@
+package com.ra4king.circuitsim;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.Port;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.memory.DFlipFlop;
+import com.ra4king.circuitsim.simulator.components.memory.SRFlipFlop;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class FlipFlopTest {
+	private static final WireValue ONE = WireValue.of(1, 1);
+	private static final WireValue ZERO = WireValue.of(0, 1);
+	
+	public static void main(String[] args) {
+		testDFlipFlop();
+		testSRFlipFlop();
+		
+		System.out.println("All tests passed.");
+	}
+	
+	private static void testDFlipFlop() {
+		Simulator sim = new Simulator();
+		Circuit circuit = new Circuit("DFF Test", sim);
+		CircuitState state = circuit.getTopLevelState();
+		
+		DFlipFlop dff = circuit.addComponent(new DFlipFlop(""));
+		Pin d = link(circuit, dff.getPort(DFlipFlop.PORT_D), "D", true);
+		Pin clk = link(circuit, dff.getPort(DFlipFlop.PORT_CLOCK), "Clk", true);
+		Pin enable = link(circuit, dff.getPort(DFlipFlop.PORT_ENABLE), "Enable", true);
+		Pin preset = link(circuit, dff.getPort(DFlipFlop.PORT_PRESET), "Preset", true);
+		Pin clear = link(circuit, dff.getPort(DFlipFlop.PORT_CLEAR), "Clear", true);
+		Pin q = link(circuit, dff.getPort(DFlipFlop.PORT_Q), "Q", false);
+		Pin qn = link(circuit, dff.getPort(DFlipFlop.PORT_QN), "QN", false);
+		
+		d.setValue(state, ONE);
+		clk.setValue(state, ZERO);
+		enable.setValue(state, ONE);
+		preset.setValue(state, ZERO);
+		clear.setValue(state, ZERO);
+		sim.stepAll();
+		check(state, q, qn, 0, "DFF: D changes without a clock edge");
+		
+		clk.setValue(state, ONE);
+		sim.stepAll();
+		check(state, q, qn, 1, "DFF: rising edge");
+		
+		d.setValue(state, ZERO);
+		sim.stepAll();
+		check(state, q, qn, 1, "DFF: D changes while the clock is high");
+		
+		clk.setValue(state, ZERO);
+		sim.stepAll();
+		check(state, q, qn, 1, "DFF: falling edge");
+		
+		enable.setValue(state, ZERO);
+		sim.stepAll();
+		clk.setValue(state, ONE);
+		sim.stepAll();
+		check(state, q, qn, 1, "DFF: rising edge while disabled");
+		
+		enable.setValue(state, ONE);
+		sim.stepAll();
+		check(state, q, qn, 1, "DFF: enabling without a clock edge");
+		
+		clear.setValue(state, ONE);
+		sim.stepAll();
+		check(state, q, qn, 0, "DFF: clear without a clock edge");
+		
+		d.setValue(state, ONE);
+		preset.setValue(state, ONE);
+		sim.stepAll();
+		check(state, q, qn, 0, "DFF: preset while clear is held");
+		
+		clear.setValue(state, ZERO);
+		sim.stepAll();
+		check(state, q, qn, 1, "DFF: releasing clear while preset is held");
+		
+		preset.setValue(state, ZERO);
+		d.setValue(state, ZERO);
+		sim.stepAll();
+		check(state, q, qn, 1, "DFF: releasing preset");
+		
+		clk.setValue(state, ZERO);
+		sim.stepAll();
+		clk.setValue(state, ONE);
+		sim.stepAll();
+		check(state, q, qn, 0, "DFF: rising edge after releasing preset");
+	}
+	
+	private static void testSRFlipFlop() {
+		Simulator sim = new Simulator();
+		Circuit circuit = new Circuit("SRFF Test", sim);
+		CircuitState state = circuit.getTopLevelState();
+		
+		SRFlipFlop srff = circuit.addComponent(new SRFlipFlop(""));
+		Pin s = link(circuit, srff.getPort(SRFlipFlop.PORT_S), "S", true);
+		Pin r = link(circuit, srff.getPort(SRFlipFlop.PORT_R), "R", true);
+		Pin clk = link(circuit, srff.getPort(SRFlipFlop.PORT_CLOCK), "Clk", true);
+		Pin enable = link(circuit, srff.getPort(SRFlipFlop.PORT_ENABLE), "Enable", true);
+		Pin preset = link(circuit, srff.getPort(SRFlipFlop.PORT_PRESET), "Preset", true);
+		Pin clear = link(circuit, srff.getPort(SRFlipFlop.PORT_CLEAR), "Clear", true);
+		Pin q = link(circuit, srff.getPort(SRFlipFlop.PORT_Q), "Q", false);
+		Pin qn = link(circuit, srff.getPort(SRFlipFlop.PORT_QN), "QN", false);
+		
+		s.setValue(state, ONE);
+		r.setValue(state, ZERO);
+		clk.setValue(state, ZERO);
+		enable.setValue(state, ONE);
+		preset.setValue(state, ZERO);
+		clear.setValue(state, ZERO);
+		sim.stepAll();
+		check(state, q, qn, 0, "SRFF: S changes without a clock edge");
+		
+		clk.setValue(state, ONE);
+		sim.stepAll();
+		check(state, q, qn, 1, "SRFF: rising edge with S set");
+		
+		s.setValue(state, ZERO);
+		r.setValue(state, ONE);
+		sim.stepAll();
+		check(state, q, qn, 1, "SRFF: S and R change while the clock is high");
+		
+		clk.setValue(state, ZERO);
+		sim.stepAll();
+		check(state, q, qn, 1, "SRFF: falling edge");
+		
+		enable.setValue(state, ZERO);
+		sim.stepAll();
+		clk.setValue(state, ONE);
+		sim.stepAll();
+		check(state, q, qn, 1, "SRFF: rising edge while disabled");
+		
+		enable.setValue(state, ONE);
+		clk.setValue(state, ZERO);
+		sim.stepAll();
+		clk.setValue(state, ONE);
+		sim.stepAll();
+		check(state, q, qn, 0, "SRFF: rising edge with R set");
+		
+		preset.setValue(state, ONE);
+		sim.stepAll();
+		check(state, q, qn, 1, "SRFF: preset without a clock edge");
+		
+		clear.setValue(state, ONE);
+		sim.stepAll();
+		check(state, q, qn, 0, "SRFF: clear while preset is held");
+		
+		clear.setValue(state, ZERO);
+		sim.stepAll();
+		check(state, q, qn, 1, "SRFF: releasing clear while preset is held");
+		
+		preset.setValue(state, ZERO);
+		sim.stepAll();
+		check(state, q, qn, 1, "SRFF: releasing preset");
+	}
+	
+	private static Pin link(Circuit circuit, Port port, String name, boolean input) {
+		Pin pin = circuit.addComponent(new Pin(name, 1, input));
+		pin.getPort(Pin.PORT).linkPort(port);
+		return pin;
+	}
+	
+	private static void check(CircuitState state, Pin q, Pin qn, int expected, String when) {
+		WireValue qValue = state.getLastReceived(q.getPort(Pin.PORT));
+		WireValue qnValue = state.getLastReceived(qn.getPort(Pin.PORT));
+		if(!qValue.isValidValue() || qValue.getValue() != expected ||
+		   !qnValue.isValidValue() || qnValue.getValue() != 1 - expected) {
+			throw new IllegalStateException(
+				"After " + when + ": expected Q=" + expected + ", got Q=" + qValue + " QN=" + qnValue);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package com.ra4king.circuitsim;
+
+import java.util.Random;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.SimulationProfiler;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.gates.AndGate;
+import com.ra4king.circuitsim.simulator.components.gates.Gate;
+import com.ra4king.circuitsim.simulator.components.gates.OrGate;
+import com.ra4king.circuitsim.simulator.components.gates.XorGate;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class LevelizedTest {
+	private static final int BITS = 32;
+	
+	public static void main(String[] args) {
+		long eventDriven = runAdder(false);
+		long levelized = runAdder(true);
+		System.out.println("Event-driven: " + eventDriven + " evaluations");
+		System.out.println("Levelized: " + levelized + " evaluations");
+		
+		if(levelized >= eventDriven) {
+			throw new IllegalStateException("Levelized mode did not reduce evaluations");
+		}
+		
+		runCounter();
+		
+		System.out.println("All tests passed.");
+	}
+	
+	private static long runAdder(boolean levelized) {
+		Simulator sim = new Simulator();
+		sim.setLevelized(levelized);
+		
+		Circuit circuit = new Circuit("Ripple-carry adder", sim);
+		Pin[] a = new Pin[BITS], b = new Pin[BITS], sum = new Pin[BITS];
+		Pin carryIn = circuit.addComponent(new Pin("Cin", 1, true));
+		Gate carry = null;
+		for(int i = 0; i < BITS; i++) {
+			a[i] = circuit.addComponent(new Pin("A" + i, 1, true));
+			b[i] = circuit.addComponent(new Pin("B" + i, 1, true));
+			sum[i] = circuit.addComponent(new Pin("S" + i, 1, false));
+			
+			XorGate propagate = circuit.addComponent(new XorGate("", 1, 2));
+			XorGate sumGate = circuit.addComponent(new XorGate("", 1, 2));
+			AndGate generate = circuit.addComponent(new AndGate("", 1, 2));
+			AndGate carryAnd = circuit.addComponent(new AndGate("", 1, 2));
+			OrGate carryOut = circuit.addComponent(new OrGate("", 1, 2));
+			
+			propagate.getPort(0).linkPort(a[i].getPort(Pin.PORT)).linkPort(generate.getPort(0));
+			propagate.getPort(1).linkPort(b[i].getPort(Pin.PORT)).linkPort(generate.getPort(1));
+			propagate.getPort(2).linkPort(sumGate.getPort(0)).linkPort(carryAnd.getPort(0));
+			
+			if(carry == null) {
+				carryIn.getPort(Pin.PORT).linkPort(sumGate.getPort(1)).linkPort(carryAnd.getPort(1));
+			} else {
+				carry.getPort(2).linkPort(sumGate.getPort(1)).linkPort(carryAnd.getPort(1));
+			}
+			
+			sumGate.getPort(2).linkPort(sum[i].getPort(Pin.PORT));
+			generate.getPort(2).linkPort(carryOut.getPort(0));
+			carryAnd.getPort(2).linkPort(carryOut.getPort(1));
+			carry = carryOut;
+		}
+		
+		CircuitState state = circuit.getTopLevelState();
+		carryIn.setValue(state, WireValue.of(0, 1));
+		sim.stepAll();
+		
+		SimulationProfiler profiler = new SimulationProfiler(1);
+		sim.setProfiler(profiler);
+		
+		Random random = new Random(45);
+		for(int n = 0; n < 200; n++) {
+			long x = random.nextInt() & 0xFFFFFFFFL;
+			long y = random.nextInt() & 0xFFFFFFFFL;
+			for(int i = 0; i < BITS; i++) {
+				a[i].setValue(state, WireValue.of(x >>> i, 1));
+				b[i].setValue(state, WireValue.of(y >>> i, 1));
+			}
+			sim.stepAll();
+			
+			long result = 0;
+			for(int i = 0; i < BITS; i++) {
+				WireValue bit = state.getMergedValue(sum[i].getPort(Pin.PORT).getLink());
+				if(!bit.isValidValue()) {
+					throw new IllegalStateException("Sum bit " + i + " is not valid: " + bit);
+				}
+				result |= (long)bit.getValue() << i;
+			}
+			
+			if(result != ((x + y) & 0xFFFFFFFFL)) {
+				throw new IllegalStateException(
+					String.format("%08x + %08x: expected %08x, got %08x", x, y, (x + y) & 0xFFFFFFFFL, result));
+			}
+		}
+		
+		return profiler.createReport()
+		               .getComponents()
+		               .stream()
+		               .mapToLong(SimulationProfiler.Entry::getEvaluations)
+		               .sum();
+	}
+	
+	/**
+	 * An accumulator, whose feedback loop through the register is cut into levels at the register.
+	 */
+	private static void runCounter() {
+		Simulator sim = new Simulator();
+		sim.setLevelized(true);
+		
+		Accumulator accumulator = new Accumulator(sim);
+		
+		CircuitState state = accumulator.circuit.getTopLevelState();
+		accumulator.step.setValue(state, WireValue.of(3, 8));
+		sim.stepAll();
+		
+		for(int i = 1; i <= 10; i++) {
+			Accumulator.tick(sim, 2);
+			
+			WireValue value = state.getMergedValue(accumulator.out.getPort(Pin.PORT).getLink());
+			if(value.getValue() != 3 * i) {
+				throw new IllegalStateException("Expected " + 3 * i + ", got " + value);
+			}
+		}
+	}
+}
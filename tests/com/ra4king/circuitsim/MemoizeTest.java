@@ -0,0 +1,163 @@
+package com.ra4king.circuitsim;
+
+import java.util.Random;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.SimulationProfiler;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.Subcircuit;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Adder;
+import com.ra4king.circuitsim.simulator.components.gates.NorGate;
+import com.ra4king.circuitsim.simulator.components.gates.XorGate;
+import com.ra4king.circuitsim.simulator.components.plexers.Multiplexer;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class MemoizeTest {
+	private static final int INSTANCES = 16;
+	
+	public static void main(String[] args) {
+		for(int bits : new int[] { 4, 8 }) {
+			long normal = runAlus(bits, false);
+			long memoized = runAlus(bits, true);
+			System.out.println(bits + "-bit ALUs: " + normal + " evaluations, " + memoized + " memoized");
+			
+			if(memoized >= normal) {
+				throw new IllegalStateException("Memoizing did not reduce evaluations");
+			}
+		}
+		
+		runLatch();
+		
+		System.out.println("All tests passed.");
+	}
+	
+	/**
+	 * Out = Op ? A ^ B : A + B
+	 */
+	private static Circuit alu(Simulator simulator, int bits) {
+		Circuit circuit = new Circuit("ALU", simulator);
+		Pin a = circuit.addComponent(new Pin("A", bits, true));
+		Pin b = circuit.addComponent(new Pin("B", bits, true));
+		Pin op = circuit.addComponent(new Pin("Op", 1, true));
+		Pin out = circuit.addComponent(new Pin("Out", bits, false));
+		Adder adder = circuit.addComponent(new Adder("", bits));
+		XorGate xor = circuit.addComponent(new XorGate("", bits, 2));
+		Multiplexer mux = circuit.addComponent(new Multiplexer("", bits, 1));
+		
+		adder.getPort(Adder.PORT_A).linkPort(a.getPort(Pin.PORT)).linkPort(xor.getPort(0));
+		adder.getPort(Adder.PORT_B).linkPort(b.getPort(Pin.PORT)).linkPort(xor.getPort(1));
+		mux.getPort(0).linkPort(adder.getPort(Adder.PORT_OUT));
+		mux.getPort(1).linkPort(xor.getPort(2));
+		mux.getSelectorPort().linkPort(op.getPort(Pin.PORT));
+		mux.getOutPort().linkPort(out.getPort(Pin.PORT));
+		return circuit;
+	}
+	
+	private static long runAlus(int bits, boolean memoize) {
+		Simulator simulator = new Simulator();
+		simulator.setMemoizeSubcircuits(memoize);
+		Circuit alu = alu(simulator, bits);
+		
+		Circuit top = new Circuit("Top", simulator);
+		Pin[][] inputs = new Pin[INSTANCES][3];
+		Pin[] outputs = new Pin[INSTANCES];
+		for(int i = 0; i < INSTANCES; i++) {
+			Subcircuit subcircuit = top.addComponent(new Subcircuit("ALU" + i, alu));
+			for(Pin pin : subcircuit.getPins()) {
+				if(pin.isInput()) {
+					int index = pin.getName().equals("A") ? 0 : pin.getName().equals("B") ? 1 : 2;
+					inputs[i][index] = top.addComponent(new Pin(pin.getName() + i, pin.getBitSize(), true));
+					inputs[i][index].getPort(Pin.PORT).linkPort(subcircuit.getPort(pin));
+				} else {
+					outputs[i] = top.addComponent(new Pin("Out" + i, bits, false));
+					outputs[i].getPort(Pin.PORT).linkPort(subcircuit.getPort(pin));
+				}
+			}
+		}
+		
+		CircuitState state = top.getTopLevelState();
+		simulator.stepAll();
+		
+		SimulationProfiler profiler = new SimulationProfiler(1);
+		simulator.setProfiler(profiler);
+		
+		// Few distinct operands, so most inputs repeat
+		Random random = new Random(49);
+		int mask = (1 << bits) - 1;
+		for(int n = 0; n < 100; n++) {
+			int[][] values = new int[INSTANCES][3];
+			for(int i = 0; i < INSTANCES; i++) {
+				values[i][0] = random.nextInt(5) * 37 & mask;
+				values[i][1] = random.nextInt(5) * 91 & mask;
+				values[i][2] = random.nextInt(2);
+				for(int j = 0; j < 3; j++) {
+					inputs[i][j].setValue(state, WireValue.of(values[i][j], j == 2 ? 1 : bits));
+				}
+			}
+			simulator.stepAll();
+			
+			for(int i = 0; i < INSTANCES; i++) {
+				int[] v = values[i];
+				int expected = (v[2] == 1 ? v[0] ^ v[1] : v[0] + v[1]) & mask;
+				WireValue value = state.getMergedValue(outputs[i].getPort(Pin.PORT).getLink());
+				if(!value.isValidValue() || value.getValue() != expected) {
+					throw new IllegalStateException(
+						String.format("ALU%d(%x, %x, %d): expected %x, got %s", i, v[0], v[1], v[2], expected, value));
+				}
+			}
+		}
+		
+		return profiler.createReport()
+		               .getComponents()
+		               .stream()
+		               .mapToLong(SimulationProfiler.Entry::getEvaluations)
+		               .sum();
+	}
+	
+	/**
+	 * An SR latch built from gates holds state, so it must not be memoized.
+	 */
+	private static void runLatch() {
+		Simulator simulator = new Simulator();
+		simulator.setMemoizeSubcircuits(true);
+		
+		Circuit latch = new Circuit("Latch", simulator);
+		Pin s = latch.addComponent(new Pin("S", 1, true));
+		Pin r = latch.addComponent(new Pin("R", 1, true));
+		Pin q = latch.addComponent(new Pin("Q", 1, false));
+		NorGate top = latch.addComponent(new NorGate("", 1, 2));
+		NorGate bottom = latch.addComponent(new NorGate("", 1, 2));
+		top.getPort(0).linkPort(r.getPort(Pin.PORT));
+		bottom.getPort(0).linkPort(s.getPort(Pin.PORT));
+		top.getPort(1).linkPort(bottom.getPort(2));
+		bottom.getPort(1).linkPort(top.getPort(2)).linkPort(q.getPort(Pin.PORT));
+		
+		Circuit circuit = new Circuit("Top", simulator);
+		Subcircuit subcircuit = circuit.addComponent(new Subcircuit("Latch", latch));
+		Pin set = circuit.addComponent(new Pin("Set", 1, true));
+		Pin reset = circuit.addComponent(new Pin("Reset", 1, true));
+		Pin out = circuit.addComponent(new Pin("Out", 1, false));
+		set.getPort(Pin.PORT).linkPort(subcircuit.getPort(s));
+		reset.getPort(Pin.PORT).linkPort(subcircuit.getPort(r));
+		out.getPort(Pin.PORT).linkPort(subcircuit.getPort(q));
+		
+		CircuitState state = circuit.getTopLevelState();
+		int[][] steps = { { 1, 0, 1 }, { 0, 0, 1 }, { 0, 1, 0 }, { 0, 0, 0 }, { 1, 0, 1 }, { 0, 0, 1 } };
+		for(int[] step : steps) {
+			set.setValue(state, WireValue.of(step[0], 1));
+			reset.setValue(state, WireValue.of(step[1], 1));
+			simulator.stepAll();
+			
+			WireValue value = state.getMergedValue(out.getPort(Pin.PORT).getLink());
+			if(value.getValue() != step[2]) {
+				throw new IllegalStateException(
+					"Latch S=" + step[0] + " R=" + step[1] + ": expected " + step[2] + ", got " + value);
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.ra4king.circuitsim;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import com.ra4king.circuitsim.gui.CircuitSim;
+import com.ra4king.circuitsim.gui.file.NetlistCache;
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.Component;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class NetlistCacheTest {
+	public static void main(String[] args) throws Exception {
+		File directory = Files.createTempDirectory("netlist-cache").toFile();
+		
+		byte[] sim = "{ \"circuits\": [] }".getBytes(StandardCharsets.UTF_8);
+		byte[] library = { 1, 2, 3 };
+		String a = NetlistCache.getKey(sim);
+		String b = NetlistCache.getKey(sim, library);
+		String c = NetlistCache.getKey(library, sim);
+		if(a.length() != 64 || a.equals(b) || b.equals(c) || !a.equals(NetlistCache.getKey(sim.clone()))) {
+			throw new IllegalStateException("Keys do not follow the contents: " + a + " " + b + " " + c);
+		}
+		
+		// Room for two entries of 100 bytes
+		NetlistCache cache = new NetlistCache(directory, 250);
+		String netlist = new String(new char[100]).replace('\0', 'x');
+		
+		if(cache.get(a) != null) {
+			throw new IllegalStateException("Empty cache returned an entry");
+		}
+		
+		cache.put(a, netlist);
+		cache.put(b, netlist);
+		if(!netlist.equals(cache.get(a)) || !netlist.equals(cache.get(b))) {
+			throw new IllegalStateException("Stored entries not returned");
+		}
+		
+		// a is older than b until it is used again, leaving b as the least recently used
+		long now = System.currentTimeMillis();
+		new File(directory, a + ".net").setLastModified(now - 20000);
+		new File(directory, b + ".net").setLastModified(now - 10000);
+		cache.get(a);
+		
+		cache.put(c, netlist);
+		if(cache.get(a) == null || cache.get(b) != null || cache.get(c) == null) {
+			throw new IllegalStateException("Expected the least recently used entry to be evicted");
+		}
+		
+		cache.remove(a);
+		if(cache.get(a) != null || cache.get(c) == null) {
+			throw new IllegalStateException("Expected only the removed entry to be gone");
+		}
+		
+		cache.clear();
+		if(cache.get(a) != null || cache.get(c) != null) {
+			throw new IllegalStateException("Entries left after clear");
+		}
+		
+		String[] files = directory.list();
+		if(files == null || files.length != 0) {
+			throw new IllegalStateException("Temporary files left in the cache directory");
+		}
+		
+		// Round trip through CircuitSim: the first load resolves the file and fills the cache, the second reads it back
+		File file = new File("examples/Xor.sim");
+		String key = NetlistCache.getKey(Files.readAllBytes(file.toPath()));
+		NetlistCache roundTrip = new NetlistCache(directory, 1 << 20);
+		
+		CircuitSim circuitSim = new CircuitSim(false);
+		Simulator simulator = circuitSim.getSimulator();
+		
+		Map<String, Circuit> loaded = circuitSim.loadCircuits(file, roundTrip);
+		String resolved = roundTrip.get(key);
+		if(resolved == null) {
+			throw new IllegalStateException("Loaded netlist was not cached");
+		}
+		
+		Map<String, Circuit> cached = circuitSim.loadCircuits(file, roundTrip);
+		if(!loaded.keySet().equals(cached.keySet())) {
+			throw new IllegalStateException("Expected circuits " + loaded.keySet() + ", got " + cached.keySet());
+		}
+		
+		for(String name : loaded.keySet()) {
+			int loadedSize = loaded.get(name).getComponents().size();
+			int cachedSize = cached.get(name).getComponents().size();
+			if(loadedSize != cachedSize) {
+				throw new IllegalStateException(name + ": expected " + loadedSize + " components, got " + cachedSize);
+			}
+		}
+		
+		// A corrupt entry is dropped and the file resolved again
+		roundTrip.put(key, "netlist 1\ncircuit xor\n");
+		Map<String, Circuit> recovered = circuitSim.loadCircuits(file, roundTrip);
+		if(!loaded.keySet().equals(recovered.keySet())) {
+			throw new IllegalStateException("Expected circuits " + loaded.keySet() + ", got " + recovered.keySet());
+		}
+		if(!resolved.equals(roundTrip.get(key))) {
+			throw new IllegalStateException("Corrupt netlist was not replaced in the cache");
+		}
+		
+		String loadedOutputs = xorOutputs(simulator, loaded.get("xor"));
+		String cachedOutputs = xorOutputs(simulator, cached.get("xor"));
+		if(!loadedOutputs.equals("0110") || !loadedOutputs.equals(cachedOutputs)) {
+			throw new IllegalStateException("Expected xor outputs 0110, got " + loadedOutputs + ", " + cachedOutputs);
+		}
+		
+		circuitSim.closeWindow();
+		
+		roundTrip.clear();
+		directory.delete();
+		
+		System.out.println("All tests passed.");
+		System.exit(0);
+	}
+	
+	/**
+	 * Drives inputs a and b of the xor circuit through 00, 01, 10, 11 and returns the values of output c.
+	 */
+	private static String xorOutputs(Simulator simulator, Circuit xor) {
+		Pin a = pin(xor, "a");
+		Pin b = pin(xor, "b");
+		Pin c = pin(xor, "c");
+		CircuitState state = xor.getTopLevelState();
+		
+		StringBuilder outputs = new StringBuilder();
+		for(int i = 0; i < 4; i++) {
+			a.setValue(state, WireValue.of(i >> 1, 1));
+			b.setValue(state, WireValue.of(i & 1, 1));
+			simulator.stepAll();
+			outputs.append(state.getLastReceived(c.getPort(Pin.PORT)));
+		}
+		return outputs.toString();
+	}
+	
+	private static Pin pin(Circuit circuit, String name) {
+		for(Component component : circuit.getComponents()) {
+			if(component instanceof Pin && component.getName().equals(name)) {
+				return (Pin)component;
+			}
+		}
+		throw new IllegalStateException(name + " pin not found in " + circuit.getName());
+	}
+}
@@ -0,0 +1,185 @@
+package com.ra4king.circuitsim;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+
+import com.ra4king.circuitsim.gui.CircuitBoard;
+import com.ra4king.circuitsim.gui.Connection;
+import com.ra4king.circuitsim.gui.EditHistory;
+import com.ra4king.circuitsim.gui.Properties;
+import com.ra4king.circuitsim.gui.Properties.Direction;
+import com.ra4king.circuitsim.gui.Properties.Property;
+import com.ra4king.circuitsim.gui.file.Netlist;
+import com.ra4king.circuitsim.gui.peers.gates.XorGatePeer;
+import com.ra4king.circuitsim.gui.peers.wiring.PinPeer;
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.Component;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class NetlistTest {
+	public static void main(String[] args) throws Exception {
+		roundTrip();
+		readSubcircuits();
+		readErrors();
+		System.out.println("All tests passed.");
+	}
+	
+	/**
+	 * Out = A ^ B, with A wired to the gate and B placed right on its input.
+	 */
+	private static void roundTrip() throws Exception {
+		Simulator simulator = new Simulator();
+		EditHistory editHistory = new EditHistory(null);
+		editHistory.disable();
+		CircuitBoard board = new CircuitBoard("Xor", null, simulator, editHistory);
+		
+		XorGatePeer xor = new XorGatePeer(new Properties(new Property<>(Properties.BITSIZE, 8)), 10, 10);
+		board.addComponent(xor);
+		
+		PinPeer a = pin("A", true, Direction.EAST, 2, 2);
+		board.addComponent(a);
+		wire(board, a.getConnections().get(0), xor.getConnections().get(0));
+		
+		Connection input = xor.getConnections().get(1);
+		PinPeer b = at(pin("B", true, Direction.EAST, 0, 0), input);
+		board.addComponent(b);
+		
+		PinPeer out = pin("Out", false, Direction.WEST, 20, 16);
+		board.addComponent(out);
+		wire(board, xor.getConnections().get(2), out.getConnections().get(0));
+		
+		StringWriter writer = new StringWriter();
+		Netlist.write(writer, Collections.singletonList(board));
+		String netlist = writer.toString();
+		System.out.println(netlist);
+		
+		Simulator imported = new Simulator();
+		Map<String, Circuit> circuits = Netlist.read(new StringReader(netlist), imported);
+		Circuit circuit = circuits.get("Xor");
+		if(circuit == null || circuit.getComponents().size() != 4) {
+			throw new IllegalStateException("Expected the Xor circuit with 4 components, got " + circuits);
+		}
+		
+		CircuitState state = circuit.getTopLevelState();
+		for(int i = 0; i < 16; i++) {
+			int x = i * 37 & 0xFF, y = i * 91 & 0xFF;
+			find(circuit, "A").setValue(state, WireValue.of(x, 8));
+			find(circuit, "B").setValue(state, WireValue.of(y, 8));
+			imported.stepAll();
+			check(state, find(circuit, "Out"), x ^ y);
+		}
+	}
+	
+	private static void readSubcircuits() throws Exception {
+		String pin = "com.ra4king.circuitsim.gui.peers.wiring.PinPeer";
+		String not = "com.ra4king.circuitsim.gui.peers.gates.NotGatePeer";
+		String netlist = "netlist 1\n" +
+		                 "# Top is defined first, so Inverter has to be built before it\n" +
+		                 "circuit Top\n" +
+		                 "component 0 " + pin + " Label=In Is+input%3F=Yes Bitsize=4\n" +
+		                 "component 1 " + pin + " Label=Out Is+input%3F=No Bitsize=4\n" +
+		                 "subcircuit 2 Inverter Label=first\n" +
+		                 "subcircuit 3 Inverter Label=second\n" +
+		                 "net 4 0:0 2:@1\n" +
+		                 "net 4 2:@2 3:@1\n" +
+		                 "net 4 3:@2 1:0\n" +
+		                 "end\n" +
+		                 "circuit Inverter\n" +
+		                 "component 0 " + not + " Bitsize=4\n" +
+		                 "component 1 " + pin + " Label=In Is+input%3F=Yes Bitsize=4\n" +
+		                 "component 2 " + pin + " Label=Out Is+input%3F=No Bitsize=4\n" +
+		                 "net 4 0:0 1:0\n" +
+		                 "net 4 0:1 2:0\n" +
+		                 "end\n";
+		
+		Simulator simulator = new Simulator();
+		Map<String, Circuit> circuits = Netlist.read(new StringReader(netlist), simulator);
+		if(!circuits.keySet().toString().equals("[Top, Inverter]")) {
+			throw new IllegalStateException("Expected circuits in netlist order, got " + circuits.keySet());
+		}
+		
+		Circuit top = circuits.get("Top");
+		CircuitState state = top.getTopLevelState();
+		for(int i = 0; i < 16; i++) {
+			find(top, "In").setValue(state, WireValue.of(i, 4));
+			simulator.stepAll();
+			check(state, find(top, "Out"), i);
+		}
+	}
+	
+	private static void readErrors() throws Exception {
+		String[] netlists = {
+			"circuit A\nend\n",
+			"netlist 2\n",
+			"netlist 1\ncircuit A\ncomponent 1 java.lang.String\nend\n",
+			"netlist 1\ncircuit A\nsubcircuit 0 A\nend\n",
+			"netlist 1\ncircuit A\nsubcircuit 0 B\nend\n",
+			"netlist 1\ncircuit A\ncomponent 0 com.ra4king.circuitsim.gui.peers.gates.NotGatePeer\nnet 2 0:0 0:1\nend\n",
+			"netlist 1\ncircuit A\n",
+		};
+		
+		for(String netlist : netlists) {
+			Simulator simulator = new Simulator();
+			try {
+				Netlist.read(new StringReader(netlist), simulator);
+				throw new IllegalStateException("Expected an error reading:\n" + netlist);
+			} catch(IllegalArgumentException exc) {
+				// expected
+			}
+			
+			if(!simulator.getCircuits().isEmpty()) {
+				throw new IllegalStateException("Circuits left behind after failing to read:\n" + netlist);
+			}
+		}
+	}
+	
+	private static PinPeer pin(String label, boolean isInput, Direction direction, int x, int y) {
+		return new PinPeer(new Properties(new Property<>(Properties.LABEL, label),
+		                                  new Property<>(PinPeer.IS_INPUT, isInput),
+		                                  new Property<>(Properties.DIRECTION, direction),
+		                                  new Property<>(Properties.BITSIZE, 8)), x, y);
+	}
+	
+	/**
+	 * Recreates the component so its first connection lies on the given connection.
+	 */
+	private static PinPeer at(PinPeer pin, Connection connection) {
+		Connection own = pin.getConnections().get(0);
+		return new PinPeer(pin.getProperties(),
+		                   connection.getX() - (own.getX() - pin.getX()),
+		                   connection.getY() - (own.getY() - pin.getY()));
+	}
+	
+	private static void wire(CircuitBoard board, Connection from, Connection to) {
+		if(from.getX() != to.getX()) {
+			board.addWire(Math.min(from.getX(), to.getX()), from.getY(), Math.abs(to.getX() - from.getX()), true);
+		}
+		if(from.getY() != to.getY()) {
+			board.addWire(to.getX(), Math.min(from.getY(), to.getY()), Math.abs(to.getY() - from.getY()), false);
+		}
+	}
+	
+	private static Pin find(Circuit circuit, String name) {
+		for(Component component : circuit.getComponents()) {
+			if(component instanceof Pin && component.getName().equals(name)) {
+				return (Pin)component;
+			}
+		}
+		throw new IllegalStateException("No pin " + name + " in " + circuit);
+	}
+	
+	private static void check(CircuitState state, Pin pin, int expected) {
+		WireValue value = state.getMergedValue(pin.getPort(Pin.PORT).getLink());
+		if(!value.isValidValue() || value.getValue() != expected) {
+			throw new IllegalStateException(pin.getName() + ": expected " + expected + ", got " + value);
+		}
+	}
+}
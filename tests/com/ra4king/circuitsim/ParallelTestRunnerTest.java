@@ -0,0 +1,44 @@
+package com.ra4king.circuitsim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.batch.ParallelTestRunner;
+import com.ra4king.circuitsim.simulator.batch.ParallelTestRunner.TestCase;
+
+/**
+ * @author Roi Atalla
+ */
+public class ParallelTestRunnerTest {
+	public static void main(String[] args) throws Exception {
+		ParallelTestRunner.CircuitFactory factory = simulator -> new Accumulator(simulator).circuit;
+		
+		List<TestCase<Integer>> testCases = new ArrayList<>();
+		for(int i = 0; i < 200; i++) {
+			int step = i;
+			int cycles = i % 5 + 1;
+			testCases.add(context -> {
+				context.setInput("Step", WireValue.of(step, 8));
+				context.stepAll();
+				for(int cycle = 0; cycle < cycles; cycle++) {
+					context.tick();
+					context.tick();
+				}
+				return context.getOutput("Out").getValue();
+			});
+		}
+		
+		try(ParallelTestRunner runner = new ParallelTestRunner(factory, 4)) {
+			List<Integer> results = runner.runAll(testCases);
+			for(int i = 0; i < results.size(); i++) {
+				int expected = (i * (i % 5 + 1)) & 0xFF;
+				if(results.get(i) != expected) {
+					throw new IllegalStateException("Test " + i + ": expected " + expected + ", got " + results.get(i));
+				}
+			}
+			
+			System.out.println("Ran " + results.size() + " test cases on " + runner.getNumContexts() + " contexts.");
+		}
+	}
+}
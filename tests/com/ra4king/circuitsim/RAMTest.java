@@ -19,11 +19,13 @@ public class RAMTest {
 		Pin clk = circuit.addComponent(new Pin("clk", 1, true));
 		Pin data = circuit.addComponent(new Pin("data", 8, false));
 		Pin load = circuit.addComponent(new Pin("load", 1, false));
+		Pin clear = circuit.addComponent(new Pin("clear", 1, true));
 		
 		ram.getPort(RAM.PORT_ADDRESS).linkPort(address.getPort(Pin.PORT));
 		ram.getPort(RAM.PORT_CLK).linkPort(clk.getPort(Pin.PORT));
 		ram.getPort(RAM.PORT_DATA).linkPort(data.getPort(Pin.PORT));
 		ram.getPort(RAM.PORT_LOAD).linkPort(load.getPort(Pin.PORT));
+		ram.getPort(RAM.PORT_CLEAR).linkPort(clear.getPort(Pin.PORT));
 		
 		int sum = 0;
 		for(int i = 0; i < 100; i++) {
@@ -50,5 +52,46 @@ public class RAMTest {
 			address.setValue(circuit.getTopLevelState(), WireValue.of(i, 8));
 			sim.stepAll();
 		}
+		
+		// Store to address 7 on a rising edge only
+		load.setValue(circuit.getTopLevelState(), ZERO);
+		clk.setValue(circuit.getTopLevelState(), ZERO);
+		clear.setValue(circuit.getTopLevelState(), ZERO);
+		sim.stepAll();
+		
+		address.setValue(circuit.getTopLevelState(), WireValue.of(7, 8));
+		data.setValue(circuit.getTopLevelState(), WireValue.of(99, 8));
+		sim.stepAll();
+		check(ram.load(circuit.getTopLevelState(), 7), 19, "address and data changes without a clock edge");
+		
+		clk.setValue(circuit.getTopLevelState(), ONE);
+		sim.stepAll();
+		check(ram.load(circuit.getTopLevelState(), 7), 99, "rising edge");
+		
+		data.setValue(circuit.getTopLevelState(), WireValue.of(42, 8));
+		sim.stepAll();
+		clk.setValue(circuit.getTopLevelState(), ZERO);
+		sim.stepAll();
+		check(ram.load(circuit.getTopLevelState(), 7), 99, "data change and falling edge");
+		
+		// Loading drives the stored value onto the data port
+		data.setValue(circuit.getTopLevelState(), new WireValue(8));
+		load.setValue(circuit.getTopLevelState(), ONE);
+		sim.stepAll();
+		check(circuit.getTopLevelState().getMergedValue(data.getPort(Pin.PORT).getLink()).getValue(), 99, "load");
+		
+		clear.setValue(circuit.getTopLevelState(), ONE);
+		sim.stepAll();
+		for(int i = 0; i < 256; i++) {
+			check(ram.load(circuit.getTopLevelState(), i), 0, "clear without a clock edge");
+		}
+		
+		System.out.println("All tests passed.");
+	}
+	
+	private static void check(long value, long expected, String when) {
+		if(value != expected) {
+			throw new IllegalStateException("After " + when + ": expected " + expected + ", got " + value);
+		}
 	}
 }
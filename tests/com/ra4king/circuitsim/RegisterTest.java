@@ -18,11 +18,13 @@ public class RegisterTest {
 		Pin dataIn = circuit.addComponent(new Pin("In", 4, true));
 		Pin enable = circuit.addComponent(new Pin("Enable", 1, true));
 		Pin clk = circuit.addComponent(new Pin("Clk", 1, true));
+		Pin zero = circuit.addComponent(new Pin("Zero", 1, true));
 		Pin dataOut = circuit.addComponent(new Pin("Out", 4, false));
 		
 		register.getPort(Register.PORT_IN).linkPort(dataIn.getPort(Pin.PORT));
 		register.getPort(Register.PORT_ENABLE).linkPort(enable.getPort(Pin.PORT));
 		register.getPort(Register.PORT_CLK).linkPort(clk.getPort(Pin.PORT));
+		register.getPort(Register.PORT_ZERO).linkPort(zero.getPort(Pin.PORT));
 		register.getPort(Register.PORT_OUT).linkPort(dataOut.getPort(Pin.PORT));
 		
 		final WireValue ONE = WireValue.of(1, 1);
@@ -31,20 +33,72 @@ public class RegisterTest {
 		dataIn.setValue(circuit.getTopLevelState(), WireValue.of(10, 4));
 		enable.setValue(circuit.getTopLevelState(), ONE);
 		clk.setValue(circuit.getTopLevelState(), ZERO);
+		zero.setValue(circuit.getTopLevelState(), ZERO);
 		sim.stepAll();
+		check(circuit, dataOut, 0, "input changes without a clock edge");
 		
 		System.out.println("Clk = 1");
 		clk.setValue(circuit.getTopLevelState(), ONE);
 		sim.stepAll();
+		check(circuit, dataOut, 10, "rising edge");
 		
 		System.out.println("Clk = 0");
 		clk.setValue(circuit.getTopLevelState(), ZERO);
 		dataIn.setValue(circuit.getTopLevelState(), WireValue.of(8, 4));
 		sim.stepAll();
+		check(circuit, dataOut, 10, "falling edge");
 		
 		System.out.println("Clk = 1");
 		clk.setValue(circuit.getTopLevelState(), ONE);
 		dataIn.setValue(circuit.getTopLevelState(), WireValue.of(2, 4));
 		sim.stepAll();
+		
+		clk.setValue(circuit.getTopLevelState(), ZERO);
+		dataIn.setValue(circuit.getTopLevelState(), WireValue.of(5, 4));
+		sim.stepAll();
+		clk.setValue(circuit.getTopLevelState(), ONE);
+		sim.stepAll();
+		check(circuit, dataOut, 5, "rising edge");
+		
+		dataIn.setValue(circuit.getTopLevelState(), WireValue.of(6, 4));
+		enable.setValue(circuit.getTopLevelState(), ZERO);
+		sim.stepAll();
+		check(circuit, dataOut, 5, "input and enable changes while the clock is high");
+		
+		clk.setValue(circuit.getTopLevelState(), ZERO);
+		sim.stepAll();
+		clk.setValue(circuit.getTopLevelState(), ONE);
+		sim.stepAll();
+		check(circuit, dataOut, 5, "rising edge while disabled");
+		
+		zero.setValue(circuit.getTopLevelState(), ONE);
+		sim.stepAll();
+		check(circuit, dataOut, 0, "zero without a clock edge");
+		
+		enable.setValue(circuit.getTopLevelState(), ONE);
+		clk.setValue(circuit.getTopLevelState(), ZERO);
+		sim.stepAll();
+		clk.setValue(circuit.getTopLevelState(), ONE);
+		sim.stepAll();
+		check(circuit, dataOut, 0, "rising edge while zero is held");
+		
+		zero.setValue(circuit.getTopLevelState(), ZERO);
+		sim.stepAll();
+		check(circuit, dataOut, 0, "releasing zero");
+		
+		clk.setValue(circuit.getTopLevelState(), ZERO);
+		sim.stepAll();
+		clk.setValue(circuit.getTopLevelState(), ONE);
+		sim.stepAll();
+		check(circuit, dataOut, 6, "rising edge after releasing zero");
+		
+		System.out.println("All tests passed.");
+	}
+	
+	private static void check(Circuit circuit, Pin pin, int expected, String when) {
+		WireValue value = circuit.getTopLevelState().getLastReceived(pin.getPort(Pin.PORT));
+		if(!value.isValidValue() || value.getValue() != expected) {
+			throw new IllegalStateException("After " + when + ": expected " + expected + ", got " + value);
+		}
 	}
 }
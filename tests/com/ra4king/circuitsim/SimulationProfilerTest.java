@@ -0,0 +1,198 @@
+package com.ra4king.circuitsim;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.SimulationProfiler;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.Subcircuit;
+import com.ra4king.circuitsim.simulator.components.gates.NotGate;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class SimulationProfilerTest {
+	private static final int CHANGES = 100;
+	
+	public static void main(String[] args) {
+		testCounts();
+		testSubcircuitStates();
+		testRemovedComponent();
+		
+		System.out.println("All tests passed.");
+	}
+	
+	/**
+	 * In -> Not -> Out: every input change evaluates the Not gate in the first step and Out in the second. A port is
+	 * not notified of its own push, so In is never evaluated.
+	 */
+	private static void testCounts() {
+		Simulator sim = new Simulator();
+		SimulationProfiler profiler = new SimulationProfiler();
+		sim.setProfiler(profiler);
+		
+		Circuit circuit = new Circuit("Inverter", sim);
+		NotGate not = circuit.addComponent(new NotGate("Not", 8));
+		Pin in = circuit.addComponent(new Pin("In", 8, true));
+		Pin out = circuit.addComponent(new Pin("Out", 8, false));
+		not.getPort(0).linkPort(in.getPort(Pin.PORT));
+		not.getPort(1).linkPort(out.getPort(Pin.PORT));
+		sim.stepAll();
+		
+		// Every evaluation is timed
+		sim.runSync(profiler::reset);
+		toggle(sim, circuit.getTopLevelState(), in);
+		
+		SimulationProfiler.Report report = profiler.createReport();
+		checkEntry(report, "Not", CHANGES, CHANGES, CHANGES);
+		checkEntry(report, "In", 0, 0, CHANGES);
+		checkEntry(report, "Out", CHANGES, CHANGES, 0);
+		
+		check(report.getStepAlls(), CHANGES, "stepAlls");
+		check(report.getSteps(), 2 * CHANGES, "steps");
+		check(report.getMaxStepsPerStepAll(), 2, "max steps per stepAll");
+		check(report.getAverageStepsPerStepAll(), 2, "average steps per stepAll");
+		check(report.getMaxQueueDepth(), 1, "max queue depth");
+		check(report.getAverageQueueDepth(), 1, "average queue depth");
+		
+		check(report.getCircuits().size(), 1, "circuits");
+		check(report.getCircuits().get(0).getEvaluations(), 2 * CHANGES, "circuit evaluations");
+		
+		// Only one out of every 4 evaluations is timed, but all of them are counted
+		sim.runSync(profiler::reset);
+		profiler.setSampleInterval(4);
+		toggle(sim, circuit.getTopLevelState(), in);
+		
+		report = profiler.createReport();
+		long evaluations = 0, sampled = 0;
+		for(SimulationProfiler.Entry entry : report.getComponents()) {
+			evaluations += entry.getEvaluations();
+			sampled += entry.getSampledEvaluations();
+			if(entry.getSampledEvaluations() > entry.getEvaluations()) {
+				throw new IllegalStateException(entry.getName() + ": more sampled than total evaluations");
+			}
+		}
+		check(evaluations, 2 * CHANGES, "evaluations with a sample interval of 4");
+		check(sampled, CHANGES / 2, "sampled evaluations with a sample interval of 4");
+		checkEntry(report, "Not", CHANGES, -1, CHANGES);
+	}
+	
+	private static void testSubcircuitStates() {
+		Simulator sim = new Simulator();
+		SimulationProfiler profiler = new SimulationProfiler(4);
+		sim.setProfiler(profiler);
+		
+		Circuit inner = new Circuit("Inverter", sim);
+		NotGate not = inner.addComponent(new NotGate("Not", 8));
+		Pin in = inner.addComponent(new Pin("In", 8, true));
+		Pin out = inner.addComponent(new Pin("Out", 8, false));
+		not.getPort(0).linkPort(in.getPort(Pin.PORT));
+		not.getPort(1).linkPort(out.getPort(Pin.PORT));
+		
+		Circuit outer = new Circuit("Outer", sim);
+		Subcircuit first = outer.addComponent(new Subcircuit("First", inner));
+		Subcircuit second = outer.addComponent(new Subcircuit("Second", inner));
+		Pin outerIn = outer.addComponent(new Pin("In", 8, true));
+		Pin outerOut = outer.addComponent(new Pin("Out", 8, false));
+		first.getPort(in).linkPort(outerIn.getPort(Pin.PORT));
+		first.getPort(out).linkPort(second.getPort(in));
+		second.getPort(out).linkPort(outerOut.getPort(Pin.PORT));
+		
+		sim.stepAll();
+		toggle(sim, outer.getTopLevelState(), outerIn);
+		
+		SimulationProfiler.Report report = profiler.createReport();
+		// Outer, the Inverter top-level state, and one state per Subcircuit instance
+		if(report.getStates().size() != 4) {
+			throw new IllegalStateException("Expected 4 circuit states, got " + report.getStates().size());
+		}
+		
+		// The Not gate is evaluated in both Subcircuit instances
+		sim.runSync(profiler::reset);
+		toggle(sim, outer.getTopLevelState(), outerIn);
+		checkEntry(profiler.createReport(), "Not", 2 * CHANGES, -1, 2 * CHANGES);
+	}
+	
+	private static void testRemovedComponent() {
+		Simulator sim = new Simulator();
+		SimulationProfiler profiler = new SimulationProfiler();
+		sim.setProfiler(profiler);
+		
+		Circuit circuit = new Circuit("Removed", sim);
+		Pin in = circuit.addComponent(new Pin("In", 8, true));
+		NotGate removed = circuit.addComponent(new NotGate("Removed", 8));
+		removed.getPort(0).linkPort(in.getPort(Pin.PORT));
+		sim.stepAll();
+		toggle(sim, circuit.getTopLevelState(), in);
+		
+		if(find(profiler.createReport(), "Removed") == null) {
+			throw new IllegalStateException("Expected an entry for the Not gate before it is removed");
+		}
+		
+		removed.getPort(0).unlinkPort(in.getPort(Pin.PORT));
+		circuit.removeComponent(removed);
+		removed = null;
+		toggle(sim, circuit.getTopLevelState(), in);
+		
+		// The profiler only holds weak references, so the entry disappears once the Not gate is collected
+		for(int i = 0; i < 100 && find(profiler.createReport(), "Removed") != null; i++) {
+			System.gc();
+			try {
+				Thread.sleep(10);
+			} catch(InterruptedException exc) {
+				break;
+			}
+		}
+		
+		if(find(profiler.createReport(), "Removed") != null) {
+			throw new IllegalStateException("Removed component is still in the report");
+		}
+		if(find(profiler.createReport(), "In") == null) {
+			throw new IllegalStateException("Expected the remaining Pin to stay in the report");
+		}
+	}
+	
+	private static void toggle(Simulator sim, CircuitState state, Pin in) {
+		for(int i = 1; i <= CHANGES; i++) {
+			// Alternate between two values so every change reaches the output
+			in.setValue(state, WireValue.of(i % 2 == 0 ? 0x0F : 0xF0, 8));
+			sim.stepAll();
+		}
+	}
+	
+	private static SimulationProfiler.Entry find(SimulationProfiler.Report report, String name) {
+		for(SimulationProfiler.Entry entry : report.getComponents()) {
+			if(entry.getName().equals(name)) {
+				return entry;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @param sampledEvaluations The expected number of sampled evaluations, or -1 to skip checking it.
+	 */
+	private static void checkEntry(SimulationProfiler.Report report,
+	                               String name,
+	                               long evaluations,
+	                               long sampledEvaluations,
+	                               long pushes) {
+		SimulationProfiler.Entry entry = find(report, name);
+		if(entry == null) {
+			throw new IllegalStateException("No entry for " + name);
+		}
+		
+		check(entry.getEvaluations(), evaluations, name + " evaluations");
+		if(sampledEvaluations >= 0) {
+			check(entry.getSampledEvaluations(), sampledEvaluations, name + " sampled evaluations");
+		}
+		check(entry.getPushes(), pushes, name + " pushes");
+	}
+	
+	private static void check(double value, double expected, String what) {
+		if(value != expected) {
+			throw new IllegalStateException("Expected " + what + " to be " + expected + ", got " + value);
+		}
+	}
+}
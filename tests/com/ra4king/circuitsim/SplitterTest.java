@@ -56,5 +56,35 @@ public class SplitterTest {
 		
 		
 		sim.stepAll();
+		
+		WireValue result = circuit.getTopLevelState().getLastReceived(out.getPort(Pin.PORT));
+		if(!result.isValidValue() || result.getValue() != (0xFF & 0x55 & 0x15)) {
+			throw new IllegalStateException("Expected " + WireValue.of(0xFF & 0x55 & 0x15, bits) + ", got " + result);
+		}
+		
+		// Uneven fans, with bits 2 and 5 not routed anywhere: 0 -> fan 1, 1 -> fan 0, 3..4 -> fan 2, 6..7 -> fan 0
+		Circuit uneven = new Circuit("Uneven Splitter Test", sim);
+		Splitter split = uneven.addComponent(new Splitter("Split", new int[] { 1, 0, -1, 2, 2, -1, 0, 0 }));
+		Splitter join = uneven.addComponent(new Splitter("Join", new int[] { 1, 0, -1, 2, 2, -1, 0, 0 }));
+		Pin in = uneven.addComponent(new Pin("In", 8, true));
+		Pin joined = uneven.addComponent(new Pin("Out", 8, false));
+		in.getPort(Pin.PORT).linkPort(split.getPort(split.PORT_JOINED));
+		joined.getPort(Pin.PORT).linkPort(join.getPort(join.PORT_JOINED));
+		for(int i = 0; i < 3; i++) {
+			split.getPort(i).linkPort(join.getPort(i));
+		}
+		
+		in.setValue(uneven.getTopLevelState(), WireValue.of(0b11011001, 8));
+		sim.stepAll();
+		
+		WireValue fan0 = uneven.getTopLevelState().getLastReceived(join.getPort(0));
+		if(!fan0.isValidValue() || fan0.getValue() != 0b110) {
+			throw new IllegalStateException("Expected 110 on fan 0, got " + fan0);
+		}
+		
+		result = uneven.getTopLevelState().getLastReceived(joined.getPort(Pin.PORT));
+		if(!result.toString().equals("11x11x01")) {
+			throw new IllegalStateException("Expected 11x11x01, got " + result);
+		}
 	}
 }
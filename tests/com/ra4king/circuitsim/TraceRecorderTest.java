@@ -0,0 +1,135 @@
+package com.ra4king.circuitsim;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.TraceIndex;
+import com.ra4king.circuitsim.simulator.TraceIndex.ChangeList;
+import com.ra4king.circuitsim.simulator.TraceRecorder;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.gates.NotGate;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class TraceRecorderTest {
+	public static void main(String[] args) throws Exception {
+		Simulator simulator = new Simulator();
+		Circuit circuit = new Circuit("Inverter", simulator);
+		
+		Pin in = circuit.addComponent(new Pin("In", 4, true));
+		NotGate not = circuit.addComponent(new NotGate("Not", 4));
+		Pin out = circuit.addComponent(new Pin("Out", 4, false));
+		
+		not.getPort(0).linkPort(in.getPort(Pin.PORT));
+		not.getOutPort().linkPort(out.getPort(Pin.PORT));
+		simulator.stepAll();
+		
+		TraceRecorder recorder = new TraceRecorder(1024 * 1024);
+		simulator.setTraceRecorder(recorder);
+		
+		for(int i = 1; i < 16; i++) {
+			in.setValue(circuit.getTopLevelState(), WireValue.of(i, 4));
+			simulator.stepAll();
+			recorder.nextCycle();
+		}
+		
+		// Every value change of both links is recorded once
+		if(recorder.getSignals().size() != 2) {
+			throw new IllegalStateException("Expected 2 signals, got " + recorder.getSignals().size());
+		}
+		if(recorder.size() != 30) {
+			throw new IllegalStateException("Expected 30 changes, got " + recorder.size());
+		}
+		
+		// Setting the same value again does not record anything
+		in.setValue(circuit.getTopLevelState(), WireValue.of(15, 4));
+		simulator.stepAll();
+		if(recorder.size() != 30) {
+			throw new IllegalStateException("Expected 30 changes, got " + recorder.size());
+		}
+		
+		int[] count = new int[1];
+		recorder.forEachChange((cycle, time, signal, ones, xs) -> {
+			if(xs != 0) {
+				throw new IllegalStateException("Unexpected X in " + signal.getName());
+			}
+			int expected = (count[0] >> 1) + 1;
+			if(signal.getId() == 1) {
+				expected = ~expected & 0xF;
+			}
+			if(ones != expected) {
+				throw new IllegalStateException("Cycle " + cycle + ": " + signal.getName() + " was " + ones);
+			}
+			count[0]++;
+		});
+		
+		StringBuilder vcd = new StringBuilder();
+		recorder.writeVcd(vcd);
+		System.out.println(vcd);
+		
+		// The index answers time lookups the same way a linear scan does, across many skip index blocks
+		for(int i = 0; i < 1000; i++) {
+			in.setValue(circuit.getTopLevelState(), WireValue.of(i % 16, 4));
+			simulator.stepAll();
+		}
+		
+		TraceIndex index = new TraceIndex();
+		simulator.runSync(() -> index.update(recorder));
+		ChangeList changes = index.getChanges(circuit.getTopLevelState(), in.getPort(Pin.PORT).getLink());
+		if(changes == null || changes.size() != 15 + 1000) {
+			throw new IllegalStateException("Expected 1015 changes, got " + (changes == null ? 0 : changes.size()));
+		}
+		
+		for(long time = index.getStartTime() - 1; time <= index.getEndTime() + 1; time++) {
+			int expected = -1;
+			while(expected + 1 < changes.size() && changes.getTime(expected + 1) <= time) {
+				expected++;
+			}
+			if(changes.indexAt(time) != expected) {
+				throw new IllegalStateException("Time " + time + ": expected " + expected + ", got " +
+				                                changes.indexAt(time));
+			}
+		}
+		
+		// Updating again only copies the new changes
+		in.setValue(circuit.getTopLevelState(), WireValue.of(3, 4));
+		simulator.stepAll();
+		simulator.runSync(() -> index.update(recorder));
+		if(changes.size() != 1016) {
+			throw new IllegalStateException("Expected 1016 changes, got " + changes.size());
+		}
+		
+		// A tiny buffer keeps only the newest changes
+		TraceRecorder small = new TraceRecorder(4 * TraceRecorder.BYTES_PER_CHANGE);
+		simulator.setTraceRecorder(small);
+		for(int i = 1; i < 16; i++) {
+			in.setValue(circuit.getTopLevelState(), WireValue.of(i, 4));
+			simulator.stepAll();
+		}
+		if(small.size() != 4 || small.getDroppedChanges() != 26) {
+			throw new IllegalStateException(
+				"Expected 4 changes and 26 dropped, got " + small.size() + " and " + small.getDroppedChanges());
+		}
+		
+		// The index evicts what a full recorder overwrites, keeping the value before its first change
+		TraceIndex smallIndex = new TraceIndex();
+		for(int i = 0; i < 2000; i++) {
+			in.setValue(circuit.getTopLevelState(), WireValue.of(i % 16, 4));
+			simulator.stepAll();
+			simulator.runSync(() -> smallIndex.update(small));
+		}
+		
+		ChangeList inChanges = smallIndex.getChanges(circuit.getTopLevelState(), in.getPort(Pin.PORT).getLink());
+		if(inChanges.size() > 2 * small.size()) {
+			throw new IllegalStateException("Index kept " + inChanges.size() + " changes, recorder " + small.size());
+		}
+		if(inChanges.getOnes(inChanges.size() - 1) != 1999 % 16
+			   || inChanges.getOnes(-1) != (inChanges.getOnes(0) + 15) % 16
+			   || smallIndex.getStartTime() > inChanges.getTime(0)) {
+			throw new IllegalStateException("Wrong values kept after eviction");
+		}
+		
+		System.out.println("All tests passed.");
+	}
+}
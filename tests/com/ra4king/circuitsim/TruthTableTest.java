@@ -0,0 +1,206 @@
+package com.ra4king.circuitsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.Component;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.WireValue.State;
+import com.ra4king.circuitsim.simulator.batch.TruthTable;
+import com.ra4king.circuitsim.simulator.components.Subcircuit;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Adder;
+import com.ra4king.circuitsim.simulator.components.memory.Register;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class TruthTableTest {
+	public static void main(String[] args) {
+		Simulator simulator = new Simulator();
+		
+		// Bit-parallel and scalar evaluation of the same adder must agree with each other and with Java
+		Circuit adder = adder(simulator, 4);
+		TruthTable table = TruthTable.compute(adder, TruthTable.DEFAULT_MAX_INPUT_BITS);
+		checkAdder(table, 4, true);
+		
+		Circuit wrapper = wrap(simulator, adder);
+		TruthTable scalar = TruthTable.compute(wrapper, TruthTable.DEFAULT_MAX_INPUT_BITS);
+		checkAdder(scalar, 4, true);
+		
+		Circuit fullAdder = adder(simulator, 1);
+		TruthTable fullAdderTable = TruthTable.compute(fullAdder, TruthTable.DEFAULT_MAX_INPUT_BITS);
+		System.out.print(fullAdderTable);
+		expect(fullAdderTable.getOutputName(0) + " = " + fullAdderTable.getSumOfProducts(0),
+		       "Cout = A B + A Cin + B Cin");
+		expect(fullAdderTable.getOutputName(1) + " = " + fullAdderTable.getSumOfProducts(1),
+		       "Out = A B Cin + A B' Cin' + A' B Cin' + A' B' Cin");
+		
+		// Every output bit of a 3-bit adder, minimized and evaluated back
+		TruthTable small = TruthTable.compute(adder(simulator, 3), TruthTable.DEFAULT_MAX_INPUT_BITS);
+		for(int bit = 0; bit < small.getOutputBits(); bit++) {
+			String sop = small.getSumOfProducts(bit);
+			System.out.println(small.getOutputName(bit) + " = " + sop);
+			checkSumOfProducts(small, bit, sop);
+		}
+		
+		// An unconnected output is X everywhere, so it minimizes to 0
+		Circuit unconnected = new Circuit("Unconnected", simulator);
+		unconnected.addComponent(new Pin("A", 2, true));
+		unconnected.addComponent(new Pin("Out", 1, false));
+		TruthTable xs = TruthTable.compute(unconnected, TruthTable.DEFAULT_MAX_INPUT_BITS);
+		if(xs.getOutputBit(3, 0) != State.X || !xs.getSumOfProducts(0).equals("0")) {
+			throw new IllegalStateException("Expected an X output minimizing to 0");
+		}
+		
+		try {
+			TruthTable.compute(adder, 8);
+			throw new IllegalStateException("Expected the 9 input bits to be rejected");
+		} catch(IllegalArgumentException exc) {
+			// expected
+		}
+		
+		// State would carry over from row to row
+		Circuit sequential = new Circuit("Sequential", simulator);
+		Register register = sequential.addComponent(new Register("Register", 1));
+		Pin in = sequential.addComponent(new Pin("In", 1, true));
+		Pin registerOut = sequential.addComponent(new Pin("Out", 1, false));
+		register.getPort(Register.PORT_IN).linkPort(in.getPort(Pin.PORT));
+		register.getPort(Register.PORT_OUT).linkPort(registerOut.getPort(Pin.PORT));
+		try {
+			TruthTable.compute(wrap(simulator, sequential), TruthTable.DEFAULT_MAX_INPUT_BITS);
+			throw new IllegalStateException("Expected the sequential circuit to be rejected");
+		} catch(IllegalArgumentException exc) {
+			// expected
+		}
+		
+		// 20 inputs, leaving Cin out so it is 0
+		Circuit large = adder(simulator, 10);
+		List<Pin> inputs = new ArrayList<>();
+		List<Pin> outputs = new ArrayList<>();
+		for(Component component : large.getComponents()) {
+			if(component instanceof Pin && !component.getName().equals("Cin")) {
+				Pin pin = (Pin)component;
+				(pin.isInput() ? inputs : outputs).add(pin);
+			}
+		}
+		inputs.sort(Comparator.comparing(Pin::getName));
+		outputs.sort(Comparator.comparing(Pin::getName));
+		
+		long start = System.nanoTime();
+		TruthTable largeTable = TruthTable.compute(large, inputs, outputs, TruthTable.DEFAULT_MAX_INPUT_BITS);
+		long time = (System.nanoTime() - start) / 1000000;
+		System.out.println("Computed " + largeTable.getRowCount() + " rows in " + time + "ms");
+		checkAdder(largeTable, 10, false);
+		
+		// Out[0] only depends on 2 of the 20 inputs
+		expect(largeTable.getSumOfProducts(largeTable.getOutputBits() - 1), "A[0] B[0]' + A[0]' B[0]");
+		
+		System.out.println("All tests passed.");
+	}
+	
+	/**
+	 * A + B + Cin, with inputs A, B, Cin and outputs Cout, Out once sorted by name.
+	 */
+	private static Circuit adder(Simulator simulator, int bits) {
+		Circuit circuit = new Circuit("Adder" + bits, simulator);
+		Pin a = circuit.addComponent(new Pin("A", bits, true));
+		Pin b = circuit.addComponent(new Pin("B", bits, true));
+		Pin carryIn = circuit.addComponent(new Pin("Cin", 1, true));
+		Pin out = circuit.addComponent(new Pin("Out", bits, false));
+		Pin carryOut = circuit.addComponent(new Pin("Cout", 1, false));
+		
+		Adder adder = circuit.addComponent(new Adder("", bits));
+		adder.getPort(Adder.PORT_A).linkPort(a.getPort(Pin.PORT));
+		adder.getPort(Adder.PORT_B).linkPort(b.getPort(Pin.PORT));
+		adder.getPort(Adder.PORT_CARRY_IN).linkPort(carryIn.getPort(Pin.PORT));
+		adder.getPort(Adder.PORT_OUT).linkPort(out.getPort(Pin.PORT));
+		adder.getPort(Adder.PORT_CARRY_OUT).linkPort(carryOut.getPort(Pin.PORT));
+		return circuit;
+	}
+	
+	/**
+	 * The circuit as a Subcircuit, with a Pin of the same name for each of its Pins.
+	 */
+	private static Circuit wrap(Simulator simulator, Circuit circuit) {
+		Circuit wrapper = new Circuit("Wrapper", simulator);
+		Subcircuit subcircuit = wrapper.addComponent(new Subcircuit("", circuit));
+		for(Pin pin : subcircuit.getPins()) {
+			Pin outer = wrapper.addComponent(new Pin(pin.getName(), pin.getBitSize(), pin.isInput()));
+			outer.getPort(Pin.PORT).linkPort(subcircuit.getPort(pin));
+		}
+		return wrapper;
+	}
+	
+	private static void checkAdder(TruthTable table, int bits, boolean hasCarryIn) {
+		int mask = (1 << bits) - 1;
+		int inputBits = 2 * bits + (hasCarryIn ? 1 : 0);
+		int rows = table.getRowCount();
+		if(rows != 1 << inputBits) {
+			throw new IllegalStateException("Expected " + inputBits + " input bits, got " + rows + " rows");
+		}
+		
+		Pin carryOut = table.getOutputs().get(0);
+		Pin out = table.getOutputs().get(1);
+		for(int row = 0; row < rows; row++) {
+			int carryIn = hasCarryIn ? row & 1 : 0;
+			int b = row >>> (inputBits - 2 * bits) & mask;
+			int a = row >>> (inputBits - bits);
+			int sum = a + b + carryIn;
+			check(table.getOutputValue(row, out), sum & mask, row);
+			check(table.getOutputValue(row, carryOut), sum >>> bits, row);
+		}
+	}
+	
+	private static void check(WireValue value, int expected, int row) {
+		if(!value.isValidValue() || value.getValue() != expected) {
+			throw new IllegalStateException("Row " + row + ": expected " + expected + ", got " + value);
+		}
+	}
+	
+	/**
+	 * Evaluates the sum of products for every row and compares it to the table.
+	 */
+	private static void checkSumOfProducts(TruthTable table, int outputBit, String sop) {
+		String[] names = new String[table.getInputBits()];
+		for(int i = 0; i < names.length; i++) {
+			names[i] = table.getInputName(i);
+		}
+		
+		for(int row = 0; row < table.getRowCount(); row++) {
+			boolean result = false;
+			for(String product : sop.split(" \\+ ")) {
+				boolean term = true;
+				for(String literal : product.split(" ")) {
+					if(literal.equals("1") || literal.equals("0")) {
+						term = literal.equals("1");
+						continue;
+					}
+					
+					boolean negated = literal.endsWith("'");
+					int variable = Arrays.asList(names).indexOf(negated ? literal.substring(0, literal.length() - 1)
+					                                                   : literal);
+					boolean bit = (row >>> (names.length - 1 - variable) & 1) != 0;
+					term &= bit != negated;
+				}
+				result |= term;
+			}
+			
+			State expected = table.getOutputBit(row, outputBit);
+			if(expected != State.X && (expected == State.ONE) != result) {
+				throw new IllegalStateException("Row " + row + " of " + sop + ": expected " + expected);
+			}
+		}
+	}
+	
+	private static void expect(String actual, String expected) {
+		System.out.println(actual);
+		if(!actual.equals(expected)) {
+			throw new IllegalStateException("Expected " + expected);
+		}
+	}
+}
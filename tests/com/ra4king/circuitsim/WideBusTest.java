@@ -0,0 +1,146 @@
+package com.ra4king.circuitsim;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import com.ra4king.circuitsim.simulator.Circuit;
+import com.ra4king.circuitsim.simulator.CircuitState;
+import com.ra4king.circuitsim.simulator.Component;
+import com.ra4king.circuitsim.simulator.Simulator;
+import com.ra4king.circuitsim.simulator.WireValue;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Adder;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Comparator;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Divider;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Multiplier;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Shifter;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Shifter.ShiftType;
+import com.ra4king.circuitsim.simulator.components.arithmetic.Subtractor;
+import com.ra4king.circuitsim.simulator.components.memory.RAM;
+import com.ra4king.circuitsim.simulator.components.wiring.Pin;
+
+/**
+ * @author Roi Atalla
+ */
+public class WideBusTest {
+	public static void main(String[] args) {
+		if(WireValue.of(-1L, 64).getLongValue() != -1L || WireValue.of(1L << 40, 41).getBit(40) != WireValue.State.ONE) {
+			throw new IllegalStateException("WireValue.of is wrong above 31 bits");
+		}
+		
+		Random random = new Random(42);
+		for(int bitSize : new int[] { 1, 8, 31, 32, 33, 48, 63, 64 }) {
+			BigInteger mod = BigInteger.ONE.shiftLeft(bitSize);
+			
+			Simulator simulator = new Simulator();
+			Circuit circuit = new Circuit("Wide " + bitSize, simulator);
+			Pin a = circuit.addComponent(new Pin("A", bitSize, true));
+			Pin b = circuit.addComponent(new Pin("B", bitSize, true));
+			Pin carry = circuit.addComponent(new Pin("Carry", 1, true));
+			
+			Adder adder = circuit.addComponent(new Adder("Adder", bitSize));
+			Subtractor subtractor = circuit.addComponent(new Subtractor("Subtractor", bitSize));
+			Multiplier multiplier = circuit.addComponent(new Multiplier("Multiplier", bitSize));
+			Divider divider = circuit.addComponent(new Divider("Divider", bitSize));
+			Comparator unsigned = circuit.addComponent(new Comparator("Unsigned", bitSize, false));
+			Comparator signed = circuit.addComponent(new Comparator("Signed", bitSize, true));
+			for(Component component : new Component[] { adder, subtractor, multiplier, divider, unsigned, signed }) {
+				component.getPort(0).linkPort(a.getPort(Pin.PORT));
+				component.getPort(1).linkPort(b.getPort(Pin.PORT));
+			}
+			adder.getPort(Adder.PORT_CARRY_IN).linkPort(carry.getPort(Pin.PORT));
+			subtractor.getPort(Subtractor.PORT_CARRY_IN).linkPort(carry.getPort(Pin.PORT));
+			
+			Shifter[] shifters = new Shifter[ShiftType.values().length];
+			for(int i = 0; i < shifters.length; i++) {
+				shifters[i] = circuit.addComponent(new Shifter(ShiftType.values()[i].name(), bitSize, ShiftType.values()[i]));
+				shifters[i].getPort(Shifter.PORT_IN).linkPort(a.getPort(Pin.PORT));
+			}
+			int shiftBits = shifters[0].getPort(Shifter.PORT_SHIFT).getLink().getBitSize();
+			Pin shiftAmount = circuit.addComponent(new Pin("Shift", shiftBits, true));
+			for(Shifter shifter : shifters) {
+				shifter.getPort(Shifter.PORT_SHIFT).linkPort(shiftAmount.getPort(Pin.PORT));
+			}
+			
+			CircuitState state = circuit.getTopLevelState();
+			for(int i = 0; i < 200; i++) {
+				long valueA = random.nextLong(), valueB = random.nextLong();
+				if(i % 10 == 0) {
+					valueB = valueA;
+				}
+				int carryIn = random.nextInt(2);
+				a.setValue(state, WireValue.of(valueA, bitSize));
+				b.setValue(state, WireValue.of(valueB, bitSize));
+				carry.setValue(state, WireValue.of(carryIn, 1));
+				simulator.stepAll();
+				
+				BigInteger bigA = unsigned(valueA, bitSize), bigB = unsigned(valueB, bitSize);
+				BigInteger c = BigInteger.valueOf(carryIn);
+				
+				BigInteger sum = bigA.add(bigB).add(c);
+				check(state, adder, Adder.PORT_OUT, sum.mod(mod));
+				check(state, adder, Adder.PORT_CARRY_OUT, sum.shiftRight(bitSize));
+				
+				BigInteger difference = bigA.subtract(bigB).subtract(c);
+				check(state, subtractor, Subtractor.PORT_OUT, difference.mod(mod));
+				check(state, subtractor, Subtractor.PORT_CARRY_OUT, BigInteger.valueOf(difference.signum() < 0 ? 1 : 0));
+				
+				// The multiplier's carry in is bitSize wide and left unconnected
+				BigInteger product = bigA.multiply(bigB);
+				check(state, multiplier, Multiplier.PORT_OUT_LOWER, product.mod(mod));
+				check(state, multiplier, Multiplier.PORT_OUT_UPPER, product.shiftRight(bitSize));
+				
+				if(bigB.signum() != 0) {
+					check(state, divider, Divider.PORT_QUOTIENT, bigA.divide(bigB));
+					check(state, divider, Divider.PORT_REMAINDER, bigA.mod(bigB));
+				}
+				
+				int comparison = bigA.compareTo(bigB);
+				check(state, unsigned, Comparator.PORT_LT, BigInteger.valueOf(comparison < 0 ? 1 : 0));
+				check(state, unsigned, Comparator.PORT_GT, BigInteger.valueOf(comparison > 0 ? 1 : 0));
+				int signedComparison = signed(bigA, bitSize).compareTo(signed(bigB, bitSize));
+				check(state, signed, Comparator.PORT_LT, BigInteger.valueOf(signedComparison < 0 ? 1 : 0));
+				check(state, signed, Comparator.PORT_EQ, BigInteger.valueOf(signedComparison == 0 ? 1 : 0));
+				
+				int shift = random.nextInt(Math.min(bitSize, 1 << shiftBits));
+				shiftAmount.setValue(state, WireValue.of(shift, shiftBits));
+				simulator.stepAll();
+				check(state, shifters[ShiftType.LOGICAL_LEFT.ordinal()], Shifter.PORT_OUT, bigA.shiftLeft(shift).mod(mod));
+				check(state, shifters[ShiftType.LOGICAL_RIGHT.ordinal()], Shifter.PORT_OUT, bigA.shiftRight(shift));
+				check(state, shifters[ShiftType.ARITHMETIC_RIGHT.ordinal()], Shifter.PORT_OUT,
+				      signed(bigA, bitSize).shiftRight(shift).mod(mod));
+				check(state, shifters[ShiftType.ROTATE_LEFT.ordinal()], Shifter.PORT_OUT,
+				      bigA.shiftLeft(shift).or(bigA.shiftRight(bitSize - shift)).mod(mod));
+				check(state, shifters[ShiftType.ROTATE_RIGHT.ordinal()], Shifter.PORT_OUT,
+				      bigA.shiftRight(shift).or(bigA.shiftLeft(bitSize - shift)).mod(mod));
+			}
+		}
+		
+		// A 64-bit RAM keeps full words
+		Simulator simulator = new Simulator();
+		Circuit circuit = new Circuit("RAM", simulator);
+		RAM ram = circuit.addComponent(new RAM("RAM", 64, 4, false));
+		ram.store(circuit.getTopLevelState(), 3, 0x8000_0001_2345_6789L);
+		if(ram.load(circuit.getTopLevelState(), 3) != 0x8000_0001_2345_6789L) {
+			throw new IllegalStateException("Expected a 64-bit word, got " + ram.load(circuit.getTopLevelState(), 3));
+		}
+		
+		System.out.println("All tests passed.");
+	}
+	
+	private static BigInteger unsigned(long value, int bitSize) {
+		BigInteger big = new BigInteger(Long.toUnsignedString(value));
+		return big.mod(BigInteger.ONE.shiftLeft(bitSize));
+	}
+	
+	private static BigInteger signed(BigInteger value, int bitSize) {
+		return value.testBit(bitSize - 1) ? value.subtract(BigInteger.ONE.shiftLeft(bitSize)) : value;
+	}
+	
+	private static void check(CircuitState state, Component component, int port, BigInteger expected) {
+		WireValue value = state.getMergedValue(component.getPort(port).getLink());
+		if(!value.isValidValue() || !unsigned(value.getLongValue(), value.getBitSize()).equals(expected)) {
+			throw new IllegalStateException(component + " port " + port + ": expected " + expected.toString(16) +
+			                                ", got " + value);
+		}
+	}
+}
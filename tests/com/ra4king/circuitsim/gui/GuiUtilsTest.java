@@ -0,0 +1,78 @@
+package com.ra4king.circuitsim.gui;
+
+import javafx.geometry.Bounds;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+/**
+ * @author Roi Atalla
+ */
+public class GuiUtilsTest {
+	public static void main(String[] args) {
+		testMonospaceBounds();
+		testBoundsSeenCap();
+		
+		System.out.println("All tests passed.");
+	}
+	
+	/**
+	 * Bounds of ASCII strings in the fonts from getFont are computed from their length, and must match measuring them.
+	 */
+	private static void testMonospaceBounds() {
+		String[] strings = {
+			"",
+			"0",
+			"x",
+			"0x1F",
+			"Hello, World!",
+			"~!@#$%^&*()_+{}|:\"<>?`-=[]\\;',./",
+			"The quick brown fox jumps over the lazy dog 0123456789",
+		};
+		
+		for(int size : new int[] { 10, 13, 16 }) {
+			for(int style = 0; style < 4; style++) {
+				Font font = GuiUtils.getFont(size, (style & 1) != 0, (style & 2) != 0);
+				for(String string : strings) {
+					Text text = new Text(string);
+					text.setFont(font);
+					check(font, string, text.getLayoutBounds(), GuiUtils.getBounds(font, string));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Strings that cannot be measured arithmetically go through boundsSeen, which must stay bounded.
+	 */
+	private static void testBoundsSeenCap() {
+		Font font = GuiUtils.getFont(13);
+		for(int i = 0; i < GuiUtils.MAX_BOUNDS_SEEN * 2; i++) {
+			String string = "\u00e9" + i;
+			GuiUtils.getBounds(font, string);
+			
+			if(GuiUtils.getBoundsSeenSize() > GuiUtils.MAX_BOUNDS_SEEN) {
+				throw new IllegalStateException("Bounds cache grew to " + GuiUtils.getBoundsSeenSize() + " entries");
+			}
+		}
+		
+		if(GuiUtils.getBoundsSeenSize() != GuiUtils.MAX_BOUNDS_SEEN) {
+			throw new IllegalStateException("Expected a full bounds cache, got " + GuiUtils.getBoundsSeenSize());
+		}
+		
+		// Cached bounds are still the measured ones
+		String string = "\u00e9" + (GuiUtils.MAX_BOUNDS_SEEN * 2 - 1);
+		Text text = new Text(string);
+		text.setFont(font);
+		check(font, string, text.getLayoutBounds(), GuiUtils.getBounds(font, string));
+	}
+	
+	private static void check(Font font, String string, Bounds expected, Bounds actual) {
+		double epsilon = 1e-3;
+		if(Math.abs(expected.getMinX() - actual.getMinX()) > epsilon ||
+		   Math.abs(expected.getMinY() - actual.getMinY()) > epsilon ||
+		   Math.abs(expected.getWidth() - actual.getWidth()) > epsilon ||
+		   Math.abs(expected.getHeight() - actual.getHeight()) > epsilon) {
+			throw new IllegalStateException(font + " \"" + string + "\": expected " + expected + ", got " + actual);
+		}
+	}
+}